@@ -204,10 +204,17 @@ public class EventCondition extends Condition {
 
     public void setExpression(String expression) {
         this.expression = expression;
+        this.compiledPattern = null;
     }
 
     private static Pattern cleanComma = Pattern.compile("\\\\,");
 
+    /*
+        Compiled pattern of the matches operator, built on first use. Pattern.pattern() holds the regex it was
+        compiled from.
+     */
+    private transient volatile Pattern compiledPattern;
+
     public boolean match(Event value) {
         if (null == value) {
             return false;
@@ -269,7 +276,8 @@ public class EventCondition extends Condition {
         String sEventValue = null;
         Long lEventValue = null;
         String sConstantValue = null;
-        Double dConstantValue = null;
+        boolean numericConstant = false;
+        double dConstantValue = 0;
 
         if (isEmpty(eventField)) {
             return false;
@@ -303,23 +311,24 @@ public class EventCondition extends Condition {
         } else if (constant.charAt(0) != '\'' && constant.charAt(constantLength - 1) == '\'') {
             return false;
         } else {
-            dConstantValue = Double.valueOf(constant);
+            dConstantValue = Double.parseDouble(constant);
+            numericConstant = true;
         }
 
         if (EQ.equals(operator)) {
             if (sEventValue != null && sConstantValue != null) {
                 return sEventValue.equals(sConstantValue);
             }
-            if (lEventValue != null && dConstantValue != null) {
-                return lEventValue.longValue() == dConstantValue.doubleValue();
+            if (lEventValue != null && numericConstant) {
+                return lEventValue.longValue() == dConstantValue;
             }
             return false;
         } else if (NON_EQ.equals(operator)) {
             if (sEventValue != null && sConstantValue != null) {
                 return !sEventValue.equals(sConstantValue);
             }
-            if (lEventValue != null && dConstantValue != null) {
-                return lEventValue.longValue() != dConstantValue.doubleValue();
+            if (lEventValue != null && numericConstant) {
+                return lEventValue.longValue() != dConstantValue;
             }
             return false;
         } else if (STARTS.equals(operator)) {
@@ -339,41 +348,49 @@ public class EventCondition extends Condition {
             return false;
         } else if (MATCHES.equals(operator)) {
             if (sEventValue != null && sConstantValue != null) {
-                return sEventValue.matches(sConstantValue);
+                return getPattern(sConstantValue).matcher(sEventValue).matches();
             }
             return false;
         } else if (GT.equals(operator)) {
-            Double dEventValue = lEventValue != null ? lEventValue.doubleValue() : null;
-            dEventValue = sEventValue != null ? Double.valueOf(sEventValue) : dEventValue;
-            if (dEventValue != null && dConstantValue != null) {
-                return dEventValue > dConstantValue;
+            if (numericConstant) {
+                return numericValue(sEventValue, lEventValue) > dConstantValue;
             }
             return false;
         } else if (GTE.equals(operator)) {
-            Double dEventValue = lEventValue != null ? lEventValue.doubleValue() : null;
-            dEventValue = sEventValue != null ? Double.valueOf(sEventValue) : dEventValue;
-            if (dEventValue != null && dConstantValue != null) {
-                return dEventValue >= dConstantValue;
+            if (numericConstant) {
+                return numericValue(sEventValue, lEventValue) >= dConstantValue;
             }
             return false;
         } else if (LT.equals(operator)) {
-            Double dEventValue = lEventValue != null ? lEventValue.doubleValue() : null;
-            dEventValue = sEventValue != null ? Double.valueOf(sEventValue) : dEventValue;
-            if (dEventValue != null && dConstantValue != null) {
-                return dEventValue < dConstantValue;
+            if (numericConstant) {
+                return numericValue(sEventValue, lEventValue) < dConstantValue;
             }
             return false;
         } else if (LTE.equals(operator)) {
-            Double dEventValue = lEventValue != null ? lEventValue.doubleValue() : null;
-            dEventValue = sEventValue != null ? Double.valueOf(sEventValue) : dEventValue;
-            if (dEventValue != null && dConstantValue != null) {
-                return dEventValue <= dConstantValue;
+            if (numericConstant) {
+                return numericValue(sEventValue, lEventValue) <= dConstantValue;
             }
             return false;
         }
         return false;
     }
 
+    private Pattern getPattern(String regex) {
+        Pattern p = compiledPattern;
+        if (null == p || !p.pattern().equals(regex)) {
+            p = Pattern.compile(regex);
+            compiledPattern = p;
+        }
+        return p;
+    }
+
+    /*
+        One of the values is not null, parsed without boxing
+     */
+    private static double numericValue(String sEventValue, Long lEventValue) {
+        return sEventValue != null ? Double.parseDouble(sEventValue) : lEventValue.doubleValue();
+    }
+
     @Override
     public void updateDisplayString() {
         String s = String.format("%s matches [%s]", this.dataId, this.expression);
@@ -16,10 +16,13 @@
  */
 package org.hawkular.alerts.api.model.condition;
 
+import java.util.regex.Pattern;
+
 import org.hawkular.alerts.api.doc.DocModel;
 import org.hawkular.alerts.api.doc.DocModelProperty;
 import org.hawkular.alerts.api.model.trigger.Mode;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 
@@ -60,6 +63,10 @@ public class StringCondition extends Condition {
     @JsonInclude
     private boolean ignoreCase;
 
+    /** Compiled pattern for MATCH and ignoreCase operators, built on first use. Not serialized. */
+    @JsonIgnore
+    private transient volatile Pattern compiledPattern;
+
     public StringCondition() {
         /*
             Default constructor is needed for JSON libraries in JAX-RS context.
@@ -138,6 +145,7 @@ public class StringCondition extends Condition {
 
     public void setIgnoreCase(boolean ignoreCase) {
         this.ignoreCase = ignoreCase;
+        this.compiledPattern = null;
     }
 
     public Operator getOperator() {
@@ -146,6 +154,7 @@ public class StringCondition extends Condition {
 
     public void setOperator(Operator operator) {
         this.operator = operator;
+        this.compiledPattern = null;
     }
 
     public String getPattern() {
@@ -154,13 +163,12 @@ public class StringCondition extends Condition {
 
     public void setPattern(String pattern) {
         this.pattern = pattern;
+        this.compiledPattern = null;
     }
 
     public boolean match(String value) {
-
-        if (ignoreCase && operator != Operator.MATCH) {
-            pattern = pattern.toLowerCase();
-            value = value.toLowerCase();
+        if (ignoreCase) {
+            return matchIgnoreCase(value);
         }
         switch (operator) {
             case EQUAL:
@@ -174,12 +182,57 @@ public class StringCondition extends Condition {
             case CONTAINS:
                 return value.contains(pattern);
             case MATCH:
-                return value.matches(ignoreCase ? ("(?i)" + pattern) : pattern);
+                return getCompiledPattern().matcher(value).matches();
+            default:
+                throw new IllegalStateException("Unknown operator: " + operator.name());
+        }
+    }
+
+    /*
+        All the operators compare with the same case insensitive Pattern flags, so a value that is EQUAL to the
+        pattern ignoring case also STARTS_WITH, ENDS_WITH, CONTAINS and MATCHes it.
+     */
+    private boolean matchIgnoreCase(String value) {
+        switch (operator) {
+            case EQUAL:
+                return getCompiledPattern().matcher(value).matches();
+            case NOT_EQUAL:
+                return !getCompiledPattern().matcher(value).matches();
+            case ENDS_WITH:
+                return getCompiledPattern().matcher(value).find();
+            case STARTS_WITH:
+                return getCompiledPattern().matcher(value).lookingAt();
+            case CONTAINS:
+                return getCompiledPattern().matcher(value).find();
+            case MATCH:
+                return getCompiledPattern().matcher(value).matches();
             default:
                 throw new IllegalStateException("Unknown operator: " + operator.name());
         }
     }
 
+    /*
+        The pattern is compiled once per condition instance, instead of on every evaluation.
+     */
+    private Pattern getCompiledPattern() {
+        Pattern p = compiledPattern;
+        if (null == p) {
+            int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+            switch (operator) {
+                case MATCH:
+                    p = Pattern.compile(pattern, flags);
+                    break;
+                case ENDS_WITH:
+                    p = Pattern.compile(Pattern.quote(pattern) + "\\z", flags);
+                    break;
+                default:
+                    p = Pattern.compile(pattern, Pattern.LITERAL | flags);
+            }
+            compiledPattern = p;
+        }
+        return p;
+    }
+
     @Override
     public void updateDisplayString() {
         String operator = null == this.operator ? null : this.operator.name();
@@ -25,8 +25,11 @@ import java.util.Map;
 import org.hawkular.alerts.api.doc.DocModel;
 import org.hawkular.alerts.api.doc.DocModelProperty;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * A base class for incoming data into alerts subsystem.  All {@link Data} has TenantId, Id and a timestamp. An Id
@@ -92,6 +95,13 @@ public class Data implements Comparable<Data>, Serializable {
     @JsonInclude(Include.NON_EMPTY)
     protected Map<String, String> context;
 
+    /**
+     * Parsed numeric value, shared by all the evaluations of the datum, null if not parsed yet. Not serialized.
+     * Volatile as the same datum can be evaluated concurrently by several shards.
+     */
+    @JsonIgnore
+    private transient volatile Double numericValue;
+
     /** For JSON Construction ONLY */
     public Data() {
         this(null, 0L, null);
@@ -174,21 +184,26 @@ public class Data implements Comparable<Data>, Serializable {
     }
 
     public static Data forNumeric(String tenantId, String id, long timestamp, Double value) {
-        return new Data(tenantId, null, id, timestamp, String.valueOf(value));
+        return numeric(new Data(tenantId, null, id, timestamp, String.valueOf(value)), value);
     }
 
     public static Data forNumeric(String tenantId, String source, String id, long timestamp, Double value) {
-        return new Data(tenantId, source, id, timestamp, String.valueOf(value));
+        return numeric(new Data(tenantId, source, id, timestamp, String.valueOf(value)), value);
     }
 
     public static Data forNumeric(String tenantId, String id, long timestamp, Double value,
             Map<String, String> context) {
-        return new Data(tenantId, null, id, timestamp, String.valueOf(value), null, context);
+        return numeric(new Data(tenantId, null, id, timestamp, String.valueOf(value), null, context), value);
     }
 
     public static Data forNumeric(String tenantId, String source, String id, long timestamp, Double value,
             Map<String, String> context) {
-        return new Data(tenantId, source, id, timestamp, String.valueOf(value), null, context);
+        return numeric(new Data(tenantId, source, id, timestamp, String.valueOf(value), null, context), value);
+    }
+
+    private static Data numeric(Data data, Double value) {
+        data.numericValue = value;
+        return data;
     }
 
     public static Data forString(String tenantId, String id, long timestamp, String value) {
@@ -269,6 +284,41 @@ public class Data implements Comparable<Data>, Serializable {
 
     public void setValue(String value) {
         this.value = value;
+        this.numericValue = null;
+    }
+
+    /**
+     * JSON numeric values are parsed once on deserialization, the rest are handled as {@link #setValue(String)}.
+     */
+    @JsonSetter("value")
+    private void setJsonValue(JsonNode value) {
+        if (null == value || value.isNull()) {
+            setValue(null);
+        } else if (value.isNumber()) {
+            this.value = value.asText();
+            this.numericValue = value.doubleValue();
+        } else if (value.isValueNode()) {
+            setValue(value.asText());
+        } else {
+            throw new IllegalArgumentException("Data value must be a single value: " + value);
+        }
+    }
+
+    /**
+     * The value parsed as a double, for numeric condition types. The value is parsed only once for the datum, so the
+     * evaluations of several conditions on the same datum do not parse or box it again.
+     * @return the numeric value
+     * @throws NumberFormatException if the value is not numeric
+     * @throws NullPointerException if the value is null
+     */
+    @JsonIgnore
+    public double getNumericValue() {
+        Double parsed = numericValue;
+        if (parsed == null) {
+            parsed = Double.parseDouble(value);
+            numericValue = parsed;
+        }
+        return parsed;
     }
 
     public Map<String, String> getContext() {
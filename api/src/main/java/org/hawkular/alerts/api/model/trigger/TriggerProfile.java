@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.api.model.trigger;
+
+import java.io.Serializable;
+
+import org.hawkular.alerts.api.doc.DocModel;
+import org.hawkular.alerts.api.doc.DocModelProperty;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Evaluation cost of a trigger in the rules engine of a node, accumulated since the profiling was enabled.
+ */
+@DocModel(description = "Evaluation cost of a <<Trigger>> in the rules engine of a node. + \n" +
+        "Only collected when the rules engine profiling is enabled.")
+public class TriggerProfile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @DocModelProperty(description = "Tenant id owner of the trigger.",
+            position = 0)
+    @JsonInclude
+    private String tenantId;
+
+    @DocModelProperty(description = "Trigger identifier.",
+            position = 1)
+    @JsonInclude
+    private String triggerId;
+
+    @DocModelProperty(description = "Number of rule firings attributed to the trigger.",
+            position = 2)
+    @JsonInclude
+    private long firings;
+
+    @DocModelProperty(description = "Number of condition evaluations created for the trigger.",
+            position = 3)
+    @JsonInclude
+    private long conditionEvals;
+
+    @DocModelProperty(description = "Cumulative evaluation time of the trigger in microseconds.",
+            position = 4)
+    @JsonInclude
+    private long evalTime;
+
+    public TriggerProfile() {
+        this(null, null, 0, 0, 0);
+    }
+
+    public TriggerProfile(String tenantId, String triggerId, long firings, long conditionEvals, long evalTime) {
+        this.tenantId = tenantId;
+        this.triggerId = triggerId;
+        this.firings = firings;
+        this.conditionEvals = conditionEvals;
+        this.evalTime = evalTime;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public String getTriggerId() {
+        return triggerId;
+    }
+
+    public void setTriggerId(String triggerId) {
+        this.triggerId = triggerId;
+    }
+
+    public long getFirings() {
+        return firings;
+    }
+
+    public void setFirings(long firings) {
+        this.firings = firings;
+    }
+
+    public long getConditionEvals() {
+        return conditionEvals;
+    }
+
+    public void setConditionEvals(long conditionEvals) {
+        this.conditionEvals = conditionEvals;
+    }
+
+    public long getEvalTime() {
+        return evalTime;
+    }
+
+    public void setEvalTime(long evalTime) {
+        this.evalTime = evalTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TriggerProfile that = (TriggerProfile) o;
+
+        if (tenantId != null ? !tenantId.equals(that.tenantId) : that.tenantId != null) return false;
+        return triggerId != null ? triggerId.equals(that.triggerId) : that.triggerId == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tenantId != null ? tenantId.hashCode() : 0;
+        result = 31 * result + (triggerId != null ? triggerId.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TriggerProfile{" +
+                "tenantId='" + tenantId + '\'' +
+                ", triggerId='" + triggerId + '\'' +
+                ", firings=" + firings +
+                ", conditionEvals=" + conditionEvals +
+                ", evalTime=" + evalTime +
+                '}';
+    }
+}
@@ -88,6 +88,18 @@ public interface AlertsService {
      */
     void persistEvents(Collection<Event> events) throws Exception;
 
+    /**
+     * Only persist the provided alerts and events, as generated by the engine. Note that every alert will also get
+     * a corresponding event. The persistence can complete after this call returns, onPersisted is invoked once
+     * the alerts and events are written, and it is not invoked if the write fails.
+     * @param alerts Set of unpersisted Alerts.
+     * @param events Set of unpersisted Events.
+     * @param onPersisted invoked when the alerts and events are written
+     * @throws Exception any problem
+     */
+    void persistAlertsAndEvents(Collection<Alert> alerts, Collection<Event> events, Runnable onPersisted)
+            throws Exception;
+
     /**
      * Add a note on an existing Alert.
      * If alertId doesn't exist then the note is ignored.
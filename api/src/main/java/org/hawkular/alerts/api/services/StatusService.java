@@ -16,8 +16,11 @@
  */
 package org.hawkular.alerts.api.services;
 
+import java.util.List;
 import java.util.Map;
 
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
+
 /**
  * Interface that allows to check main status of Hawkular Alerting system
  *
@@ -49,4 +52,23 @@ public interface StatusService {
      * @return Map with currentNode and members information for distributed scenarios
      */
     Map<String, String> getDistributedStatus();
+
+    /**
+     * Show the metrics of the engine pipeline on this node: counters, gauges and latency histograms.
+     * Histograms are flattened as name.count, name.min, name.max, name.mean, name.p50, name.p90, name.p99 and
+     * name.p999. Durations are in microseconds unless the name states another unit.
+     *
+     * @return Map with the metric values, sorted by name
+     */
+    Map<String, Long> getMetrics();
+
+    /**
+     * Show the costliest triggers of a tenant evaluated by the rules engine on this node. Profiling is opt-in,
+     * enabled with the hawkular-alerts.rules-engine-profiling property.
+     *
+     * @param tenantId the tenant of the triggers
+     * @param top the max number of triggers to return
+     * @return the costliest triggers first, empty if profiling is not enabled
+     */
+    List<TriggerProfile> getTriggerProfiles(String tenantId, int top);
 }
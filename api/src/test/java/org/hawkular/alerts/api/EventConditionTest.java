@@ -183,4 +183,24 @@ public class EventConditionTest {
         assertFalse(condition.match(bpmEvent2));
     }
 
+    @Test
+    public void testMatchesPatterns() {
+        EventCondition condition = new EventCondition("tenant", "trigger-1", "log",
+                "tags.server matches 'web-[0-9]+', tags.level matches 'WARN|ERROR'");
+        Event event = new Event();
+        event.addTag("server", "web-12");
+        event.addTag("level", "ERROR");
+
+        assertTrue(condition.match(event));
+        assertTrue(condition.match(event));
+
+        event.addTag("level", "INFO");
+        assertFalse(condition.match(event));
+
+        // the compiled patterns are refreshed with the new expression
+        condition.setExpression("tags.server matches 'db-[0-9]+'");
+        assertFalse(condition.match(event));
+        event.addTag("server", "db-1");
+        assertTrue(condition.match(event));
+    }
 }
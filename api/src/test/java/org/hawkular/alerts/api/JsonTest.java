@@ -1183,6 +1183,7 @@ public class JsonTest {
         assertTrue(nData.getId().equals("test"));
         assertTrue(nData.getTimestamp() == 1);
         assertTrue(Double.valueOf(nData.getValue()) == 10.45);
+        assertEquals(10.45, nData.getNumericValue(), 0.0);
         assertTrue(nData.getContext() != null);
         assertTrue(nData.getContext().size() == 2);
         assertTrue(nData.getContext().get("n1").equals("v1"));
@@ -1193,6 +1194,16 @@ public class JsonTest {
         assertTrue(output.contains("10.45"));
         assertTrue(output.contains("n1"));
         assertTrue(output.contains("v1"));
+        assertFalse(output.contains("numericValue"));
+
+        nData = objectMapper.readValue(output, Data.class);
+        assertEquals("10.45", nData.getValue());
+        assertEquals(10.45, nData.getNumericValue(), 0.0);
+
+        nData = Data.forNumeric("tenant", "test", 1, 20.5);
+        assertEquals(20.5, nData.getNumericValue(), 0.0);
+        nData.setValue("30.5");
+        assertEquals(30.5, nData.getNumericValue(), 0.0);
 
         str = "{\"id\":\"test\",\"timestamp\":1,\"value\":\"test-value\",\"context\":{\"n1\":\"v1\",\"n2\":\"v2\"}}";
         Data sData = objectMapper.readValue(str, Data.class);
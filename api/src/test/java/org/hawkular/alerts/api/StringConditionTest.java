@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.hawkular.alerts.api.model.condition.StringCondition;
+import org.hawkular.alerts.api.model.condition.StringCondition.Operator;
+import org.junit.Test;
+
+public class StringConditionTest {
+
+    @Test
+    public void testOperators() {
+        StringCondition condition = new StringCondition("tenant", "trigger-1", "log", Operator.EQUAL, "Error",
+                false);
+        assertTrue(condition.match("Error"));
+        assertFalse(condition.match("ERROR"));
+
+        condition.setIgnoreCase(true);
+        assertTrue(condition.match("ERROR"));
+        assertEquals("Error", condition.getPattern());
+
+        condition.setOperator(Operator.NOT_EQUAL);
+        assertFalse(condition.match("error"));
+        assertTrue(condition.match("warn"));
+
+        condition.setOperator(Operator.STARTS_WITH);
+        assertTrue(condition.match("ERROR: disk full"));
+        assertFalse(condition.match("Err"));
+
+        condition.setOperator(Operator.ENDS_WITH);
+        assertTrue(condition.match("Unexpected ERROR"));
+        assertFalse(condition.match("rror"));
+
+        condition.setOperator(Operator.CONTAINS);
+        assertTrue(condition.match("An ERROR happened"));
+        assertFalse(condition.match("An Err.r happened"));
+
+        condition.setIgnoreCase(false);
+        assertFalse(condition.match("An ERROR happened"));
+        assertTrue(condition.match("An Error happened"));
+    }
+
+    @Test
+    public void testMatch() {
+        StringCondition condition = new StringCondition("tenant", "trigger-1", "log", Operator.MATCH,
+                "Error.*disk", false);
+        assertTrue(condition.match("Error: disk"));
+        assertFalse(condition.match("error: disk"));
+
+        condition.setIgnoreCase(true);
+        assertTrue(condition.match("error: DISK"));
+
+        // the compiled pattern is refreshed with the new pattern
+        condition.setPattern("Warn.*");
+        assertFalse(condition.match("error: DISK"));
+        assertTrue(condition.match("WARNING"));
+    }
+
+    /*
+        Every operator ignores the case in the same way, for ASCII and non ASCII letters.
+     */
+    @Test
+    public void testIgnoreCaseOperators() {
+        StringCondition condition = new StringCondition("tenant", "trigger-1", "log", Operator.EQUAL, "Ärger",
+                true);
+        assertTrue(condition.match("äRGER"));
+        assertTrue(condition.match("ärger"));
+        assertFalse(condition.match("ärger!"));
+
+        condition.setOperator(Operator.NOT_EQUAL);
+        assertFalse(condition.match("äRGER"));
+        assertTrue(condition.match("ärger!"));
+
+        condition.setOperator(Operator.STARTS_WITH);
+        assertTrue(condition.match("äRGER im Büro"));
+        assertFalse(condition.match("kein Ärger"));
+        assertFalse(condition.match("ärg"));
+
+        condition.setOperator(Operator.ENDS_WITH);
+        assertTrue(condition.match("kein äRGER"));
+        assertFalse(condition.match("äRGER im Büro"));
+        assertFalse(condition.match("rger"));
+
+        condition.setOperator(Operator.CONTAINS);
+        assertTrue(condition.match("kein äRGER im Büro"));
+        assertFalse(condition.match("kein Arger im Büro"));
+
+        condition.setOperator(Operator.MATCH);
+        condition.setPattern("Ärger.*");
+        assertTrue(condition.match("äRGER im Büro"));
+        assertFalse(condition.match("kein äRGER"));
+    }
+
+    /*
+        The pattern of the literal operators is not a regex when the case is ignored.
+     */
+    @Test
+    public void testIgnoreCaseLiteralPattern() {
+        StringCondition condition = new StringCondition("tenant", "trigger-1", "log", Operator.EQUAL, "a.b*",
+                true);
+        assertTrue(condition.match("A.B*"));
+        assertFalse(condition.match("AxB"));
+
+        condition.setOperator(Operator.STARTS_WITH);
+        assertTrue(condition.match("A.B* tail"));
+        assertFalse(condition.match("AxBB tail"));
+
+        condition.setOperator(Operator.ENDS_WITH);
+        assertTrue(condition.match("head A.B*"));
+        assertFalse(condition.match("head AxBB"));
+
+        condition.setOperator(Operator.CONTAINS);
+        assertTrue(condition.match("head A.B* tail"));
+        assertFalse(condition.match("head AxBB tail"));
+    }
+}
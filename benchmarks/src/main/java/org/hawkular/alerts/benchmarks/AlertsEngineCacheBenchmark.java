@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.engine.impl.AlertsEngineCache;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups and updates of the {@link AlertsEngineCache}, consulted for every datum sent to the AlertsEngine and
+ * updated on every trigger (re)load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AlertsEngineCacheBenchmark {
+    private static final String TENANT = "tenant";
+
+    @Param({"1000", "100000"})
+    int triggers;
+
+    @Param({"5"})
+    int dataIdsPerTrigger;
+
+    AlertsEngineCache cache;
+    int next = 0;
+
+    @Setup
+    public void setup() {
+        cache = new AlertsEngineCache();
+        for (int i = 0; i < triggers; i++) {
+            for (int j = 0; j < dataIdsPerTrigger; j++) {
+                cache.add(new DataEntry(TENANT, "trigger-" + i, "data-" + i + "-" + j));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isDataIdActiveHit() {
+        next = (next + 1) % triggers;
+        return cache.isDataIdActive(TENANT, "data-" + next + "-0");
+    }
+
+    @Benchmark
+    public boolean isDataIdActiveMiss() {
+        next = (next + 1) % triggers;
+        return cache.isDataIdActive(TENANT, "unknown-" + next);
+    }
+
+    @Benchmark
+    public int reloadTrigger() {
+        next = (next + 1) % triggers;
+        String triggerId = "trigger-" + next;
+        cache.remove(TENANT, triggerId);
+        for (int j = 0; j < dataIdsPerTrigger; j++) {
+            cache.add(new DataEntry(TENANT, triggerId, "data-" + next + "-" + j));
+        }
+        return cache.getNumDataIds();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.engine.impl.DataDrivenGroupCacheManager;
+import org.hawkular.alerts.engine.impl.IncomingDataManagerImpl;
+import org.hawkular.alerts.engine.impl.IncomingDataManagerImpl.IncomingData;
+import org.hawkular.alerts.engine.service.AlertsEngine;
+import org.hawkular.alerts.filter.CacheClient;
+import org.hawkular.alerts.filter.CacheKey;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Front-line filtering of incoming data: {@link CacheClient#filterData(Collection)} against a local ISPN cache of
+ * published dataIds, and the whole {@link IncomingDataManagerImpl} processing of a raw batch (filtering, ordering,
+ * minReportingInterval) up to the AlertsEngine.
+ *
+ * hitRatio is the fraction of the incoming data with a published dataId.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IncomingDataBenchmark {
+    private static final String TENANT = "tenant";
+
+    @Param({"10000"})
+    int publishedDataIds;
+
+    @Param({"1000"})
+    int batchSize;
+
+    @Param({"0.1", "0.5", "1.0"})
+    double hitRatio;
+
+    DefaultCacheManager cacheManager;
+    CacheClient cacheClient;
+    IncomingDataManagerImpl incomingDataManager;
+    List<Data> data;
+    int sentData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cacheManager = new DefaultCacheManager(new GlobalConfigurationBuilder().build(),
+                new ConfigurationBuilder().build());
+        Cache<CacheKey, Set<String>> cache = cacheManager.getCache("publish");
+        for (int i = 0; i < publishedDataIds; i++) {
+            cache.put(new CacheKey(TENANT, "data-" + i), Collections.singleton("trigger-" + i));
+        }
+        cacheClient = new CacheClient();
+        cacheClient.setCache(cache);
+
+        Random random = new Random(42);
+        data = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String dataId = random.nextDouble() < hitRatio
+                    ? "data-" + random.nextInt(publishedDataIds)
+                    : "unpublished-" + i;
+            data.add(Data.forNumeric(TENANT, dataId, i, random.nextDouble() * 100));
+        }
+
+        AlertsEngine alertsEngine = (AlertsEngine) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { AlertsEngine.class }, (proxy, method, args) -> {
+                    if ("sendData".equals(method.getName())) {
+                        sentData += ((TreeSet<?>) args[0]).size();
+                    }
+                    return null;
+                });
+        incomingDataManager = new IncomingDataManagerImpl();
+        incomingDataManager.setExecutor(new DirectExecutorService());
+        incomingDataManager.setDataDrivenGroupCacheManager(new DataDrivenGroupCacheManager());
+        incomingDataManager.setAlertsEngine(alertsEngine);
+        incomingDataManager.setDataIdCache(cacheClient);
+        incomingDataManager.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cacheManager.stop();
+    }
+
+    @Benchmark
+    public Collection<Data> filterData() {
+        return cacheClient.filterData(data);
+    }
+
+    @Benchmark
+    public int bufferData() {
+        incomingDataManager.bufferData(new IncomingData(data, true));
+        return sentData;
+    }
+
+    /*
+        Runs the submitted tasks on the caller thread, so the benchmark measures the processing itself.
+     */
+    private static class DirectExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
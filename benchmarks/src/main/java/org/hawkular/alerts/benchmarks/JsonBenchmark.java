@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.api.json.JsonUtil;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON (de)serialization with {@link JsonUtil} of the model objects most frequently exchanged with the REST and
+ * messaging layers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JsonBenchmark {
+    private static final String TENANT = "tenant";
+
+    Data data;
+    Trigger trigger;
+    Event event;
+    String dataJson;
+    String triggerJson;
+    String eventJson;
+
+    @Setup
+    public void setup() {
+        data = Data.forNumeric(TENANT, "data", System.currentTimeMillis(), 42.0);
+        trigger = new Trigger(TENANT, "trigger", "Trigger");
+        trigger.addTag("tag", "value");
+        trigger.addContext("context", "value");
+        event = new Event(TENANT, "event", "data", "category", "Event text");
+        dataJson = JsonUtil.toJson(data);
+        triggerJson = JsonUtil.toJson(trigger);
+        eventJson = JsonUtil.toJson(event);
+    }
+
+    @Benchmark
+    public String dataToJson() {
+        return JsonUtil.toJson(data);
+    }
+
+    @Benchmark
+    public Data dataFromJson() {
+        return JsonUtil.fromJson(dataJson, Data.class);
+    }
+
+    @Benchmark
+    public String triggerToJson() {
+        return JsonUtil.toJson(trigger);
+    }
+
+    @Benchmark
+    public Trigger triggerFromJson() {
+        return JsonUtil.fromJson(triggerJson, Trigger.class);
+    }
+
+    @Benchmark
+    public String eventToJson() {
+        return JsonUtil.toJson(event);
+    }
+
+    @Benchmark
+    public Event eventFromJson() {
+        return JsonUtil.fromJson(eventJson, Event.class);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.api.model.condition.NelsonCondition;
+import org.hawkular.alerts.api.model.condition.NelsonCondition.NelsonRule;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.engine.util.NelsonData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Incremental update of the {@link NelsonData} statistics with all the Nelson rules active, performed by the rules
+ * for every datum of a NelsonCondition dataId.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NelsonDataBenchmark {
+    private static final String TENANT = "tenant";
+
+    @Param({"30", "100", "1000"})
+    int sampleSize;
+
+    NelsonData nelsonData;
+    Random random = new Random(42);
+    long time = 1;
+
+    @Setup
+    public void setup() {
+        nelsonData = new NelsonData(new NelsonCondition(TENANT, "trigger", "data", EnumSet.allOf(NelsonRule.class),
+                sampleSize));
+        for (int i = 0; i < sampleSize; i++) {
+            nelsonData.addData(nextData());
+        }
+    }
+
+    @Benchmark
+    public NelsonData addData() {
+        nelsonData.addData(nextData());
+        return nelsonData;
+    }
+
+    private Data nextData() {
+        return Data.forNumeric(TENANT, "data", time++, 50.0 + random.nextGaussian() * 10.0);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.api.model.condition.AvailabilityCondition;
+import org.hawkular.alerts.api.model.condition.Condition;
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.condition.StringCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdCondition;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.AvailabilityType;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.engine.impl.CompiledRulesEngineImpl;
+import org.hawkular.alerts.engine.impl.DroolsRulesEngineImpl;
+import org.hawkular.alerts.engine.impl.ShardedRulesEngineImpl;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of a batch of data with {@link RulesEngine#addData(TreeSet)} + {@link RulesEngine#fire()}, the work
+ * done by the AlertsEngine on every engine cycle.
+ *
+ * Each trigger has one condition on its own dataId, the shape of the conditions and the data is parameterized.
+ * Every invocation sends one datum for batchSize triggers, roughly 20% of the data match its condition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RulesEngineBenchmark {
+    private static final String TENANT = "tenant";
+
+    @Param({"drools", "sharded", "compiled"})
+    String engine;
+
+    @Param({"100", "1000", "10000"})
+    int triggers;
+
+    @Param({"threshold", "availability", "string", "mixed"})
+    String shape;
+
+    @Param({"1000"})
+    int batchSize;
+
+    RulesEngine rules;
+    List<Alert> alerts = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    Set<Dampening> pendingTimeouts = new HashSet<>();
+    Map<Trigger, List<Set<ConditionEval>>> autoResolvedTriggers = new HashMap<>();
+    Set<Trigger> disabledTriggers = new HashSet<>();
+
+    TreeSet<Data> batch;
+    int nextTrigger = 0;
+    long time = 1;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (engine) {
+            case "sharded":
+                rules = new ShardedRulesEngineImpl(Runtime.getRuntime().availableProcessors());
+                break;
+            case "compiled":
+                rules = new CompiledRulesEngineImpl(new DroolsRulesEngineImpl());
+                break;
+            default:
+                rules = new DroolsRulesEngineImpl();
+        }
+        rules.addGlobal("alerts", alerts);
+        rules.addGlobal("events", events);
+        rules.addGlobal("pendingTimeouts", pendingTimeouts);
+        rules.addGlobal("autoResolvedTriggers", autoResolvedTriggers);
+        rules.addGlobal("disabledTriggers", disabledTriggers);
+
+        for (int i = 0; i < triggers; i++) {
+            Trigger t = new Trigger(TENANT, "trigger-" + i, "Trigger " + i);
+            t.setEnabled(true);
+            rules.addFact(t);
+            rules.addFact(condition(t.getId(), i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rules.reset();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBatch() {
+        batch = new TreeSet<>();
+        for (int j = 0; j < batchSize; j++) {
+            batch.add(data(nextTrigger, time));
+            nextTrigger = (nextTrigger + 1) % triggers;
+        }
+        time++;
+    }
+
+    @Benchmark
+    public int addDataAndFire() {
+        rules.addData(batch);
+        rules.fire();
+        int numAlerts = alerts.size();
+        alerts.clear();
+        events.clear();
+        pendingTimeouts.clear();
+        return numAlerts;
+    }
+
+    private String shapeOf(int i) {
+        if ("mixed".equals(shape)) {
+            switch (i % 3) {
+                case 0:
+                    return "threshold";
+                case 1:
+                    return "availability";
+                default:
+                    return "string";
+            }
+        }
+        return shape;
+    }
+
+    private Condition condition(String triggerId, int i) {
+        String dataId = "data-" + i;
+        switch (shapeOf(i)) {
+            case "availability":
+                return new AvailabilityCondition(TENANT, triggerId, dataId, AvailabilityCondition.Operator.DOWN);
+            case "string":
+                return new StringCondition(TENANT, triggerId, dataId, StringCondition.Operator.STARTS_WITH, "ERROR",
+                        false);
+            default:
+                return new ThresholdCondition(TENANT, triggerId, dataId, ThresholdCondition.Operator.GT, 80.0);
+        }
+    }
+
+    private Data data(int i, long timestamp) {
+        String dataId = "data-" + i;
+        boolean match = (i + timestamp) % 5 == 0;
+        switch (shapeOf(i)) {
+            case "availability":
+                return Data.forAvailability(TENANT, dataId, timestamp,
+                        match ? AvailabilityType.DOWN : AvailabilityType.UP);
+            case "string":
+                return Data.forString(TENANT, dataId, timestamp, match ? "ERROR: disk full" : "INFO: all good");
+            default:
+                return Data.forNumeric(TENANT, dataId, timestamp, match ? 90.0 : (double) (timestamp % 80));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.alerts.engine.util.TokenReplacingReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token replacement of a text through {@link TokenReplacingReader}, as done for every templated alert/event text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TokenReplacingReaderBenchmark {
+
+    @Param({"1", "10", "50"})
+    int numTokens;
+
+    String source;
+    Map<String, String> tokens;
+    char[] buffer = new char[1024];
+
+    @Setup
+    public void setup() {
+        tokens = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numTokens; i++) {
+            tokens.put("token" + i, "value-" + i);
+            sb.append("Text before token ").append(i).append(" ${token").append(i).append("} ");
+        }
+        source = sb.toString();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        int length = 0;
+        try (TokenReplacingReader reader = new TokenReplacingReader(source, tokens)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
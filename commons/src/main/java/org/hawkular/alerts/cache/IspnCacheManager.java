@@ -24,6 +24,9 @@ import java.io.InputStream;
 import org.hawkular.commons.log.MsgLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.hawkular.commons.properties.HawkularProperties;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 
@@ -42,6 +45,20 @@ public class IspnCacheManager {
     private static final String ALERTS_DISTRIBUTED_ENV = "HAWKULAR_ALERTS_DISTRIBUTED";
     private static final String ALERTS_DISTRIBUTED_DEFAULT = "false";
 
+    /*
+        BACKEND_PRELOAD=false starts the backend without loading the whole store in memory. Definitions, events and
+        actions are read from the store on demand, and at most BACKEND_MAX_ENTRIES are kept in memory (0 for no
+        limit). The index data is read from its store on demand too.
+     */
+    private static final String BACKEND_PRELOAD = "hawkular-alerts.backend-preload";
+    private static final String BACKEND_PRELOAD_ENV = "HAWKULAR_BACKEND_PRELOAD";
+    private static final String BACKEND_PRELOAD_DEFAULT = "true";
+    private static final String BACKEND_MAX_ENTRIES = "hawkular-alerts.backend-max-entries";
+    private static final String BACKEND_MAX_ENTRIES_ENV = "HAWKULAR_BACKEND_MAX_ENTRIES";
+    private static final String BACKEND_MAX_ENTRIES_DEFAULT = "100000";
+    private static final String BACKEND = "backend";
+    private static final String INDEX_DATA_CACHE = "default.data_cachename";
+
     private static EmbeddedCacheManager cacheManager = null;
     private static boolean distributed = false;
 
@@ -63,6 +80,35 @@ public class IspnCacheManager {
         }
     }
 
+    /*
+        The caches are not started yet, their configurations are redefined
+     */
+    static void withoutPreload(EmbeddedCacheManager cacheManager, long maxEntries) {
+        Configuration backend = cacheManager.getCacheConfiguration(BACKEND);
+        if (backend == null) {
+            return;
+        }
+        ConfigurationBuilder builder = new ConfigurationBuilder().read(backend);
+        builder.persistence().stores().forEach(store -> store.preload(false));
+        if (maxEntries > 0) {
+            builder.memory().evictionType(EvictionType.COUNT).size(maxEntries);
+        }
+        redefine(cacheManager, BACKEND, builder.build());
+
+        String indexData = backend.indexing().properties().getProperty(INDEX_DATA_CACHE);
+        Configuration index = indexData != null ? cacheManager.getCacheConfiguration(indexData) : null;
+        if (index != null) {
+            builder = new ConfigurationBuilder().read(index);
+            builder.persistence().stores().forEach(store -> store.preload(false));
+            redefine(cacheManager, indexData, builder.build());
+        }
+    }
+
+    private static void redefine(EmbeddedCacheManager cacheManager, String cacheName, Configuration configuration) {
+        cacheManager.undefineConfiguration(cacheName);
+        cacheManager.defineConfiguration(cacheName, configuration);
+    }
+
     private static synchronized void init() {
         if (cacheManager == null) {
             try {
@@ -80,6 +126,14 @@ public class IspnCacheManager {
                     is = IspnCacheManager.class.getResourceAsStream("/" + (distributed ? ISPN_CONFIG_DISTRIBUTED : ISPN_CONFIG_LOCAL));
                 }
                 cacheManager = new DefaultCacheManager(is);
+                boolean preload = Boolean.valueOf(HawkularProperties.getProperty(BACKEND_PRELOAD,
+                        BACKEND_PRELOAD_ENV, BACKEND_PRELOAD_DEFAULT));
+                if (!preload) {
+                    long maxEntries = Long.parseLong(HawkularProperties.getProperty(BACKEND_MAX_ENTRIES,
+                            BACKEND_MAX_ENTRIES_ENV, BACKEND_MAX_ENTRIES_DEFAULT));
+                    log.infof("Backend loaded on demand, with [%s] max entries in memory", maxEntries);
+                    withoutPreload(cacheManager, maxEntries);
+                }
             } catch (IOException e) {
                 log.error(e);
             }
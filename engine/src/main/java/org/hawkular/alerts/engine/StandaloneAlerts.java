@@ -29,16 +29,21 @@ import org.hawkular.alerts.engine.cache.ActionsCacheManager;
 import org.hawkular.alerts.engine.cache.PublishCacheManager;
 import org.hawkular.alerts.engine.impl.AlertsContext;
 import org.hawkular.alerts.engine.impl.AlertsEngineImpl;
+import org.hawkular.alerts.engine.impl.CompiledRulesEngineImpl;
 import org.hawkular.alerts.engine.impl.DataDrivenGroupCacheManager;
 import org.hawkular.alerts.engine.impl.DroolsRulesEngineImpl;
+import org.hawkular.alerts.engine.impl.EngineMetrics;
 import org.hawkular.alerts.engine.impl.ExtensionsServiceImpl;
 import org.hawkular.alerts.engine.impl.IncomingDataManagerImpl;
 import org.hawkular.alerts.engine.impl.PartitionManagerImpl;
 import org.hawkular.alerts.engine.impl.PropertiesServiceImpl;
+import org.hawkular.alerts.engine.impl.ShardedRulesEngineImpl;
 import org.hawkular.alerts.engine.impl.StatusServiceImpl;
 import org.hawkular.alerts.engine.impl.ispn.IspnActionsServiceImpl;
 import org.hawkular.alerts.engine.impl.ispn.IspnAlertsServiceImpl;
 import org.hawkular.alerts.engine.impl.ispn.IspnDefinitionsServiceImpl;
+import org.hawkular.alerts.engine.impl.ispn.IspnRetentionPurger;
+import org.hawkular.alerts.engine.service.RulesEngine;
 import org.hawkular.alerts.extensions.CepEngineImpl;
 import org.hawkular.alerts.extensions.EventsAggregationExtension;
 import org.hawkular.alerts.filter.CacheClient;
@@ -69,10 +74,11 @@ public class StandaloneAlerts {
     private ActionsCacheManager actionsCacheManager;
     private AlertsContext alertsContext;
     private AlertsEngineImpl engine;
+    private EngineMetrics metrics;
     private CacheClient dataIdCache;
     private CepEngineImpl cepEngineImpl;
     private DataDrivenGroupCacheManager dataDrivenGroupCacheManager;
-    private DroolsRulesEngineImpl rules;
+    private RulesEngine rules;
     private EmbeddedCacheManager cacheManager;
     private EventsAggregationExtension eventsAggregationExtension;
     private ExtensionsServiceImpl extensions;
@@ -80,6 +86,7 @@ public class StandaloneAlerts {
     private IspnActionsServiceImpl ispnActions;
     private IspnAlertsServiceImpl ispnAlerts;
     private IspnDefinitionsServiceImpl ispnDefinitions;
+    private IspnRetentionPurger purger;
     private StatusServiceImpl status;
     private PartitionManagerImpl partitionManager;
     private PropertiesServiceImpl properties;
@@ -95,8 +102,22 @@ public class StandaloneAlerts {
         }
 
         dataIdCache = new CacheClient();
-        rules = new DroolsRulesEngineImpl();
+        int rulesEngineShards = Integer.parseInt(HawkularProperties.getProperty(RulesEngine.RULES_ENGINE_SHARDS,
+                RulesEngine.RULES_ENGINE_SHARDS_ENV, RulesEngine.RULES_ENGINE_SHARDS_DEFAULT));
+        if (rulesEngineShards > 1) {
+            log.infof("Hawkular Alerting uses a sharded rules engine with [%s] sessions", rulesEngineShards);
+            rules = new ShardedRulesEngineImpl(rulesEngineShards);
+        } else {
+            rules = new DroolsRulesEngineImpl();
+        }
+        String rulesEngine = HawkularProperties.getProperty(RulesEngine.RULES_ENGINE, RulesEngine.RULES_ENGINE_ENV,
+                RulesEngine.RULES_ENGINE_DEFAULT);
+        if ("compiled".equalsIgnoreCase(rulesEngine)) {
+            log.info("Hawkular Alerting uses a compiled rules engine");
+            rules = new CompiledRulesEngineImpl(rules);
+        }
         engine = new AlertsEngineImpl();
+        metrics = new EngineMetrics();
         properties = new PropertiesServiceImpl();
         alertsContext = new AlertsContext();
         partitionManager = new PartitionManagerImpl();
@@ -126,21 +147,26 @@ public class StandaloneAlerts {
         ispnActions = new IspnActionsServiceImpl();
         ispnAlerts = new IspnAlertsServiceImpl();
         ispnDefinitions = new IspnDefinitionsServiceImpl();
+        purger = new IspnRetentionPurger();
 
         ispnActions.setActionsCacheManager(actionsCacheManager);
         ispnActions.setAlertsContext(alertsContext);
         ispnActions.setDefinitions(ispnDefinitions);
+        ispnActions.setMetrics(metrics);
 
         ispnAlerts.setActionsService(ispnActions);
         ispnAlerts.setAlertsEngine(engine);
         ispnAlerts.setDefinitionsService(ispnDefinitions);
         ispnAlerts.setIncomingDataManager(incoming);
         ispnAlerts.setProperties(properties);
+        ispnAlerts.setMetrics(metrics);
 
         ispnDefinitions.setAlertsEngine(engine);
         ispnDefinitions.setAlertsContext(alertsContext);
         ispnDefinitions.setProperties(properties);
 
+        purger.setAlertsService(ispnAlerts);
+        purger.setActionsService(ispnActions);
 
         actionsCacheManager.setDefinitions(ispnDefinitions);
         actionsCacheManager.setGlobalActionsCache(cacheManager.getCache("globalActions"));
@@ -156,6 +182,7 @@ public class StandaloneAlerts {
         engine.setDefinitions(ispnDefinitions);
         engine.setExecutor(executor);
         engine.setExtensionsService(extensions);
+        engine.setMetrics(metrics);
         engine.setPartitionManager(partitionManager);
         engine.setRules(rules);
 
@@ -164,6 +191,7 @@ public class StandaloneAlerts {
         incoming.setDataIdCache(dataIdCache);
         incoming.setDefinitionsService(ispnDefinitions);
         incoming.setExecutor(executor);
+        incoming.setMetrics(metrics);
         incoming.setPartitionManager(partitionManager);
 
         partitionManager.setDefinitionsService(ispnDefinitions);
@@ -176,7 +204,9 @@ public class StandaloneAlerts {
         publishCacheManager.setPublishCache(cacheManager.getCache("publish"));
         publishCacheManager.setPublishDataIdsCache(cacheManager.getCache("dataIds"));
 
+        status.setMetrics(metrics);
         status.setPartitionManager(partitionManager);
+        status.setRules(rules);
 
         cepEngineImpl.setAlertsService(ispnAlerts);
         cepEngineImpl.setExecutor(executor);
@@ -192,6 +222,7 @@ public class StandaloneAlerts {
         ispnAlerts.init();
         ispnDefinitions.init();
         ispnActions.init();
+        purger.init();
 
         partitionManager.init();
         alertsContext.init();
@@ -201,6 +232,7 @@ public class StandaloneAlerts {
         extensions.init();
         engine.initServices();
         eventsAggregationExtension.init();
+        metrics.register();
     }
 
     private static synchronized void init() {
@@ -222,6 +254,9 @@ public class StandaloneAlerts {
     public static void stop() {
         if (instance != null) {
             instance.engine.shutdown();
+            instance.metrics.unregister();
+            instance.purger.shutdown();
+            instance.ispnAlerts.shutdown();
             instance.partitionManager.shutdown();
             IspnCacheManager.stop();
             instance = null;
@@ -75,6 +75,20 @@ public class AlertsContext {
                     distributedListener.stream().forEach(listener -> listener.onChange(Collections.singleton(event)));
                 }
 
+                @Override
+                public void onTriggersChange(Map<String, Map<String, PartitionManager.Operation>> operations) {
+                    Set<DistributedEvent> events = new HashSet<>();
+                    operations.entrySet().stream().forEach(entry -> {
+                        String tenantId = entry.getKey();
+                        entry.getValue().entrySet().stream().forEach(trigger ->
+                                events.add(new DistributedEvent(
+                                        DistributedEvent.Operation.valueOf(trigger.getValue().name()), tenantId,
+                                        trigger.getKey()))
+                        );
+                    });
+                    distributedListener.stream().forEach(listener -> listener.onChange(events));
+                }
+
                 @Override
                 public void onPartitionChange(Map<String, List<String>> partition, Map<String, List<String>> removed,
                                               Map<String, List<String>> added) {
@@ -16,8 +16,13 @@
  */
 package org.hawkular.alerts.engine.impl;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Auxiliary cache for AlertsEngine implementation.
@@ -28,25 +33,38 @@ import java.util.Set;
  * This scenario works on single or distributed deployments.
  * In distributed deployments this helps to avoid unnecessary processing.
  *
+ * The cache is indexed by trigger, so adding or removing the entries of a trigger is proportional to the size of the
+ * trigger, and it is backed by concurrent maps, so {@link #isDataIdActive(String, String)} can be called from
+ * concurrent threads without blocking while triggers are reloaded.
+ *
  * @author Jay Shaughnessy
  * @author Lucas Ponce
  */
 public class AlertsEngineCache {
 
     /**
-     * It represents the Triggers -> Conditions relation hold on this node.
+     * It represents the Triggers -> DataIds relation hold on this node.
      * A single dataId can be part of several triggers or even several conditions.
+     * The Set of a trigger is modified only inside the atomic compute of its key.
      */
-    private Set<DataEntry> activeDataEntries;
+    private final ConcurrentMap<TriggerKey, Set<DataId>> triggerDataIds;
 
     /**
-     * A cache of the dataIds hold. Used to filter if a data has a dataId on this node or not.
+     * A cache of the dataIds hold, with the number of triggers referencing each one. Used to filter if a data has a
+     * dataId on this node or not.
      */
-    private Set<DataId> activeDataIds;
+    private final ConcurrentMap<DataId, Integer> activeDataIds;
+
+    /**
+     * Incremented each time a dataId is activated or deactivated on this node, so the set of active dataIds is only
+     * published to other nodes when it has changed.
+     */
+    private final AtomicLong version;
 
     public AlertsEngineCache() {
-        activeDataEntries = new HashSet<>();
-        activeDataIds = new HashSet<>();
+        triggerDataIds = new ConcurrentHashMap<>();
+        activeDataIds = new ConcurrentHashMap<>();
+        version = new AtomicLong();
     }
 
     /**
@@ -58,7 +76,7 @@ public class AlertsEngineCache {
      *         false otherwise
      */
     public boolean isDataIdActive(String tenantId, String dataId) {
-        return tenantId != null && dataId != null && activeDataIds.contains(new DataId(tenantId, dataId));
+        return tenantId != null && dataId != null && activeDataIds.containsKey(new DataId(tenantId, dataId));
     }
 
     /**
@@ -67,11 +85,17 @@ public class AlertsEngineCache {
      * @param dataEntry to register on this node
      */
     public void add(DataEntry dataEntry) {
-        activeDataEntries.add(dataEntry);
+        TriggerKey triggerKey = new TriggerKey(dataEntry.getTenantId(), dataEntry.getTriggerId());
         DataId newDataId = new DataId(dataEntry.getTenantId(), dataEntry.getDataId());
-        if (!activeDataIds.contains(newDataId)) {
-            activeDataIds.add(newDataId);
-        }
+        triggerDataIds.compute(triggerKey, (k, dataIds) -> {
+            if (null == dataIds) {
+                dataIds = new HashSet<>();
+            }
+            if (dataIds.add(newDataId) && activeDataIds.merge(newDataId, 1, Integer::sum) == 1) {
+                version.incrementAndGet();
+            }
+            return dataIds;
+        });
     }
 
     /**
@@ -86,40 +110,56 @@ public class AlertsEngineCache {
         if (triggerId == null) {
             throw new IllegalArgumentException("triggerId must be not null");
         }
-        Set<DataEntry> dataEntriesToRemove = new HashSet<>();
-        activeDataEntries.stream().forEach(e -> {
-            if (e.getTenantId().equals(tenantId) && e.getTriggerId().equals(triggerId)) {
-                dataEntriesToRemove.add(e);
-            }
-        });
-        activeDataEntries.removeAll(dataEntriesToRemove);
-        Set<DataId> dataIdToCheck = new HashSet<>();
-        dataEntriesToRemove.stream().forEach(e -> {
-            dataIdToCheck.add(new DataId(e.getTenantId(), e.getDataId()));
-        });
-        Set<DataId> dataIdToRemove = new HashSet<>();
-        dataIdToCheck.stream().forEach(dataId -> {
-            boolean found = false;
-            for (DataEntry entry : activeDataEntries) {
-                DataId currentDataId = new DataId(entry.getTenantId(), entry.getDataId());
-                if (currentDataId.equals(dataId)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                dataIdToRemove.add(dataId);
+        Set<DataId> dataIdsToRemove = triggerDataIds.remove(new TriggerKey(tenantId, triggerId));
+        if (null == dataIdsToRemove) {
+            return;
+        }
+        for (DataId dataId : dataIdsToRemove) {
+            if (activeDataIds.computeIfPresent(dataId, (k, count) -> count > 1 ? count - 1 : null) == null) {
+                version.incrementAndGet();
             }
-        });
-        activeDataIds.removeAll(dataIdToRemove);
+        }
     }
 
     /**
      * Clear all cache entries.
      */
     public void clear() {
-        activeDataEntries.clear();
+        triggerDataIds.clear();
         activeDataIds.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return a counter that changes each time the set of active dataIds on this node changes
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return a snapshot of the active dataIds on this node as a map of tenantId -> dataIds
+     */
+    public Map<String, Set<String>> getActiveDataIds() {
+        Map<String, Set<String>> dataIds = new HashMap<>();
+        for (DataId dataId : activeDataIds.keySet()) {
+            dataIds.computeIfAbsent(dataId.getTenantId(), t -> new HashSet<>()).add(dataId.getDataId());
+        }
+        return dataIds;
+    }
+
+    /**
+     * @return the number of active dataIds on this node
+     */
+    public int getNumDataIds() {
+        return activeDataIds.size();
+    }
+
+    /**
+     * @return the number of triggers with dataIds on this node
+     */
+    public int getNumTriggers() {
+        return triggerDataIds.size();
     }
 
     public static class DataId {
@@ -249,4 +289,47 @@ public class AlertsEngineCache {
         }
     }
 
+    public static class TriggerKey {
+        private final String tenantId;
+        private final String triggerId;
+
+        public TriggerKey(String tenantId, String triggerId) {
+            this.tenantId = tenantId;
+            this.triggerId = triggerId;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+
+        public String getTriggerId() {
+            return triggerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            TriggerKey that = (TriggerKey) o;
+
+            if (tenantId != null ? !tenantId.equals(that.tenantId) : that.tenantId != null) return false;
+            return triggerId != null ? triggerId.equals(that.triggerId) : that.triggerId == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = tenantId != null ? tenantId.hashCode() : 0;
+            result = 31 * result + (triggerId != null ? triggerId.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "TriggerKey" + '[' +
+                    "tenantId='" + tenantId + '\'' +
+                    ", triggerId='" + triggerId + '\'' +
+                    ']';
+        }
+    }
 }
@@ -23,14 +23,21 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 import org.hawkular.alerts.api.model.condition.CompareCondition;
 import org.hawkular.alerts.api.model.condition.Condition;
@@ -49,6 +56,7 @@ import org.hawkular.alerts.api.services.DefinitionsService;
 import org.hawkular.alerts.api.services.EventExtension;
 import org.hawkular.alerts.api.services.ExtensionsService;
 import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataEntry;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataId;
 import org.hawkular.alerts.engine.service.AlertsEngine;
 import org.hawkular.alerts.engine.service.PartitionDataListener;
 import org.hawkular.alerts.engine.service.PartitionManager;
@@ -56,6 +64,7 @@ import org.hawkular.alerts.engine.service.PartitionManager.Operation;
 import org.hawkular.alerts.engine.service.PartitionTriggerListener;
 import org.hawkular.alerts.engine.service.RulesEngine;
 import org.hawkular.alerts.engine.util.MissingState;
+import org.hawkular.alerts.engine.util.TimeoutSet;
 import org.hawkular.alerts.log.AlertingLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.hawkular.commons.properties.HawkularProperties;
@@ -80,25 +89,111 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
     private static final String ENGINE_DELAY = "hawkular-alerts.engine-delay";
 
     /*
-        ENGINE_PERIOD defined in milliseconds
+        ENGINE_PERIOD defined in milliseconds.
+        It is the maximum time the engine stays idle between evaluations. Evaluations are triggered by incoming data,
+        but a periodic evaluation is still needed to check dampening timeouts and missing conditions.
      */
     private static final String ENGINE_PERIOD = "hawkular-alerts.engine-period";
 
+    /*
+        ENGINE_BATCH_DELAY defined in milliseconds.
+        Once new data arrives the engine waits at most this time to coalesce more data into the same evaluation.
+     */
+    private static final String ENGINE_BATCH_DELAY = "hawkular-alerts.engine-batch-delay";
+
+    /*
+        ENGINE_BATCH_SIZE defined in number of pending data and events.
+        An evaluation starts without waiting for the ENGINE_BATCH_DELAY when the pending queue reaches this size.
+     */
+    private static final String ENGINE_BATCH_SIZE = "hawkular-alerts.engine-batch-size";
+
+    /*
+        ENGINE_QUEUE_CAPACITY defined in number of pending data and events. A value <= 0 means unbounded.
+     */
+    private static final String ENGINE_QUEUE_CAPACITY = "hawkular-alerts.engine-queue-capacity";
+
+    /*
+        ENGINE_BACKPRESSURE defines how sendData()/sendEvents() behave when the pending queue is full.
+        Valid values are BLOCK, REJECT and SHED.
+     */
+    private static final String ENGINE_BACKPRESSURE = "hawkular-alerts.engine-backpressure";
+
+    /*
+        ENGINE_STOP_TIMEOUT defined in milliseconds.
+        Time a clear() or reload() waits for the running evaluation to finish before interrupting it. A new
+        RulesInvoker is not started until the previous one has stopped, as the rules engine session is not thread safe.
+     */
+    private static final String ENGINE_STOP_TIMEOUT = "hawkular-alerts.engine-stop-timeout";
+
+    /**
+     * Policies applied to the callers of sendData()/sendEvents() when the pending queue is full.
+     */
+    public enum Backpressure {
+        /**
+         * Caller waits until the engine has drained the pending queue.
+         */
+        BLOCK,
+        /**
+         * Caller gets a {@link RejectedExecutionException}.
+         */
+        REJECT,
+        /**
+         * Incoming batch is discarded.
+         */
+        SHED
+    }
+
     private int delay;
     private int period;
+    private int batchDelay;
+    private int batchSize;
+    private int queueCapacity;
+    private Backpressure backpressure;
+    private int stopTimeout;
+
+    /*
+        pendingData and pendingEvents are lock-free multi-producer queues of incoming batches. Producers just append
+        their batch as a chunk, the RulesInvoker (single consumer) drains all chunks and sorts them once per
+        evaluation. Chunks are only read after they are appended.
 
-    private TreeSet<Data> pendingData;
-    private TreeSet<Event> pendingEvents;
+        pendingSize is the number of items pending evaluation in both queues. It is reserved by producers before
+        appending a chunk, so it can be transiently greater than the items actually queued.
+
+        blockedLock/blockedCallers are only used in the slow path, when the pending queue is full and the
+        Backpressure.BLOCK policy is applied.
+     */
+    private final Queue<Collection<Data>> pendingData;
+    private final Queue<Collection<Event>> pendingEvents;
+    private final AtomicInteger pendingSize = new AtomicInteger(0);
+    private final Object blockedLock = new Object();
+    private final AtomicInteger blockedCallers = new AtomicInteger(0);
 
     private final List<Alert> alerts;
     private final List<Event> events;
-    private final Set<Dampening> pendingTimeouts;
+    private final TimeoutSet<Dampening> pendingTimeouts;
     private final Map<Trigger, List<Set<ConditionEval>>> autoResolvedTriggers;
     private final Set<Trigger> disabledTriggers;
-    private final Set<MissingState> missingStates;
 
-    private final Timer wakeUpTimer;
-    private TimerTask rulesTask;
+    /*
+        MissingStates are ordered by the time their MissingCondition can match, so on every engine period only the
+        expired MissingStates and the pendingMissingStates are checked. A MissingState is pending when it must be
+        re-armed (previousTime >= time) to be updated by new data in the rules engine, or when its trigger is not in
+        the MissingCondition mode. missingStatesByDataId is used to flag as pending the MissingStates updated by data.
+        All are guarded by missingStates.
+     */
+    private final TimeoutSet<MissingState> missingStates;
+    private final Set<MissingState> pendingMissingStates;
+    private final Map<DataId, Set<MissingState>> missingStatesByDataId;
+
+    /*
+        Index of the facts loaded into the rules engine per Trigger, a reload is diffed against it. It also
+        serializes reloads and removals.
+     */
+    private final Map<Trigger, TriggerFacts> loadedTriggers;
+
+    private volatile RulesInvoker rulesTask;
+    private volatile Thread rulesThread;
+    private volatile boolean stopped = false;
 
     /*
         All incoming Data and Events go through front-line global filtering (via IncomingDataManager)
@@ -108,6 +203,12 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
     private AlertsEngineCache alertsEngineCache = null;
     boolean distributed = false;
 
+    /*
+        Version of the alertsEngineCache last published to the PartitionManager as routing table for this node.
+        Only accessed from the RulesInvoker thread.
+     */
+    private long publishedDataIdsVersion = -1;
+
     private static final String ENGINE_EXTENSIONS = "hawkular-alerts.engine-extensions";
     private static final String ENGINE_EXTENSIONS_ENV = "ENGINE_EXTENSIONS";
     private static final String ENGINE_EXTENSIONS_DEFAULT = "true";
@@ -127,20 +228,29 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
 
     private ExecutorService executor;
 
+    private EngineMetrics metrics = new EngineMetrics();
+
     public AlertsEngineImpl() {
-        pendingData = new TreeSet<>();
-        pendingEvents = new TreeSet<>();
+        pendingData = new ConcurrentLinkedQueue<>();
+        pendingEvents = new ConcurrentLinkedQueue<>();
         alerts = new ArrayList<>();
         events = new ArrayList<>();
-        pendingTimeouts = new HashSet<>();
+        pendingTimeouts = new TimeoutSet<>(d -> d.getTrueEvalsStartTime() + d.getEvalTimeSetting());
         autoResolvedTriggers = new HashMap<>();
         disabledTriggers = new HashSet<>();
-        missingStates = new HashSet<>();
-
-        wakeUpTimer = new Timer("AlertsEngineImpl-Timer");
+        missingStates = new TimeoutSet<>(ms -> ms.getPreviousTime() + ms.getCondition().getInterval() + 1);
+        pendingMissingStates = new LinkedHashSet<>();
+        missingStatesByDataId = new HashMap<>();
+        loadedTriggers = new HashMap<>();
 
         delay = new Integer(HawkularProperties.getProperty(ENGINE_DELAY, "1000"));
         period = new Integer(HawkularProperties.getProperty(ENGINE_PERIOD, "2000"));
+        batchDelay = new Integer(HawkularProperties.getProperty(ENGINE_BATCH_DELAY, "100"));
+        batchSize = new Integer(HawkularProperties.getProperty(ENGINE_BATCH_SIZE, "1000"));
+        queueCapacity = new Integer(HawkularProperties.getProperty(ENGINE_QUEUE_CAPACITY, "100000"));
+        backpressure = Backpressure.valueOf(HawkularProperties.getProperty(ENGINE_BACKPRESSURE, "BLOCK")
+                .toUpperCase());
+        stopTimeout = new Integer(HawkularProperties.getProperty(ENGINE_STOP_TIMEOUT, "30000"));
         engineExtensions = Boolean.parseBoolean(HawkularProperties.getProperty(ENGINE_EXTENSIONS, ENGINE_EXTENSIONS_ENV,
                 ENGINE_EXTENSIONS_DEFAULT));
     }
@@ -177,8 +287,13 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         this.executor = executor;
     }
 
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void initServices() {
         try {
+            metrics.registerGauge(EngineMetrics.ENGINE_PENDING, pendingSize::get);
             distributed = partitionManager.isDistributed();
             if (distributed) {
                 log.debug("Registering PartitionManager listeners...");
@@ -203,39 +318,45 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
     }
 
     public void shutdown() {
-        rulesTask.cancel();
-        wakeUpTimer.cancel();
+        stopped = true;
+        wakeUpBlockedCallers();
+        stopRulesInvoker();
     }
 
     @Override
     public void clear() {
-        rulesTask.cancel();
+        stopRulesInvoker();
 
-        rules.clear();
+        synchronized (loadedTriggers) {
+            rules.clear();
+            loadedTriggers.clear();
+        }
 
-        pendingData.clear();
-        pendingEvents.clear();
+        discard(pendingData);
+        discard(pendingEvents);
+        wakeUpBlockedCallers();
         alerts.clear();
         events.clear();
         pendingTimeouts.clear();
         autoResolvedTriggers.clear();
         disabledTriggers.clear();
-        missingStates.clear();
+        synchronized (missingStates) {
+            missingStates.clear();
+            pendingMissingStates.clear();
+            missingStatesByDataId.clear();
+        }
 
-        rulesTask = new RulesInvoker();
-        wakeUpTimer.schedule(rulesTask, delay, period);
+        startRulesInvoker();
     }
 
     @Override
     public void reload() {
         log.debug("Start a full reload of the AlertsEngine");
+        stopRulesInvoker();
         rules.reset();
         if (distributed) {
             alertsEngineCache.clear();
         }
-        if (rulesTask != null) {
-            rulesTask.cancel();
-        }
 
         Collection<Trigger> triggers = null;
         try {
@@ -246,30 +367,75 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         }
 
         if (!isEmpty(triggers)) {
-
-            triggers.stream().filter(Trigger::isLoadable).forEach(t -> {
-                /*
-                    In distributed scenario a reload should delegate into the PartitionManager to load the trigger on
-                    the node which belongs
-                 */
-                if (distributed) {
-                    partitionManager.notifyTrigger(Operation.UPDATE, t.getTenantId(), t.getId());
-                } else {
+            /*
+                In distributed scenario a reload should delegate into the PartitionManager to load the triggers on
+                the nodes which belong, with a single notification per node
+             */
+            if (distributed) {
+                Map<String, Map<String, Operation>> operations = new HashMap<>();
+                triggers.stream().filter(Trigger::isLoadable).forEach(t -> {
+                    operations.computeIfAbsent(t.getTenantId(), tenantId -> new HashMap<>())
+                            .put(t.getId(), Operation.UPDATE);
+                });
+                partitionManager.notifyTriggers(operations);
+            } else {
+                triggers.stream().filter(Trigger::isLoadable).forEach(t -> {
                     reloadTrigger(t);
-                }
-            });
+                });
+            }
         }
 
+        /*
+            The actions of the generated alerts and events are sent once they are persisted, not by the rules.
+         */
         rules.addGlobal("log", log);
-        rules.addGlobal("actions", actions);
         rules.addGlobal("alerts", alerts);
         rules.addGlobal("events", events);
         rules.addGlobal("pendingTimeouts", pendingTimeouts);
         rules.addGlobal("autoResolvedTriggers", autoResolvedTriggers);
         rules.addGlobal("disabledTriggers", disabledTriggers);
 
+        startRulesInvoker();
+    }
+
+    private synchronized void startRulesInvoker() {
+        if (stopped) {
+            return;
+        }
         rulesTask = new RulesInvoker();
-        wakeUpTimer.schedule(rulesTask, delay, period);
+        rulesThread = new Thread(rulesTask, "AlertsEngineImpl-Rules");
+        rulesThread.start();
+    }
+
+    /*
+        Cancel the current RulesInvoker and wait until its thread ends. A running evaluation is given stopTimeout ms
+        to finish before it is interrupted, an invoker parked waiting for data ends as soon as it is cancelled.
+     */
+    private synchronized void stopRulesInvoker() {
+        RulesInvoker task = rulesTask;
+        Thread thread = rulesThread;
+        if (task == null) {
+            return;
+        }
+        task.cancel();
+        rulesTask = null;
+        rulesThread = null;
+        if (thread == null || thread == Thread.currentThread()) {
+            return;
+        }
+        try {
+            thread.join(stopTimeout);
+            if (thread.isAlive()) {
+                log.warnf("RulesInvoker did not stop in [%s] ms, interrupting it", stopTimeout);
+                thread.interrupt();
+                thread.join(stopTimeout);
+                if (thread.isAlive()) {
+                    log.warn("RulesInvoker did not stop after interrupted");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
@@ -351,54 +517,185 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
             log.debug("Reloading " + trigger);
         }
 
-        // Look for the Trigger in the rules engine, if it is there then remove everything about it
-        // Note that removeTrigger relies only on tenatId+triggerId.
-        removeTrigger(trigger);
-
+        Trigger triggerToReload = trigger;
+        Collection<Condition> conditionSet = null;
+        Collection<Dampening> dampenings = null;
         try {
             if (distributed) {
-                trigger = definitions.getTrigger(trigger.getTenantId(), trigger.getId());
+                triggerToReload = definitions.getTrigger(trigger.getTenantId(), trigger.getId());
             }
-            if (trigger != null && trigger.isLoadable()) {
-                Collection<Condition> conditionSet = definitions.getTriggerConditions(trigger.getTenantId(),
-                        trigger.getId(), null);
-                Collection<Dampening> dampenings = definitions.getTriggerDampenings(trigger.getTenantId(),
-                        trigger.getId(), null);
+            if (triggerToReload != null && triggerToReload.isLoadable()) {
+                conditionSet = definitions.getTriggerConditions(triggerToReload.getTenantId(),
+                        triggerToReload.getId(), null);
+                dampenings = definitions.getTriggerDampenings(triggerToReload.getTenantId(),
+                        triggerToReload.getId(), null);
+            }
+        } catch (Exception e) {
+            log.debug(e.getMessage(), e);
+            log.errorDefinitionsService("Conditions/Dampening", e.getMessage());
+            conditionSet = null;
+        }
 
-                /*
-                    Cache dataId from conditions, Handle MissingCondition's MissingState
-                 */
-                for (Condition c : conditionSet) {
-                    if (distributed) {
-                        DataEntry entry = new DataEntry(c.getTenantId(), c.getTriggerId(), c.getDataId());
-                        alertsEngineCache.add(entry);
-                        if (Condition.Type.COMPARE == c.getType()) {
-                            String data2Id = ((CompareCondition) c).getData2Id();
-                            DataEntry entry2 = new DataEntry(c.getTenantId(), c.getTriggerId(), data2Id);
-                            alertsEngineCache.add(entry2);
-                        }
-                    }
-                    if (c instanceof MissingCondition) {
-                        // MissingState keeps a reference to the Trigger fact to check active trigger mode
-                        MissingState missingState = new MissingState(trigger, (MissingCondition) c);
-                        // MissingStates are modified inside the rules engine
-                        synchronized (missingStates) {
-                            missingStates.remove(missingState);
-                            missingStates.add(missingState);
-                            rules.addFact(missingState);
-                        }
+        synchronized (loadedTriggers) {
+            // Note that removeTrigger relies only on tenatId+triggerId.
+            if (null == conditionSet) {
+                removeTrigger(trigger);
+                return;
+            }
+
+            /*
+                If the Trigger is loaded with the same definition and mode, update only the changed conditions and
+                dampenings, keeping the state of the unchanged ones. Otherwise remove everything about it and
+                insert it again.
+             */
+            TriggerFacts loaded = loadedTriggers.get(triggerToReload);
+            if (null != loaded && loaded.trigger.isSame(triggerToReload)
+                    && loaded.trigger.getMode() == triggerToReload.getMode()
+                    && null != rules.getFact(loaded.trigger)) {
+                updateTrigger(loaded, conditionSet, dampenings);
+            } else {
+                removeTrigger(trigger);
+                insertTrigger(triggerToReload, conditionSet, dampenings);
+            }
+        }
+    }
+
+    /*
+        Must be called holding the loadedTriggers lock.
+     */
+    private void insertTrigger(Trigger trigger, Collection<Condition> conditionSet,
+            Collection<Dampening> dampenings) {
+        TriggerFacts facts = new TriggerFacts(trigger);
+
+        /*
+            Cache dataId from conditions, Handle MissingCondition's MissingState
+         */
+        cacheDataIds(conditionSet);
+        for (Condition c : conditionSet) {
+            facts.conditions.put(c.getConditionId(), c);
+            if (c instanceof MissingCondition) {
+                insertMissingState(facts, (MissingCondition) c);
+            }
+        }
+
+        rules.addFact(trigger);
+        rules.addFacts(conditionSet);
+        if (!dampenings.isEmpty()) {
+            rules.addFacts(dampenings);
+        }
+        for (Dampening d : dampenings) {
+            facts.dampenings.put(d.getDampeningId(), d);
+        }
+        loadedTriggers.put(trigger, facts);
+    }
+
+    /*
+        Diff the conditions and dampenings of a loaded trigger with its current definition. Only changed facts are
+        replaced in the rules engine. Dampenings track the evaluations of the trigger conditions, so when any
+        condition changes all dampenings are reset.
+
+        Must be called holding the loadedTriggers lock.
+     */
+    private void updateTrigger(TriggerFacts facts, Collection<Condition> conditionSet,
+            Collection<Dampening> dampenings) {
+        List<Condition> removedConditions = new ArrayList<>();
+        List<Condition> addedConditions = new ArrayList<>();
+        diff(facts.conditions, conditionSet, Condition::getConditionId, Condition::isSame, removedConditions,
+                addedConditions);
+
+        List<Dampening> removedDampenings = new ArrayList<>();
+        List<Dampening> addedDampenings = new ArrayList<>();
+        if (removedConditions.isEmpty() && addedConditions.isEmpty()) {
+            diff(facts.dampenings, dampenings, Dampening::getDampeningId, Dampening::isSame, removedDampenings,
+                    addedDampenings);
+            if (removedDampenings.isEmpty() && addedDampenings.isEmpty()) {
+                log.debugf("Trigger %s not changed, nothing reloaded", facts.trigger.getId());
+                return;
+            }
+        } else {
+            removedDampenings.addAll(facts.dampenings.values());
+            addedDampenings.addAll(dampenings);
+
+            if (distributed) {
+                alertsEngineCache.remove(facts.trigger.getTenantId(), facts.trigger.getId());
+                cacheDataIds(conditionSet);
+            }
+            for (Condition c : removedConditions) {
+                rules.removeFact(c);
+                facts.conditions.remove(c.getConditionId());
+                MissingState missingState = facts.missingStates.remove(c.getConditionId());
+                if (null != missingState) {
+                    synchronized (missingStates) {
+                        removeMissingState(missingState);
                     }
+                    rules.removeFact(missingState);
                 }
-
-                rules.addFact(trigger);
-                rules.addFacts(conditionSet);
-                if (!dampenings.isEmpty()) {
-                    rules.addFacts(dampenings);
+            }
+            for (Condition c : addedConditions) {
+                facts.conditions.put(c.getConditionId(), c);
+                if (c instanceof MissingCondition) {
+                    insertMissingState(facts, (MissingCondition) c);
                 }
             }
-        } catch (Exception e) {
-            log.debug(e.getMessage(), e);
-            log.errorDefinitionsService("Conditions/Dampening", e.getMessage());
+            rules.addFacts(addedConditions);
+        }
+
+        for (Dampening d : removedDampenings) {
+            rules.removeFact(d);
+            facts.dampenings.remove(d.getDampeningId());
+        }
+        if (!addedDampenings.isEmpty()) {
+            rules.addFacts(addedDampenings);
+        }
+        for (Dampening d : addedDampenings) {
+            facts.dampenings.put(d.getDampeningId(), d);
+        }
+        log.debugf("Trigger %s updated: -%s +%s conditions, -%s +%s dampenings", facts.trigger.getId(),
+                removedConditions.size(), addedConditions.size(), removedDampenings.size(), addedDampenings.size());
+    }
+
+    private <T> void diff(Map<String, T> loaded, Collection<T> current, Function<T, String> id,
+            BiPredicate<T, T> same, List<T> removed, List<T> added) {
+        Map<String, T> currentById = new HashMap<>();
+        for (T t : current) {
+            currentById.put(id.apply(t), t);
+            T loadedT = loaded.get(id.apply(t));
+            if (null == loadedT || !same.test(loadedT, t)) {
+                added.add(t);
+            }
+        }
+        for (T loadedT : loaded.values()) {
+            T currentT = currentById.get(id.apply(loadedT));
+            if (null == currentT || !same.test(loadedT, currentT)) {
+                removed.add(loadedT);
+            }
+        }
+    }
+
+    private void cacheDataIds(Collection<Condition> conditionSet) {
+        if (!distributed) {
+            return;
+        }
+        for (Condition c : conditionSet) {
+            DataEntry entry = new DataEntry(c.getTenantId(), c.getTriggerId(), c.getDataId());
+            alertsEngineCache.add(entry);
+            if (Condition.Type.COMPARE == c.getType()) {
+                String data2Id = ((CompareCondition) c).getData2Id();
+                DataEntry entry2 = new DataEntry(c.getTenantId(), c.getTriggerId(), data2Id);
+                alertsEngineCache.add(entry2);
+            }
+        }
+    }
+
+    private void insertMissingState(TriggerFacts facts, MissingCondition c) {
+        // MissingState keeps a reference to the Trigger fact to check active trigger mode
+        MissingState missingState = new MissingState(facts.trigger, c);
+        facts.missingStates.put(c.getConditionId(), missingState);
+        // MissingStates are modified inside the rules engine
+        synchronized (missingStates) {
+            removeMissingState(missingState);
+            addMissingState(missingState);
+            rules.addFact(missingState);
         }
     }
 
@@ -435,52 +732,93 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         }
     }
 
-    private void removeTrigger(Trigger trigger) {
-        final String tenantId = trigger.getTenantId();
-        final String triggerId = trigger.getId();
-
-        // If necessary, clean up working memory
-        if (null != rules.getFact(trigger)) {
-            // Remove the Trigger fact
-            rules.removeFact(trigger);
-
-            // Remove related facts
-            rules.removeFacts(f -> {
-                if (f instanceof Dampening) {
-                    return ((Dampening) f).getTenantId().equals(tenantId)
-                            && ((Dampening) f).getTriggerId().equals(triggerId);
-                } else if (f instanceof Condition) {
-                    return ((Condition) f).getTenantId().equals(tenantId) &&
-                            ((Condition) f).getTriggerId().equals(triggerId);
-                } else if (f instanceof MissingState) {
-                    return ((MissingState) f).getTenantId().equals(tenantId) &&
-                            ((MissingState) f).getTriggerId().equals(triggerId);
-                }
-                return false;
+    @Override
+    public void updateTriggers(Map<String, Map<String, Operation>> operations) {
+        if (isEmpty(operations)) {
+            return;
+        }
+        if (distributed) {
+            /*
+                Same checks as addTrigger() and reloadTrigger() before delegating into the PartitionManager, but
+                the triggers are notified together
+             */
+            Map<String, Map<String, Operation>> toNotify = new HashMap<>();
+            operations.entrySet().stream().forEach(tenant -> {
+                tenant.getValue().entrySet().stream().forEach(op -> {
+                    Operation operation = op.getValue();
+                    if (!Operation.REMOVE.equals(operation)) {
+                        Trigger trigger = null;
+                        try {
+                            trigger = definitions.getTrigger(tenant.getKey(), op.getKey());
+                        } catch (Exception e) {
+                            log.debug(e.getMessage(), e);
+                            log.errorDefinitionsService("Trigger", e.getMessage());
+                        }
+                        if (Operation.ADD.equals(operation)) {
+                            operation = null != trigger && trigger.isLoadable() ? operation : null;
+                        } else if (null == trigger) {
+                            operation = Operation.REMOVE;
+                        } else if (trigger.isGroup()) {
+                            operation = null;
+                        }
+                    }
+                    if (null != operation) {
+                        toNotify.computeIfAbsent(tenant.getKey(), t -> new HashMap<>()).put(op.getKey(), operation);
+                    }
+                });
             });
+            partitionManager.notifyTriggers(toNotify);
         } else {
-            log.debugf("Trigger Fact not found. Nothing removed from rulebase %s", trigger.toString());
+            synchronized (loadedTriggers) {
+                operations.entrySet().stream().forEach(tenant -> {
+                    tenant.getValue().entrySet().stream().forEach(op -> {
+                        switch (op.getValue()) {
+                            case ADD:
+                                /*
+                                    As addTrigger(), on non-distributed scenarios the trigger is loaded on the
+                                    reload of its conditions or dampenings
+                                 */
+                                break;
+                            case UPDATE:
+                                reloadTrigger(tenant.getKey(), op.getKey());
+                                break;
+                            case REMOVE:
+                                removeTrigger(new Trigger(tenant.getKey(), op.getKey(), "trigger-to-remove"));
+                                break;
+                        }
+                    });
+                });
+            }
         }
+    }
 
-        // Remove dataId associated from cache
-        if (distributed) {
-            alertsEngineCache.remove(trigger.getTenantId(), trigger.getId());
-        }
-        // Remove any MissingState being managed for the trigger
-        synchronized (missingStates) {
-            Iterator<MissingState> it = missingStates.iterator();
-            while (it.hasNext()) {
-                MissingState missingState = it.next();
-                if (missingState.getTenantId().equals(trigger.getTenantId()) &&
-                        missingState.getTriggerId().equals(triggerId)) {
-                    it.remove();
+    private void removeTrigger(Trigger trigger) {
+        synchronized (loadedTriggers) {
+            // If necessary, clean up working memory, the rules engine indexes the facts by trigger
+            if (rules.removeTriggerFacts(trigger.getTenantId(), trigger.getId()).isEmpty()) {
+                log.debugf("Trigger Fact not found. Nothing removed from rulebase %s", trigger.toString());
+            }
+
+            // Remove any MissingState being managed for the trigger
+            TriggerFacts facts = loadedTriggers.remove(trigger);
+            if (null != facts) {
+                synchronized (missingStates) {
+                    for (MissingState missingState : facts.missingStates.values()) {
+                        removeMissingState(missingState);
+                    }
                 }
             }
+
+            // Remove dataId associated from cache
+            if (distributed) {
+                alertsEngineCache.remove(trigger.getTenantId(), trigger.getId());
+            }
         }
     }
 
-    // We allow concurrent threads to make this call in order to process distributed data in parallel. We
-    // use synchronized blocks to protect pendingData.
+    // We allow concurrent threads to make this call in order to process distributed data in parallel. pendingData
+    // is a lock-free queue. When the pending queue is full the configured Backpressure policy is applied to the
+    // caller.
     @Override
     public void sendData(TreeSet<Data> data) {
         if (data == null) {
@@ -506,10 +844,110 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
             data = processDataExtensions(data);
         }
 
-        synchronized (pendingData) {
-            log.debugf("Adding [%s] to pendingData [%s]", data, pendingData);
-            pendingData.addAll(data);
+        if (data.isEmpty()) {
+            return;
         }
+
+        int numData = data.size();
+        if (!admit(numData, "datums")) {
+            return;
+        }
+        log.debugf("Adding [%s] to pendingData", data);
+        int previousSize = pendingSize.getAndAdd(numData);
+        // the caller may reuse its set once sendData() returns
+        pendingData.add(new ArrayList<>(data));
+        wakeUpRulesInvoker(previousSize, numData);
+    }
+
+    /*
+        Applies the Backpressure policy if adding numItems exceeds the queue capacity. An empty queue always accepts
+        a new batch, so batches bigger than the queue capacity are not blocked forever.
+        The capacity is checked without locking, so concurrent callers can exceed it by their batch sizes.
+        Returns true if the batch can be added to the pending queue.
+     */
+    private boolean admit(int numItems, String type) {
+        if (queueCapacity <= 0) {
+            return true;
+        }
+        while (!stopped && isQueueFull(numItems)) {
+            switch (backpressure) {
+                case REJECT:
+                    throw new RejectedExecutionException("Pending queue is full [" + pendingSize.get() + "/"
+                            + queueCapacity + "]. Rejected [" + numItems + "] " + type + ".");
+                case SHED:
+                    log.warnf("Pending queue is full [%s/%s]. Discarded [%s] %s.", pendingSize.get(), queueCapacity,
+                            numItems, type);
+                    metrics.add(EngineMetrics.ENGINE_SHED, numItems);
+                    return false;
+                default:
+                    synchronized (blockedLock) {
+                        blockedCallers.incrementAndGet();
+                        try {
+                            if (!stopped && isQueueFull(numItems)) {
+                                blockedLock.wait();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            log.warnf("Interrupted waiting for pending queue. Discarded [%s] %s.", numItems, type);
+                            return false;
+                        } finally {
+                            blockedCallers.decrementAndGet();
+                        }
+                    }
+            }
+        }
+        return true;
+    }
+
+    private boolean isQueueFull(int numItems) {
+        int size = pendingSize.get();
+        return size > 0 && (size + numItems) > queueCapacity;
+    }
+
+    private void wakeUpBlockedCallers() {
+        if (blockedCallers.get() > 0) {
+            synchronized (blockedLock) {
+                blockedLock.notifyAll();
+            }
+        }
+    }
+
+    /*
+        RulesInvoker needs to know when the first item arrives to start the batch delay, and when the batch size is
+        reached. Other additions do not need to wake it up.
+     */
+    private void wakeUpRulesInvoker(int previousSize, int numItems) {
+        if (previousSize <= 0 || (previousSize < batchSize && (previousSize + numItems) >= batchSize)) {
+            RulesInvoker invoker = rulesTask;
+            if (invoker != null) {
+                invoker.wakeUp();
+            }
+        }
+    }
+
+    /*
+        Only the discarded chunks are subtracted from pendingSize, as producers may have reserved space for chunks
+        not appended yet.
+     */
+    private <T> void discard(Queue<Collection<T>> pending) {
+        Collection<T> chunk;
+        while ((chunk = pending.poll()) != null) {
+            pendingSize.addAndGet(-chunk.size());
+        }
+    }
+
+    /*
+        Drains all chunks of a pending queue, sorting them in a single TreeSet.
+        Only invoked from the RulesInvoker.
+     */
+    private <T> TreeSet<T> drain(Queue<Collection<T>> pending) {
+        TreeSet<T> result = new TreeSet<>();
+        Collection<T> chunk;
+        while ((chunk = pending.poll()) != null) {
+            result.addAll(chunk);
+            pendingSize.addAndGet(-chunk.size());
+        }
+        return result;
     }
 
     private TreeSet<Data> filterIncomingDataForNode(TreeSet<Data> data) {
@@ -533,8 +971,9 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         return data;
     }
 
-    // We allow concurrent threads to make this call in order to process distributed data in parallel. We
-    // use synchronized blocks to protect pendingEvents.
+    // We allow concurrent threads to make this call in order to process distributed data in parallel. pendingEvents
+    // is a lock-free queue. When the pending queue is full the configured Backpressure policy is applied to the
+    // caller.
     @Override
     public void sendEvents(TreeSet<Event> events) {
         if (events == null) {
@@ -560,10 +999,19 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
             events = processEventsExtensions(events);
         }
 
-        synchronized (pendingEvents) {
-            log.debugf("Adding [%s] to pendingEvents [%s]", events, pendingEvents);
-            pendingEvents.addAll(events);
+        if (events.isEmpty()) {
+            return;
+        }
+
+        int numEvents = events.size();
+        if (!admit(numEvents, "events")) {
+            return;
         }
+        log.debugf("Adding [%s] to pendingEvents", events);
+        int previousSize = pendingSize.getAndAdd(numEvents);
+        // the caller may reuse its set once sendEvents() returns
+        pendingEvents.add(new ArrayList<>(events));
+        wakeUpRulesInvoker(previousSize, numEvents);
     }
 
     private TreeSet<Event> filterIncomingEventsForNode(TreeSet<Event> events) {
@@ -587,78 +1035,160 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         return events;
     }
 
-    private TreeSet<Data> getAndClearPendingData() {
-        TreeSet<Data> result;
-        synchronized (pendingData) {
-            result = pendingData;
-            pendingData = new TreeSet<>();
+    /*
+        The RulesInvoker runs the rules engine on a dedicated thread.
+
+        An evaluation is started when:
+        - New data or events arrive, after waiting up to ENGINE_BATCH_DELAY to coalesce more of them, or immediately
+          if ENGINE_BATCH_SIZE pending items are reached.
+        - ENGINE_PERIOD has elapsed since the last evaluation, to check dampening timeouts and missing conditions.
+
+        The first evaluation is not started before ENGINE_DELAY.
+     */
+    private class RulesInvoker implements Runnable {
+        private volatile boolean cancelled = false;
+        private volatile Thread thread;
+        private boolean initialDelay = true;
+        private long nextPeriod;
+
+        public void cancel() {
+            cancelled = true;
+            wakeUp();
         }
-        return result;
-    }
 
-    private TreeSet<Event> getAndClearPendingEvents() {
-        TreeSet<Event> result;
-        synchronized (pendingEvents) {
-            result = pendingEvents;
-            pendingEvents = new TreeSet<>();
+        public void wakeUp() {
+            Thread invokerThread = thread;
+            if (invokerThread != null) {
+                LockSupport.unpark(invokerThread);
+            }
         }
-        return result;
-    }
 
-    private class RulesInvoker extends TimerTask {
         @Override
         public void run() {
+            thread = Thread.currentThread();
+            nextPeriod = System.currentTimeMillis() + delay;
+            while (!cancelled) {
+                awaitPending();
+                if (Thread.currentThread().isInterrupted()) {
+                    log.debug("RulesInvoker interrupted");
+                    return;
+                }
+                if (cancelled) {
+                    return;
+                }
+                initialDelay = false;
+                nextPeriod = System.currentTimeMillis() + period;
+
+                try {
+                    invoke();
+                } catch (Throwable t) {
+                    log.debugf("Error on rules processing: %s", t);
+                    log.errorProcessingRules(t.getMessage());
+                }
+            }
+        }
+
+        /*
+            Waits until an evaluation is needed, either by pending items or by the engine period.
+         */
+        private void awaitPending() {
+            long batchDeadline = 0;
+            while (!cancelled && !Thread.currentThread().isInterrupted()) {
+                long now = System.currentTimeMillis();
+                if (now >= nextPeriod) {
+                    return;
+                }
+                int numPending = pendingSize.get();
+                if (numPending > 0 && !initialDelay) {
+                    if (batchDeadline == 0) {
+                        batchDeadline = now + batchDelay;
+                    }
+                    if (numPending >= batchSize || now >= batchDeadline) {
+                        return;
+                    }
+                    park(Math.min(batchDeadline, nextPeriod) - now);
+                } else {
+                    park(nextPeriod - now);
+                }
+            }
+        }
+
+        private void park(long millis) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        private void invoke() {
+            publishDataIds();
+
             int numTimeouts = checkPendingTimeouts();
 
             int numMissingEvals = checkMissingStates();
 
-            if (!pendingData.isEmpty() || !pendingEvents.isEmpty() || numTimeouts > 0 || numMissingEvals > 0) {
-                TreeSet<Data> newData = getAndClearPendingData();
-                TreeSet<Event> newEvents = getAndClearPendingEvents();
+            if (pendingData.isEmpty() && pendingEvents.isEmpty() && numTimeouts == 0 && numMissingEvals == 0) {
+                return;
+            }
+            TreeSet<Data> newData = drain(pendingData);
+            TreeSet<Event> newEvents = drain(pendingEvents);
+            flagMissingStates(newData, newEvents);
 
-                log.debugf("Executing rules engine on %s datums, %s events, %s dampening timeouts.", newData.size(),
-                        newEvents.size(), numTimeouts);
+            // pending queue is drained, wake up blocked callers
+            wakeUpBlockedCallers();
 
-                try {
-                    if (newData.isEmpty() && newEvents.isEmpty()) {
-                        rules.fireNoData();
+            log.debugf("Executing rules engine on %s datums, %s events, %s dampening timeouts.", newData.size(),
+                    newEvents.size(), numTimeouts);
 
-                    } else {
-                        if (!newData.isEmpty()) {
-                            rules.addData(newData);
-                        }
-                        if (!newEvents.isEmpty()) {
-                            rules.addEvents(newEvents);
-                        }
+            metrics.record(EngineMetrics.ENGINE_BATCH_SIZE, newData.size() + newEvents.size());
 
-                        // release to GC
-                        newData = null;
-                        newEvents = null;
+            try {
+                long start = System.nanoTime();
+                if (newData.isEmpty() && newEvents.isEmpty()) {
+                    rules.fireNoData();
 
-                        rules.fire();
+                } else {
+                    if (!newData.isEmpty()) {
+                        rules.addData(newData);
                     }
-
-                    alertsService.addAlerts(alerts);
-                    alerts.clear();
-                    alertsService.persistEvents(events);
-                    if (distributed && !events.isEmpty()) {
-                        /*
-                            Generated events on a node should be notified to other nodes for chained triggers
-                         */
-                        partitionManager.notifyEvents(new ArrayList<>(events));
+                    if (!newEvents.isEmpty()) {
+                        rules.addEvents(newEvents);
                     }
-                    events.clear();
-                    handleDisabledTriggers();
-                    handleAutoResolvedTriggers();
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    log.debugf("Error on rules processing: %s", e);
-                    log.errorProcessingRules(e.getMessage());
-                } finally {
+                    // release to GC
+                    newData = null;
+                    newEvents = null;
+
+                    rules.fire();
+                }
+                metrics.recordSince(EngineMetrics.ENGINE_FIRE_TIME, start);
+                metrics.add(EngineMetrics.ENGINE_ALERTS, alerts.size());
+                metrics.add(EngineMetrics.ENGINE_EVENTS, events.size());
+
+                if (!alerts.isEmpty() || !events.isEmpty()) {
+                    start = System.nanoTime();
+                    List<Event> generated = new ArrayList<>(alerts.size() + events.size());
+                    generated.addAll(alerts);
+                    generated.addAll(events);
+                    alertsService.persistAlertsAndEvents(alerts, events, () -> sendActions(generated));
+                    metrics.recordSince(EngineMetrics.ENGINE_PERSIST_TIME, start);
                     alerts.clear();
-                    events.clear();
                 }
+                flagMissingStates(null, events);
+                if (distributed && !events.isEmpty()) {
+                    /*
+                        Generated events on a node should be notified to other nodes for chained triggers
+                     */
+                    partitionManager.notifyEvents(new ArrayList<>(events));
+                }
+                events.clear();
+                handleDisabledTriggers();
+                handleAutoResolvedTriggers();
+
+            } catch (Exception e) {
+                e.printStackTrace();
+                log.debugf("Error on rules processing: %s", e);
+                log.errorProcessingRules(e.getMessage());
+            } finally {
+                alerts.clear();
+                events.clear();
             }
         }
 
@@ -667,33 +1197,33 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
                 return 0;
             }
 
-            long now = System.currentTimeMillis();
-            Set<Dampening> timeouts = null;
-            for (Dampening d : pendingTimeouts) {
-                if (now < d.getTrueEvalsStartTime() + d.getEvalTimeSetting()) {
-                    continue;
-                }
-
+            int numTimeouts = 0;
+            for (Dampening d : pendingTimeouts.expired(System.currentTimeMillis())) {
                 d.setSatisfied(true);
                 try {
                     log.debugf("Dampening Timeout Hit! %s", d.toString());
                     rules.updateFact(d);
-                    if (null == timeouts) {
-                        timeouts = new HashSet<>();
-                    }
-                    timeouts.add(d);
+                    pendingTimeouts.remove(d);
+                    numTimeouts++;
                 } catch (Exception e) {
                     log.errorf(e, "Unable to update Dampening Fact on Timeout! %s", d.toString());
                 }
-
             }
 
-            if (null == timeouts) {
-                return 0;
-            }
+            return numTimeouts;
+        }
+    }
 
-            pendingTimeouts.removeAll(timeouts);
-            return timeouts.size();
+    private void sendActions(List<Event> generated) {
+        if (actions == null) {
+            return;
+        }
+        for (Event event : generated) {
+            try {
+                actions.send(event.getTrigger(), event);
+            } catch (Exception e) {
+                log.errorf(e, "Failed to send actions of %s", event.getId());
+            }
         }
     }
 
@@ -744,39 +1274,124 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
     }
 
     private int checkMissingStates() {
-        if (missingStates.isEmpty()) {
-            return 0;
-        }
-
         int numMatchingEvals = 0;
-        for (MissingState missingState : missingStates) {
-            if (missingState.getTriggerMode() != missingState.getTrigger().getMode()) {
-                continue;
+        synchronized (missingStates) {
+            if (missingStates.isEmpty()) {
+                return 0;
             }
 
             long now = System.currentTimeMillis();
-            rules.removeFact(missingState);
-            missingState.setTime(now);
-            if (missingState.getCondition().match(missingState.getPreviousTime(), now)) {
-                MissingConditionEval eval = new MissingConditionEval(missingState.getCondition(),
-                        missingState.getPreviousTime(),
-                        now);
-                missingState.setPreviousTime(now);
-                rules.addFact(eval);
-                numMatchingEvals++;
+            Set<MissingState> candidates = new LinkedHashSet<>(pendingMissingStates);
+            candidates.addAll(missingStates.expired(now));
+            pendingMissingStates.clear();
+
+            for (MissingState missingState : candidates) {
+                if (missingState.getTriggerMode() != missingState.getTrigger().getMode()) {
+                    pendingMissingStates.add(missingState);
+                    continue;
+                }
+
+                rules.removeFact(missingState);
+                missingState.setTime(now);
+                if (missingState.getCondition().match(missingState.getPreviousTime(), now)) {
+                    MissingConditionEval eval = new MissingConditionEval(missingState.getCondition(),
+                            missingState.getPreviousTime(),
+                            now);
+                    missingState.setPreviousTime(now);
+                    rules.addFact(eval);
+                    numMatchingEvals++;
+                    // previousTime == time, it must be re-armed on next period
+                    pendingMissingStates.add(missingState);
+                }
+                rules.addFact(missingState);
+                // reschedule with the updated previousTime
+                missingStates.add(missingState);
             }
-            rules.addFact(missingState);
         }
 
         return numMatchingEvals;
     }
 
+    /*
+        MissingStates updated in the rules engine by data or events need to be re-armed on next period.
+     */
+    private void flagMissingStates(Collection<Data> data, Collection<Event> events) {
+        synchronized (missingStates) {
+            if (missingStatesByDataId.isEmpty()) {
+                return;
+            }
+            if (null != data) {
+                for (Data d : data) {
+                    flagMissingStates(d.getTenantId(), d.getId());
+                }
+            }
+            if (null != events) {
+                for (Event e : events) {
+                    flagMissingStates(e.getTenantId(), e.getDataId());
+                }
+            }
+        }
+    }
+
+    private void flagMissingStates(String tenantId, String dataId) {
+        if (null == dataId) {
+            return;
+        }
+        Set<MissingState> dataIdMissingStates = missingStatesByDataId.get(new DataId(tenantId, dataId));
+        if (null != dataIdMissingStates) {
+            pendingMissingStates.addAll(dataIdMissingStates);
+        }
+    }
+
+    /*
+        Must be called holding the missingStates lock.
+     */
+    private void addMissingState(MissingState missingState) {
+        missingStates.add(missingState);
+        // new MissingStates have previousTime == time, they are armed on next period
+        pendingMissingStates.add(missingState);
+        missingStatesByDataId.computeIfAbsent(new DataId(missingState.getTenantId(), missingState.getDataId()),
+                k -> new HashSet<>()).add(missingState);
+    }
+
+    /*
+        Must be called holding the missingStates lock.
+     */
+    private void removeMissingState(MissingState missingState) {
+        if (!missingStates.remove(missingState)) {
+            return;
+        }
+        pendingMissingStates.remove(missingState);
+        DataId dataId = new DataId(missingState.getTenantId(), missingState.getDataId());
+        Set<MissingState> dataIdMissingStates = missingStatesByDataId.get(dataId);
+        if (null != dataIdMissingStates) {
+            dataIdMissingStates.remove(missingState);
+            if (dataIdMissingStates.isEmpty()) {
+                missingStatesByDataId.remove(dataId);
+            }
+        }
+    }
+
+    /*
+        In distributed scenarios the dataIds active on this node are published when they change, so the other nodes
+        send to this node only the data and events used by its triggers.
+     */
+    private void publishDataIds() {
+        if (distributed) {
+            long version = alertsEngineCache.getVersion();
+            if (version != publishedDataIdsVersion) {
+                partitionManager.notifyDataIds(alertsEngineCache.getActiveDataIds());
+                publishedDataIdsVersion = version;
+            }
+        }
+    }
+
     /*
         Data incoming from a different node.  This has already been globally filtered but not locally filtered.
         It does not need to be re-propagated.
 
         We allow concurrent threads to make this call in order to process distributed data in parallel. We
-        use synchronized blocks to protect pendingData.
+        use a lock-free queue for pendingData.
      */
     @Override
     public void onNewData(Collection<Data> data) {
@@ -788,7 +1403,7 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         It does not need to be re-propagated.
 
         We allow concurrent threads to make this call in order to process distributed data in parallel. We
-        use synchronized blocks to protect pendingEvents.
+        use a lock-free queue for pendingEvents.
      */
     @Override
     public void onNewEvents(Collection<Event> events) {
@@ -816,6 +1431,23 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         }
     }
 
+    /*
+        This listener method is invoked on distributed scenarios.
+        When a collection of triggers is modified, PartitionManager groups them by the node which holds them and
+        sends a single event per node. Local node reloads/removes all of them holding the loadedTriggers lock once.
+     */
+    @Override
+    public void onTriggersChange(Map<String, Map<String, Operation>> operations) {
+        log.debugf("Executing: %s", operations);
+        synchronized (loadedTriggers) {
+            operations.entrySet().stream().forEach(tenant -> {
+                tenant.getValue().entrySet().stream().forEach(op -> {
+                    onTriggerChange(op.getValue(), tenant.getKey(), op.getKey());
+                });
+            });
+        }
+    }
+
     /*
         This listener method is invoked on distributed scenarios.
         When topology changes, new nodes added or removed, PartitionManager recalculate global triggers partition.
@@ -831,13 +1463,11 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
         log.debugf("Removed: %s", removed);
         log.debugf("Added: %s", added);
 
-        if (!pendingData.isEmpty() || !pendingEvents.isEmpty()) {
-            if (!pendingData.isEmpty()) {
-                log.warnf("Pending Data onPartitionChange: %s.", pendingData);
-            }
-            if (!!pendingEvents.isEmpty()) {
-                log.warnf("Pending Events onPartitionChange: %s.", pendingData);
-            }
+        if (!pendingData.isEmpty()) {
+            log.warnf("Pending Data onPartitionChange: %s.", pendingData);
+        }
+        if (!pendingEvents.isEmpty()) {
+            log.warnf("Pending Events onPartitionChange: %s.", pendingEvents);
         }
 
         /*
@@ -861,4 +1491,15 @@ public class AlertsEngineImpl implements AlertsEngine, PartitionTriggerListener,
             });
         }
     }
+
+    private static class TriggerFacts {
+        private final Trigger trigger;
+        private final Map<String, Condition> conditions = new HashMap<>();
+        private final Map<String, Dampening> dampenings = new HashMap<>();
+        private final Map<String, MissingState> missingStates = new HashMap<>();
+
+        TriggerFacts(Trigger trigger) {
+            this.trigger = trigger;
+        }
+    }
 }
@@ -0,0 +1,1187 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_DATA;
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_DATA_DEFAULT;
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_DATA_ENV;
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_EVENTS;
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_EVENTS_DEFAULT;
+import static org.hawkular.alerts.engine.service.RulesEngine.MIN_REPORTING_INTERVAL_EVENTS_ENV;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.hawkular.alerts.api.model.condition.AvailabilityCondition;
+import org.hawkular.alerts.api.model.condition.AvailabilityConditionEval;
+import org.hawkular.alerts.api.model.condition.CompareCondition;
+import org.hawkular.alerts.api.model.condition.CompareConditionEval;
+import org.hawkular.alerts.api.model.condition.Condition;
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.condition.MissingConditionEval;
+import org.hawkular.alerts.api.model.condition.RateCondition;
+import org.hawkular.alerts.api.model.condition.RateConditionEval;
+import org.hawkular.alerts.api.model.condition.StringCondition;
+import org.hawkular.alerts.api.model.condition.StringConditionEval;
+import org.hawkular.alerts.api.model.condition.ThresholdCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdConditionEval;
+import org.hawkular.alerts.api.model.condition.ThresholdRangeCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdRangeConditionEval;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.event.EventType;
+import org.hawkular.alerts.api.model.trigger.Mode;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataId;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.TriggerKey;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.hawkular.alerts.engine.util.MissingState;
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+import org.hawkular.commons.properties.HawkularProperties;
+
+/**
+ * An implementation of RulesEngine that evaluates the common trigger shapes with plain Java instead of rules.
+ *
+ * Triggers whose conditions are all THRESHOLD, RANGE, COMPARE, STRING, AVAILABILITY, RATE or MISSING are compiled
+ * into a dispatch table indexed by dataId. Incoming Data is evaluated only against the conditions referencing its
+ * dataId, and the resulting ConditionEvals are applied to the trigger Dampening, with the same semantics as the
+ * ConditionMatch rules: default STRICT(1) dampening, STRICT_TIMEOUT pending timeouts, AutoResolve, AutoDisable and
+ * one Datum per dataId on each firing cycle.
+ *
+ * Any other trigger (i.e. with EVENT, EXTERNAL or NELSON conditions) and any fact not related to a trigger is moved
+ * to a fallback RulesEngine, which receives only the Data and Events referenced by its conditions. Events generated
+ * by the compiled triggers are forwarded to the fallback engine, so chained triggers are still evaluated, although
+ * after the compiled triggers and not interleaved with them. When a trigger is moved to the fallback engine the
+ * previous Data held for its RATE and COMPARE conditions is not transferred.
+ *
+ * As {@link DroolsRulesEngineImpl}, the RulesEngine is invoked only by the AlertsEngine impl. Definitions can be
+ * updated while the rules are fired, so the public methods are synchronized.
+ */
+public class CompiledRulesEngineImpl implements RulesEngine {
+    private final MsgLogger log = MsgLogging.getMsgLogger(CompiledRulesEngineImpl.class);
+
+    private static final long PERF_BATCHING_THRESHOLD = 3000L; // 3 seconds
+    private static final long PERF_FIRING_THRESHOLD = 5000L; // 5 seconds
+
+    private final RulesEngine fallback;
+    private final TriggerProfiler profiler;
+
+    private int minReportingIntervalData;
+    private int minReportingIntervalEvents;
+
+    private List<Alert> alerts;
+    private List<Event> events;
+    private Set<Dampening> pendingTimeouts;
+    private Map<Trigger, List<Set<ConditionEval>>> autoResolvedTriggers;
+    private Set<Trigger> disabledTriggers;
+
+    /*
+        Facts of every loaded trigger, compiled or moved to the fallback engine.
+     */
+    private final Map<TriggerKey, TriggerFacts> triggers = new HashMap<>();
+
+    /*
+        Compiled conditions and MissingStates by dataId
+     */
+    private final Map<DataId, List<CompiledCondition>> conditionsIndex = new HashMap<>();
+    private final Map<DataId, List<MissingState>> missingIndex = new HashMap<>();
+
+    /*
+        Number of fallback conditions by dataId. Used to forward Data and Events.
+     */
+    private final Map<DataId, Integer> fallbackIndex = new HashMap<>();
+
+    /*
+        Most recent Data held for RATE and COMPARE evaluations, RateData and CompareData facts on the rules.
+     */
+    private final Map<SourceDataId, Data> rateData = new HashMap<>();
+    private final Map<SourceDataId, Data> compareData = new HashMap<>();
+
+    /*
+        Triggers with ConditionEvals or Dampening updates to process, and triggers without Trigger fact.
+     */
+    private final Set<TriggerFacts> pendingDampening = new LinkedHashSet<>();
+    private final Set<TriggerFacts> orphans = new HashSet<>();
+    private final Set<CompiledCondition> pendingCompare = new LinkedHashSet<>();
+    private final List<Event> generatedEvents = new ArrayList<>();
+
+    TreeSet<Data> pendingData = new TreeSet<>();
+    TreeSet<Event> pendingEvents = new TreeSet<>();
+
+    public CompiledRulesEngineImpl(RulesEngine fallback) {
+        if (null == fallback) {
+            throw new IllegalArgumentException("Fallback RulesEngine must be not null");
+        }
+        log.debugf("Creating instance with fallback [%s].", fallback.getClass().getSimpleName());
+        this.fallback = fallback;
+        profiler = TriggerProfiler.fromProperties();
+
+        minReportingIntervalData = new Integer(
+                HawkularProperties.getProperty(MIN_REPORTING_INTERVAL_DATA,
+                        MIN_REPORTING_INTERVAL_DATA_ENV,
+                        MIN_REPORTING_INTERVAL_DATA_DEFAULT));
+
+        minReportingIntervalEvents = new Integer(
+                HawkularProperties.getProperty(MIN_REPORTING_INTERVAL_EVENTS,
+                        MIN_REPORTING_INTERVAL_EVENTS_ENV,
+                        MIN_REPORTING_INTERVAL_EVENTS_DEFAULT));
+    }
+
+    /**
+     * @param condition the condition
+     * @return true if the condition is evaluated by the compiled engine, false if its trigger needs the fallback
+     */
+    public static boolean isCompilable(Condition condition) {
+        if (null == condition || null == condition.getType()) {
+            return false;
+        }
+        switch (condition.getType()) {
+            case THRESHOLD:
+            case RANGE:
+            case COMPARE:
+            case STRING:
+            case AVAILABILITY:
+            case RATE:
+            case MISSING:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param tenantId the tenant of the trigger
+     * @param triggerId the trigger
+     * @return true if the trigger is loaded and evaluated without rules, false if it is not loaded or it is evaluated
+     * by the fallback engine
+     */
+    public synchronized boolean isCompiled(String tenantId, String triggerId) {
+        TriggerFacts facts = triggers.get(new TriggerKey(tenantId, triggerId));
+        return null != facts && !facts.fallback;
+    }
+
+    @Override
+    public synchronized void addGlobal(String name, Object global) {
+        setGlobal(name, global);
+        fallback.addGlobal(name, global);
+    }
+
+    @Override
+    public synchronized void removeGlobal(String name) {
+        setGlobal(name, null);
+        fallback.removeGlobal(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setGlobal(String name, Object global) {
+        switch (name) {
+            case "alerts":
+                alerts = (List<Alert>) global;
+                break;
+            case "events":
+                events = (List<Event>) global;
+                break;
+            case "pendingTimeouts":
+                pendingTimeouts = (Set<Dampening>) global;
+                break;
+            case "autoResolvedTriggers":
+                autoResolvedTriggers = (Map<Trigger, List<Set<ConditionEval>>>) global;
+                break;
+            case "disabledTriggers":
+                disabledTriggers = (Set<Trigger>) global;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public synchronized void addFact(Object fact) {
+        if (fact instanceof Data || fact instanceof Event) {
+            throw new IllegalArgumentException(fact.toString());
+        }
+        TriggerKey key = triggerKeyOf(fact);
+        if (null == key) {
+            fallback.addFact(fact);
+            return;
+        }
+        TriggerFacts facts = triggers.get(key);
+        if (null == facts) {
+            facts = new TriggerFacts();
+            triggers.put(key, facts);
+            orphans.add(facts);
+        }
+        if (facts.fallback) {
+            /*
+                ConditionEvals are consumed by the fallback engine, the rest of facts are kept for the dataId index
+             */
+            if (fact instanceof ConditionEval || facts.add(fact)) {
+                if (fact instanceof Condition) {
+                    indexFallback((Condition) fact, 1);
+                }
+                fallback.addFact(fact);
+            }
+            return;
+        }
+        if (fact instanceof Condition && !isCompilable((Condition) fact)) {
+            facts.add(fact);
+            toFallback(facts);
+            return;
+        }
+        if (facts.add(fact)) {
+            if (fact instanceof Trigger) {
+                orphans.remove(facts);
+            } else if (fact instanceof Condition) {
+                indexCondition(facts, (Condition) fact);
+            } else if (fact instanceof MissingState) {
+                indexMissingState((MissingState) fact, true);
+            } else if (fact instanceof ConditionEval) {
+                pendingDampening.add(facts);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addFacts(Collection facts) {
+        for (Object fact : facts) {
+            if (fact instanceof Data || fact instanceof Event) {
+                throw new IllegalArgumentException(fact.toString());
+            }
+        }
+        for (Object fact : facts) {
+            addFact(fact);
+        }
+    }
+
+    @Override
+    public synchronized Object getFact(Object fact) {
+        TriggerKey key = triggerKeyOf(fact);
+        if (null == key) {
+            return fallback.getFact(fact);
+        }
+        TriggerFacts facts = triggers.get(key);
+        if (null == facts) {
+            return null;
+        }
+        return facts.fallback ? fallback.getFact(fact) : facts.get(fact);
+    }
+
+    @Override
+    public synchronized void removeFact(Object fact) {
+        TriggerKey key = triggerKeyOf(fact);
+        if (null == key) {
+            fallback.removeFact(fact);
+            return;
+        }
+        TriggerFacts facts = triggers.get(key);
+        if (null == facts) {
+            return;
+        }
+        if (facts.fallback) {
+            fallback.removeFact(fact);
+        }
+        remove(facts, fact);
+    }
+
+    @Override
+    public synchronized void updateFact(Object fact) {
+        TriggerKey key = triggerKeyOf(fact);
+        if (null == key) {
+            fallback.updateFact(fact);
+            return;
+        }
+        TriggerFacts facts = triggers.get(key);
+        if (null == facts) {
+            return;
+        }
+        if (facts.fallback) {
+            fallback.updateFact(fact);
+            return;
+        }
+        /*
+            Replace the fact if a different instance is provided, as a FactHandle update does. Dampening updates
+            (i.e. STRICT_TIMEOUT hits) are processed on the next firing.
+         */
+        Object current = facts.get(fact);
+        if (null == current) {
+            return;
+        }
+        if (current != fact) {
+            remove(facts, current);
+            addFact(fact);
+        }
+        pendingDampening.add(facts);
+    }
+
+    @Override
+    public synchronized void removeFacts(Collection facts) {
+        for (Object fact : facts) {
+            removeFact(fact);
+        }
+    }
+
+    @Override
+    public synchronized void removeFacts(Predicate<Object> factFilter) {
+        fallback.removeFacts(factFilter);
+        for (TriggerFacts facts : new ArrayList<>(triggers.values())) {
+            for (Object fact : facts.all()) {
+                if (factFilter.test(fact)) {
+                    remove(facts, fact);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized Collection<Object> removeTriggerFacts(String tenantId, String triggerId) {
+        TriggerFacts facts = triggers.get(new TriggerKey(tenantId, triggerId));
+        if (null == facts) {
+            return fallback.removeTriggerFacts(tenantId, triggerId);
+        }
+        Collection<Object> removed = facts.fallback ? fallback.removeTriggerFacts(tenantId, triggerId) : facts.all();
+        removeAll(facts);
+        return removed;
+    }
+
+    @Override
+    public synchronized void addData(TreeSet<Data> data) {
+        pendingData.addAll(data);
+    }
+
+    @Override
+    public synchronized void addEvents(TreeSet<Event> events) {
+        pendingEvents.addAll(events);
+    }
+
+    @Override
+    public synchronized void fire() {
+        fire(false);
+    }
+
+    @Override
+    public synchronized void fireNoData() {
+        fire(true);
+    }
+
+    @Override
+    public synchronized void clear() {
+        fallback.clear();
+        clearState();
+    }
+
+    @Override
+    public synchronized void reset() {
+        fallback.reset();
+        clearState();
+        pendingData.clear();
+        pendingEvents.clear();
+        if (null != profiler) {
+            profiler.clear();
+        }
+    }
+
+    /*
+        A trigger can be profiled by both engines if it was moved to the fallback.
+     */
+    @Override
+    public synchronized List<TriggerProfile> getTriggerProfiles(String tenantId, int top) {
+        if (null == profiler) {
+            return fallback.getTriggerProfiles(tenantId, top);
+        }
+        List<TriggerProfile> profiles = new ArrayList<>(profiler.getProfiles(tenantId, Integer.MAX_VALUE));
+        profiles.addAll(fallback.getTriggerProfiles(tenantId, Integer.MAX_VALUE));
+        return profiles.isEmpty() ? Collections.emptyList() : TriggerProfiler.top(profiles, top);
+    }
+
+    private void clearState() {
+        triggers.clear();
+        conditionsIndex.clear();
+        missingIndex.clear();
+        fallbackIndex.clear();
+        rateData.clear();
+        compareData.clear();
+        pendingDampening.clear();
+        orphans.clear();
+        pendingCompare.clear();
+        generatedEvents.clear();
+    }
+
+    private void fire(boolean noData) {
+        int initialPendingData = pendingData.size();
+        int initialPendingEvents = pendingEvents.size();
+        long startFiring = System.currentTimeMillis();
+
+        removeOrphans();
+
+        boolean fallbackWork = false;
+        if (!noData) {
+            fallbackWork = forwardToFallback();
+            while (!pendingData.isEmpty() || !pendingEvents.isEmpty()) {
+                log.debugf("Evaluating... PendingData [%s] PendingEvents [%s]", initialPendingData,
+                        initialPendingEvents);
+                for (Data d : batchData()) {
+                    evaluate(d);
+                }
+                evaluateCompare();
+                for (Event e : batchEvents()) {
+                    evaluate(e);
+                }
+                fallbackWork |= dampen();
+            }
+        }
+
+        /*
+            Process external ConditionEvals and Dampening updates, then fire the fallback engine, chaining the
+            generated events between both until no new events affect the compiled triggers.
+         */
+        fallbackWork |= dampen();
+        while (true) {
+            int numAlerts = null == alerts ? 0 : alerts.size();
+            int numEvents = null == events ? 0 : events.size();
+            if (fallbackWork) {
+                fallback.fire();
+            } else {
+                fallback.fireNoData();
+            }
+            removeFallbackRetracted();
+
+            boolean chained = false;
+            if (null != alerts) {
+                for (int i = numAlerts; i < alerts.size(); i++) {
+                    chained |= evaluate(alerts.get(i));
+                }
+            }
+            if (null != events) {
+                for (int i = numEvents; i < events.size(); i++) {
+                    chained |= evaluate(events.get(i));
+                }
+            }
+            if (!chained) {
+                break;
+            }
+            fallbackWork = dampen();
+        }
+
+        long firingTime = System.currentTimeMillis() - startFiring;
+        log.debugf("Firing took [%s] ms", firingTime);
+        if (firingTime > PERF_FIRING_THRESHOLD) {
+            log.warnf("Firing rules... PendingData [%s] PendingEvents [%s] took [%s] ms exceeding [%s] ms",
+                    initialPendingData, initialPendingEvents, firingTime, PERF_FIRING_THRESHOLD);
+        }
+    }
+
+    /*
+        As the orphan rules, remove the facts of triggers without Trigger fact.
+     */
+    private void removeOrphans() {
+        if (orphans.isEmpty()) {
+            return;
+        }
+        for (TriggerFacts facts : new ArrayList<>(orphans)) {
+            if (null == facts.trigger) {
+                log.debugf("Remove facts with no Trigger. %s", facts.all());
+                removeAll(facts);
+            }
+        }
+        orphans.clear();
+    }
+
+    /*
+        AutoResolved and AutoDisabled triggers are retracted inside the fallback engine.
+     */
+    private void removeFallbackRetracted() {
+        List<Trigger> retracted = new ArrayList<>();
+        if (null != disabledTriggers) {
+            retracted.addAll(disabledTriggers);
+        }
+        if (null != autoResolvedTriggers) {
+            retracted.addAll(autoResolvedTriggers.keySet());
+        }
+        for (Trigger t : retracted) {
+            TriggerFacts facts = triggers.get(triggerKeyOf(t));
+            if (null != facts && facts.fallback) {
+                removeAll(facts);
+            }
+        }
+    }
+
+    private boolean forwardToFallback() {
+        if (fallbackIndex.isEmpty()) {
+            return false;
+        }
+        TreeSet<Data> fallbackData = new TreeSet<>();
+        for (Data d : pendingData) {
+            if (fallbackIndex.containsKey(new DataId(d.getTenantId(), d.getId()))) {
+                fallbackData.add(d);
+            }
+        }
+        TreeSet<Event> fallbackEvents = new TreeSet<>();
+        for (Event e : pendingEvents) {
+            if (fallbackIndex.containsKey(new DataId(e.getTenantId(), e.getDataId()))) {
+                fallbackEvents.add(e);
+            }
+        }
+        if (!fallbackData.isEmpty()) {
+            fallback.addData(fallbackData);
+        }
+        if (!fallbackEvents.isEmpty()) {
+            fallback.addEvents(fallbackEvents);
+        }
+        return !fallbackData.isEmpty() || !fallbackEvents.isEmpty();
+    }
+
+    /*
+        Same batching than DroolsRulesEngineImpl: only the oldest Datum for a dataId is evaluated on a cycle.
+     */
+    private List<Data> batchData() {
+        long startBatching = System.currentTimeMillis();
+        TreeSet<Data> batchData = pendingData;
+        pendingData = new TreeSet<>();
+
+        List<Data> batch = new ArrayList<>(batchData.size());
+        Data previousData = null;
+        for (Data d : batchData) {
+            if (!d.same(previousData)) {
+                previousData = d;
+                batch.add(d);
+
+            } else {
+                if ((d.getTimestamp() - previousData.getTimestamp()) < minReportingIntervalData) {
+                    log.tracef("MinReportingInterval violation, prev: %s, removed: %s", previousData, d);
+                } else {
+                    pendingData.add(d);
+                    log.tracef("Deferring data, keep: %s, defer: %s", previousData, d);
+                }
+            }
+        }
+        if (!pendingData.isEmpty()) {
+            log.debugf("Deferring [%s] Datum(s) to next cycle !!", pendingData.size());
+        }
+
+        long batchingTime = System.currentTimeMillis() - startBatching;
+        log.debugf("Batching Data [%s] took [%s]", batchData.size(), batchingTime);
+        if (batchingTime > PERF_BATCHING_THRESHOLD) {
+            log.warnf("Batching Data [%s] took [%s] ms exceeding [%s] ms",
+                    batchData.size(), batchingTime, PERF_BATCHING_THRESHOLD);
+        }
+        return batch;
+    }
+
+    private List<Event> batchEvents() {
+        TreeSet<Event> batchEvents = pendingEvents;
+        pendingEvents = new TreeSet<>();
+
+        List<Event> batch = new ArrayList<>(batchEvents.size());
+        Event previousEvent = null;
+        for (Event e : batchEvents) {
+            if (!e.same(previousEvent)) {
+                previousEvent = e;
+                batch.add(e);
+
+            } else {
+                if ((e.getCtime() - previousEvent.getCtime()) < minReportingIntervalEvents) {
+                    log.tracef("MinReportingInterval violation, prev: %s, removed: %s", previousEvent, e);
+                } else {
+                    pendingEvents.add(e);
+                    log.tracef("Deferring event, keep: %s, defer: %s", previousEvent, e);
+                }
+            }
+        }
+        if (!pendingEvents.isEmpty()) {
+            log.debugf("Deferring [%s] Event(s) to next cycle !!", pendingEvents.size());
+        }
+        return batch;
+    }
+
+    private void evaluate(Data d) {
+        DataId dataId = new DataId(d.getTenantId(), d.getId());
+        List<MissingState> missingStates = missingIndex.get(dataId);
+        if (null != missingStates) {
+            for (MissingState ms : missingStates) {
+                updateMissingState(ms, d.getSource(), d.getTimestamp());
+            }
+        }
+
+        List<CompiledCondition> conditions = conditionsIndex.get(dataId);
+        if (null == conditions) {
+            return;
+        }
+        SourceDataId sourceDataId = null;
+        boolean rate = false;
+        boolean compare = false;
+        for (CompiledCondition cc : conditions) {
+            Condition c = cc.condition;
+            boolean active = cc.isActive(d.getSource());
+            long start = null == profiler ? 0 : System.nanoTime();
+            switch (c.getType()) {
+                case THRESHOLD:
+                    if (active) {
+                        addEval(cc, new ThresholdConditionEval((ThresholdCondition) c, d));
+                    }
+                    break;
+                case RANGE:
+                    if (active) {
+                        addEval(cc, new ThresholdRangeConditionEval((ThresholdRangeCondition) c, d));
+                    }
+                    break;
+                case STRING:
+                    if (active) {
+                        addEval(cc, new StringConditionEval((StringCondition) c, d));
+                    }
+                    break;
+                case AVAILABILITY:
+                    if (active) {
+                        addEval(cc, new AvailabilityConditionEval((AvailabilityCondition) c, d));
+                    }
+                    break;
+                case RATE:
+                    if (null == sourceDataId) {
+                        sourceDataId = new SourceDataId(d);
+                    }
+                    Data previousData = rateData.get(sourceDataId);
+                    rate |= active || null != previousData;
+                    if (active && null != previousData && previousData.getTimestamp() < d.getTimestamp()) {
+                        addEval(cc, new RateConditionEval((RateCondition) c, d, previousData));
+                    }
+                    break;
+                case COMPARE:
+                    compare = true;
+                    break;
+                default:
+                    break;
+            }
+            if (null != profiler && active) {
+                profiler.fired(c.getTenantId(), c.getTriggerId(), System.nanoTime() - start);
+            }
+        }
+        if (rate) {
+            rateData.put(sourceDataId, d);
+        }
+        if (compare) {
+            if (null == sourceDataId) {
+                sourceDataId = new SourceDataId(d);
+            }
+            updateCompareData(sourceDataId, d, conditions);
+        }
+    }
+
+    /*
+        CompareData for a dataId is provided by an active CompareCondition and updated with more recent Data.
+        Compare evaluations are performed once per cycle, after all the Data has been processed.
+     */
+    private void updateCompareData(SourceDataId sourceDataId, Data d, List<CompiledCondition> conditions) {
+        Data previousData = compareData.get(sourceDataId);
+        if (null == previousData) {
+            boolean active = false;
+            for (CompiledCondition cc : conditions) {
+                if (Condition.Type.COMPARE == cc.condition.getType() && cc.isActive(d.getSource())) {
+                    active = true;
+                    break;
+                }
+            }
+            if (!active) {
+                return;
+            }
+        } else if (d.getTimestamp() <= previousData.getTimestamp()) {
+            return;
+        }
+        compareData.put(sourceDataId, d);
+        for (CompiledCondition cc : conditions) {
+            if (Condition.Type.COMPARE == cc.condition.getType()) {
+                pendingCompare.add(cc);
+            }
+        }
+    }
+
+    private void evaluateCompare() {
+        if (pendingCompare.isEmpty()) {
+            return;
+        }
+        for (CompiledCondition cc : pendingCompare) {
+            CompareCondition c = (CompareCondition) cc.condition;
+            Trigger t = cc.facts.trigger;
+            if (null == t || t.getMode() != c.getTriggerMode()) {
+                continue;
+            }
+            Data data1 = compareData.get(new SourceDataId(c.getTenantId(), t.getSource(), c.getDataId()));
+            Data data2 = compareData.get(new SourceDataId(c.getTenantId(), t.getSource(), c.getData2Id()));
+            if (null != data1 && null != data2) {
+                addEval(cc, new CompareConditionEval(c, data1, data2));
+            }
+        }
+        pendingCompare.clear();
+    }
+
+    /*
+        Events are evaluated only by MissingStates, returns true if any was updated.
+     */
+    private boolean evaluate(Event e) {
+        List<MissingState> missingStates = missingIndex.get(new DataId(e.getTenantId(), e.getDataId()));
+        if (null == missingStates) {
+            return false;
+        }
+        boolean updated = false;
+        for (MissingState ms : missingStates) {
+            updated |= updateMissingState(ms, e.getDataSource(), e.getCtime());
+        }
+        return updated;
+    }
+
+    private boolean updateMissingState(MissingState ms, String source, long time) {
+        if (ms.getPreviousTime() >= ms.getTime() || !Objects.equals(ms.getSource(), source)) {
+            return false;
+        }
+        TriggerFacts facts = triggers.get(new TriggerKey(ms.getTenantId(), ms.getTriggerId()));
+        if (null == facts || facts.fallback) {
+            return false;
+        }
+        ms.setPreviousTime(time);
+        ms.setTime(time);
+        MissingConditionEval mce = new MissingConditionEval(ms.getCondition(), ms.getPreviousTime(), ms.getTime());
+        if (log.isDebugEnabled()) {
+            log.debugf("MissingConditionEval : %s %s", (mce.isMatch() ? "Match!" : "no match"),
+                    mce.getDisplayString());
+        }
+        facts.evals.add(mce);
+        pendingDampening.add(facts);
+        if (null != profiler) {
+            profiler.conditionEval(mce.getTenantId(), mce.getTriggerId());
+        }
+        return true;
+    }
+
+    private void addEval(CompiledCondition cc, ConditionEval ce) {
+        cc.addEval(ce);
+        if (null != profiler) {
+            profiler.conditionEval(ce.getTenantId(), ce.getTriggerId());
+        }
+    }
+
+    /*
+        Apply the ConditionEvals to the Dampening of the trigger in its current mode. Generated events are chained
+        to the compiled MissingStates and forwarded to the fallback engine, returns true if any was forwarded.
+     */
+    private boolean dampen() {
+        boolean forwarded = false;
+        while (!pendingDampening.isEmpty()) {
+            List<TriggerFacts> batch = new ArrayList<>(pendingDampening);
+            pendingDampening.clear();
+            for (TriggerFacts facts : batch) {
+                long start = null == profiler ? 0 : System.nanoTime();
+                dampen(facts);
+                if (null != profiler) {
+                    profiler.fired(facts.key.getTenantId(), facts.key.getTriggerId(), System.nanoTime() - start);
+                }
+            }
+            if (generatedEvents.isEmpty()) {
+                continue;
+            }
+            TreeSet<Event> fallbackEvents = new TreeSet<>();
+            for (Event e : generatedEvents) {
+                evaluate(e);
+                if (fallbackIndex.containsKey(new DataId(e.getTenantId(), e.getDataId()))) {
+                    fallbackEvents.add(e);
+                }
+            }
+            generatedEvents.clear();
+            if (!fallbackEvents.isEmpty()) {
+                fallback.addEvents(fallbackEvents);
+                forwarded = true;
+            }
+        }
+        return forwarded;
+    }
+
+    private void dampen(TriggerFacts facts) {
+        Trigger t = facts.trigger;
+        if (null == t || facts.fallback || triggers.get(facts.key) != facts) {
+            return;
+        }
+        Dampening d = facts.getDampening(t);
+        if (d.isSatisfied()) {
+            if (!satisfied(facts, t, d)) {
+                return;
+            }
+            d = facts.getDampening(t);
+        }
+        if (facts.evals.isEmpty() || d.isSatisfied()) {
+            return;
+        }
+        Set<ConditionEval> ces = facts.evals;
+        facts.evals = new HashSet<>();
+        d.perform(t.getMatch(), ces);
+        if (log.isDebugEnabled()) {
+            log.debugf("DampenTrigger %s using [match=%s] %s", d, t.getMatch(), d.getCurrentEvals());
+        }
+        updatePendingTimeouts(d);
+        if (d.isSatisfied()) {
+            satisfied(facts, t, d);
+        }
+    }
+
+    /*
+        Same behavior than the AlertOnSatisfiedDampening and SetFiringModeOnSatisfiedDampening rules.
+        Returns false if the trigger has been retracted.
+     */
+    private boolean satisfied(TriggerFacts facts, Trigger t, Dampening d) {
+        if (Mode.AUTORESOLVE == t.getMode()) {
+            if (log.isDebugEnabled()) {
+                log.debugf("SetFiringModeOnSatisfiedDampening! %s", d.log());
+            }
+            t.setMode(Mode.FIRING);
+            autoResolvedTriggers.put(t, d.getSatisfyingEvals());
+            removeAll(facts);
+            return false;
+        }
+
+        Event newEvent;
+        if (t.getEventType() == EventType.ALERT) {
+            if (log.isDebugEnabled()) {
+                log.debugf("Alert! Dampening Satisfied! %s", d.log());
+            }
+            newEvent = new Alert(t.getTenantId(), t, d, d.getSatisfyingEvals());
+            alerts.add((Alert) newEvent);
+
+        } else {
+            if (log.isDebugEnabled() && t.getEventType() == EventType.EVENT) {
+                log.debugf("Event! Dampening Satisfied! %s", d.log());
+            }
+            newEvent = new Event(t.getTenantId(), t, d, d.getSatisfyingEvals());
+            events.add(newEvent);
+        }
+        generatedEvents.add(newEvent);
+
+        d.reset();
+        updatePendingTimeouts(d);
+
+        if (t.isAutoResolve()) {
+            log.debugf("Setting Trigger to AutoResolve Mode! %s", t);
+            t.setMode(Mode.AUTORESOLVE);
+        } else if (t.isAutoDisable()) {
+            log.debugf("Setting Trigger Disabled! %s", t);
+            disabledTriggers.add(t);
+            removeAll(facts);
+            return false;
+        }
+        return true;
+    }
+
+    private void updatePendingTimeouts(Dampening d) {
+        if (Dampening.Type.STRICT_TIMEOUT != d.getType() || d.isSatisfied() || null == pendingTimeouts) {
+            return;
+        }
+        if (1 == d.getNumTrueEvals()) {
+            pendingTimeouts.add(d);
+        } else if (0 == d.getNumTrueEvals()) {
+            pendingTimeouts.remove(d);
+        }
+    }
+
+    /*
+        Move the trigger and all its facts to the fallback engine.
+     */
+    private void toFallback(TriggerFacts facts) {
+        log.debugf("Moving to fallback %s", facts.all());
+        for (Condition c : facts.conditions) {
+            unindexCondition(facts, c);
+            indexFallback(c, 1);
+        }
+        for (MissingState ms : facts.missingStates) {
+            indexMissingState(ms, false);
+        }
+        pendingDampening.remove(facts);
+        facts.fallback = true;
+        fallback.addFacts(facts.all());
+        facts.evals.clear();
+    }
+
+    private void remove(TriggerFacts facts, Object fact) {
+        Object removed = facts.remove(fact);
+        if (null == removed) {
+            return;
+        }
+        if (removed instanceof Trigger) {
+            orphans.add(facts);
+        } else if (removed instanceof Condition) {
+            if (facts.fallback) {
+                indexFallback((Condition) removed, -1);
+            } else {
+                unindexCondition(facts, (Condition) removed);
+            }
+        } else if (removed instanceof MissingState && !facts.fallback) {
+            indexMissingState((MissingState) removed, false);
+        }
+    }
+
+    private void removeAll(TriggerFacts facts) {
+        for (Object fact : facts.all()) {
+            remove(facts, fact);
+        }
+        if (null != facts.key) {
+            triggers.remove(facts.key);
+        }
+        pendingDampening.remove(facts);
+        orphans.remove(facts);
+    }
+
+    private void indexCondition(TriggerFacts facts, Condition c) {
+        CompiledCondition cc = new CompiledCondition(facts, c);
+        conditionsIndex.computeIfAbsent(new DataId(c.getTenantId(), c.getDataId()), k -> new ArrayList<>())
+                .add(cc);
+        if (c instanceof CompareCondition && !c.getDataId().equals(((CompareCondition) c).getData2Id())) {
+            conditionsIndex.computeIfAbsent(new DataId(c.getTenantId(), ((CompareCondition) c).getData2Id()),
+                    k -> new ArrayList<>()).add(cc);
+        }
+    }
+
+    private void unindexCondition(TriggerFacts facts, Condition c) {
+        unindex(conditionsIndex, new DataId(c.getTenantId(), c.getDataId()), facts, c);
+        if (c instanceof CompareCondition) {
+            unindex(conditionsIndex, new DataId(c.getTenantId(), ((CompareCondition) c).getData2Id()), facts, c);
+        }
+    }
+
+    private void unindex(Map<DataId, List<CompiledCondition>> index, DataId dataId, TriggerFacts facts,
+            Condition c) {
+        List<CompiledCondition> conditions = index.get(dataId);
+        if (null == conditions) {
+            return;
+        }
+        conditions.removeIf(cc -> cc.facts == facts && cc.condition.equals(c));
+        if (conditions.isEmpty()) {
+            index.remove(dataId);
+        }
+    }
+
+    private void indexMissingState(MissingState ms, boolean add) {
+        DataId dataId = new DataId(ms.getTenantId(), ms.getDataId());
+        if (add) {
+            missingIndex.computeIfAbsent(dataId, k -> new ArrayList<>()).add(ms);
+            return;
+        }
+        List<MissingState> missingStates = missingIndex.get(dataId);
+        if (null != missingStates) {
+            missingStates.removeIf(s -> s.equals(ms));
+            if (missingStates.isEmpty()) {
+                missingIndex.remove(dataId);
+            }
+        }
+    }
+
+    private void indexFallback(Condition c, int delta) {
+        fallbackIndex.merge(new DataId(c.getTenantId(), c.getDataId()), delta, (a, b) -> a + b > 0 ? a + b : null);
+        if (c instanceof CompareCondition) {
+            fallbackIndex.merge(new DataId(c.getTenantId(), ((CompareCondition) c).getData2Id()), delta,
+                    (a, b) -> a + b > 0 ? a + b : null);
+        }
+    }
+
+    /*
+        A condition compiled for dataId dispatch
+     */
+    private static class CompiledCondition {
+        final TriggerFacts facts;
+        final Condition condition;
+
+        CompiledCondition(TriggerFacts facts, Condition condition) {
+            this.facts = facts;
+            this.condition = condition;
+        }
+
+        /*
+            As in the rules, the condition is evaluated only for Data from the trigger source and in its mode
+         */
+        boolean isActive(String source) {
+            Trigger t = facts.trigger;
+            return null != t && t.getMode() == condition.getTriggerMode() && Objects.equals(t.getSource(), source);
+        }
+
+        void addEval(ConditionEval ce) {
+            facts.evals.add(ce);
+            facts.pendingDampening();
+        }
+    }
+
+    /*
+        Facts related to a trigger. Duplicated facts are ignored, as a session in equality mode does.
+     */
+    private class TriggerFacts {
+        TriggerKey key;
+        Trigger trigger;
+        final List<Condition> conditions = new ArrayList<>();
+        final List<Dampening> dampenings = new ArrayList<>(2);
+        final List<MissingState> missingStates = new ArrayList<>(1);
+        Set<ConditionEval> evals = new HashSet<>();
+        boolean fallback = false;
+
+        void pendingDampening() {
+            pendingDampening.add(this);
+        }
+
+        boolean add(Object fact) {
+            if (null == key) {
+                key = triggerKeyOf(fact);
+            }
+            if (fact instanceof Trigger) {
+                if (null != trigger) {
+                    return false;
+                }
+                trigger = (Trigger) fact;
+                return true;
+            } else if (fact instanceof Condition) {
+                return !conditions.contains(fact) && conditions.add((Condition) fact);
+            } else if (fact instanceof Dampening) {
+                return !dampenings.contains(fact) && dampenings.add((Dampening) fact);
+            } else if (fact instanceof MissingState) {
+                return !missingStates.contains(fact) && missingStates.add((MissingState) fact);
+            } else if (fact instanceof ConditionEval) {
+                return evals.add((ConditionEval) fact);
+            }
+            return false;
+        }
+
+        Object get(Object fact) {
+            if (fact instanceof Trigger) {
+                return fact.equals(trigger) ? trigger : null;
+            } else if (fact instanceof Condition) {
+                return find(conditions, fact);
+            } else if (fact instanceof Dampening) {
+                return find(dampenings, fact);
+            } else if (fact instanceof MissingState) {
+                return find(missingStates, fact);
+            } else if (fact instanceof ConditionEval) {
+                return find(evals, fact);
+            }
+            return null;
+        }
+
+        Object remove(Object fact) {
+            Object removed = get(fact);
+            if (null == removed) {
+                return null;
+            }
+            if (removed == trigger) {
+                trigger = null;
+            } else if (removed instanceof Condition) {
+                conditions.remove(removed);
+            } else if (removed instanceof Dampening) {
+                dampenings.remove(removed);
+            } else if (removed instanceof MissingState) {
+                missingStates.remove(removed);
+            } else if (removed instanceof ConditionEval) {
+                evals.remove(removed);
+            }
+            return removed;
+        }
+
+        /*
+            The Dampening for the current trigger mode, a default STRICT(1) is provided if not defined.
+         */
+        Dampening getDampening(Trigger t) {
+            for (Dampening d : dampenings) {
+                if (d.getTriggerMode() == t.getMode()) {
+                    return d;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debugf("Adding default %s dampening for trigger! %s", t.getMode(), t.getId());
+            }
+            Dampening d = Dampening.forStrict(t.getTenantId(), t.getId(), t.getMode(), 1);
+            dampenings.add(d);
+            return d;
+        }
+
+        List<Object> all() {
+            List<Object> all = new ArrayList<>(missingStates);
+            if (null != trigger) {
+                all.add(trigger);
+            }
+            all.addAll(conditions);
+            all.addAll(dampenings);
+            all.addAll(evals);
+            return all;
+        }
+
+        private Object find(Collection<?> facts, Object fact) {
+            for (Object f : facts) {
+                if (f.equals(fact)) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static TriggerKey triggerKeyOf(Object fact) {
+        if (fact instanceof Trigger) {
+            return new TriggerKey(((Trigger) fact).getTenantId(), ((Trigger) fact).getId());
+        } else if (fact instanceof Condition) {
+            return new TriggerKey(((Condition) fact).getTenantId(), ((Condition) fact).getTriggerId());
+        } else if (fact instanceof Dampening) {
+            return new TriggerKey(((Dampening) fact).getTenantId(), ((Dampening) fact).getTriggerId());
+        } else if (fact instanceof MissingState) {
+            return new TriggerKey(((MissingState) fact).getTenantId(), ((MissingState) fact).getTriggerId());
+        } else if (fact instanceof ConditionEval) {
+            return new TriggerKey(((ConditionEval) fact).getTenantId(), ((ConditionEval) fact).getTriggerId());
+        }
+        return null;
+    }
+
+    private static class SourceDataId {
+        private final String tenantId;
+        private final String source;
+        private final String dataId;
+
+        SourceDataId(Data d) {
+            this(d.getTenantId(), d.getSource(), d.getId());
+        }
+
+        SourceDataId(String tenantId, String source, String dataId) {
+            this.tenantId = tenantId;
+            this.source = source;
+            this.dataId = dataId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SourceDataId that = (SourceDataId) o;
+            return Objects.equals(tenantId, that.tenantId) && Objects.equals(source, that.source)
+                    && Objects.equals(dataId, that.dataId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, source, dataId);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.PartitionEntry;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A consistent hashing ring with virtual nodes and bounded loads used to partition triggers across nodes.
+ *
+ * Each node is placed on the ring in several virtual positions and an entry is assigned to the first node found
+ * clockwise from the position of the entry. Adding or removing a node only moves the entries of the ring segments
+ * owned by that node, around 1/N of the entries.
+ *
+ * When a full partition is calculated the load of a node is bounded to ceil(loadFactor * entries / nodes), an entry
+ * whose node is full is assigned to the next node on the ring with capacity. Entries are assigned in ring order, so
+ * the partition is the same for the same entries and nodes, regardless of the order of the entries.
+ *
+ * @see <a href="https://arxiv.org/abs/1608.01350">Consistent Hashing with Bounded Loads</a>
+ */
+public class ConsistentHashRing {
+
+    private static final HashFunction md5 = Hashing.md5();
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    private final Set<Integer> nodes = new HashSet<>();
+
+    /**
+     * @param nodes the codes of the nodes, calculated from Address.hashCode
+     * @param virtualNodes number of positions of each node on the ring
+     */
+    public ConsistentHashRing(Collection<Integer> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("nodes must be not empty");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be greater than 0");
+        }
+        for (Integer node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(md5.newHasher().putInt(node).putInt(i).hash().asLong(), node);
+            }
+        }
+        this.nodes.addAll(nodes);
+    }
+
+    /**
+     * @param node the code of a node
+     * @return true if the node is placed on the ring
+     */
+    public boolean contains(Integer node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * Position of an entry on the ring.
+     */
+    public static long hash(PartitionEntry entry) {
+        return md5.hashInt(entry.hashCode()).asLong();
+    }
+
+    /**
+     * Maximum number of entries assigned to a node in a bounded partition.
+     *
+     * @param numEntries number of entries to distribute
+     * @param numNodes number of nodes
+     * @param loadFactor how much a node can exceed the average load, 1.0 or greater
+     * @return the capacity of each node
+     */
+    public static int capacity(int numEntries, int numNodes, double loadFactor) {
+        return Math.max(1, (int) Math.ceil(Math.max(1.0, loadFactor) * numEntries / numNodes));
+    }
+
+    /**
+     * Locate the node owning an entry without load bounds.
+     *
+     * @param entry the entry to locate
+     * @return the code of the node
+     */
+    public Integer locate(PartitionEntry entry) {
+        Map.Entry<Long, Integer> position = ring.ceilingEntry(hash(entry));
+        return position != null ? position.getValue() : ring.firstEntry().getValue();
+    }
+
+    /*
+        Locate the node owning a position skipping the nodes without capacity.
+        If all nodes are full the position is located without load bounds.
+     */
+    private Integer locate(long hash, Map<Integer, Integer> loads, int capacity) {
+        Map.Entry<Long, Integer> position = ring.ceilingEntry(hash);
+        for (int i = 0; i < ring.size(); i++) {
+            if (position == null) {
+                position = ring.firstEntry();
+            }
+            if (loads.getOrDefault(position.getValue(), 0) < capacity) {
+                return position.getValue();
+            }
+            position = ring.higherEntry(position.getKey());
+        }
+        Map.Entry<Long, Integer> owner = ring.ceilingEntry(hash);
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Place new entries on an existing partition with bounded loads.
+     * The capacity of the nodes is calculated as in a full partition of the existing and new entries, but the
+     * entries of the existing partition are not moved.
+     *
+     * @param entries a collection of new entries
+     * @param partition the existing partition as a map of entry -> node
+     * @param loadFactor how much a node can exceed the average load, 1.0 or greater
+     * @return a map of the new entries distributed across nodes
+     */
+    public Map<PartitionEntry, Integer> locate(Collection<PartitionEntry> entries,
+                                               Map<PartitionEntry, Integer> partition, double loadFactor) {
+        if (entries == null) {
+            throw new IllegalArgumentException("entries must be not null");
+        }
+        Set<PartitionEntry> newEntries = new HashSet<>(entries);
+        Map<Integer, Integer> loads = new HashMap<>();
+        int numEntries = newEntries.size();
+        if (partition != null) {
+            for (Map.Entry<PartitionEntry, Integer> entry : partition.entrySet()) {
+                if (newEntries.contains(entry.getKey())) {
+                    continue;
+                }
+                numEntries++;
+                if (nodes.contains(entry.getValue())) {
+                    loads.merge(entry.getValue(), 1, Integer::sum);
+                }
+            }
+        }
+        return place(newEntries, loads, capacity(numEntries, nodes.size(), loadFactor));
+    }
+
+    /**
+     * Distribute entries on the nodes of the ring with bounded loads.
+     *
+     * @param entries a collection of entries to distribute
+     * @param loadFactor how much a node can exceed the average load, 1.0 or greater
+     * @return a map of entries distributed across nodes
+     */
+    public Map<PartitionEntry, Integer> partition(Collection<PartitionEntry> entries, double loadFactor) {
+        if (entries == null) {
+            throw new IllegalArgumentException("entries must be not null");
+        }
+        return place(entries, new HashMap<>(), capacity(entries.size(), nodes.size(), loadFactor));
+    }
+
+    /*
+        Entries are placed in ring order, so the result does not depend on the order of the entries.
+     */
+    private Map<PartitionEntry, Integer> place(Collection<PartitionEntry> entries, Map<Integer, Integer> loads,
+                                               int capacity) {
+        List<PartitionEntry> sorted = new ArrayList<>(entries);
+        Map<PartitionEntry, Long> hashes = new HashMap<>();
+        sorted.forEach(e -> hashes.put(e, hash(e)));
+        sorted.sort(Comparator.comparing((PartitionEntry e) -> hashes.get(e))
+                .thenComparing(PartitionEntry::getTenantId)
+                .thenComparing(PartitionEntry::getTriggerId));
+
+        Map<PartitionEntry, Integer> partition = new HashMap<>();
+        for (PartitionEntry entry : sorted) {
+            Integer node = locate(hashes.get(entry), loads, capacity);
+            loads.merge(node, 1, Integer::sum);
+            partition.put(entry, node);
+        }
+        return partition;
+    }
+}
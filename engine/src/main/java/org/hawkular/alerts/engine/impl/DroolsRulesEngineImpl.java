@@ -16,20 +16,40 @@
  */
 package org.hawkular.alerts.engine.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 import org.drools.core.event.DebugAgendaEventListener;
 import org.drools.core.event.DebugRuleRuntimeEventListener;
+import org.hawkular.alerts.api.model.condition.Condition;
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.dampening.Dampening;
 import org.hawkular.alerts.api.model.data.Data;
 import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.TriggerKey;
 import org.hawkular.alerts.engine.service.RulesEngine;
+import org.hawkular.alerts.engine.util.MissingState;
+import org.hawkular.alerts.engine.util.NelsonData;
 import org.hawkular.commons.log.MsgLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.hawkular.commons.properties.HawkularProperties;
 import org.kie.api.KieServices;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 import org.kie.api.runtime.ObjectFilter;
@@ -43,6 +63,13 @@ import org.kie.api.runtime.rule.FactHandle;
  * The RulesEngine is invoked only by the AlertsEngine impl and is not invoked concurrently, so
  * single-threading is a fair assumption.
  *
+ * The FactHandles of the facts of each trigger, including the facts inserted by the rules, are indexed by
+ * (tenantId, triggerId) so the facts of a trigger can be removed without scanning the working memory.
+ *
+ * When profiling is enabled, every rule firing is attributed to the trigger of the facts it matched, so the
+ * evaluation time of a trigger is the time spent in the consequences of its rules, where its ConditionEvals are
+ * created and the conditions are matched against the data.
+ *
  * @author Jay Shaughnessy
  * @author Lucas Ponce
  */
@@ -63,16 +90,20 @@ public class DroolsRulesEngineImpl implements RulesEngine {
     TreeSet<Data> pendingData = new TreeSet<>();
     TreeSet<Event> pendingEvents = new TreeSet<>();
 
+    /*
+        Maintained by a RuleRuntimeEventListener. Facts can be inserted from the rules engine thread and from the
+        threads (re)loading triggers, so concurrent structures are used.
+     */
+    private final Map<TriggerKey, Set<FactHandle>> triggerFactHandles = new ConcurrentHashMap<>();
+
+    private final TriggerProfiler profiler;
+
     public DroolsRulesEngineImpl() {
         log.debug("Creating instance.");
+        profiler = TriggerProfiler.fromProperties();
         ks = KieServices.Factory.get();
         kc = ks.getKieClasspathContainer();
-        kSession = kc.newKieSession(SESSION_NAME);
-
-        if (log.isTraceEnabled()) {
-            kSession.addEventListener(new DebugAgendaEventListener());
-            kSession.addEventListener(new DebugRuleRuntimeEventListener());
-        }
+        kSession = newKieSession();
 
         minReportingIntervalData = new Integer(
                 HawkularProperties.getProperty(MIN_REPORTING_INTERVAL_DATA,
@@ -148,6 +179,7 @@ public class DroolsRulesEngineImpl implements RulesEngine {
             log.debugf("Delete %s", factHandle);
             kSession.delete(factHandle);
         }
+        triggerFactHandles.clear();
     }
 
     @Override
@@ -164,18 +196,7 @@ public class DroolsRulesEngineImpl implements RulesEngine {
             log.debugf("Firing rules... PendingData [%s] PendingEvents [%s]", initialPendingData,
                     initialPendingEvents);
 
-            batchData();
-            batchEvents();
-
-            if (log.isTraceEnabled()) {
-                log.tracef("Firing cycle [%s] - with these facts: ", fireCycle);
-                for (FactHandle fact : kSession.getFactHandles()) {
-                    Object o = kSession.getObject(fact);
-                    log.tracef("Fact: %s", o);
-                }
-            }
-
-            kSession.fireAllRules();
+            fireCycle(fireCycle);
             fireCycle++;
         }
         long firingTime = System.currentTimeMillis() - startFiring;
@@ -186,6 +207,38 @@ public class DroolsRulesEngineImpl implements RulesEngine {
         }
     }
 
+    /*
+        A firing cycle inserts the oldest pending Data and Event of each dataId and fires the rules.
+        Used by the ShardedRulesEngineImpl to fire its sessions in lock-step.
+     */
+    void fireCycle(int fireCycle) {
+        batchData();
+        batchEvents();
+
+        if (log.isTraceEnabled()) {
+            log.tracef("Firing cycle [%s] - with these facts: ", fireCycle);
+            for (FactHandle fact : kSession.getFactHandles()) {
+                Object o = kSession.getObject(fact);
+                log.tracef("Fact: %s", o);
+            }
+        }
+
+        kSession.fireAllRules();
+    }
+
+    boolean hasPending() {
+        return !pendingData.isEmpty() || !pendingEvents.isEmpty();
+    }
+
+    /*
+        Insert an Event generated by a trigger on another session and fire the rules, as a generated Event is
+        inserted and evaluated on the firing cycle that generates it.
+     */
+    void fireChainedEvent(Event event) {
+        kSession.insert(event);
+        kSession.fireAllRules();
+    }
+
     private void batchData() {
         long startBatching = System.currentTimeMillis();
         TreeSet<Data> batchData = pendingData;
@@ -337,8 +390,27 @@ public class DroolsRulesEngineImpl implements RulesEngine {
         }
 
         for (FactHandle h : handles) {
-            removeFact(h);
+            log.debugf("Delete %s", h);
+            kSession.delete(h);
+        }
+    }
+
+    @Override
+    public Collection<Object> removeTriggerFacts(String tenantId, String triggerId) {
+        Set<FactHandle> handles = triggerFactHandles.remove(new TriggerKey(tenantId, triggerId));
+        if (null == handles) {
+            return Collections.emptyList();
+        }
+        List<Object> removed = new ArrayList<>(handles.size());
+        for (FactHandle h : handles) {
+            Object fact = kSession.getObject(h);
+            if (null != fact) {
+                log.debugf("Delete %s", h);
+                kSession.delete(h);
+                removed.add(fact);
+            }
         }
+        return removed;
     }
 
     @Override
@@ -351,6 +423,110 @@ public class DroolsRulesEngineImpl implements RulesEngine {
     public void reset() {
         log.debug("Reset session");
         kSession.dispose();
-        kSession = kc.newKieSession(SESSION_NAME);
+        triggerFactHandles.clear();
+        if (null != profiler) {
+            profiler.clear();
+        }
+        kSession = newKieSession();
+    }
+
+    @Override
+    public List<TriggerProfile> getTriggerProfiles(String tenantId, int top) {
+        return null == profiler ? Collections.emptyList() : profiler.getProfiles(tenantId, top);
+    }
+
+    private KieSession newKieSession() {
+        KieSession session = kc.newKieSession(SESSION_NAME);
+        session.addEventListener(new TriggerFactsListener());
+        if (null != profiler) {
+            session.addEventListener(new TriggerProfilerListener());
+        }
+        if (log.isTraceEnabled()) {
+            session.addEventListener(new DebugAgendaEventListener());
+            session.addEventListener(new DebugRuleRuntimeEventListener());
+        }
+        return session;
+    }
+
+    private static TriggerKey triggerKey(Object fact) {
+        if (fact instanceof Trigger) {
+            return new TriggerKey(((Trigger) fact).getTenantId(), ((Trigger) fact).getId());
+        } else if (fact instanceof Condition) {
+            return new TriggerKey(((Condition) fact).getTenantId(), ((Condition) fact).getTriggerId());
+        } else if (fact instanceof Dampening) {
+            return new TriggerKey(((Dampening) fact).getTenantId(), ((Dampening) fact).getTriggerId());
+        } else if (fact instanceof MissingState) {
+            return new TriggerKey(((MissingState) fact).getTenantId(), ((MissingState) fact).getTriggerId());
+        } else if (fact instanceof NelsonData) {
+            Condition c = ((NelsonData) fact).getCondition();
+            return new TriggerKey(c.getTenantId(), c.getTriggerId());
+        }
+        return null;
+    }
+
+    private static TriggerKey matchKey(List<Object> objects) {
+        for (Object o : objects) {
+            TriggerKey key = triggerKey(o);
+            if (null != key) {
+                return key;
+            }
+            if (o instanceof ConditionEval) {
+                return new TriggerKey(((ConditionEval) o).getTenantId(), ((ConditionEval) o).getTriggerId());
+            }
+        }
+        return null;
+    }
+
+    /*
+        Index the FactHandles of trigger facts. RateData and CompareData are not indexed, they are keyed by dataId
+        and can be shared by several triggers.
+     */
+    private class TriggerFactsListener extends DefaultRuleRuntimeEventListener {
+        @Override
+        public void objectInserted(ObjectInsertedEvent event) {
+            if (null != profiler && event.getObject() instanceof ConditionEval) {
+                ConditionEval ce = (ConditionEval) event.getObject();
+                profiler.conditionEval(ce.getTenantId(), ce.getTriggerId());
+                return;
+            }
+            TriggerKey key = triggerKey(event.getObject());
+            if (null != key) {
+                triggerFactHandles.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet())
+                        .add(event.getFactHandle());
+            }
+        }
+
+        @Override
+        public void objectDeleted(ObjectDeletedEvent event) {
+            TriggerKey key = triggerKey(event.getOldObject());
+            if (null != key) {
+                triggerFactHandles.computeIfPresent(key, (k, handles) -> {
+                    handles.remove(event.getFactHandle());
+                    return handles.isEmpty() ? null : handles;
+                });
+            }
+        }
+    }
+
+    /*
+        Attributes the time of every rule firing to the trigger of the matched facts. Rules matching only Data or
+        Events, or facts shared by several triggers, are not attributed.
+     */
+    private class TriggerProfilerListener extends DefaultAgendaEventListener {
+        private long startFiring;
+
+        @Override
+        public void beforeMatchFired(BeforeMatchFiredEvent event) {
+            startFiring = System.nanoTime();
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            long nanos = System.nanoTime() - startFiring;
+            TriggerKey key = matchKey(event.getMatch().getObjects());
+            if (null != key) {
+                profiler.fired(key.getTenantId(), key.getTriggerId(), nanos);
+            }
+        }
     }
 }
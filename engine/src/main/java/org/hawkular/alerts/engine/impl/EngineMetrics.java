@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.hawkular.alerts.engine.util.Histogram;
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+
+/**
+ * Registry of the counters, gauges and histograms of the engine pipeline, from the incoming data to the dispatch
+ * of the actions.
+ *
+ * Metrics are created on first use and are cumulative since the start of the engine. Durations are recorded in
+ * microseconds, except the action dispatch latency which is recorded in milliseconds as it is measured from the
+ * creation time of the event. A flat snapshot of all metrics is exposed through the StatusService and as the
+ * attributes of this DynamicMBean, registered under {@link #OBJECT_NAME}.
+ */
+public class EngineMetrics implements DynamicMBean {
+    private static final MsgLogger log = MsgLogging.getMsgLogger(EngineMetrics.class);
+
+    public static final String OBJECT_NAME = "org.hawkular.alerts:type=EngineMetrics";
+
+    /*
+        Front-line filtering on IncomingDataManager: datums/events received, filtered out because no trigger uses
+        their dataId (or duplicated), and dropped by minReportingInterval.
+     */
+    public static final String DATA_RECEIVED = "incoming.data.received";
+    public static final String DATA_FILTERED = "incoming.data.filtered";
+    public static final String DATA_DROPPED = "incoming.data.dropped";
+    public static final String EVENTS_RECEIVED = "incoming.events.received";
+    public static final String EVENTS_FILTERED = "incoming.events.filtered";
+    public static final String EVENTS_DROPPED = "incoming.events.dropped";
+
+    /*
+        AlertsEngine pending queue and evaluations
+     */
+    public static final String ENGINE_PENDING = "engine.pending";
+    public static final String ENGINE_SHED = "engine.shed";
+    public static final String ENGINE_BATCH_SIZE = "engine.batch.size";
+    public static final String ENGINE_FIRE_TIME = "engine.fire.micros";
+    public static final String ENGINE_ALERTS = "engine.alerts";
+    public static final String ENGINE_EVENTS = "engine.events";
+    public static final String ENGINE_PERSIST_TIME = "engine.persist.micros";
+    public static final String ENGINE_PERSIST_FAILED = "engine.persist.failed";
+
+    /*
+        Actions sent to the ActionListeners
+     */
+    public static final String ACTIONS_DISPATCHED = "actions.dispatched";
+    public static final String ACTIONS_DISPATCH_LATENCY = "actions.dispatch.latency.millis";
+
+    /*
+        Alerts, events and actions removed by the bulk deletes, updated per committed chunk
+     */
+    public static final String BACKEND_DELETED = "backend.deleted";
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Registers this registry on the platform MBeanServer, replacing a previous one.
+     */
+    public void register() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+            mbs.registerMBean(this, name);
+        } catch (Exception e) {
+            log.warnf("Cannot register %s MBean: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    public void unregister() {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbs.isRegistered(name)) {
+                mbs.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            log.warnf("Cannot unregister %s MBean: %s", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+    }
+
+    public void record(String histogram, long value) {
+        getHistogram(histogram).record(value);
+    }
+
+    /**
+     * Records the time elapsed since startNanos, in microseconds.
+     *
+     * @param histogram name
+     * @param startNanos a previous value of {@link System#nanoTime()}
+     */
+    public void recordSince(String histogram, long startNanos) {
+        record(histogram, (System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * @param gauge name
+     * @param supplier invoked on every snapshot, it replaces a previous supplier of the same gauge
+     */
+    public void registerGauge(String gauge, LongSupplier supplier) {
+        gauges.put(gauge, supplier);
+    }
+
+    public long getCounter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public Histogram getHistogram(String histogram) {
+        return histograms.computeIfAbsent(histogram, h -> new Histogram());
+    }
+
+    /**
+     * @return counters and gauges by name, and histograms flattened as name.count, name.min, name.max,
+     *         name.mean, name.p50, name.p90, name.p99 and name.p999. Sorted by name.
+     */
+    public Map<String, Long> getSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        gauges.forEach((name, supplier) -> snapshot.put(name, supplier.getAsLong()));
+        histograms.forEach((name, histogram) -> histogram.getSnapshot()
+                .forEach((stat, value) -> snapshot.put(name + "." + stat, value)));
+        return snapshot;
+    }
+
+    /**
+     * @param name of a counter or gauge, or of a histogram stat as in {@link #getSnapshot()}
+     * @return its current value, or null if there is no such metric
+     */
+    public Long getValue(String name) {
+        LongAdder adder = counters.get(name);
+        if (adder != null) {
+            return adder.sum();
+        }
+        LongSupplier supplier = gauges.get(name);
+        if (supplier != null) {
+            return supplier.getAsLong();
+        }
+        int dot = name.lastIndexOf('.');
+        Histogram histogram = dot > 0 ? histograms.get(name.substring(0, dot)) : null;
+        return histogram == null ? null : histogram.getStat(name.substring(dot + 1));
+    }
+
+    public void clear() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = getValue(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("EngineMetrics attributes are read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Long value = getValue(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "EngineMetrics has no operations");
+    }
+
+    /*
+        Metrics are created on first use, so the attributes are resolved on every call.
+     */
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Long> snapshot = getSnapshot();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[snapshot.size()];
+        int i = 0;
+        for (String name : snapshot.keySet()) {
+            attributes[i++] = new MBeanAttributeInfo(name, Long.class.getName(), name, true, false, false);
+        }
+        return new MBeanInfo(EngineMetrics.class.getName(), "Hawkular Alerting engine metrics", attributes, null,
+                new MBeanOperationInfo[0], null);
+    }
+}
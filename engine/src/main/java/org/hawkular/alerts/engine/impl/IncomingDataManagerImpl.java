@@ -58,6 +58,8 @@ public class IncomingDataManagerImpl implements IncomingDataManager {
 
     CacheClient dataIdCache;
 
+    EngineMetrics metrics = new EngineMetrics();
+
     public void setExecutor(ExecutorService executor) {
         this.executor = executor;
     }
@@ -82,6 +84,10 @@ public class IncomingDataManagerImpl implements IncomingDataManager {
         this.dataIdCache = dataIdCache;
     }
 
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void init() {
         try {
             minReportingIntervalData = new Integer(
@@ -121,11 +127,17 @@ public class IncomingDataManagerImpl implements IncomingDataManager {
         // remove data not needed by the defined triggers
         // remove duplicates and apply natural ordering
         TreeSet<Data> filteredData = new TreeSet<Data>(filterIncomingData(incomingData));
+        int numReceived = incomingData.incomingData.size();
+        int numFiltered = filteredData.size();
 
         // remove offenders of minReportingInterval. Note, this filters only this incoming batch, this is
         // performed again, downstream,after data has been "stitched together" for evaluation.
         enforceMinReportingInterval(filteredData);
 
+        metrics.add(EngineMetrics.DATA_RECEIVED, numReceived);
+        metrics.add(EngineMetrics.DATA_FILTERED, numReceived - numFiltered);
+        metrics.add(EngineMetrics.DATA_DROPPED, numFiltered - filteredData.size());
+
         // check to see if any data can be used to generate data-driven group members
         checkDataDrivenGroupTriggers(filteredData);
 
@@ -144,11 +156,17 @@ public class IncomingDataManagerImpl implements IncomingDataManager {
         // remove events not needed by the defined triggers
         // remove duplicates and apply natural ordering
         TreeSet<Event> filteredEvents = new TreeSet<Event>(filterIncomingEvents(incomingEvents));
+        int numReceived = incomingEvents.incomingEvents.size();
+        int numFiltered = filteredEvents.size();
 
         // remove offenders of minReportingInterval. Note, this filters only this incoming batch, this is
         // performed again, downstream,after data has been "stitched together" for evaluation.
         enforceMinReportingIntervalEvents(filteredEvents);
 
+        metrics.add(EngineMetrics.EVENTS_RECEIVED, numReceived);
+        metrics.add(EngineMetrics.EVENTS_FILTERED, numReceived - numFiltered);
+        metrics.add(EngineMetrics.EVENTS_DROPPED, numFiltered - filteredEvents.size());
+
         try {
             alertsEngine.sendEvents(filteredEvents);
         } catch (Exception e) {
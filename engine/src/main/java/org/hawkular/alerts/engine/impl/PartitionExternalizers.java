@@ -0,0 +1,489 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.DeliverNotifyData;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyData;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyTrigger;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyTriggers;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.PartitionEntry;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.commons.marshall.MarshallUtil;
+
+/**
+ * Infinispan externalizers for the messages exchanged between nodes by the PartitionManager.
+ *
+ * Fields are written in a fixed order without class descriptors or field names. The tenantIds, dataIds, sources
+ * and map keys of a message are written once in a per-message string table and referenced by index afterwards, so
+ * a batch of data or events for a few tenants and dataIds carries each of those strings once, and the receiver
+ * holds one instance of each of them.
+ *
+ * The externalizers are registered in the serialization section of ispn-alerting-distributed.xml with the ids
+ * defined here. Classes without a registered externalizer fall back to the default marshalling.
+ */
+public final class PartitionExternalizers {
+
+    public static final int DATA = 3100;
+    public static final int EVENT = 3101;
+    public static final int NOTIFY_DATA = 3102;
+    public static final int NOTIFY_TRIGGER = 3103;
+    public static final int NOTIFY_TRIGGERS = 3104;
+    public static final int PARTITION_ENTRY = 3105;
+    public static final int DELIVER_NOTIFY_DATA = 3106;
+
+    private static final byte NONE = 0;
+    private static final byte SINGLE_DATA = 1;
+    private static final byte SINGLE_EVENT = 2;
+    private static final byte DATA_COLLECTION = 3;
+    private static final byte EVENT_COLLECTION = 4;
+
+    /*
+        Collection elements of a subclass of Data or Event (i.e. Alert) are written with the default marshalling
+     */
+    private static final byte ELEMENT_COMPACT = 0;
+    private static final byte ELEMENT_OBJECT = 1;
+
+    private PartitionExternalizers() {
+    }
+
+    /**
+     * Strings already written in a message, referenced by index.
+     * Encoded as 0 for null, 1 followed by the string for a new entry, or index + 2 for a known entry.
+     */
+    static class StringTableWriter {
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        void write(ObjectOutput output, String s) throws IOException {
+            if (s == null) {
+                UnsignedNumeric.writeUnsignedInt(output, 0);
+                return;
+            }
+            Integer index = indexes.get(s);
+            if (index != null) {
+                UnsignedNumeric.writeUnsignedInt(output, index + 2);
+                return;
+            }
+            indexes.put(s, indexes.size());
+            UnsignedNumeric.writeUnsignedInt(output, 1);
+            output.writeObject(s);
+        }
+    }
+
+    static class StringTableReader {
+        private final List<String> strings = new ArrayList<>();
+
+        String read(ObjectInput input) throws IOException, ClassNotFoundException {
+            int code = UnsignedNumeric.readUnsignedInt(input);
+            switch (code) {
+                case 0:
+                    return null;
+                case 1:
+                    String s = (String) input.readObject();
+                    strings.add(s);
+                    return s;
+                default:
+                    return strings.get(code - 2);
+            }
+        }
+    }
+
+    private static void writeInteger(ObjectOutput output, Integer i) throws IOException {
+        output.writeBoolean(i != null);
+        if (i != null) {
+            output.writeInt(i);
+        }
+    }
+
+    private static Integer readInteger(ObjectInput input) throws IOException {
+        return input.readBoolean() ? input.readInt() : null;
+    }
+
+    /*
+        Map keys are interned, values are not. A null map is written as size 0 and read as null.
+     */
+    private static void writeMap(ObjectOutput output, StringTableWriter table, Map<String, String> map)
+            throws IOException {
+        if (map == null || map.isEmpty()) {
+            UnsignedNumeric.writeUnsignedInt(output, 0);
+            return;
+        }
+        UnsignedNumeric.writeUnsignedInt(output, map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            table.write(output, entry.getKey());
+            output.writeObject(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(ObjectInput input, StringTableReader table)
+            throws IOException, ClassNotFoundException {
+        int size = UnsignedNumeric.readUnsignedInt(input);
+        if (size == 0) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(table.read(input), (String) input.readObject());
+        }
+        return map;
+    }
+
+    static void writeData(ObjectOutput output, StringTableWriter table, Data data) throws IOException {
+        table.write(output, data.getTenantId());
+        table.write(output, data.getSource());
+        table.write(output, data.getId());
+        output.writeLong(data.getTimestamp());
+        output.writeObject(data.getValue());
+        writeMap(output, table, data.getContext());
+    }
+
+    static Data readData(ObjectInput input, StringTableReader table) throws IOException, ClassNotFoundException {
+        Data data = new Data();
+        data.setTenantId(table.read(input));
+        data.setSource(table.read(input));
+        data.setId(table.read(input));
+        data.setTimestamp(input.readLong());
+        data.setValue((String) input.readObject());
+        data.setContext(readMap(input, table));
+        return data;
+    }
+
+    static void writeEvent(ObjectOutput output, StringTableWriter table, Event event) throws IOException {
+        table.write(output, event.getEventType());
+        table.write(output, event.getTenantId());
+        output.writeObject(event.getId());
+        output.writeLong(event.getCtime());
+        table.write(output, event.getDataSource());
+        table.write(output, event.getDataId());
+        table.write(output, event.getCategory());
+        output.writeObject(event.getText());
+        writeMap(output, table, event.getContext());
+        writeMap(output, table, event.getTags());
+        /*
+            Trigger, dampening and evalSets are only present on events generated by a trigger
+         */
+        output.writeObject(event.getTrigger());
+        output.writeObject(event.getDampening());
+        output.writeObject(event.getEvalSets());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Event readEvent(ObjectInput input, StringTableReader table) throws IOException, ClassNotFoundException {
+        Event event = new Event();
+        event.setEventType(table.read(input));
+        event.setTenantId(table.read(input));
+        event.setId((String) input.readObject());
+        event.setCtime(input.readLong());
+        event.setDataSource(table.read(input));
+        event.setDataId(table.read(input));
+        event.setCategory(table.read(input));
+        event.setText((String) input.readObject());
+        event.setContext(readMap(input, table));
+        event.setTags(readMap(input, table));
+        event.setTrigger((Trigger) input.readObject());
+        event.setDampening((Dampening) input.readObject());
+        event.setEvalSets((List<Set<ConditionEval>>) input.readObject());
+        return event;
+    }
+
+    public static class DataExternalizer extends AbstractExternalizer<Data> {
+
+        @Override
+        public Set<Class<? extends Data>> getTypeClasses() {
+            return Collections.singleton(Data.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return DATA;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, Data data) throws IOException {
+            writeData(output, new StringTableWriter(), data);
+        }
+
+        @Override
+        public Data readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            return readData(input, new StringTableReader());
+        }
+    }
+
+    public static class EventExternalizer extends AbstractExternalizer<Event> {
+
+        @Override
+        public Set<Class<? extends Event>> getTypeClasses() {
+            return Collections.singleton(Event.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return EVENT;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, Event event) throws IOException {
+            writeEvent(output, new StringTableWriter(), event);
+        }
+
+        @Override
+        public Event readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            return readEvent(input, new StringTableReader());
+        }
+    }
+
+    /**
+     * The data and events of a NotifyData share a single string table.
+     */
+    public static class NotifyDataExternalizer extends AbstractExternalizer<NotifyData> {
+
+        @Override
+        public Set<Class<? extends NotifyData>> getTypeClasses() {
+            return Collections.singleton(NotifyData.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return NOTIFY_DATA;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, NotifyData notifyData) throws IOException {
+            StringTableWriter table = new StringTableWriter();
+            writeInteger(output, notifyData.getFromNode());
+            if (notifyData.getDataCollection() != null) {
+                output.writeByte(DATA_COLLECTION);
+                UnsignedNumeric.writeUnsignedInt(output, notifyData.getDataCollection().size());
+                for (Data data : notifyData.getDataCollection()) {
+                    if (data.getClass() == Data.class) {
+                        output.writeByte(ELEMENT_COMPACT);
+                        writeData(output, table, data);
+                    } else {
+                        output.writeByte(ELEMENT_OBJECT);
+                        output.writeObject(data);
+                    }
+                }
+            } else if (notifyData.getEventCollection() != null) {
+                output.writeByte(EVENT_COLLECTION);
+                UnsignedNumeric.writeUnsignedInt(output, notifyData.getEventCollection().size());
+                for (Event event : notifyData.getEventCollection()) {
+                    if (event.getClass() == Event.class) {
+                        output.writeByte(ELEMENT_COMPACT);
+                        writeEvent(output, table, event);
+                    } else {
+                        output.writeByte(ELEMENT_OBJECT);
+                        output.writeObject(event);
+                    }
+                }
+            } else if (notifyData.getData() != null) {
+                output.writeByte(SINGLE_DATA);
+                output.writeObject(notifyData.getData());
+            } else if (notifyData.getEvent() != null) {
+                output.writeByte(SINGLE_EVENT);
+                output.writeObject(notifyData.getEvent());
+            } else {
+                output.writeByte(NONE);
+            }
+        }
+
+        @Override
+        public NotifyData readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            StringTableReader table = new StringTableReader();
+            Integer fromNode = readInteger(input);
+            byte type = input.readByte();
+            switch (type) {
+                case DATA_COLLECTION: {
+                    int size = UnsignedNumeric.readUnsignedInt(input);
+                    List<Data> dataCollection = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        dataCollection.add(input.readByte() == ELEMENT_COMPACT ? readData(input, table) :
+                                (Data) input.readObject());
+                    }
+                    return new NotifyData(fromNode, dataCollection, Data.class);
+                }
+                case EVENT_COLLECTION: {
+                    int size = UnsignedNumeric.readUnsignedInt(input);
+                    List<Event> eventCollection = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        eventCollection.add(input.readByte() == ELEMENT_COMPACT ? readEvent(input, table) :
+                                (Event) input.readObject());
+                    }
+                    return new NotifyData(fromNode, eventCollection, Event.class);
+                }
+                case SINGLE_DATA:
+                    return new NotifyData(fromNode, (Data) input.readObject());
+                case SINGLE_EVENT:
+                    return new NotifyData(fromNode, (Event) input.readObject());
+                default:
+                    return new NotifyData(fromNode, (Data) null);
+            }
+        }
+    }
+
+    public static class DeliverNotifyDataExternalizer extends AbstractExternalizer<DeliverNotifyData> {
+
+        @Override
+        public Set<Class<? extends DeliverNotifyData>> getTypeClasses() {
+            return Collections.singleton(DeliverNotifyData.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return DELIVER_NOTIFY_DATA;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, DeliverNotifyData deliver) throws IOException {
+            output.writeObject(deliver.getNotifyData());
+        }
+
+        @Override
+        public DeliverNotifyData readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            return new DeliverNotifyData((NotifyData) input.readObject());
+        }
+    }
+
+    public static class NotifyTriggerExternalizer extends AbstractExternalizer<NotifyTrigger> {
+
+        @Override
+        public Set<Class<? extends NotifyTrigger>> getTypeClasses() {
+            return Collections.singleton(NotifyTrigger.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return NOTIFY_TRIGGER;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, NotifyTrigger notifyTrigger) throws IOException {
+            writeInteger(output, notifyTrigger.getFromNode());
+            writeInteger(output, notifyTrigger.getToNode());
+            MarshallUtil.marshallEnum(notifyTrigger.getOperation(), output);
+            output.writeObject(notifyTrigger.getTenantId());
+            output.writeObject(notifyTrigger.getTriggerId());
+        }
+
+        @Override
+        public NotifyTrigger readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            Integer fromNode = readInteger(input);
+            Integer toNode = readInteger(input);
+            Operation operation = MarshallUtil.unmarshallEnum(input, ordinal -> Operation.values()[ordinal]);
+            String tenantId = (String) input.readObject();
+            String triggerId = (String) input.readObject();
+            return new NotifyTrigger(fromNode, toNode, operation, tenantId, triggerId);
+        }
+    }
+
+    /**
+     * The operations are grouped by tenant, so each tenantId is written once.
+     */
+    public static class NotifyTriggersExternalizer extends AbstractExternalizer<NotifyTriggers> {
+
+        @Override
+        public Set<Class<? extends NotifyTriggers>> getTypeClasses() {
+            return Collections.singleton(NotifyTriggers.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return NOTIFY_TRIGGERS;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, NotifyTriggers notifyTriggers) throws IOException {
+            writeInteger(output, notifyTriggers.getFromNode());
+            writeInteger(output, notifyTriggers.getToNode());
+            Map<String, Map<String, Operation>> operations = notifyTriggers.getOperations();
+            output.writeBoolean(operations != null);
+            if (operations == null) {
+                return;
+            }
+            UnsignedNumeric.writeUnsignedInt(output, operations.size());
+            for (Map.Entry<String, Map<String, Operation>> tenant : operations.entrySet()) {
+                output.writeObject(tenant.getKey());
+                UnsignedNumeric.writeUnsignedInt(output, tenant.getValue().size());
+                for (Map.Entry<String, Operation> trigger : tenant.getValue().entrySet()) {
+                    output.writeObject(trigger.getKey());
+                    MarshallUtil.marshallEnum(trigger.getValue(), output);
+                }
+            }
+        }
+
+        @Override
+        public NotifyTriggers readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            Integer fromNode = readInteger(input);
+            Integer toNode = readInteger(input);
+            if (!input.readBoolean()) {
+                return new NotifyTriggers(fromNode, toNode, null);
+            }
+            int numTenants = UnsignedNumeric.readUnsignedInt(input);
+            Map<String, Map<String, Operation>> operations = new HashMap<>(numTenants * 2);
+            for (int i = 0; i < numTenants; i++) {
+                String tenantId = (String) input.readObject();
+                int numTriggers = UnsignedNumeric.readUnsignedInt(input);
+                Map<String, Operation> triggers = new HashMap<>(numTriggers * 2);
+                for (int j = 0; j < numTriggers; j++) {
+                    String triggerId = (String) input.readObject();
+                    triggers.put(triggerId, MarshallUtil.unmarshallEnum(input, ordinal -> Operation.values()[ordinal]));
+                }
+                operations.put(tenantId, triggers);
+            }
+            return new NotifyTriggers(fromNode, toNode, operations);
+        }
+    }
+
+    public static class PartitionEntryExternalizer extends AbstractExternalizer<PartitionEntry> {
+
+        @Override
+        public Set<Class<? extends PartitionEntry>> getTypeClasses() {
+            return Collections.singleton(PartitionEntry.class);
+        }
+
+        @Override
+        public Integer getId() {
+            return PARTITION_ENTRY;
+        }
+
+        @Override
+        public void writeObject(ObjectOutput output, PartitionEntry entry) throws IOException {
+            output.writeObject(entry.getTenantId());
+            output.writeObject(entry.getTriggerId());
+        }
+
+        @Override
+        public PartitionEntry readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+            return new PartitionEntry((String) input.readObject(), (String) input.readObject());
+        }
+    }
+}
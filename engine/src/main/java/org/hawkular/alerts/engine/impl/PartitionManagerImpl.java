@@ -21,6 +21,7 @@ import static org.hawkular.alerts.api.util.Util.isEmpty;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -28,7 +29,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.hawkular.alerts.api.model.data.Data;
@@ -43,24 +50,28 @@ import org.hawkular.alerts.log.AlertingLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.hawkular.commons.properties.HawkularProperties;
 import org.infinispan.Cache;
+import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.context.Flag;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.notifications.Listener;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
 import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
 import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
 import org.infinispan.notifications.cachemanagerlistener.annotation.ViewChanged;
 import org.infinispan.notifications.cachemanagerlistener.event.ViewChangedEvent;
-
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.function.SerializableFunction;
 
 /**
  * Implementation of {@link PartitionManager} services based on Infinispan cache.
  *
  * This implementation uses a consistent hashing strategy {@see https://en.wikipedia.org/wiki/Consistent_hashing}
- * as a method to partition triggers across nodes.
+ * as a method to partition triggers across nodes. Nodes are placed on a {@link ConsistentHashRing} with virtual
+ * nodes and bounded loads, so a node joining or leaving the cluster only moves around 1/N of the triggers.
  *
  * It needs three caches added into Wildfly/JBoss configuration files.
  *
@@ -87,9 +98,14 @@ import com.google.common.hash.Hashing;
  *          <replicated-cache name="data" mode="ASYNC">
  *              <transaction mode="BATCH"/>
  *          </replicated-cache>
+ *          <replicated-cache name="routing" mode="ASYNC"/>
  *       </cache-container>
  * [...]
  *
+ * Data and events are routed only to the nodes with triggers using their dataIds. Each node publishes its active
+ * dataIds on the "routing" cache and the sender node delivers to each owner only its subset of the data.
+ * The "data" cache is used as a broadcast fallback while the routing table is not complete.
+ *
  * @author Jay Shaughnessy
  * @author Lucas Ponce
  */
@@ -105,10 +121,39 @@ public class PartitionManagerImpl implements PartitionManager {
     private static final String ALERTS_DISTRIBUTED_ENV = "HAWKULAR_ALERTS_DISTRIBUTED";
     private static final String ALERTS_DISTRIBUTED_DEFAULT = "false";
 
-    public static final String BUCKETS = "buckets";
-    public static final String PREVIOUS = "previousPartition";
-    public static final String CURRENT = "currentPartition";
+    /**
+     * Route data and events only to the nodes with triggers interested on them, instead of replicating them to all
+     * nodes.
+     */
+    private static final String DATA_ROUTING = "hawkular-alerts.partition-data-routing";
+    private static final String DATA_ROUTING_ENV = "HAWKULAR_ALERTS_PARTITION_DATA_ROUTING";
+    private static final String DATA_ROUTING_DEFAULT = "true";
+
+    /**
+     * Time in milliseconds that data and events are broadcasted after a trigger or topology change, until the nodes
+     * owning the changed triggers have published their dataIds.
+     */
+    private static final String ROUTING_GRACE = "hawkular-alerts.partition-routing-grace";
+    private static final String ROUTING_GRACE_ENV = "HAWKULAR_ALERTS_PARTITION_ROUTING_GRACE";
+    private static final String ROUTING_GRACE_DEFAULT = "10000";
+
+    /**
+     * Number of positions of each node on the consistent hashing ring
+     */
+    private static final String VIRTUAL_NODES = "hawkular-alerts.partition-virtual-nodes";
+    private static final String VIRTUAL_NODES_ENV = "HAWKULAR_ALERTS_PARTITION_VIRTUAL_NODES";
+    private static final String VIRTUAL_NODES_DEFAULT = "100";
+
+    /**
+     * Maximum load of a node on a topology change, relative to the average load of the nodes
+     */
+    private static final String LOAD_FACTOR = "hawkular-alerts.partition-load-factor";
+    private static final String LOAD_FACTOR_ENV = "HAWKULAR_ALERTS_PARTITION_LOAD_FACTOR";
+    private static final String LOAD_FACTOR_DEFAULT = "1.25";
+
+    public static final String PARTITION_INITIALIZED = "partitionInitialized";
     public static final String PARTITION_CHANGE = "partitionChangeFlag";
+    public static final String PARTITION_DELTA = "partitionDelta-";
 
     private static final AlertingLogger log = MsgLogging.getMsgLogger(AlertingLogger.class, PartitionManagerImpl.class);
 
@@ -120,6 +165,23 @@ public class PartitionManagerImpl implements PartitionManager {
      */
     private boolean distributed = IspnCacheManager.isDistributed();
 
+    private boolean dataRouting = Boolean.parseBoolean(HawkularProperties.getProperty(DATA_ROUTING, DATA_ROUTING_ENV,
+            DATA_ROUTING_DEFAULT));
+
+    private long routingGrace = Long.parseLong(HawkularProperties.getProperty(ROUTING_GRACE, ROUTING_GRACE_ENV,
+            ROUTING_GRACE_DEFAULT));
+
+    private int virtualNodes = Integer.parseInt(HawkularProperties.getProperty(VIRTUAL_NODES, VIRTUAL_NODES_ENV,
+            VIRTUAL_NODES_DEFAULT));
+
+    private double loadFactor = Double.parseDouble(HawkularProperties.getProperty(LOAD_FACTOR, LOAD_FACTOR_ENV,
+            LOAD_FACTOR_DEFAULT));
+
+    /**
+     * Ring of the current members, rebuilt on each topology change.
+     */
+    private volatile ConsistentHashRing ring;
+
     private final Map<String, String> status = new HashMap<>();
 
     /**
@@ -129,12 +191,12 @@ public class PartitionManagerImpl implements PartitionManager {
     private EmbeddedCacheManager cacheManager;
 
     /**
-     * This cache will keep the table between nodes and buckets used for partition calculation.
-     * A node is represented with the Address.hashCode meanwhile a bucket is an integer whitin range 0 - (n -1) nodes.
+     * This cache will hold the partition, to indicate where a Trigger is distributed.
+     * The partition is stored as one cache entry per trigger, a PartitionEntry key with the Address.hashCode value
+     * calculated from the distribution, so a single trigger change only replicates its own entry.
      *
-     * This cache will also hold the partition, a map to indicate where a Trigger is distributed.
-     * Internally a trigger is represented by a PartitionEntry.hashCode which will be the key of the map.
-     * The value will be the Address.hashCode value after calculated the distribution.
+     * On a topology change it also holds, per node, the delta of triggers added and removed on the node, so each node
+     * reloads only the triggers moved.
      *
      * Partition cache is modified by cluster coordinator.
      */
@@ -152,6 +214,29 @@ public class PartitionManagerImpl implements PartitionManager {
      */
     private Cache dataCache;
 
+    /**
+     * This cache holds the dataIds active on each node.
+     * The key is the node (Address.hashCode) and the value a map of tenantId -> dataIds published by the node.
+     */
+    private Cache routingCache;
+
+    /**
+     * Routing table calculated from the routingCache as a map of tenantId -> dataId -> nodes.
+     * It is rebuilt on each change of the routingCache or the topology.
+     */
+    private volatile Map<String, Map<String, Set<Integer>>> routes = Collections.emptyMap();
+
+    /**
+     * Until this time data and events are broadcasted as the routing table may be outdated by a recent trigger or
+     * topology change.
+     */
+    private volatile long routingGraceEnd = 0;
+
+    /**
+     * Local PartitionManager instances indexed by node, used to deliver the data routed to a node.
+     */
+    private static final ConcurrentMap<Integer, PartitionManagerImpl> localNodes = new ConcurrentHashMap<>();
+
     /**
      * Representation of the current node in a cluster environment.
      * Computed from Address.hashCode,
@@ -172,6 +257,7 @@ public class PartitionManagerImpl implements PartitionManager {
     private PartitionChangeListener partitionChangeListener = new PartitionChangeListener();
     private NewTriggerListener newTriggerListener = new NewTriggerListener();
     private NewDataListener newDataListener = new NewDataListener();
+    private RoutingChangeListener routingChangeListener = new RoutingChangeListener();
 
 
     public void setDefinitionsService(DefinitionsService definitionsService) {
@@ -210,6 +296,12 @@ public class PartitionManagerImpl implements PartitionManager {
             partitionCache.addListener(partitionChangeListener);
             triggersCache.addListener(newTriggerListener);
             dataCache.addListener(newDataListener);
+            if (dataRouting) {
+                routingCache = cacheManager.getCache("routing");
+                localNodes.put(currentNode, this);
+                routingCache.addListener(routingChangeListener);
+                refreshRoutes();
+            }
             /*
                 Initial partition
              */
@@ -225,6 +317,11 @@ public class PartitionManagerImpl implements PartitionManager {
             partitionCache.removeListener(partitionChangeListener);
             triggersCache.removeListener(newTriggerListener);
             dataCache.removeListener(newDataListener);
+            if (dataRouting) {
+                routingCache.removeListener(routingChangeListener);
+                localNodes.remove(currentNode);
+                routingCache.stop();
+            }
 
             dataCache.stop();
             triggersCache.stop();
@@ -237,41 +334,106 @@ public class PartitionManagerImpl implements PartitionManager {
     @Override
     public void notifyTrigger(Operation operation, String tenantId, String triggerId) {
         if (distributed) {
-            PartitionEntry newEntry = new PartitionEntry(tenantId, triggerId);
-            int toNode = calculateNewEntry(newEntry, (Map<Integer, Integer>)partitionCache.get(BUCKETS));
+            Map<String, Map<String, Operation>> operations = Collections.singletonMap(tenantId,
+                    Collections.singletonMap(triggerId, operation));
+            int toNode = locateOperations(operations).keySet().iterator().next();
             NotifyTrigger nTrigger = new NotifyTrigger(currentNode, toNode, operation, tenantId, triggerId);
+            startRoutingGrace();
             Integer key = nTrigger.hashCode();
             triggersCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
                     .putAsync(key, nTrigger, LIFESPAN, TimeUnit.MILLISECONDS);
         }
     }
 
+    @Override
+    public void notifyTriggers(Map<String, Map<String, Operation>> operations) {
+        if (distributed && !isEmpty(operations)) {
+            Map<Integer, Map<String, Map<String, Operation>>> nodesOperations = locateOperations(operations);
+            startRoutingGrace();
+            nodesOperations.entrySet().stream().forEach(node -> {
+                NotifyTriggers nTriggers = new NotifyTriggers(currentNode, node.getKey(), node.getValue());
+                Integer key = nTriggers.hashCode();
+                log.debugf("Sending %s trigger operations to node %s", nTriggers.size(), node.getKey());
+                triggersCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
+                        .putAsync(key, nTriggers, LIFESPAN, TimeUnit.MILLISECONDS);
+            });
+        }
+    }
+
+    /*
+        Existing triggers are notified to their owner on the "partition" cache, the current partition is only
+        collected to place new triggers.
+     */
+    private Map<Integer, Map<String, Map<String, Operation>>> locateOperations(
+            Map<String, Map<String, Operation>> operations) {
+        return locateOperations(operations, entry -> (Integer) partitionCache.get(entry), this::getPartition, ring,
+                loadFactor);
+    }
+
+    /**
+     * Group trigger operations by the node that should process them.
+     * Triggers already placed on the partition are sent to their current owner, new triggers are placed on the ring
+     * with the same bounded loads used on a topology change.
+     *
+     * @param operations a map of tenantId -> triggerId -> operation
+     * @param owner function to get the node of a trigger on the partition, null if the trigger is not placed
+     * @param partition supplier of the current partition, only invoked if there are new triggers
+     * @param ring the ring of the current members
+     * @param loadFactor how much a node can exceed the average load, 1.0 or greater
+     * @return a map of node -> tenantId -> triggerId -> operation
+     */
+    public static Map<Integer, Map<String, Map<String, Operation>>> locateOperations(
+            Map<String, Map<String, Operation>> operations, Function<PartitionEntry, Integer> owner,
+            Supplier<Map<PartitionEntry, Integer>> partition, ConsistentHashRing ring, double loadFactor) {
+        Map<PartitionEntry, Integer> nodes = new HashMap<>();
+        List<PartitionEntry> newEntries = new ArrayList<>();
+        operations.entrySet().stream().forEach(tenant -> {
+            tenant.getValue().keySet().stream().forEach(triggerId -> {
+                PartitionEntry entry = new PartitionEntry(tenant.getKey(), triggerId);
+                Integer node = owner.apply(entry);
+                /*
+                    Triggers owned by a node that left the cluster are placed again
+                 */
+                if (node != null && ring.contains(node)) {
+                    nodes.put(entry, node);
+                } else {
+                    newEntries.add(entry);
+                }
+            });
+        });
+        if (!newEntries.isEmpty()) {
+            nodes.putAll(ring.locate(newEntries, partition.get(), loadFactor));
+        }
+        Map<Integer, Map<String, Map<String, Operation>>> nodesOperations = new HashMap<>();
+        nodes.entrySet().stream().forEach(e -> {
+            PartitionEntry entry = e.getKey();
+            nodesOperations.computeIfAbsent(e.getValue(), n -> new HashMap<>())
+                    .computeIfAbsent(entry.getTenantId(), t -> new HashMap<>())
+                    .put(entry.getTriggerId(), operations.get(entry.getTenantId()).get(entry.getTriggerId()));
+        });
+        return nodesOperations;
+    }
+
     @Override
     public void registerTriggerListener(PartitionTriggerListener triggerListener) {
         triggerListeners.add(triggerListener);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void notifyData(Collection<Data> data) {
         if (distributed) {
-            NotifyData nData = new NotifyData(currentNode, data, Data.class);
-            Integer key = nData.hashCode();
-            log.debugf("Sending data [%s]", nData);
-            dataCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
-                    .putAsync(key, nData, LIFESPAN, TimeUnit.MILLISECONDS);
+            dispatch(data, Data::getTenantId, Data::getId, routes, currentNode, getRoutedMembers(),
+                    (member, routed) -> deliver(member, new NotifyData(currentNode, routed, Data.class)),
+                    all -> broadcast(new NotifyData(currentNode, all, Data.class)));
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void notifyEvents(Collection<Event> events) {
         if (distributed) {
-            NotifyData nEvent = new NotifyData(currentNode, events, Event.class);
-            Integer key = nEvent.hashCode();
-            log.debugf("Sending events [%s]", nEvent);
-            dataCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
-                    .putAsync(key, nEvent, LIFESPAN, TimeUnit.MILLISECONDS);
+            dispatch(events, Event::getTenantId, Event::getDataId, routes, currentNode, getRoutedMembers(),
+                    (member, routed) -> deliver(member, new NotifyData(currentNode, routed, Event.class)),
+                    all -> broadcast(new NotifyData(currentNode, all, Event.class)));
         }
     }
 
@@ -280,35 +442,227 @@ public class PartitionManagerImpl implements PartitionManager {
         dataListeners.add(dataListener);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void notifyDataIds(Map<String, Set<String>> dataIds) {
+        if (distributed && dataRouting) {
+            HashMap<String, Set<String>> nodeDataIds = new HashMap<>();
+            dataIds.entrySet().stream().forEach(e -> nodeDataIds.put(e.getKey(), new HashSet<>(e.getValue())));
+            log.debugf("Publishing dataIds [%s] for node %s", nodeDataIds, currentNode);
+            routingCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).putAsync(currentNode, nodeDataIds);
+        }
+    }
+
+    /*
+        Return the members of the cluster indexed by node if all of them have published their dataIds, null if the
+        data should be broadcasted because the routing table is not complete or may be outdated by a recent trigger
+        or topology change.
+     */
+    private Map<Integer, Address> getRoutedMembers() {
+        if (!dataRouting) {
+            return null;
+        }
+        if (System.currentTimeMillis() < routingGraceEnd) {
+            log.debugf("Routing table may be outdated on %s, broadcasting", currentNode);
+            return null;
+        }
+        Map<Integer, Address> members = new HashMap<>();
+        for (Address member : cacheManager.getMembers()) {
+            Integer node = member.hashCode();
+            if (!node.equals(currentNode) && !routingCache.containsKey(node)) {
+                log.debugf("Node %s has not published its dataIds yet", node);
+                return null;
+            }
+            members.put(node, member);
+        }
+        return members;
+    }
+
+    /*
+        Start a period where data and events are broadcasted, until the nodes owning the changed triggers have
+        published their dataIds.
+     */
+    private void startRoutingGrace() {
+        if (dataRouting) {
+            routingGraceEnd = System.currentTimeMillis() + routingGrace;
+        }
+    }
+
+    /*
+        Send a NotifyData to all nodes through the "data" cache.
+     */
+    @SuppressWarnings("unchecked")
+    private void broadcast(NotifyData notifyData) {
+        Integer key = notifyData.hashCode();
+        log.debugf("Sending [%s]", notifyData);
+        dataCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
+                .putAsync(key, notifyData, LIFESPAN, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+        Send a NotifyData only to the target node.
+     */
+    private void deliver(Address target, NotifyData notifyData) {
+        if (target == null) {
+            return;
+        }
+        cacheManager.executor().filterTargets(Collections.singleton(target))
+                .submitConsumer(new DeliverNotifyData(notifyData), (address, result, t) -> {
+                    if (t != null) {
+                        log.debugf("Cannot deliver [%s] to %s: %s", notifyData, address, t);
+                    }
+                });
+    }
+
+    /*
+        Rebuild the routing table from the dataIds published by the current members.
+     */
+    @SuppressWarnings("unchecked")
+    private void refreshRoutes() {
+        Map<Integer, Map<String, Set<String>>> nodesDataIds = new HashMap<>();
+        for (Address member : cacheManager.getMembers()) {
+            Map<String, Set<String>> nodeDataIds = (Map<String, Set<String>>) routingCache.get(member.hashCode());
+            if (nodeDataIds != null) {
+                nodesDataIds.put(member.hashCode(), nodeDataIds);
+            }
+        }
+        routes = buildRoutes(nodesDataIds);
+        log.debugf("Routes: %s", routes);
+    }
+
+    /**
+     * Build a routing table from the dataIds active on each node.
+     *
+     * @param nodesDataIds a map of node -> tenantId -> dataIds
+     * @return a map of tenantId -> dataId -> nodes
+     */
+    public static Map<String, Map<String, Set<Integer>>> buildRoutes(
+            Map<Integer, Map<String, Set<String>>> nodesDataIds) {
+        Map<String, Map<String, Set<Integer>>> routes = new HashMap<>();
+        if (nodesDataIds != null) {
+            nodesDataIds.entrySet().stream().forEach(node -> {
+                node.getValue().entrySet().stream().forEach(tenant -> {
+                    Map<String, Set<Integer>> tenantRoutes = routes.computeIfAbsent(tenant.getKey(),
+                            t -> new HashMap<>());
+                    tenant.getValue().stream().forEach(dataId -> {
+                        tenantRoutes.computeIfAbsent(dataId, d -> new HashSet<>()).add(node.getKey());
+                    });
+                });
+            });
+        }
+        return routes;
+    }
+
+    /**
+     * Send data or events to the nodes with triggers on their dataIds.
+     * Items without nodes interested on its dataId are discarded. When there are no routed members, because the
+     * routing table is not complete or may be outdated by a recent change, all items are broadcasted.
+     *
+     * @param items the data or events to send
+     * @param tenantId function to extract the tenantId of an item
+     * @param dataId function to extract the dataId of an item
+     * @param routes routing table as a map of tenantId -> dataId -> nodes
+     * @param fromNode the sender node, excluded as it processes the items locally
+     * @param members the members of the cluster indexed by node, null to broadcast the items
+     * @param deliver function to send the items routed to a member
+     * @param broadcast function to send the items to all members
+     */
+    public static <T, A> void dispatch(Collection<T> items, Function<T, String> tenantId,
+                                       Function<T, String> dataId, Map<String, Map<String, Set<Integer>>> routes,
+                                       Integer fromNode, Map<Integer, A> members, BiConsumer<A, List<T>> deliver,
+                                       Consumer<Collection<T>> broadcast) {
+        if (isEmpty(items)) {
+            return;
+        }
+        if (members == null) {
+            broadcast.accept(items);
+            return;
+        }
+        Map<Integer, List<T>> routed = route(items, tenantId, dataId, routes, fromNode);
+        log.debugf("Routing [%s]", routed);
+        routed.entrySet().stream().forEach(e -> {
+            A member = members.get(e.getKey());
+            if (member != null) {
+                deliver.accept(member, e.getValue());
+            }
+        });
+    }
+
+    /**
+     * Group a collection of data or events by the nodes that should receive them.
+     * Items without nodes interested on its dataId are discarded.
+     *
+     * @param items the data or events to route
+     * @param tenantId function to extract the tenantId of an item
+     * @param dataId function to extract the dataId of an item
+     * @param routes routing table as a map of tenantId -> dataId -> nodes
+     * @param fromNode the sender node, excluded from the result as it processes the items locally
+     * @return a map of node -> items to deliver to that node
+     */
+    public static <T> Map<Integer, List<T>> route(Collection<T> items, Function<T, String> tenantId,
+                                                  Function<T, String> dataId,
+                                                  Map<String, Map<String, Set<Integer>>> routes,
+                                                  Integer fromNode) {
+        Map<Integer, List<T>> routed = new HashMap<>();
+        if (isEmpty(items) || isEmpty(routes)) {
+            return routed;
+        }
+        for (T item : items) {
+            Map<String, Set<Integer>> tenantRoutes = routes.get(tenantId.apply(item));
+            Set<Integer> nodes = tenantRoutes == null ? null : tenantRoutes.get(dataId.apply(item));
+            if (nodes != null) {
+                for (Integer node : nodes) {
+                    if (!node.equals(fromNode)) {
+                        routed.computeIfAbsent(node, n -> new ArrayList<>()).add(item);
+                    }
+                }
+            }
+        }
+        return routed;
+    }
+
     /*
         Calculate a new partition based on the current topology.
-        It should be invoked as a result of a topology event and it is executed by the coordinator node.
-        It updated the new and old partition state on the "partition" cache.
+        It should be invoked as a result of a topology event. All nodes rebuild the ring of the new members and the
+        coordinator node calculates the new partition.
+        It updates the current partition and the delta of each node on the "partition" cache.
         This can take some time, avoid timeouts by allowing longer waits for pending client calls
      */
     @SuppressWarnings("unchecked")
     private void processTopologyChange() {
-        if (distributed && cacheManager.isCoordinator()) {
+        if (distributed && dataRouting) {
             /*
-                Process nodes/buckets map
+                Routes are only calculated for current members, dataIds published by removed nodes are cleaned by the
+                coordinator
              */
-            Map<Integer, Integer> oldBuckets = (Map<Integer, Integer>)partitionCache.get(BUCKETS);
-            List<Integer> members = new ArrayList();
-            cacheManager.getMembers().stream().forEach(a -> {
-                members.add(a.hashCode());
-            });
-            Map<Integer, Integer> newBuckets = updateBuckets(oldBuckets, members);
-            if (log.isDebugEnabled()) {
-                log.debug("Processing Topology Change");
-                log.debugf("Old buckets: %s", oldBuckets);
-                log.debugf("New buckets: %s", newBuckets);
+            if (cacheManager.isCoordinator()) {
+                Set<Integer> members = cacheManager.getMembers().stream()
+                        .map(Object::hashCode)
+                        .collect(Collectors.toSet());
+                new ArrayList<Object>(routingCache.keySet()).stream()
+                        .filter(node -> !members.contains(node))
+                        .forEach(node -> routingCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES)
+                                .removeAsync(node));
             }
+            refreshRoutes();
+        }
+        if (!distributed) {
+            return;
+        }
+        List<Integer> members = new ArrayList<>();
+        cacheManager.getMembers().stream().forEach(a -> {
+            members.add(a.hashCode());
+        });
+        ring = new ConsistentHashRing(members, virtualNodes);
+        if (cacheManager.isCoordinator()) {
+            log.debugf("Processing Topology Change for members: %s", members);
 
             /*
                 Process partition map
              */
             final List<PartitionEntry> entries = new ArrayList<>();
-            Map<PartitionEntry, Integer> oldPartition = (Map<PartitionEntry, Integer>)partitionCache.get(CURRENT);
+            Map<PartitionEntry, Integer> oldPartition = partitionCache.containsKey(PARTITION_INITIALIZED) ?
+                    getPartition() : null;
             Map<PartitionEntry, Integer> newPartition;
             if (oldPartition == null) {
                 // Initial load of all triggers
@@ -328,117 +682,45 @@ public class PartitionManagerImpl implements PartitionManager {
                 });
             }
 
-            newPartition = calculatePartition(entries, newBuckets);
+            newPartition = ring.partition(entries, loadFactor);
+            Map<Integer, Map<String, Map<String, List<String>>>> deltas = getPartitionDeltas(oldPartition,
+                    newPartition);
             if (log.isDebugEnabled()) {
                 log.debugf("Old partition: %s", oldPartition);
                 log.debugf("New partition: %s", newPartition);
+                log.debugf("Deltas: %s", deltas);
             }
 
+            /*
+                Only moved entries are written, each node receives only its delta, deltas of removed nodes are cleaned
+             */
+            Cache writeCache = partitionCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES);
             partitionCache.startBatch();
-            partitionCache.put(BUCKETS, newBuckets);
-            if (oldPartition != null) {
-                partitionCache.put(PREVIOUS, oldPartition);
-            }
-            partitionCache.put(CURRENT, newPartition);
+            getPartitionUpdates(oldPartition, newPartition, deltas, members).entrySet().stream()
+                    .forEach(entry -> writeCache.put(entry.getKey(), entry.getValue()));
+            getStaleDeltas(new ArrayList<Object>(partitionCache.keySet()), members).stream()
+                    .forEach(key -> writeCache.remove(key));
             partitionCache.endBatch(true);
             partitionCache.put(PARTITION_CHANGE, new Date(), LIFESPAN, TimeUnit.MILLISECONDS);
         }
     }
 
-    /**
-     * Update a nodes table.
-     * This table is represented as a Map<Integer, Integer> where:
-     *  - key is an index within [0, n-1] being n the number of nodes.
-     *  - value is the code that represents a node, it is calculated from Address.hashCode
-     *
-     *  This method re-calculate a new table from an old table and with a new list with new members.
-     *  The algorithm minimizes the changes across topology changes.
-     *
-     * @param oldBuckets the old table used as input for the calculation
-     * @param members a new list of members
-     * @return a new table of nodes
+    /*
+        Collect the partition from the local replica of the entries of the "partition" cache.
      */
-    public Map<Integer, Integer> updateBuckets(Map<Integer, Integer> oldBuckets, List<Integer> members) {
-        if (isEmpty(members)) {
-            throw new IllegalArgumentException("newMembers must be not null");
-        }
-        /*
-            Create a new map
-         */
-        if (isEmpty(oldBuckets)) {
-            Map<Integer, Integer> newBuckets = new HashMap<>();
-            for (int i = 0; i < members.size(); i++) {
-                newBuckets.put(i, members.get(i));
-            }
-            return newBuckets;
-        }
-
-        Map<Integer, Integer> newBuckets = new HashMap<>();
-        int newBucket = 0;
-        while (newBucket < members.size()) {
-            int bucket = 0;
-            boolean placed = false;
-            while (bucket < oldBuckets.size() && !placed) {
-                Integer oldMember = oldBuckets.get(bucket);
-                if (!newBuckets.containsValue(oldMember)
-                        && members.contains(oldMember)
-                        && (bucket == newBucket || bucket >= members.size())) {
-                    newBuckets.put(newBucket, oldMember);
-                    placed = true;
-                } else {
-                    bucket++;
+    @SuppressWarnings("unchecked")
+    private Map<PartitionEntry, Integer> getPartition() {
+        Map<PartitionEntry, Integer> partition = new HashMap<>();
+        try (CloseableIterator<Entry<Object, Object>> it = partitionCache.getAdvancedCache()
+                .withFlags(Flag.CACHE_MODE_LOCAL).entrySet().iterator()) {
+            while (it.hasNext()) {
+                Entry<Object, Object> entry = it.next();
+                if (entry.getKey() instanceof PartitionEntry) {
+                    partition.put((PartitionEntry) entry.getKey(), (Integer) entry.getValue());
                 }
             }
-            if (bucket == oldBuckets.size() && !placed) {
-                newBuckets.put(newBucket, members.get(newBucket));
-            }
-            newBucket++;
-        }
-        return newBuckets;
-    }
-
-    /**
-     * Distribute triggers on nodes using a consistent hashing strategy.
-     * This strategy allows to scale and minimize changes and re-distribution when cluster changes.
-     *
-     * @param entries a list of entries to distribute
-     * @param buckets a table of nodes
-     * @return a map of entries distributed across nodes
-     */
-    public Map<PartitionEntry, Integer> calculatePartition(List<PartitionEntry> entries,
-                                                           Map<Integer, Integer> buckets) {
-        if (entries == null) {
-            throw new IllegalArgumentException("entries must be not null");
-        }
-        if (isEmpty(buckets)) {
-            throw new IllegalArgumentException("entries must be not null");
-        }
-        HashFunction md5 = Hashing.md5();
-        int numBuckets = buckets.size();
-        Map<PartitionEntry, Integer> newPartition = new HashMap<>();
-        for (PartitionEntry entry : entries) {
-            newPartition.put(entry, buckets.get(Hashing.consistentHash(md5.hashInt(entry.hashCode()), numBuckets)));
         }
-        return newPartition;
-    }
-
-    /**
-     * Distribute a new entry across buckets using a consistent hashing strategy.
-     *
-     * @param newEntry the new entry to distribute
-     * @param buckets a table of nodes
-     * @return a code of the node which the new entry is placed
-     */
-    public Integer calculateNewEntry(PartitionEntry newEntry, Map<Integer, Integer> buckets) {
-        if (newEntry == null) {
-            throw new IllegalArgumentException("newEntry must be not null");
-        }
-        if (isEmpty(buckets)) {
-            throw new IllegalArgumentException("buckets must be not null");
-        }
-        HashFunction md5 = Hashing.md5();
-        int numBuckets = buckets.size();
-        return buckets.get(Hashing.consistentHash(md5.hashInt(newEntry.hashCode()), numBuckets));
+        return partition;
     }
 
     /**
@@ -475,47 +757,86 @@ public class PartitionManagerImpl implements PartitionManager {
         partition.get(tenantId).add(triggerId);
     }
 
-    /*
-        Calculated the added and removed entries for a node given a current and a previous partition maps.
-        It return a map with two fixed entries under keys "added" and "removed".
+    /**
+     * Calculate the added and removed entries of each node given a previous and a current partition.
+     * Only the entries that have moved are part of the output, each node maps to a delta with two fixed entries
+     * under keys "added" and "removed", in the same format of {@link #getNodePartition(Map, Integer)}.
+     *
+     * @param previous the previous partition, it can be null on the initial partition
+     * @param current the current partition
+     * @return a map of node -> delta, nodes without changes are not present
      */
-    @SuppressWarnings("unchecked")
-    protected Map<String, Map<String, List<String>>> getAddedRemovedPartition(Map<PartitionEntry, Integer> previous,
-                                                                            Map<PartitionEntry, Integer> current,
-                                                                            Integer node) {
-        Map<String, Map<String, List<String>>> output = new HashMap<>();
-        output.put("added", new HashMap<>());
-        output.put("removed", new HashMap<>());
-
-        if (isEmpty(previous)) {
-            current.entrySet().stream().forEach(entry -> {
-                add(output.get("added"), entry.getKey());
-            });
-        } else {
-            List<PartitionEntry> previousNode = new ArrayList();
-            for (Entry<PartitionEntry, Integer> entry : previous.entrySet()) {
-                if (entry.getValue().equals(node)) {
-                    previousNode.add(entry.getKey());
-                }
-            }
-            List<PartitionEntry> currentNode = new ArrayList();
+    public Map<Integer, Map<String, Map<String, List<String>>>> getPartitionDeltas(
+            Map<PartitionEntry, Integer> previous, Map<PartitionEntry, Integer> current) {
+        Map<Integer, Map<String, Map<String, List<String>>>> deltas = new HashMap<>();
+        if (current != null) {
             for (Entry<PartitionEntry, Integer> entry : current.entrySet()) {
-                if (entry.getValue().equals(node)) {
-                    currentNode.add(entry.getKey());
+                Integer previousNode = previous == null ? null : previous.get(entry.getKey());
+                if (!entry.getValue().equals(previousNode)) {
+                    add(deltas.computeIfAbsent(entry.getValue(), n -> emptyDelta()).get("added"), entry.getKey());
+                    if (previousNode != null) {
+                        add(deltas.computeIfAbsent(previousNode, n -> emptyDelta()).get("removed"), entry.getKey());
+                    }
                 }
             }
-            for (PartitionEntry entry : previousNode) {
-                if (!currentNode.contains(entry)) {
-                    add(output.get("removed"), entry);
+        }
+        if (previous != null) {
+            for (Entry<PartitionEntry, Integer> entry : previous.entrySet()) {
+                if (current == null || !current.containsKey(entry.getKey())) {
+                    add(deltas.computeIfAbsent(entry.getValue(), n -> emptyDelta()).get("removed"), entry.getKey());
                 }
             }
-            for (PartitionEntry entry : currentNode) {
-                if (!previousNode.contains(entry)) {
-                    add(output.get("added"), entry);
-                }
+        }
+        return deltas;
+    }
+
+    private static Map<String, Map<String, List<String>>> emptyDelta() {
+        Map<String, Map<String, List<String>>> delta = new HashMap<>();
+        delta.put("added", new HashMap<>());
+        delta.put("removed", new HashMap<>());
+        return delta;
+    }
+
+    /**
+     * Calculate the entries to write on the "partition" cache on a topology change.
+     * Only the entries that have moved are written, together with the PARTITION_INITIALIZED flag and the delta of
+     * each member under its PARTITION_DELTA key. Members without changes receive an empty delta.
+     *
+     * @param previous the previous partition, it can be null on the initial partition
+     * @param current the current partition
+     * @param deltas the deltas of the nodes, as calculated by {@link #getPartitionDeltas(Map, Map)}
+     * @param members the current members
+     * @return a map of key -> value to put on the "partition" cache
+     */
+    public Map<Object, Object> getPartitionUpdates(Map<PartitionEntry, Integer> previous,
+                                                   Map<PartitionEntry, Integer> current,
+                                                   Map<Integer, Map<String, Map<String, List<String>>>> deltas,
+                                                   Collection<Integer> members) {
+        Map<Object, Object> updates = new HashMap<>();
+        for (Entry<PartitionEntry, Integer> entry : current.entrySet()) {
+            if (previous == null || !entry.getValue().equals(previous.get(entry.getKey()))) {
+                updates.put(entry.getKey(), entry.getValue());
             }
         }
-        return output;
+        updates.put(PARTITION_INITIALIZED, Boolean.TRUE);
+        for (Integer member : members) {
+            updates.put(PARTITION_DELTA + member, deltas.getOrDefault(member, emptyDelta()));
+        }
+        return updates;
+    }
+
+    /**
+     * Find the delta keys of the nodes that are no longer members.
+     *
+     * @param keys the keys of the "partition" cache
+     * @param members the current members
+     * @return the keys to remove from the "partition" cache
+     */
+    public List<Object> getStaleDeltas(Collection<Object> keys, Collection<Integer> members) {
+        return keys.stream()
+                .filter(key -> key instanceof String && ((String) key).startsWith(PARTITION_DELTA)
+                        && !members.contains(Integer.valueOf(((String) key).substring(PARTITION_DELTA.length()))))
+                .collect(Collectors.toList());
     }
 
     /*
@@ -524,15 +845,14 @@ public class PartitionManagerImpl implements PartitionManager {
     @SuppressWarnings("unchecked")
     private void invokePartitionChangeListener() {
         if (!triggerListeners.isEmpty()) {
-            Map<PartitionEntry, Integer> current = (Map<PartitionEntry, Integer>) partitionCache.get(CURRENT);
-            Map<PartitionEntry, Integer> previous = (Map<PartitionEntry, Integer>) partitionCache.get(PREVIOUS);
+            Map<PartitionEntry, Integer> current = getPartition();
+            Map<String, Map<String, List<String>>> delta =
+                    (Map<String, Map<String, List<String>>>) partitionCache.get(PARTITION_DELTA + currentNode);
+            Map<String, Map<String, List<String>>> addedRemoved = delta != null ? delta : emptyDelta();
 
             Map<String, List<String>> partition = getNodePartition(current, currentNode);
-            Map<String, Map<String, List<String>>> addedRemoved =
-                    getAddedRemovedPartition(previous, current, currentNode);
             if (log.isDebugEnabled()) {
                 log.debug("Invoke a Change Listener");
-                log.debugf("Previous: %s", previous);
                 log.debugf("Current: %s", current);
                 log.debugf("Partition: %s", partition);
                 log.debugf("Added: %s", addedRemoved.get("added"));
@@ -554,6 +874,7 @@ public class PartitionManagerImpl implements PartitionManager {
             /*
                 When a node is joining/leaving the cluster partition needs to be re-calculated and updated
              */
+            startRoutingGrace();
             processTopologyChange();
         }
     }
@@ -588,13 +909,13 @@ public class PartitionManagerImpl implements PartitionManager {
                 }
                 return;
             }
-            NotifyTrigger notifyTrigger = (NotifyTrigger)triggersCache.get(cacheEvent.getKey());
+            Object notification = triggersCache.get(cacheEvent.getKey());
             if (log.isDebugEnabled()) {
                 log.debugf("onNewNotifyTrigger(@CacheEntryCreated) received on %s", currentNode);
                 log.debugf("CacheEvent: %s", cacheEvent);
-                log.debugf("NotifyTrigger: %s", notifyTrigger);
+                log.debugf("NotifyTrigger: %s", notification);
             }
-            processNotifyTrigger(notifyTrigger);
+            processNotification(notification);
         }
 
         @CacheEntryModified
@@ -605,13 +926,56 @@ public class PartitionManagerImpl implements PartitionManager {
                 }
                 return;
             }
-            NotifyTrigger notifyTrigger = (NotifyTrigger)triggersCache.get(cacheEvent.getKey());
+            Object notification = triggersCache.get(cacheEvent.getKey());
             if (log.isDebugEnabled()) {
                 log.debugf("onModifiedNotifyTrigger(@CacheEntryModified) received on %s", currentNode);
                 log.debugf("CacheEvent: %s", cacheEvent);
-                log.debugf("NotifyTrigger: %s", notifyTrigger);
+                log.debugf("NotifyTrigger: %s", notification);
+            }
+            processNotification(notification);
+        }
+
+        private void processNotification(Object notification) {
+            /*
+                All nodes broadcast while the owner of the trigger publishes its new dataIds
+             */
+            startRoutingGrace();
+            if (notification instanceof NotifyTriggers) {
+                processNotifyTriggers((NotifyTriggers) notification);
+            } else if (notification instanceof NotifyTrigger) {
+                processNotifyTrigger((NotifyTrigger) notification);
+            }
+        }
+
+        /*
+            A batch of triggers is placed on the partition in a single cache batch and the PartitionTriggerListener
+            is invoked once with all of them.
+         */
+        @SuppressWarnings("unchecked")
+        private void processNotifyTriggers(NotifyTriggers notifyTriggers) {
+            if (null == notifyTriggers.getToNode() || !notifyTriggers.getToNode().equals(currentNode)) {
+                return;
+            }
+            Cache writeCache = partitionCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES);
+            partitionCache.startBatch();
+            notifyTriggers.getOperations().entrySet().stream().forEach(tenant -> {
+                tenant.getValue().entrySet().stream().forEach(trigger -> {
+                    PartitionEntry entry = new PartitionEntry(tenant.getKey(), trigger.getKey());
+                    if (trigger.getValue().equals(Operation.REMOVE)) {
+                        writeCache.remove(entry);
+                    } else if (!currentNode.equals(partitionCache.get(entry))) {
+                        writeCache.put(entry, currentNode);
+                    }
+                });
+            });
+            partitionCache.endBatch(true);
+            log.debugf("processNotifyTriggers() %s operations on %s", notifyTriggers.size(), currentNode);
+
+            if (!triggerListeners.isEmpty()) {
+                triggerListeners.stream().forEach(triggerListener -> {
+                    triggerListener.onTriggersChange(notifyTriggers.getOperations());
+                });
             }
-            processNotifyTrigger(notifyTrigger);
         }
 
         /*
@@ -628,12 +992,10 @@ public class PartitionManagerImpl implements PartitionManager {
                 /*
                     Update partition
                  */
-                Map<PartitionEntry, Integer> current = (Map) partitionCache.get(CURRENT);
                 PartitionEntry newEntry = new PartitionEntry(notifyTrigger.getTenantId(),
                         notifyTrigger.getTriggerId());
-                boolean exist = current.containsKey(newEntry);
-                if (exist) {
-                    Integer partitionNode = current.get(newEntry);
+                Integer partitionNode = (Integer) partitionCache.get(newEntry);
+                if (partitionNode != null) {
                     switch (notifyTrigger.getOperation()) {
                         case ADD:
                         case UPDATE:
@@ -641,16 +1003,16 @@ public class PartitionManagerImpl implements PartitionManager {
                                 Partition is updated if information is outdated
                              */
                             if (!partitionNode.equals(currentNode)) {
-                                modifyPartition(newEntry, current, notifyTrigger.getOperation());
+                                modifyPartition(newEntry, notifyTrigger.getOperation());
                             }
                             break;
                         case REMOVE:
-                            modifyPartition(newEntry, current, notifyTrigger.getOperation());
+                            modifyPartition(newEntry, notifyTrigger.getOperation());
                             break;
                     }
                 } else {
                     if (!notifyTrigger.getOperation().equals(Operation.REMOVE)) {
-                        modifyPartition(newEntry, current, notifyTrigger.getOperation());
+                        modifyPartition(newEntry, notifyTrigger.getOperation());
                     }
                 }
                 /*
@@ -665,23 +1027,18 @@ public class PartitionManagerImpl implements PartitionManager {
             }
         }
 
+        /*
+            Only the entry of the trigger is replicated, not the whole partition
+         */
         @SuppressWarnings("unchecked")
-        private void modifyPartition(PartitionEntry entry, Map<PartitionEntry, Integer> current, Operation operation) {
-            Map<PartitionEntry, Integer> newPartition= new HashMap<>(current);
+        private void modifyPartition(PartitionEntry entry, Operation operation) {
+            Cache writeCache = partitionCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES);
             if (operation.equals(Operation.REMOVE)) {
-                newPartition.remove(entry);
+                writeCache.remove(entry);
             } else {
-                newPartition.put(entry, currentNode);
-            }
-            partitionCache.startBatch();
-            partitionCache.put(PREVIOUS, current);
-            partitionCache.put(CURRENT, newPartition);
-            partitionCache.endBatch(true);
-            if (log.isDebugEnabled()) {
-                log.debug("modifyPartition()");
-                log.debugf("Previous: %s", current);
-                log.debugf("Current: %s", newPartition);
+                writeCache.put(entry, currentNode);
             }
+            log.debugf("modifyPartition() %s %s on %s", operation, entry, currentNode);
         }
 
     }
@@ -742,6 +1099,57 @@ public class PartitionManagerImpl implements PartitionManager {
         }
     }
 
+    @Listener
+    public class RoutingChangeListener {
+
+        @CacheEntryCreated
+        public void onNewDataIds(CacheEntryCreatedEvent cacheEvent) {
+            onRoutingChange(cacheEvent);
+        }
+
+        @CacheEntryModified
+        public void onModifiedDataIds(CacheEntryModifiedEvent cacheEvent) {
+            onRoutingChange(cacheEvent);
+        }
+
+        @CacheEntryRemoved
+        public void onRemovedDataIds(CacheEntryRemovedEvent cacheEvent) {
+            onRoutingChange(cacheEvent);
+        }
+
+        private void onRoutingChange(CacheEntryEvent cacheEvent) {
+            if (cacheEvent.isPre()) {
+                return;
+            }
+            log.debugf("Routing change from node %s received on %s", cacheEvent.getKey(), currentNode);
+            refreshRoutes();
+        }
+    }
+
+    /**
+     * Auxiliary class to execute on a target node the delivery of the data or events routed to it.
+     */
+    public static class DeliverNotifyData implements SerializableFunction<EmbeddedCacheManager, Void> {
+        private NotifyData notifyData;
+
+        public DeliverNotifyData(NotifyData notifyData) {
+            this.notifyData = notifyData;
+        }
+
+        public NotifyData getNotifyData() {
+            return notifyData;
+        }
+
+        @Override
+        public Void apply(EmbeddedCacheManager targetCacheManager) {
+            PartitionManagerImpl target = localNodes.get(targetCacheManager.getAddress().hashCode());
+            if (target != null) {
+                target.newDataListener.processNotifyData(notifyData);
+            }
+            return null;
+        }
+    }
+
     /**
      * Auxiliary class to store in the cache an operation for a Trigger.
      * Used internally in the context of the PartitionManager services.
@@ -838,6 +1246,79 @@ public class PartitionManagerImpl implements PartitionManager {
         }
     }
 
+    /**
+     * Auxiliary class to store in the cache the operations for a collection of Triggers held by the same node.
+     * Used internally in the context of the PartitionManager services.
+     */
+    public static class NotifyTriggers implements Serializable {
+        private Integer fromNode;
+        private Integer toNode;
+        private Map<String, Map<String, Operation>> operations;
+
+        public NotifyTriggers(Integer fromNode, Integer toNode, Map<String, Map<String, Operation>> operations) {
+            this.fromNode = fromNode;
+            this.toNode = toNode;
+            this.operations = operations;
+        }
+
+        public Integer getFromNode() {
+            return fromNode;
+        }
+
+        public void setFromNode(Integer fromNode) {
+            this.fromNode = fromNode;
+        }
+
+        public Integer getToNode() {
+            return toNode;
+        }
+
+        public void setToNode(Integer toNode) {
+            this.toNode = toNode;
+        }
+
+        public Map<String, Map<String, Operation>> getOperations() {
+            return operations;
+        }
+
+        public void setOperations(Map<String, Map<String, Operation>> operations) {
+            this.operations = operations;
+        }
+
+        public int size() {
+            return operations == null ? 0 : operations.values().stream().mapToInt(Map::size).sum();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            NotifyTriggers that = (NotifyTriggers) o;
+
+            if (fromNode != null ? !fromNode.equals(that.fromNode) : that.fromNode != null) return false;
+            if (toNode != null ? !toNode.equals(that.toNode) : that.toNode != null) return false;
+            return operations != null ? operations.equals(that.operations) : that.operations == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fromNode != null ? fromNode.hashCode() : 0;
+            result = 31 * result + (toNode != null ? toNode.hashCode() : 0);
+            result = 31 * result + (operations != null ? operations.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "NotifyTriggers" + '[' +
+                    "fromNode=" + fromNode +
+                    ", toNode=" + toNode +
+                    ", operations=" + operations +
+                    ']';
+        }
+    }
+
     /**
      * Auxiliary class to store in the cache an operation for a Data/Event
      * Used internally in the context of the PartitionManager services.
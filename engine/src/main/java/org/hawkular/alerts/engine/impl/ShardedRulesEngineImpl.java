@@ -0,0 +1,479 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.hawkular.alerts.api.model.condition.CompareCondition;
+import org.hawkular.alerts.api.model.condition.Condition;
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataId;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.hawkular.alerts.engine.util.MissingState;
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+
+/**
+ * An implementation of RulesEngine that partitions the triggers across several independent
+ * {@link DroolsRulesEngineImpl} sessions (shards) and fires them in parallel.
+ *
+ * Trigger related facts (Trigger, Condition, Dampening, MissingState, ConditionEval) are placed on the shard
+ * given by a hash of (tenantId, triggerId), so all the facts of a trigger live in the same session.
+ * Data and Events are routed only to the shards holding conditions on their dataId.
+ *
+ * The shards are fired in lock-step firing cycles, as a single session processes the oldest Data and Event of each
+ * dataId per cycle. After each cycle the Events generated on a shard are propagated, one at a time and in order, to
+ * the rest of the shards that reference their dataId, until no new Events are generated. So chained triggers
+ * placed on other shards evaluate the same sequence of Events as in a single session.
+ *
+ * Collection globals (alerts, events, pendingTimeouts, autoResolvedTriggers, disabledTriggers) are shared by all
+ * the shards through synchronized views, so the caller sees the merged results after {@link #fire()}.
+ *
+ * As {@link DroolsRulesEngineImpl}, the RulesEngine is invoked only by the AlertsEngine impl and is not invoked
+ * concurrently.
+ */
+public class ShardedRulesEngineImpl implements RulesEngine {
+    private final MsgLogger log = MsgLogging.getMsgLogger(ShardedRulesEngineImpl.class);
+
+    private final int numShards;
+    private final DroolsRulesEngineImpl[] shards;
+    /*
+        Shards with Data or Events added since the last firing.
+     */
+    private final boolean[] dataShards;
+    /*
+        Created on demand, it is shut down on clear() and reset().
+     */
+    private ExecutorService pool;
+
+    /*
+        Number of conditions referencing a dataId on each shard. Used to route Data and Events.
+     */
+    private final Map<DataId, int[]> dataIdShards = new ConcurrentHashMap<>();
+
+    private List<Event> alerts;
+    private List<Event> events;
+
+    public ShardedRulesEngineImpl(int numShards) {
+        if (numShards < 1) {
+            throw new IllegalArgumentException("numShards must be greater than 0");
+        }
+        log.debugf("Creating instance with [%s] shards.", numShards);
+        this.numShards = numShards;
+        shards = new DroolsRulesEngineImpl[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new DroolsRulesEngineImpl();
+        }
+        dataShards = new boolean[numShards];
+    }
+
+    public int getNumShards() {
+        return numShards;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addGlobal(String name, Object global) {
+        Object sharedGlobal = global;
+        if (global instanceof List) {
+            sharedGlobal = Collections.synchronizedList((List) global);
+        } else if (global instanceof Set) {
+            sharedGlobal = Collections.synchronizedSet((Set) global);
+        } else if (global instanceof Map) {
+            sharedGlobal = Collections.synchronizedMap((Map) global);
+        }
+        if ("alerts".equals(name)) {
+            alerts = (List<Event>) global;
+        } else if ("events".equals(name)) {
+            events = (List<Event>) global;
+        }
+        for (DroolsRulesEngineImpl shard : shards) {
+            shard.addGlobal(name, sharedGlobal);
+        }
+    }
+
+    @Override
+    public void removeGlobal(String name) {
+        if ("alerts".equals(name)) {
+            alerts = null;
+        } else if ("events".equals(name)) {
+            events = null;
+        }
+        for (DroolsRulesEngineImpl shard : shards) {
+            shard.removeGlobal(name);
+        }
+    }
+
+    @Override
+    public void addFact(Object fact) {
+        if (fact instanceof Data || fact instanceof Event) {
+            throw new IllegalArgumentException(fact.toString());
+        }
+        DroolsRulesEngineImpl shard = shards[shardOf(fact)];
+        if (fact instanceof Condition && null == shard.getFact(fact)) {
+            indexCondition((Condition) fact, 1);
+        }
+        shard.addFact(fact);
+    }
+
+    @Override
+    public void addFacts(Collection facts) {
+        for (Object fact : facts) {
+            if (fact instanceof Data || fact instanceof Event) {
+                throw new IllegalArgumentException(fact.toString());
+            }
+        }
+        for (Object fact : facts) {
+            addFact(fact);
+        }
+    }
+
+    @Override
+    public Object getFact(Object fact) {
+        return shards[shardOf(fact)].getFact(fact);
+    }
+
+    @Override
+    public void removeFact(Object fact) {
+        DroolsRulesEngineImpl shard = shards[shardOf(fact)];
+        if (fact instanceof Condition && null != shard.getFact(fact)) {
+            indexCondition((Condition) fact, -1);
+        }
+        shard.removeFact(fact);
+    }
+
+    @Override
+    public void updateFact(Object fact) {
+        shards[shardOf(fact)].updateFact(fact);
+    }
+
+    @Override
+    public void removeFacts(Collection facts) {
+        for (Object fact : facts) {
+            removeFact(fact);
+        }
+    }
+
+    @Override
+    public void removeFacts(Predicate<Object> factFilter) {
+        List<Condition> removedConditions = new ArrayList<>();
+        Predicate<Object> indexedFilter = f -> {
+            boolean remove = factFilter.test(f);
+            if (remove && f instanceof Condition) {
+                removedConditions.add((Condition) f);
+            }
+            return remove;
+        };
+        for (DroolsRulesEngineImpl shard : shards) {
+            shard.removeFacts(indexedFilter);
+        }
+        for (Condition c : removedConditions) {
+            indexCondition(c, -1);
+        }
+    }
+
+    @Override
+    public Collection<Object> removeTriggerFacts(String tenantId, String triggerId) {
+        Collection<Object> removed = shards[shardOf(tenantId, triggerId)].removeTriggerFacts(tenantId, triggerId);
+        for (Object fact : removed) {
+            if (fact instanceof Condition) {
+                indexCondition((Condition) fact, -1);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void addData(TreeSet<Data> data) {
+        TreeSet<Data>[] shardData = route(data, d -> new DataId(d.getTenantId(), d.getId()));
+        for (int i = 0; i < numShards; i++) {
+            if (null != shardData[i]) {
+                shards[i].addData(shardData[i]);
+                dataShards[i] = true;
+            }
+        }
+    }
+
+    @Override
+    public void addEvents(TreeSet<Event> events) {
+        TreeSet<Event>[] shardEvents = route(events, e -> new DataId(e.getTenantId(), e.getDataId()));
+        for (int i = 0; i < numShards; i++) {
+            if (null != shardEvents[i]) {
+                shards[i].addEvents(shardEvents[i]);
+                dataShards[i] = true;
+            }
+        }
+    }
+
+    @Override
+    public void fire() {
+        fireShards(false);
+    }
+
+    @Override
+    public void fireNoData() {
+        fireShards(true);
+    }
+
+    @Override
+    public void clear() {
+        for (DroolsRulesEngineImpl shard : shards) {
+            shard.clear();
+        }
+        dataIdShards.clear();
+        shutdownPool();
+    }
+
+    @Override
+    public void reset() {
+        for (DroolsRulesEngineImpl shard : shards) {
+            shard.reset();
+        }
+        dataIdShards.clear();
+        shutdownPool();
+    }
+
+    private ExecutorService pool() {
+        if (null == pool) {
+            pool = Executors.newFixedThreadPool(numShards, new ShardThreadFactory());
+        }
+        return pool;
+    }
+
+    private void shutdownPool() {
+        if (null != pool) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    @Override
+    public List<TriggerProfile> getTriggerProfiles(String tenantId, int top) {
+        List<TriggerProfile> profiles = new ArrayList<>();
+        for (DroolsRulesEngineImpl shard : shards) {
+            profiles.addAll(shard.getTriggerProfiles(tenantId, top));
+        }
+        return profiles.isEmpty() ? Collections.emptyList() : TriggerProfiler.top(profiles, top);
+    }
+
+    /*
+        Fire the shards in parallel, one firing cycle at a time. After each cycle the generated events are propagated
+        to the rest of the shards to evaluate chained triggers, until no new events are generated.
+     */
+    private void fireShards(boolean noData) {
+        int[] generated = { null == alerts ? 0 : alerts.size(), null == events ? 0 : events.size() };
+
+        /*
+            Shards without data fire once to process timeouts, as the single session does on any firing
+         */
+        List<Future<?>> firings = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            final DroolsRulesEngineImpl shard = shards[i];
+            boolean withData = dataShards[i];
+            dataShards[i] = false;
+            if (noData || !withData || !shard.hasPending()) {
+                firings.add(pool().submit(shard::fireNoData));
+            }
+        }
+        awaitFirings(firings);
+        propagateChainedEvents(generated);
+
+        int fireCycle = 0;
+        while (!noData) {
+            firings.clear();
+            for (final DroolsRulesEngineImpl shard : shards) {
+                if (shard.hasPending()) {
+                    final int cycle = fireCycle;
+                    firings.add(pool().submit(() -> shard.fireCycle(cycle)));
+                }
+            }
+            if (firings.isEmpty()) {
+                break;
+            }
+            awaitFirings(firings);
+            propagateChainedEvents(generated);
+            fireCycle++;
+        }
+    }
+
+    /*
+        Generated events are already inserted on the shard of its trigger, they need to be added to the rest of
+        the shards referencing its dataId. Events are propagated one at a time, so each event is fully evaluated
+        before the next one, and the events generated by the chained triggers are appended to the queue.
+     */
+    private void propagateChainedEvents(int[] generated) {
+        Deque<Event> chained = new ArrayDeque<>();
+        chained.addAll(newEvents(generated));
+        while (!chained.isEmpty()) {
+            Event e = chained.poll();
+            int[] counts = dataIdShards.get(new DataId(e.getTenantId(), e.getDataId()));
+            if (null == counts) {
+                continue;
+            }
+            int origin = null == e.getTrigger() ? -1 : shardOf(e.getTenantId(), e.getTrigger().getId());
+            List<Future<?>> firings = new ArrayList<>();
+            for (int i = 0; i < numShards; i++) {
+                if (i != origin && counts[i] > 0) {
+                    final DroolsRulesEngineImpl shard = shards[i];
+                    firings.add(pool().submit(() -> shard.fireChainedEvent(e)));
+                }
+            }
+            if (firings.isEmpty()) {
+                continue;
+            }
+            log.debugf("Firing [%s] shards with chained event %s", firings.size(), e);
+            awaitFirings(firings);
+            chained.addAll(newEvents(generated));
+        }
+    }
+
+    /*
+        Alerts and events generated since the last call, sorted to propagate them in a deterministic order as the
+        shards fire in parallel.
+     */
+    private List<Event> newEvents(int[] generated) {
+        List<Event> newEvents = new ArrayList<>();
+        if (null != alerts && alerts.size() > generated[0]) {
+            newEvents.addAll(alerts.subList(generated[0], alerts.size()));
+            generated[0] = alerts.size();
+        }
+        if (null != events && events.size() > generated[1]) {
+            newEvents.addAll(events.subList(generated[1], events.size()));
+            generated[1] = events.size();
+        }
+        Collections.sort(newEvents);
+        return newEvents;
+    }
+
+    private void awaitFirings(List<Future<?>> firings) {
+        RuntimeException error = null;
+        for (Future<?> firing : firings) {
+            try {
+                firing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = new IllegalStateException("Interrupted waiting for shard firing", e);
+            } catch (ExecutionException e) {
+                log.debugf("Error firing shard: %s", e.getCause());
+                error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : new IllegalStateException(e.getCause());
+            }
+        }
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TreeSet<T>[] route(TreeSet<T> items, Function<T, DataId> dataIdOf) {
+        TreeSet<T>[] shardItems = new TreeSet[numShards];
+        for (T item : items) {
+            int[] counts = dataIdShards.get(dataIdOf.apply(item));
+            if (null == counts) {
+                log.tracef("No shard for %s", item);
+                continue;
+            }
+            for (int i = 0; i < numShards; i++) {
+                if (counts[i] > 0) {
+                    if (null == shardItems[i]) {
+                        shardItems[i] = new TreeSet<>();
+                    }
+                    shardItems[i].add(item);
+                }
+            }
+        }
+        return shardItems;
+    }
+
+    private void indexCondition(Condition c, int delta) {
+        int shard = shardOf(c.getTenantId(), c.getTriggerId());
+        indexDataId(new DataId(c.getTenantId(), c.getDataId()), shard, delta);
+        if (c instanceof CompareCondition) {
+            indexDataId(new DataId(c.getTenantId(), ((CompareCondition) c).getData2Id()), shard, delta);
+        }
+    }
+
+    private void indexDataId(DataId dataId, int shard, int delta) {
+        dataIdShards.compute(dataId, (k, counts) -> {
+            if (null == counts) {
+                if (delta < 0) {
+                    return null;
+                }
+                counts = new int[numShards];
+            }
+            counts[shard] = Math.max(0, counts[shard] + delta);
+            for (int count : counts) {
+                if (count > 0) {
+                    return counts;
+                }
+            }
+            return null;
+        });
+    }
+
+    private int shardOf(Object fact) {
+        if (fact instanceof Trigger) {
+            return shardOf(((Trigger) fact).getTenantId(), ((Trigger) fact).getId());
+        } else if (fact instanceof Condition) {
+            return shardOf(((Condition) fact).getTenantId(), ((Condition) fact).getTriggerId());
+        } else if (fact instanceof Dampening) {
+            return shardOf(((Dampening) fact).getTenantId(), ((Dampening) fact).getTriggerId());
+        } else if (fact instanceof MissingState) {
+            return shardOf(((MissingState) fact).getTenantId(), ((MissingState) fact).getTriggerId());
+        } else if (fact instanceof ConditionEval) {
+            return shardOf(((ConditionEval) fact).getTenantId(), ((ConditionEval) fact).getTriggerId());
+        }
+        return Math.floorMod(fact.hashCode(), numShards);
+    }
+
+    private int shardOf(String tenantId, String triggerId) {
+        int hash = 31 * (tenantId == null ? 0 : tenantId.hashCode()) + (triggerId == null ? 0 : triggerId.hashCode());
+        return Math.floorMod(hash, numShards);
+    }
+
+    private static class ShardThreadFactory implements ThreadFactory {
+        private int count = 0;
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread shardThread = new Thread(r, "RulesEngine-Shard-" + (++count));
+            shardThread.setDaemon(true);
+            return shardThread;
+        }
+    }
+}
@@ -16,10 +16,14 @@
  */
 package org.hawkular.alerts.engine.impl;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
 import org.hawkular.alerts.api.services.StatusService;
 import org.hawkular.alerts.engine.service.PartitionManager;
+import org.hawkular.alerts.engine.service.RulesEngine;
 
 /**
  * An implementation of {@link org.hawkular.alerts.api.services.StatusService}.
@@ -31,10 +35,22 @@ public class StatusServiceImpl implements StatusService {
 
     PartitionManager partitionManager;
 
+    EngineMetrics metrics;
+
+    RulesEngine rules;
+
     public void setPartitionManager(PartitionManager partitionManager) {
         this.partitionManager = partitionManager;
     }
 
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setRules(RulesEngine rules) {
+        this.rules = rules;
+    }
+
     @Override
     public boolean isStarted() {
         // TODO [lponce] this test is quite simple and with a different backend perhaps it doesnt give enough info
@@ -52,4 +68,14 @@ public class StatusServiceImpl implements StatusService {
     public Map<String, String> getDistributedStatus() {
         return partitionManager.getStatus();
     }
+
+    @Override
+    public Map<String, Long> getMetrics() {
+        return metrics == null ? Collections.emptyMap() : metrics.getSnapshot();
+    }
+
+    @Override
+    public List<TriggerProfile> getTriggerProfiles(String tenantId, int top) {
+        return rules == null ? Collections.emptyList() : rules.getTriggerProfiles(tenantId, top);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
+import org.hawkular.alerts.engine.impl.AlertsEngineCache.TriggerKey;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.hawkular.commons.properties.HawkularProperties;
+
+/**
+ * Accumulates the evaluation cost of each trigger in a RulesEngine: rule firings, ConditionEvals created and
+ * evaluation time. It is only used when {@link RulesEngine#RULES_ENGINE_PROFILING} is enabled.
+ */
+public class TriggerProfiler {
+
+    /**
+     * Costliest first: by evalTime, then by firings.
+     */
+    public static final Comparator<TriggerProfile> COSTLIEST = Comparator
+            .comparingLong(TriggerProfile::getEvalTime)
+            .thenComparingLong(TriggerProfile::getFirings)
+            .reversed();
+
+    private final ConcurrentMap<TriggerKey, Costs> costs = new ConcurrentHashMap<>();
+
+    /**
+     * @return a new TriggerProfiler if profiling is enabled by configuration, null otherwise
+     */
+    public static TriggerProfiler fromProperties() {
+        boolean profiling = Boolean.parseBoolean(HawkularProperties.getProperty(RulesEngine.RULES_ENGINE_PROFILING,
+                RulesEngine.RULES_ENGINE_PROFILING_ENV, RulesEngine.RULES_ENGINE_PROFILING_DEFAULT));
+        return profiling ? new TriggerProfiler() : null;
+    }
+
+    public void fired(String tenantId, String triggerId, long nanos) {
+        Costs c = costs(tenantId, triggerId);
+        c.firings.increment();
+        c.nanos.add(nanos);
+    }
+
+    public void conditionEval(String tenantId, String triggerId) {
+        costs(tenantId, triggerId).conditionEvals.increment();
+    }
+
+    public List<TriggerProfile> getProfiles(String tenantId, int top) {
+        return costs.entrySet().stream()
+                .filter(e -> e.getKey().getTenantId().equals(tenantId))
+                .map(e -> e.getValue().toProfile(e.getKey()))
+                .sorted(COSTLIEST)
+                .limit(Math.max(top, 0))
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        costs.clear();
+    }
+
+    /**
+     * Merges the profiles of several RulesEngines, a trigger can be evaluated by more than one of them.
+     *
+     * @param profiles to merge
+     * @param top max number of profiles returned
+     * @return the costliest merged profiles
+     */
+    public static List<TriggerProfile> top(Collection<TriggerProfile> profiles, int top) {
+        Map<TriggerKey, TriggerProfile> merged = new LinkedHashMap<>();
+        for (TriggerProfile p : profiles) {
+            merged.merge(new TriggerKey(p.getTenantId(), p.getTriggerId()), p,
+                    (p1, p2) -> new TriggerProfile(p1.getTenantId(), p1.getTriggerId(),
+                            p1.getFirings() + p2.getFirings(),
+                            p1.getConditionEvals() + p2.getConditionEvals(),
+                            p1.getEvalTime() + p2.getEvalTime()));
+        }
+        List<TriggerProfile> result = new ArrayList<>(merged.values());
+        result.sort(COSTLIEST);
+        return result.size() > top ? new ArrayList<>(result.subList(0, Math.max(top, 0))) : result;
+    }
+
+    private Costs costs(String tenantId, String triggerId) {
+        return costs.computeIfAbsent(new TriggerKey(tenantId, triggerId), k -> new Costs());
+    }
+
+    private static class Costs {
+        final LongAdder firings = new LongAdder();
+        final LongAdder conditionEvals = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        TriggerProfile toProfile(TriggerKey key) {
+            return new TriggerProfile(key.getTenantId(), key.getTriggerId(), firings.sum(), conditionEvals.sum(),
+                    nanos.sum() / 1000);
+        }
+    }
+}
@@ -17,7 +17,11 @@
 package org.hawkular.alerts.engine.impl.ispn;
 
 import static org.hawkular.alerts.api.util.Util.isEmpty;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.normalize;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.orderBy;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.page;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,6 +29,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.hawkular.alerts.api.model.action.Action;
@@ -44,12 +49,14 @@ import org.hawkular.alerts.api.services.DefinitionsService;
 import org.hawkular.alerts.cache.IspnCacheManager;
 import org.hawkular.alerts.engine.cache.ActionsCacheManager;
 import org.hawkular.alerts.engine.impl.AlertsContext;
+import org.hawkular.alerts.engine.impl.EngineMetrics;
 import org.hawkular.alerts.engine.impl.ispn.model.IspnAction;
 import org.hawkular.alerts.engine.util.ActionsValidator;
 import org.hawkular.alerts.log.AlertingLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.infinispan.Cache;
 import org.infinispan.query.Search;
+import org.infinispan.query.dsl.Query;
 import org.infinispan.query.dsl.QueryFactory;
 
 /**
@@ -74,6 +81,12 @@ public class IspnActionsServiceImpl implements ActionsService {
 
     QueryFactory queryFactory;
 
+    EngineMetrics metrics = new EngineMetrics();
+
+    IspnBulkDelete bulkDelete;
+
+    IspnTimePartitions partitions;
+
     public void init() {
         backend = IspnCacheManager.getCacheManager().getCache("backend");
         if (backend == null) {
@@ -81,6 +94,9 @@ public class IspnActionsServiceImpl implements ActionsService {
             throw new RuntimeException("backend cache not found");
         }
         queryFactory = Search.getQueryFactory(backend);
+        bulkDelete = new IspnBulkDelete(backend, queryFactory);
+        partitions = new IspnTimePartitions("actions", backend);
+        partitions.init();
     }
 
     public void setAlertsContext(AlertsContext alertsContext) {
@@ -95,6 +111,10 @@ public class IspnActionsServiceImpl implements ActionsService {
         this.actionsCacheManager = actionsCacheManager;
     }
 
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public void send(Trigger trigger, Event event) {
         if (trigger == null) {
@@ -128,9 +148,24 @@ public class IspnActionsServiceImpl implements ActionsService {
             action.setResult(UNKNOWN_RESULT);
         }
 
+        partitions.acquire();
         try {
+            /*
+                The action is stored in the partition of its ctime, or in the backend if it was stored before the
+                partitioning was enabled
+             */
             String pk = IspnPk.pk(action);
-            IspnAction IspnAction = (IspnAction) backend.get(pk);
+            IspnTimePartitions.Partition partition = partitions.find(action.getCtime());
+            Cache<String, Object> cache = backend;
+            IspnAction IspnAction = null;
+            if (partition != null) {
+                cache = partition.getCache();
+                IspnAction = (IspnAction) cache.get(pk);
+            }
+            if (IspnAction == null) {
+                cache = backend;
+                IspnAction = (IspnAction) backend.get(pk);
+            }
             if (IspnAction == null) {
                 insertAction(action);
                 log.debugf("No existing action found for %s, inserting %s", pk, action);
@@ -138,10 +173,12 @@ public class IspnActionsServiceImpl implements ActionsService {
             }
             Action existingAction = IspnAction.getAction();
             existingAction.setResult(action.getResult());
-            backend.put(pk, new IspnAction(existingAction));
+            cache.put(pk, new IspnAction(existingAction));
         } catch (Exception e) {
             log.errorDatabaseException(e.getMessage());
             throw e;
+        } finally {
+            partitions.release();
         }
     }
 
@@ -155,6 +192,102 @@ public class IspnActionsServiceImpl implements ActionsService {
             log.debugf("getActions criteria: %s", criteria);
         }
 
+        StringBuilder query = actionsQuery(tenantId, criteria);
+
+        Function<IspnAction, Action> toAction = ispnAction -> {
+            if (criteria != null && criteria.isThin()) {
+                Action action = new Action(ispnAction.getAction());
+                action.setEvent(null);
+                return action;
+            }
+            return ispnAction.getAction();
+        };
+
+        /*
+            Without pager the actions are not sorted
+         */
+        Pager queryPager = null;
+        String orderBy = null;
+        if (pager != null) {
+            queryPager = normalize(pager, Field.ALERT_ID.getText());
+            orderBy = orderBy(queryPager.getOrder(), IspnActionsServiceImpl::actionSortField, null);
+        }
+        partitions.acquire();
+        try {
+            List<Cache<String, Object>> caches = actionCaches(criteria);
+            if (caches.size() > 1) {
+                return getActions(caches, orderBy != null ? query.append(" ").append(orderBy).toString()
+                        : query.toString(), orderBy != null ? queryPager : null, pager, toAction);
+            }
+        } finally {
+            partitions.release();
+        }
+        if (orderBy != null) {
+            return page(queryFactory, query.append(" ").append(orderBy).toString(), queryPager, toAction);
+        }
+
+        List<IspnAction> ispnActions = queryFactory.create(query.toString()).list();
+        return prepareActionsPage(ispnActions.stream().map(toAction).collect(Collectors.toList()), pager);
+    }
+
+    /*
+        The actions are spread in the partitions, an ordered query returns from each one its first actions up to the
+        end of the page. The page is taken from the merge of them, the total size is the sum of the partition sizes.
+     */
+    private Page<Action> getActions(List<Cache<String, Object>> caches, String query, Pager queryPager,
+                                    Pager pager, Function<IspnAction, Action> toAction) {
+        List<Action> actions = new ArrayList<>();
+        long total = 0;
+        for (Cache<String, Object> cache : caches) {
+            Query q = queryFactory(cache).create(query);
+            if (queryPager != null && queryPager.isLimited()) {
+                q.maxResults(queryPager.getEnd());
+            }
+            List<IspnAction> ispnActions = q.list();
+            total += q.getResultSize();
+            ispnActions.forEach(ispnAction -> actions.add(toAction.apply(ispnAction)));
+        }
+        Page<Action> page = prepareActionsPage(actions, pager);
+        return new Page<>(page, page.getPageContext(), total);
+    }
+
+    /*
+        The actions stored before the partitioning was enabled are in the backend, the others in the partitions
+        overlapping the ctime range of the criteria, the newest first.
+     */
+    List<Cache<String, Object>> actionCaches(ActionsCriteria criteria) {
+        List<Cache<String, Object>> caches = new ArrayList<>();
+        caches.add(backend);
+        partitions.partitions(criteria != null ? criteria.getStartTime() : null,
+                criteria != null ? criteria.getEndTime() : null)
+                .forEach(partition -> caches.add(partition.getCache()));
+        return caches;
+    }
+
+    private QueryFactory queryFactory(Cache<String, Object> cache) {
+        return cache == backend ? queryFactory : Search.getQueryFactory(cache);
+    }
+
+    private static String actionSortField(String field) {
+        switch (Field.getField(field)) {
+            case ACTION_PLUGIN:
+                return "actionPlugin";
+            case ACTION_ID:
+                return "actionId";
+            case ALERT_ID:
+                return "eventId";
+            case CTIME:
+                return "ctime";
+            case RESULT:
+                return "result";
+            default:
+                return null;
+        }
+    }
+
+    private StringBuilder actionsQuery(String tenantId, ActionsCriteria criteria) {
+        boolean filter = (null != criteria && criteria.hasCriteria());
+
         StringBuilder query = new StringBuilder("from org.hawkular.alerts.engine.impl.ispn.model.IspnAction where");
         query.append(String.format(" tenantId = '%s'", tenantId));
 
@@ -212,15 +345,7 @@ public class IspnActionsServiceImpl implements ActionsService {
             }
         }
 
-        List<IspnAction> ispnActions = queryFactory.create(query.toString()).list();
-        return prepareActionsPage(ispnActions.stream().map(ispnAction -> {
-            if (criteria != null && criteria.isThin()) {
-                Action action = new Action(ispnAction.getAction());
-                action.setEvent(null);
-                return action;
-            }
-            return ispnAction.getAction();
-        }).collect(Collectors.toList()), pager);
+        return query;
     }
 
     // An exploded "in" clause because the actual one seems not to work
@@ -242,29 +367,43 @@ public class IspnActionsServiceImpl implements ActionsService {
             throw new IllegalArgumentException("TenantId must be not null");
         }
 
-        List<Action> actionsToDelete = getActions(tenantId, criteria, null);
-        if (actionsToDelete == null || actionsToDelete.isEmpty()) {
-            return 0;
-        }
-
+        partitions.acquire();
         try {
-            backend.startBatch();
-            actionsToDelete.stream()
-                    .forEach(a -> backend.remove(IspnPk.pk(a)));
-            backend.endBatch(true);
-            return actionsToDelete.size();
-
+            return deleteActions(actionCaches(criteria), actionsQuery(tenantId, criteria).toString());
         } catch (Exception e) {
-            try {
-                backend.endBatch(false);
-            } catch (Exception e2) {
-                log.errorDatabaseException(e2.getMessage());
-            }
             log.errorDatabaseException(e.getMessage());
             throw e;
+        } finally {
+            partitions.release();
+        }
+    }
+
+    /*
+        Projection on the stored fields, the actions are not loaded from the backend.
+        The query selects IspnAction entries: "from ...IspnAction where ..."
+     */
+    int deleteActions(String query) {
+        partitions.acquire();
+        try {
+            return deleteActions(actionCaches(null), query);
+        } finally {
+            partitions.release();
         }
     }
 
+    private int deleteActions(List<Cache<String, Object>> caches, String query) {
+        int deleted = 0;
+        for (Cache<String, Object> cache : caches) {
+            IspnBulkDelete cacheDelete = cache == backend ? bulkDelete
+                    : new IspnBulkDelete(cache, queryFactory(cache), bulkDelete.getChunkSize());
+            deleted += cacheDelete.delete("select tenantId, actionPlugin, actionId, eventId, ctime " + query,
+                    a -> Collections.singletonList(IspnPk.pkFromAction((String) a[0], (String) a[1],
+                            (String) a[2], (String) a[3], (Long) a[4])),
+                    removed -> metrics.add(EngineMetrics.BACKEND_DELETED, removed));
+        }
+        return deleted;
+    }
+
     @Override
     public void addListener(ActionListener listener) {
         alertsContext.registerActionListener(listener);
@@ -337,9 +476,7 @@ public class IspnActionsServiceImpl implements ActionsService {
                 log.debugf("Using ActionDefinition constraints: %s", actionDefinition);
             }
             if (ActionsValidator.validate(triggerAction, event)) {
-                for (ActionListener listener : alertsContext.getActionsListeners()) {
-                    listener.process(action);
-                }
+                dispatch(action, event);
                 insertAction(action);
             }
         } catch (Exception e) {
@@ -375,9 +512,7 @@ public class IspnActionsServiceImpl implements ActionsService {
             globalTriggerAction.setStates(globalActionDefinition.getStates());
             globalTriggerAction.setCalendar(globalActionDefinition.getCalendar());
             if (ActionsValidator.validate(globalTriggerAction, event)) {
-                for (ActionListener listener : alertsContext.getActionsListeners()) {
-                    listener.process(action);
-                }
+                dispatch(action, event);
                 insertAction(action);
             }
         } catch (Exception e) {
@@ -386,6 +521,17 @@ public class IspnActionsServiceImpl implements ActionsService {
         }
     }
 
+    /*
+        The dispatch latency is measured from the creation of the event that fired the action.
+     */
+    private void dispatch(Action action, Event event) {
+        for (ActionListener listener : alertsContext.getActionsListeners()) {
+            listener.process(action);
+        }
+        metrics.increment(EngineMetrics.ACTIONS_DISPATCHED);
+        metrics.record(EngineMetrics.ACTIONS_DISPATCH_LATENCY, System.currentTimeMillis() - event.getCtime());
+    }
+
     private Map<String, String> mixProperties(Map<String, String> props, Map<String, String> defProps) {
         Map<String, String> mixed = new HashMap<>();
         if (props != null) {
@@ -403,10 +549,15 @@ public class IspnActionsServiceImpl implements ActionsService {
         if (action.getResult() == null) {
             action.setResult(WAITING_RESULT);
         }
+        partitions.acquire();
         try {
-            backend.put(IspnPk.pk(action), new IspnAction(action));
+            Cache<String, Object> cache = partitions.isPartitioned()
+                    ? partitions.partition(action.getCtime()).getCache() : backend;
+            cache.put(IspnPk.pk(action), new IspnAction(action));
         } catch (Exception e) {
             log.errorDatabaseException(e.getMessage());
+        } finally {
+            partitions.release();
         }
     }
 
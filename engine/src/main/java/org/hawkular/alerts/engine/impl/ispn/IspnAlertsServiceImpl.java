@@ -17,7 +17,11 @@
 package org.hawkular.alerts.engine.impl.ispn;
 
 import static org.hawkular.alerts.api.util.Util.isEmpty;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.normalize;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.orderBy;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPaging.page;
 import static org.hawkular.alerts.engine.impl.ispn.IspnPk.pk;
+import static org.hawkular.alerts.engine.impl.ispn.IspnPk.pkEvals;
 import static org.hawkular.alerts.engine.impl.ispn.IspnPk.pkFromEventId;
 import static org.hawkular.alerts.engine.tags.ExpressionTagQueryParser.ExpressionTagResolver.EQ;
 import static org.hawkular.alerts.engine.tags.ExpressionTagQueryParser.ExpressionTagResolver.NEQ;
@@ -28,13 +32,22 @@ import static org.hawkular.alerts.engine.util.Utils.extractSeverity;
 import static org.hawkular.alerts.engine.util.Utils.extractStatus;
 import static org.hawkular.alerts.engine.util.Utils.extractTriggerIds;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.hawkular.alerts.api.model.Severity;
@@ -58,15 +71,19 @@ import org.hawkular.alerts.api.services.DefinitionsService;
 import org.hawkular.alerts.api.services.EventsCriteria;
 import org.hawkular.alerts.api.services.PropertiesService;
 import org.hawkular.alerts.cache.IspnCacheManager;
+import org.hawkular.alerts.engine.impl.EngineMetrics;
 import org.hawkular.alerts.engine.impl.IncomingDataManagerImpl;
 import org.hawkular.alerts.engine.impl.ispn.model.IspnEvent;
+import org.hawkular.alerts.engine.impl.ispn.model.IspnEventEvals;
 import org.hawkular.alerts.engine.impl.ispn.model.TagsBridge;
 import org.hawkular.alerts.engine.service.AlertsEngine;
 import org.hawkular.alerts.engine.service.IncomingDataManager;
 import org.hawkular.alerts.log.AlertingLogger;
 import org.hawkular.commons.log.MsgLogging;
+import org.hawkular.commons.properties.HawkularProperties;
 import org.infinispan.Cache;
 import org.infinispan.query.Search;
+import org.infinispan.query.dsl.Query;
 import org.infinispan.query.dsl.QueryFactory;
 
 /**
@@ -76,6 +93,21 @@ import org.infinispan.query.dsl.QueryFactory;
 public class IspnAlertsServiceImpl implements AlertsService {
     private static final AlertingLogger log = MsgLogging.getMsgLogger(AlertingLogger.class, IspnAlertsServiceImpl.class);
 
+    /*
+        BACKEND_ASYNC_PERSISTENCE hands off the persistence of the alerts and events generated by the engine
+        (addAlerts()/persistEvents()) to a dedicated writer thread, so the rules evaluation is not blocked on
+        indexing. Writes are applied in order. Updates of existing alerts and events wait for the pending writes,
+        but queries can miss the last generated alerts and events until they are written.
+        BACKEND_ASYNC_PERSISTENCE_QUEUE bounds the number of batches pending on the writer thread, when it is full
+        the caller blocks until there is room.
+     */
+    private static final String BACKEND_ASYNC_PERSISTENCE = "hawkular-alerts.backend-async-persistence";
+    private static final String BACKEND_ASYNC_PERSISTENCE_ENV = "HAWKULAR_BACKEND_ASYNC_PERSISTENCE";
+    private static final String BACKEND_ASYNC_PERSISTENCE_DEFAULT = "false";
+    private static final String BACKEND_ASYNC_PERSISTENCE_QUEUE = "hawkular-alerts.backend-async-persistence-queue";
+    private static final String BACKEND_ASYNC_PERSISTENCE_QUEUE_ENV = "HAWKULAR_BACKEND_ASYNC_PERSISTENCE_QUEUE";
+    private static final String BACKEND_ASYNC_PERSISTENCE_QUEUE_DEFAULT = "100";
+
     AlertsEngine alertsEngine;
 
     DefinitionsService definitionsService;
@@ -92,13 +124,34 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
     IspnExpressionTagQueryParser parser;
 
+    ThreadPoolExecutor writer;
+
+    IspnBulkDelete bulkDelete;
+
+    IspnTimePartitions partitions;
+
+    EngineMetrics metrics = new EngineMetrics();
+
     public void init() {
         backend = IspnCacheManager.getCacheManager().getCache("backend");
         if (backend == null) {
             log.error("Ispn backend cache not found. Check configuration.");
             throw new RuntimeException("backend cache not found");
         }
+        boolean asyncPersistence = Boolean.parseBoolean(HawkularProperties.getProperty(BACKEND_ASYNC_PERSISTENCE,
+                BACKEND_ASYNC_PERSISTENCE_ENV, BACKEND_ASYNC_PERSISTENCE_DEFAULT));
+        if (asyncPersistence) {
+            int queueSize = Integer.parseInt(HawkularProperties.getProperty(BACKEND_ASYNC_PERSISTENCE_QUEUE,
+                    BACKEND_ASYNC_PERSISTENCE_QUEUE_ENV, BACKEND_ASYNC_PERSISTENCE_QUEUE_DEFAULT));
+            log.infof("Hawkular Alerting persists generated alerts and events asynchronously, queue size [%s]",
+                    queueSize);
+            writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                    r -> new Thread(r, "HawkularAlerts-BackendWriter"), IspnAlertsServiceImpl::waitForWriter);
+        }
         queryFactory = Search.getQueryFactory(backend);
+        bulkDelete = new IspnBulkDelete(backend, queryFactory);
+        partitions = new IspnTimePartitions("events", backend);
+        partitions.init();
         parser = new IspnExpressionTagQueryParser((tokens, query) -> {
             if (tokens != null) {
                 String tag;
@@ -204,6 +257,26 @@ public class IspnAlertsServiceImpl implements AlertsService {
         this.properties = properties;
     }
 
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Completes the pending asynchronous writes, if any.
+     */
+    public void shutdown() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Pending writes of alerts and events not completed on shutdown");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Override
     public void ackAlerts(String tenantId, Collection<String> alertIds, String ackBy, String ackNotes) throws Exception {
         if (isEmpty(tenantId)) {
@@ -222,14 +295,15 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         AlertsCriteria criteria = new AlertsCriteria();
         criteria.setAlertIds(alertIds);
+        awaitPendingWrites();
         List<Alert> alertsToAck = getAlerts(tenantId, criteria, null);
 
         for (Alert alert : alertsToAck) {
             alert.addNote(ackBy, ackNotes);
             alert.addLifecycle(Status.ACKNOWLEDGED, ackBy, System.currentTimeMillis());
-            backend.put(pk(alert), new IspnEvent(alert));
-            sendAction(alert);
         }
+        putAll(alertsToAck);
+        alertsToAck.forEach(this::sendAction);
     }
 
     @Override
@@ -241,9 +315,7 @@ public class IspnAlertsServiceImpl implements AlertsService {
             return;
         }
         log.debugf("Adding %s alerts", alerts.size());
-        for (Alert alert : alerts) {
-            backend.put(pk(alert), new IspnEvent(alert));
-        }
+        persist(alerts);
     }
 
     @Override
@@ -260,12 +332,13 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         AlertsCriteria criteria = new AlertsCriteria();
         criteria.setAlertIds(alertIds);
+        awaitPendingWrites();
         Page<Alert> existingAlerts = getAlerts(tenantId, criteria, null);
 
         for (Alert alert : existingAlerts) {
             tags.entrySet().stream().forEach(tag -> alert.addTag(tag.getKey(), tag.getValue()));
-            backend.put(pk(alert), new IspnEvent(alert));
         }
+        putAll(existingAlerts);
     }
 
     @Override
@@ -291,12 +364,13 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         EventsCriteria criteria = new EventsCriteria();
         criteria.setEventIds(eventIds);
+        awaitPendingWrites();
         Page<Event> existingEvents = getEvents(tenantId, criteria, null);
 
         for (Event event : existingEvents) {
             tags.entrySet().stream().forEach(tag -> event.addTag(tag.getKey(), tag.getValue()));
-            backend.put(pk(event), new IspnEvent(event));
         }
+        putAll(existingEvents);
     }
 
     @Override
@@ -308,9 +382,20 @@ public class IspnAlertsServiceImpl implements AlertsService {
             return;
         }
         log.debugf("Adding %s events", events.size());
-        for (Event event : events) {
-            backend.put(pk(event), new IspnEvent(event));
-        }
+        persist(events);
+    }
+
+    @Override
+    public void persistAlertsAndEvents(Collection<Alert> alerts, Collection<Event> events, Runnable onPersisted)
+            throws Exception {
+        if (alerts == null || events == null) {
+            throw new IllegalArgumentException("Alerts and events must be not null");
+        }
+        List<Event> generated = new ArrayList<>(alerts.size() + events.size());
+        generated.addAll(alerts);
+        generated.addAll(events);
+        log.debugf("Adding %s alerts and %s events", alerts.size(), events.size());
+        persist(generated, onPersisted);
     }
 
     @Override
@@ -325,6 +410,7 @@ public class IspnAlertsServiceImpl implements AlertsService {
             throw new IllegalArgumentException("user or text must be not null");
         }
 
+        awaitPendingWrites();
         Alert alert = getAlert(tenantId, alertId, false);
         if (alert == null) {
             return;
@@ -332,7 +418,7 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         alert.addNote(user, text);
 
-        backend.put(pk(alert), new IspnEvent(alert));
+        putAll(Collections.singletonList(alert));
     }
 
     @Override
@@ -343,24 +429,9 @@ public class IspnAlertsServiceImpl implements AlertsService {
         if (null == criteria) {
             throw new IllegalArgumentException("Criteria must be not null");
         }
-        // no need to fetch the evalSets to perform the necessary deletes
-        criteria.setThin(true);
-        List<Alert> alertsToDelete = getAlerts(tenantId, criteria, null);
-
-        if (alertsToDelete.isEmpty()) {
-            return 0;
-        }
-        try {
-            backend.startBatch();
-            for (Alert alert : alertsToDelete) {
-                backend.remove(pk(alert));
-            }
-            backend.endBatch(true);
-        } catch (Exception e) {
-            backend.endBatch(false);
-            throw e;
-        }
-        return alertsToDelete.size();
+        // no need to fetch the alerts to perform the necessary deletes
+        awaitPendingWrites();
+        return deleteAlerts(alertsQuery(Collections.singleton(tenantId), criteria).toString());
     }
 
     @Override
@@ -371,24 +442,15 @@ public class IspnAlertsServiceImpl implements AlertsService {
         if (null == criteria) {
             throw new IllegalArgumentException("Criteria must be not null");
         }
-        // no need to fetch the evalSets to perform the necessary deletes
-        criteria.setThin(true);
-        List<Event> eventsToDelete = getEvents(tenantId, criteria, null);
-
-        if (eventsToDelete.isEmpty()) {
-            return 0;
-        }
+        // no need to fetch the events to perform the necessary deletes
+        awaitPendingWrites();
+        partitions.acquire();
         try {
-            backend.startBatch();
-            for (Event event : eventsToDelete) {
-                backend.remove(pk(event));
-            }
-            backend.endBatch(true);
-        } catch (Exception e) {
-            backend.endBatch(false);
-            throw e;
+            return deleteEvents(eventCaches(criteria),
+                    eventsQuery(Collections.singleton(tenantId), criteria).toString());
+        } finally {
+            partitions.release();
         }
-        return eventsToDelete.size();
     }
 
     @Override
@@ -402,7 +464,10 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         String pk = pkFromEventId(tenantId, alertId);
         IspnEvent ispnEvent = (IspnEvent) backend.get(pk);
-        return ispnEvent != null && ispnEvent.getEvent() instanceof Alert ? (Alert) ispnEvent.getEvent() : null;
+        if (ispnEvent == null || !EventType.ALERT.name().equals(ispnEvent.getEventType())) {
+            return null;
+        }
+        return (Alert) toEvent(backend, ispnEvent, thin);
     }
 
     @Override
@@ -420,138 +485,20 @@ public class IspnAlertsServiceImpl implements AlertsService {
             log.debugf("getAlerts criteria: %s", criteria.toString());
         }
 
-        StringBuilder query = new StringBuilder("from org.hawkular.alerts.engine.impl.ispn.model.IspnEvent where ");
-        query.append("eventType = 'ALERT' and ");
-        query.append("(");
-        Iterator<String> iter = tenantIds.iterator();
-        while (iter.hasNext()) {
-            String tenantId = iter.next();
-            query.append("tenantId = '").append(tenantId).append("' ");
-            if (iter.hasNext()) {
-                query.append("or ");
-            }
-        }
-        query.append(") ");
+        StringBuilder query = alertsQuery(tenantIds, criteria);
+        boolean thin = criteria != null && criteria.isThin();
 
-        if (filter) {
-           if (criteria.hasAlertIdCriteria()) {
-               query.append("and (");
-               iter = extractAlertIds(criteria).iterator();
-               while (iter.hasNext()) {
-                   String alertId = iter.next();
-                   query.append("id = '").append(alertId).append("' ");
-                   if (iter.hasNext()) {
-                       query.append("or ");
-                   }
-               }
-               query.append(") ");
-           }
-           if (criteria.hasTagQueryCriteria()) {
-               query.append("and (tags : ");
-               parseTagQuery(criteria.getTagQuery(), query);
-               query.append(") ");
-           }
-           if (criteria.hasTriggerIdCriteria()) {
-                query.append("and (");
-                iter = extractTriggerIds(criteria).iterator();
-                while (iter.hasNext()) {
-                    String triggerId = iter.next();
-                    query.append("triggerId = '").append(triggerId).append("' ");
-                    if (iter.hasNext()) {
-                        query.append("or ");
-                    }
-                }
-                query.append(") ");
-           }
-           if (criteria.hasCTimeCriteria()) {
-                query.append("and (");
-                if (criteria.getStartTime() != null) {
-                    query.append("ctime >= ").append(criteria.getStartTime()).append(" ");
-                }
-                if (criteria.getEndTime() != null) {
-                    if (criteria.getStartTime() != null) {
-                        query.append("and ");
-                    }
-                    query.append("ctime <= ").append(criteria.getEndTime()).append(" ");
-                }
-                query.append(") ");
-           }
-           if (criteria.hasResolvedTimeCriteria()) {
-               query.append("and (status = '").append(Status.RESOLVED.name()).append("' and ");
-               if (criteria.getStartResolvedTime() != null) {
-                   query.append("stime >= ").append(criteria.getStartResolvedTime()).append(" ");
-               }
-               if (criteria.getEndResolvedTime() != null) {
-                   if (criteria.getStartResolvedTime() != null) {
-                       query.append("and ");
-                   }
-                   query.append("stime <= ").append(criteria.getEndResolvedTime()).append(" ");
-               }
-               query.append(") ");
-           }
-           if (criteria.hasAckTimeCriteria()) {
-               query.append("and (status = '").append(Status.ACKNOWLEDGED.name()).append("' and ");
-               if (criteria.getStartAckTime() != null) {
-                   query.append("stime >= ").append(criteria.getStartAckTime()).append(" ");
-               }
-               if (criteria.getEndAckTime() != null) {
-                   if (criteria.getStartAckTime() != null) {
-                       query.append("and ");
-                   }
-                   query.append("stime <= ").append(criteria.getEndAckTime()).append(" ");
-               }
-               query.append(") ");
-           }
-           if (criteria.hasStatusTimeCriteria()) {
-               query.append("and (");
-               if (criteria.getStartStatusTime() != null) {
-                   query.append("stime >= ").append(criteria.getStartStatusTime()).append(" ");
-               }
-               if (criteria.getEndTime() != null) {
-                   if (criteria.getStartTime() != null) {
-                       query.append("and ");
-                   }
-                   query.append("stime <= ").append(criteria.getEndStatusTime()).append(" ");
-               }
-               query.append(") ");
-           }
-           if (criteria.hasSeverityCriteria()) {
-               query.append("and (");
-                Iterator<Severity> iterSev = extractSeverity(criteria).iterator();
-               while (iterSev.hasNext()) {
-                   Severity severity = iterSev.next();
-                   query.append("severity = '").append(severity.name()).append("' ");
-                   if (iterSev.hasNext()) {
-                       query.append(" or ");
-                   }
-               }
-               query.append(") ");
-           }
-           if (criteria.hasStatusCriteria()) {
-               query.append("and (");
-               Iterator<Status> iterStatus = extractStatus(criteria).iterator();
-               while (iterStatus.hasNext()) {
-                   Status status = iterStatus.next();
-                   query.append("status = '").append(status.name()).append("' ");
-                   if (iterStatus.hasNext()) {
-                       query.append(" or ");
-                   }
-               }
-               query.append(") ");
-           }
+        Pager queryPager = pager != null ? normalize(pager, AlertComparator.Field.ALERT_ID.getText())
+                : Pager.unlimited(Order.by(AlertComparator.Field.ALERT_ID.getText(), Order.Direction.ASCENDING));
+        String orderBy = orderBy(queryPager.getOrder(), IspnAlertsServiceImpl::alertSortField, "tenantId");
+        if (orderBy != null) {
+            Page<IspnEvent> page = page(queryFactory, query.append(orderBy).toString(), queryPager,
+                    Function.identity());
+            return new Page<>(toEvents(backend, page, thin), page.getPageContext(), page.getTotalSize());
         }
 
         List<IspnEvent> ispnEvents = queryFactory.create(query.toString()).list();
-        List<Alert> alerts = ispnEvents.stream().map(ispnEvent -> {
-            if (criteria != null && criteria.isThin()) {
-                Alert alert = new Alert((Alert) ispnEvent.getEvent());
-                alert.setDampening(null);
-                alert.setEvalSets(null);
-                alert.setResolvedEvalSets(null);
-                return alert;
-            }
-            return (Alert) ispnEvent.getEvent();
-        }).collect(Collectors.toList());
+        List<Alert> alerts = toEvents(backend, ispnEvents, thin);
         if (alerts.isEmpty()) {
             return new Page<>(alerts, pager, 0);
         } else {
@@ -568,9 +515,22 @@ public class IspnAlertsServiceImpl implements AlertsService {
             throw new IllegalArgumentException("EventId must be not null");
         }
 
+        /*
+            The ctime of the event is unknown, the partitions are visited from the newest one
+         */
         String pk = pkFromEventId(tenantId, eventId);
-        IspnEvent ispnEvent = (IspnEvent) backend.get(pk);
-        return ispnEvent != null ? ispnEvent.getEvent() : null;
+        partitions.acquire();
+        try {
+            for (Cache<String, Object> cache : eventCaches(null)) {
+                IspnEvent ispnEvent = (IspnEvent) cache.get(pk);
+                if (ispnEvent != null) {
+                    return toEvent(cache, ispnEvent, thin);
+                }
+            }
+        } finally {
+            partitions.release();
+        }
+        return null;
     }
 
     @Override
@@ -588,85 +548,30 @@ public class IspnAlertsServiceImpl implements AlertsService {
             log.debugf("getEvents criteria: %s", criteria.toString());
         }
 
-        StringBuilder query = new StringBuilder("from org.hawkular.alerts.engine.impl.ispn.model.IspnEvent where ");
-        query.append("(");
-        Iterator<String> iter = tenantIds.iterator();
-        while (iter.hasNext()) {
-            String tenantId = iter.next();
-            query.append("tenantId = '").append(tenantId).append("' ");
-            if (iter.hasNext()) {
-                query.append("or ");
-            }
-        }
-        query.append(") ");
+        StringBuilder query = eventsQuery(tenantIds, criteria);
+        boolean thin = criteria != null && criteria.isThin();
 
-        if (filter) {
-            if (criteria.hasEventTypeCriteria()) {
-                try {
-                    EventType eventType = EventType.valueOf(criteria.getEventType());
-                    query.append("and eventType = '").append(eventType.name()).append("' ");
-                } catch (Exception e) {
-                    log.debugf("EventType [%s] is not valid, ignoring this criteria", criteria.getEventType());
-                }
-            }
-            if (criteria.hasEventIdCriteria()) {
-                query.append("and (");
-                iter = extractEventIds(criteria).iterator();
-                while (iter.hasNext()) {
-                    String eventId = iter.next();
-                    query.append("id = '").append(eventId).append("' ");
-                    if (iter.hasNext()) {
-                        query.append("or ");
-                    }
-                }
-                query.append(") ");
-            }
-            if (criteria.hasTagQueryCriteria()) {
-                query.append("and (tags : ");
-                parseTagQuery(criteria.getTagQuery(), query);
-                query.append(") ");
-            }
-            if (criteria.hasTriggerIdCriteria()) {
-                query.append("and (");
-                iter = extractTriggerIds(criteria).iterator();
-                while (iter.hasNext()) {
-                    String triggerId = iter.next();
-                    query.append("triggerId = '").append(triggerId).append("' ");
-                    if (iter.hasNext()) {
-                        query.append("or ");
-                    }
-                }
-                query.append(") ");
-            }
-            if (criteria.hasCTimeCriteria()) {
-                query.append("and (");
-                if (criteria.getStartTime() != null) {
-                    query.append("ctime >= ").append(criteria.getStartTime()).append(" ");
-                }
-                if (criteria.getEndTime() != null) {
-                    if (criteria.getStartTime() != null) {
-                        query.append("and ");
-                    }
-                    query.append("ctime <= ").append(criteria.getEndTime()).append(" ");
-                }
-                query.append(") ");
-            }
-            if (criteria.hasCategoryCriteria()) {
-                query.append("and (");
-                iter = extractCategories(criteria).iterator();
-                while (iter.hasNext()) {
-                    String category = iter.next();
-                    query.append("category = '").append(category).append("' ");
-                    if (iter.hasNext()) {
-                        query.append(" or ");
-                    }
-                }
-                query.append(") ");
+        Pager queryPager = pager != null ? normalize(pager, EventComparator.Field.ID.getName())
+                : Pager.unlimited(Order.by(EventComparator.Field.ID.getName(), Order.Direction.ASCENDING));
+        String orderBy = orderBy(queryPager.getOrder(), IspnAlertsServiceImpl::eventSortField, "tenantId");
+        partitions.acquire();
+        try {
+            List<Cache<String, Object>> caches = eventCaches(criteria);
+            if (caches.size() > 1) {
+                return getEvents(caches, orderBy != null ? query.append(orderBy).toString() : query.toString(),
+                        orderBy != null ? queryPager : null, pager, thin);
             }
+        } finally {
+            partitions.release();
+        }
+        if (orderBy != null) {
+            Page<IspnEvent> page = page(queryFactory, query.append(orderBy).toString(), queryPager,
+                    Function.identity());
+            return new Page<>(toEvents(backend, page, thin), page.getPageContext(), page.getTotalSize());
         }
 
         List<IspnEvent> ispnEvents = queryFactory.create(query.toString()).list();
-        List<Event> events = ispnEvents.stream().map(e -> e.getEvent()).collect(Collectors.toList());
+        List<Event> events = toEvents(backend, ispnEvents, thin);
         if (events.isEmpty()) {
             return new Page<>(events, pager, 0);
         } else {
@@ -689,8 +594,10 @@ public class IspnAlertsServiceImpl implements AlertsService {
         // Only untag existing alerts
         AlertsCriteria criteria = new AlertsCriteria();
         criteria.setAlertIds(alertIds);
+        awaitPendingWrites();
         Page<Alert> existingAlerts = getAlerts(tenantId, criteria, null);
 
+        List<Alert> modifiedAlerts = new ArrayList<>();
         for (Alert alert : existingAlerts) {
             boolean modified = false;
             for (String tag : tags) {
@@ -700,9 +607,10 @@ public class IspnAlertsServiceImpl implements AlertsService {
                 }
             }
             if (modified) {
-                backend.put(pk(alert), new IspnEvent(alert));
+                modifiedAlerts.add(alert);
             }
         }
+        putAll(modifiedAlerts);
     }
 
     @Override
@@ -720,8 +628,10 @@ public class IspnAlertsServiceImpl implements AlertsService {
         // Only untag existing events
         EventsCriteria criteria = new EventsCriteria();
         criteria.setEventIds(eventIds);
+        awaitPendingWrites();
         Page<Event> existingEvents = getEvents(tenantId, criteria, null);
 
+        List<Event> modifiedEvents = new ArrayList<>();
         for (Event event : existingEvents) {
             boolean modified = false;
             for (String tag : tags) {
@@ -731,9 +641,10 @@ public class IspnAlertsServiceImpl implements AlertsService {
                 }
             }
             if (modified) {
-                backend.put(pk(event), new IspnEvent(event));
+                modifiedEvents.add(event);
             }
         }
+        putAll(modifiedEvents);
     }
 
     @Override
@@ -754,6 +665,7 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
         AlertsCriteria criteria = new AlertsCriteria();
         criteria.setAlertIds(alertIds);
+        awaitPendingWrites();
         List<Alert> alertsToResolve = getAlerts(tenantId, criteria, null);
 
         // resolve the alerts
@@ -761,9 +673,9 @@ public class IspnAlertsServiceImpl implements AlertsService {
             alert.addNote(resolvedBy, resolvedNotes);
             alert.setResolvedEvalSets(resolvedEvalSets);
             alert.addLifecycle(Status.RESOLVED, resolvedBy, System.currentTimeMillis());
-            backend.put(pk(alert), new IspnEvent(alert));
-            sendAction(alert);
         }
+        putAll(alertsToResolve);
+        alertsToResolve.forEach(this::sendAction);
 
         // gather the triggerIds of the triggers we need to check for resolve options
         Set<String> triggerIds = alertsToResolve.stream().map(alert -> alert.getTriggerId()).collect(Collectors.toSet());
@@ -792,15 +704,16 @@ public class IspnAlertsServiceImpl implements AlertsService {
         AlertsCriteria criteria = new AlertsCriteria();
         criteria.setTriggerId(triggerId);
         criteria.setStatusSet(EnumSet.complementOf(EnumSet.of(Status.RESOLVED)));
+        awaitPendingWrites();
         List<Alert> alertsToResolve = getAlerts(tenantId, criteria, null);
 
         for (Alert alert : alertsToResolve) {
             alert.addNote(resolvedBy, resolvedNotes);
             alert.setResolvedEvalSets(resolvedEvalSets);
             alert.addLifecycle(Status.RESOLVED, resolvedBy, System.currentTimeMillis());
-            backend.put(pk(alert), new IspnEvent(alert));
-            sendAction(alert);
         }
+        putAll(alertsToResolve);
+        alertsToResolve.forEach(this::sendAction);
 
         handleResolveOptions(tenantId, triggerId, false);
 
@@ -850,33 +763,327 @@ public class IspnAlertsServiceImpl implements AlertsService {
 
     // Private methods
 
-    private Page<Alert> preparePage(List<Alert> alerts, Pager pager) {
-        if (pager != null) {
-            if (pager.getOrder() != null
-                    && !pager.getOrder().isEmpty()
-                    && pager.getOrder().get(0).getField() == null) {
-                pager = Pager.builder()
-                        .withPageSize(pager.getPageSize())
-                        .withStartPage(pager.getPageNumber())
-                        .orderBy(AlertComparator.Field.ALERT_ID.getText(), Order.Direction.DESCENDING).build();
-            }
-            List<Alert> ordered = alerts;
-            if (pager.getOrder() != null) {
-                pager.getOrder().stream()
-                        .filter(o -> o.getField() != null && o.getDirection() != null)
-                        .forEach(o -> {
-                            AlertComparator comparator = new AlertComparator(o.getField(), o.getDirection());
-                            Collections.sort(ordered, comparator);
-                        });
+    /*
+        The events are spread in the partitions, an ordered query returns from each one its first events up to the
+        end of the page. The page is taken from the merge of them, the total size is the sum of the partition sizes.
+     */
+    private Page<Event> getEvents(List<Cache<String, Object>> caches, String query, Pager queryPager, Pager pager,
+                                  boolean thin) {
+        List<Event> events = new ArrayList<>();
+        long total = 0;
+        for (Cache<String, Object> cache : caches) {
+            Query q = queryFactory(cache).create(query);
+            if (queryPager != null && queryPager.isLimited()) {
+                q.maxResults(queryPager.getEnd());
             }
-            if (!pager.isLimited() || ordered.size() < pager.getStart()) {
-                pager = new Pager(0, ordered.size(), pager.getOrder());
-                return new Page<>(ordered, pager, ordered.size());
-            }
-            if (pager.getEnd() >= ordered.size()) {
-                return new Page<>(ordered.subList(pager.getStart(), ordered.size()), pager, ordered.size());
-            }
-            return new Page<>(ordered.subList(pager.getStart(), pager.getEnd()), pager, ordered.size());
+            List<IspnEvent> ispnEvents = q.list();
+            total += q.getResultSize();
+            events.addAll(toEvents(cache, ispnEvents, thin));
+        }
+        if (events.isEmpty()) {
+            return new Page<>(events, pager, 0);
+        }
+        Page<Event> page = prepareEventsPage(events, pager);
+        return new Page<>(page, page.getPageContext(), total);
+    }
+
+    /*
+        Alerts and the events stored before the partitioning was enabled are in the backend. Events are also in the
+        partitions overlapping the ctime range of the criteria, the newest first.
+     */
+    List<Cache<String, Object>> eventCaches(EventsCriteria criteria) {
+        List<Cache<String, Object>> caches = new ArrayList<>();
+        caches.add(backend);
+        if (criteria == null || !EventType.ALERT.name().equals(criteria.getEventType())) {
+            partitions.partitions(criteria != null ? criteria.getStartTime() : null,
+                    criteria != null ? criteria.getEndTime() : null)
+                    .forEach(partition -> caches.add(partition.getCache()));
+        }
+        return caches;
+    }
+
+    /*
+        Open alerts have no age, alerts are always stored in the backend
+     */
+    private Cache<String, Object> cache(Event event) {
+        if (!partitions.isPartitioned() || EventType.ALERT.name().equals(event.getEventType())) {
+            return backend;
+        }
+        return partitions.partition(event.getCtime()).getCache();
+    }
+
+    private QueryFactory queryFactory(Cache<String, Object> cache) {
+        return cache == backend ? queryFactory : Search.getQueryFactory(cache);
+    }
+
+    private StringBuilder alertsQuery(Set<String> tenantIds, AlertsCriteria criteria) throws Exception {
+        boolean filter = (null != criteria && criteria.hasCriteria());
+
+        StringBuilder query = new StringBuilder("from org.hawkular.alerts.engine.impl.ispn.model.IspnEvent where ");
+        query.append("eventType = 'ALERT' and ");
+        query.append("(");
+        Iterator<String> iter = tenantIds.iterator();
+        while (iter.hasNext()) {
+            String tenantId = iter.next();
+            query.append("tenantId = '").append(tenantId).append("' ");
+            if (iter.hasNext()) {
+                query.append("or ");
+            }
+        }
+        query.append(") ");
+
+        if (filter) {
+           if (criteria.hasAlertIdCriteria()) {
+               query.append("and (");
+               iter = extractAlertIds(criteria).iterator();
+               while (iter.hasNext()) {
+                   String alertId = iter.next();
+                   query.append("id = '").append(alertId).append("' ");
+                   if (iter.hasNext()) {
+                       query.append("or ");
+                   }
+               }
+               query.append(") ");
+           }
+           if (criteria.hasTagQueryCriteria()) {
+               query.append("and (tags : ");
+               parseTagQuery(criteria.getTagQuery(), query);
+               query.append(") ");
+           }
+           if (criteria.hasTriggerIdCriteria()) {
+                query.append("and (");
+                iter = extractTriggerIds(criteria).iterator();
+                while (iter.hasNext()) {
+                    String triggerId = iter.next();
+                    query.append("triggerId = '").append(triggerId).append("' ");
+                    if (iter.hasNext()) {
+                        query.append("or ");
+                    }
+                }
+                query.append(") ");
+           }
+           if (criteria.hasCTimeCriteria()) {
+                query.append("and (");
+                if (criteria.getStartTime() != null) {
+                    query.append("ctime >= ").append(criteria.getStartTime()).append(" ");
+                }
+                if (criteria.getEndTime() != null) {
+                    if (criteria.getStartTime() != null) {
+                        query.append("and ");
+                    }
+                    query.append("ctime <= ").append(criteria.getEndTime()).append(" ");
+                }
+                query.append(") ");
+           }
+           if (criteria.hasResolvedTimeCriteria()) {
+               query.append("and (status = '").append(Status.RESOLVED.name()).append("' and ");
+               if (criteria.getStartResolvedTime() != null) {
+                   query.append("stime >= ").append(criteria.getStartResolvedTime()).append(" ");
+               }
+               if (criteria.getEndResolvedTime() != null) {
+                   if (criteria.getStartResolvedTime() != null) {
+                       query.append("and ");
+                   }
+                   query.append("stime <= ").append(criteria.getEndResolvedTime()).append(" ");
+               }
+               query.append(") ");
+           }
+           if (criteria.hasAckTimeCriteria()) {
+               query.append("and (status = '").append(Status.ACKNOWLEDGED.name()).append("' and ");
+               if (criteria.getStartAckTime() != null) {
+                   query.append("stime >= ").append(criteria.getStartAckTime()).append(" ");
+               }
+               if (criteria.getEndAckTime() != null) {
+                   if (criteria.getStartAckTime() != null) {
+                       query.append("and ");
+                   }
+                   query.append("stime <= ").append(criteria.getEndAckTime()).append(" ");
+               }
+               query.append(") ");
+           }
+           if (criteria.hasStatusTimeCriteria()) {
+               query.append("and (");
+               if (criteria.getStartStatusTime() != null) {
+                   query.append("stime >= ").append(criteria.getStartStatusTime()).append(" ");
+               }
+               if (criteria.getEndTime() != null) {
+                   if (criteria.getStartTime() != null) {
+                       query.append("and ");
+                   }
+                   query.append("stime <= ").append(criteria.getEndStatusTime()).append(" ");
+               }
+               query.append(") ");
+           }
+           if (criteria.hasSeverityCriteria()) {
+               query.append("and (");
+                Iterator<Severity> iterSev = extractSeverity(criteria).iterator();
+               while (iterSev.hasNext()) {
+                   Severity severity = iterSev.next();
+                   query.append("severity = '").append(severity.name()).append("' ");
+                   if (iterSev.hasNext()) {
+                       query.append(" or ");
+                   }
+               }
+               query.append(") ");
+           }
+           if (criteria.hasStatusCriteria()) {
+               query.append("and (");
+               Iterator<Status> iterStatus = extractStatus(criteria).iterator();
+               while (iterStatus.hasNext()) {
+                   Status status = iterStatus.next();
+                   query.append("status = '").append(status.name()).append("' ");
+                   if (iterStatus.hasNext()) {
+                       query.append(" or ");
+                   }
+               }
+               query.append(") ");
+           }
+        }
+
+        return query;
+    }
+
+    private StringBuilder eventsQuery(Set<String> tenantIds, EventsCriteria criteria) throws Exception {
+        boolean filter = (null != criteria && criteria.hasCriteria());
+
+        StringBuilder query = new StringBuilder("from org.hawkular.alerts.engine.impl.ispn.model.IspnEvent where ");
+        query.append("(");
+        Iterator<String> iter = tenantIds.iterator();
+        while (iter.hasNext()) {
+            String tenantId = iter.next();
+            query.append("tenantId = '").append(tenantId).append("' ");
+            if (iter.hasNext()) {
+                query.append("or ");
+            }
+        }
+        query.append(") ");
+
+        if (filter) {
+            if (criteria.hasEventTypeCriteria()) {
+                try {
+                    EventType eventType = EventType.valueOf(criteria.getEventType());
+                    query.append("and eventType = '").append(eventType.name()).append("' ");
+                } catch (Exception e) {
+                    log.debugf("EventType [%s] is not valid, ignoring this criteria", criteria.getEventType());
+                }
+            }
+            if (criteria.hasEventIdCriteria()) {
+                query.append("and (");
+                iter = extractEventIds(criteria).iterator();
+                while (iter.hasNext()) {
+                    String eventId = iter.next();
+                    query.append("id = '").append(eventId).append("' ");
+                    if (iter.hasNext()) {
+                        query.append("or ");
+                    }
+                }
+                query.append(") ");
+            }
+            if (criteria.hasTagQueryCriteria()) {
+                query.append("and (tags : ");
+                parseTagQuery(criteria.getTagQuery(), query);
+                query.append(") ");
+            }
+            if (criteria.hasTriggerIdCriteria()) {
+                query.append("and (");
+                iter = extractTriggerIds(criteria).iterator();
+                while (iter.hasNext()) {
+                    String triggerId = iter.next();
+                    query.append("triggerId = '").append(triggerId).append("' ");
+                    if (iter.hasNext()) {
+                        query.append("or ");
+                    }
+                }
+                query.append(") ");
+            }
+            if (criteria.hasCTimeCriteria()) {
+                query.append("and (");
+                if (criteria.getStartTime() != null) {
+                    query.append("ctime >= ").append(criteria.getStartTime()).append(" ");
+                }
+                if (criteria.getEndTime() != null) {
+                    if (criteria.getStartTime() != null) {
+                        query.append("and ");
+                    }
+                    query.append("ctime <= ").append(criteria.getEndTime()).append(" ");
+                }
+                query.append(") ");
+            }
+            if (criteria.hasCategoryCriteria()) {
+                query.append("and (");
+                iter = extractCategories(criteria).iterator();
+                while (iter.hasNext()) {
+                    String category = iter.next();
+                    query.append("category = '").append(category).append("' ");
+                    if (iter.hasNext()) {
+                        query.append(" or ");
+                    }
+                }
+                query.append(") ");
+            }
+        }
+
+        return query;
+    }
+
+    /*
+        Severity and status are indexed by name, their order is the enum order, so they are sorted in memory
+     */
+    private static String alertSortField(String field) {
+        switch (AlertComparator.Field.getField(field)) {
+            case ALERT_ID:
+                return "id";
+            case TRIGGER_ID:
+                return "triggerId";
+            case CTIME:
+                return "ctime";
+            case STIME:
+                return "stime";
+            default:
+                return null;
+        }
+    }
+
+    private static String eventSortField(String field) {
+        switch (EventComparator.Field.getField(field)) {
+            case ID:
+                return "id";
+            case TRIGGER_ID:
+                return "triggerId";
+            case CTIME:
+                return "ctime";
+            default:
+                return null;
+        }
+    }
+
+    private Page<Alert> preparePage(List<Alert> alerts, Pager pager) {
+        if (pager != null) {
+            if (pager.getOrder() != null
+                    && !pager.getOrder().isEmpty()
+                    && pager.getOrder().get(0).getField() == null) {
+                pager = Pager.builder()
+                        .withPageSize(pager.getPageSize())
+                        .withStartPage(pager.getPageNumber())
+                        .orderBy(AlertComparator.Field.ALERT_ID.getText(), Order.Direction.DESCENDING).build();
+            }
+            List<Alert> ordered = alerts;
+            if (pager.getOrder() != null) {
+                pager.getOrder().stream()
+                        .filter(o -> o.getField() != null && o.getDirection() != null)
+                        .forEach(o -> {
+                            AlertComparator comparator = new AlertComparator(o.getField(), o.getDirection());
+                            Collections.sort(ordered, comparator);
+                        });
+            }
+            if (!pager.isLimited() || ordered.size() < pager.getStart()) {
+                pager = new Pager(0, ordered.size(), pager.getOrder());
+                return new Page<>(ordered, pager, ordered.size());
+            }
+            if (pager.getEnd() >= ordered.size()) {
+                return new Page<>(ordered.subList(pager.getStart(), ordered.size()), pager, ordered.size());
+            }
+            return new Page<>(ordered.subList(pager.getStart(), pager.getEnd()), pager, ordered.size());
         } else {
             AlertComparator.Field defaultField = AlertComparator.Field.ALERT_ID;
             Order.Direction defaultDirection = Order.Direction.ASCENDING;
@@ -888,6 +1095,191 @@ public class IspnAlertsServiceImpl implements AlertsService {
         }
     }
 
+    /*
+        Alerts and events are written and indexed as a single batch. With async persistence the batch is handed off
+        to the writer thread, the caller must not modify the events afterwards.
+     */
+    private void persist(Collection<? extends Event> events) {
+        persist(events, null);
+    }
+
+    /*
+        onPersisted runs on the thread that writes the batch, only if the write succeeds. Failed writes are counted
+        in the metrics, synchronous writes also rethrow the failure to the caller.
+     */
+    private void persist(Collection<? extends Event> events, Runnable onPersisted) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<Cache<String, Object>, Map<String, Object>> batches = toBatches(events, false);
+        int size = events.size();
+        if (writer == null) {
+            write(batches, size);
+            if (onPersisted != null) {
+                onPersisted.run();
+            }
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                write(batches, size);
+            } catch (Exception e) {
+                log.errorf(e, "Failed to persist [%s] alerts and events", size);
+                return;
+            }
+            if (onPersisted != null) {
+                onPersisted.run();
+            }
+        });
+    }
+
+    private void write(Map<Cache<String, Object>, Map<String, Object>> batches, int size) {
+        partitions.acquire();
+        try {
+            batches.forEach(Cache::putAll);
+        } catch (RuntimeException e) {
+            metrics.add(EngineMetrics.ENGINE_PERSIST_FAILED, size);
+            throw e;
+        } finally {
+            partitions.release();
+        }
+    }
+
+    /*
+        Back-pressure of the writer thread: the caller blocks until there is room in the queue, instead of running
+        the write itself, so the writes are still applied in order.
+     */
+    private static void waitForWriter(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Backend writer is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for the backend writer", e);
+        }
+    }
+
+    private void putAll(Collection<? extends Event> events) {
+        if (!events.isEmpty()) {
+            partitions.acquire();
+            try {
+                toBatches(events, true).forEach(Cache::putAll);
+            } finally {
+                partitions.release();
+            }
+        }
+    }
+
+    /*
+        A batch per cache. Updated events are written back where they are stored, the events stored before the
+        partitioning was enabled remain in the backend.
+     */
+    private Map<Cache<String, Object>, Map<String, Object>> toBatches(Collection<? extends Event> events,
+                                                                      boolean update) {
+        Map<Cache<String, Object>, Map<String, Object>> batches = new HashMap<>();
+        for (Event event : events) {
+            String pk = pk(event);
+            Cache<String, Object> cache = cache(event);
+            if (update && cache != backend && backend.containsKey(pk)) {
+                cache = backend;
+            }
+            Map<String, Object> batch = batches.computeIfAbsent(cache, c -> new HashMap<>());
+            batch.put(pk, new IspnEvent(event));
+            if (IspnEventEvals.hasEvals(event)) {
+                batch.put(pkEvals(event.getTenantId(), event.getId()), new IspnEventEvals(event));
+            }
+        }
+        return batches;
+    }
+
+    /*
+        Projection on the stored fields, the events are not loaded from the backend.
+        The query selects IspnEvent entries: "from ...IspnEvent where ..."
+     */
+    int deleteEvents(String query) {
+        partitions.acquire();
+        try {
+            return deleteEvents(eventCaches(null), query);
+        } finally {
+            partitions.release();
+        }
+    }
+
+    int deleteAlerts(String query) {
+        return deleteEvents(Collections.singletonList(backend), query);
+    }
+
+    private int deleteEvents(List<Cache<String, Object>> caches, String query) {
+        int deleted = 0;
+        for (Cache<String, Object> cache : caches) {
+            IspnBulkDelete cacheDelete = cache == backend ? bulkDelete
+                    : new IspnBulkDelete(cache, queryFactory(cache), bulkDelete.getChunkSize());
+            deleted += cacheDelete.delete("select tenantId, id " + query,
+                    id -> Arrays.asList(pkFromEventId((String) id[0], (String) id[1]),
+                            pkEvals((String) id[0], (String) id[1])),
+                    removed -> metrics.add(EngineMetrics.BACKEND_DELETED, removed));
+        }
+        return deleted;
+    }
+
+    /*
+        Thin events are built from the IspnEvent only, the evaluation data is loaded for the full ones from the cache
+        storing the event. Events stored before the split of the evaluation data still hold it in the IspnEvent.
+     */
+    private Event toEvent(Cache<String, Object> cache, IspnEvent ispnEvent, boolean thin) {
+        Event event = ispnEvent.getEvent();
+        if (thin) {
+            IspnEventEvals.removeEvals(event);
+        } else {
+            IspnEventEvals evals = (IspnEventEvals) cache.get(pkEvals(event.getTenantId(), event.getId()));
+            if (evals != null) {
+                evals.addEvals(event);
+            }
+        }
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Event> List<T> toEvents(Cache<String, Object> cache, List<IspnEvent> ispnEvents,
+                                               boolean thin) {
+        List<T> events = new ArrayList<>(ispnEvents.size());
+        if (thin) {
+            ispnEvents.forEach(ispnEvent -> events.add((T) toEvent(cache, ispnEvent, true)));
+            return events;
+        }
+        Set<String> pks = ispnEvents.stream()
+                .map(ispnEvent -> pkEvals(ispnEvent.getTenantId(), ispnEvent.getId()))
+                .collect(Collectors.toSet());
+        Map<String, Object> evals = cache.getAdvancedCache().getAll(pks);
+        for (IspnEvent ispnEvent : ispnEvents) {
+            Event event = ispnEvent.getEvent();
+            IspnEventEvals eventEvals = (IspnEventEvals) evals.get(pkEvals(event.getTenantId(), event.getId()));
+            if (eventEvals != null) {
+                eventEvals.addEvals(event);
+            }
+            events.add((T) event);
+        }
+        return events;
+    }
+
+    /*
+        Updates of existing alerts and events must see the writes pending on the writer thread.
+     */
+    void awaitPendingWrites() {
+        if (writer == null || writer.isShutdown()) {
+            return;
+        }
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debugf("Error waiting for pending writes: %s", e.getMessage());
+        }
+    }
+
     private void sendAction(Alert a) {
         if (actionsService != null && a != null && a.getTrigger() != null) {
             actionsService.send(a.getTrigger(), a);
@@ -934,6 +1326,7 @@ public class IspnAlertsServiceImpl implements AlertsService {
                 AlertsCriteria ac = new AlertsCriteria();
                 ac.setTriggerId(triggerId);
                 ac.setStatusSet(EnumSet.complementOf(EnumSet.of(Status.RESOLVED)));
+                ac.setThin(true);
                 Page<Alert> unresolvedAlerts = getAlerts(tenantId, ac, new Pager(0, 1, Order.unspecified()));
                 allResolved = unresolvedAlerts.isEmpty();
             }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+import org.hawkular.commons.properties.HawkularProperties;
+import org.infinispan.Cache;
+import org.infinispan.query.dsl.QueryFactory;
+
+/**
+ * Deletes the results of a query in bounded chunks. Each chunk is fetched with a projection query, removed and
+ * committed in its own batch, so a bulk delete never holds all the matching entries in memory.
+ */
+public class IspnBulkDelete {
+    private static final MsgLogger log = MsgLogging.getMsgLogger(IspnBulkDelete.class);
+
+    private static final String BACKEND_DELETE_CHUNK_SIZE = "hawkular-alerts.backend-delete-chunk-size";
+    private static final String BACKEND_DELETE_CHUNK_SIZE_ENV = "HAWKULAR_BACKEND_DELETE_CHUNK_SIZE";
+    private static final String BACKEND_DELETE_CHUNK_SIZE_DEFAULT = "1000";
+
+    private final Cache<String, Object> backend;
+    private final QueryFactory queryFactory;
+    private final int chunkSize;
+
+    public IspnBulkDelete(Cache<String, Object> backend, QueryFactory queryFactory) {
+        this(backend, queryFactory, Integer.parseInt(HawkularProperties.getProperty(BACKEND_DELETE_CHUNK_SIZE,
+                BACKEND_DELETE_CHUNK_SIZE_ENV, BACKEND_DELETE_CHUNK_SIZE_DEFAULT)));
+    }
+
+    public IspnBulkDelete(Cache<String, Object> backend, QueryFactory queryFactory, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.backend = backend;
+        this.queryFactory = queryFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param query a projection query with the fields needed to build the keys of a result
+     * @param pks the keys to remove for a result, the first one is the indexed entry
+     * @param progress notified with the number of entries removed after each committed chunk
+     * @return the number of entries deleted
+     */
+    public int delete(String query, Function<Object[], List<String>> pks, IntConsumer progress) {
+        int deleted = 0;
+        while (true) {
+            List<Object[]> chunk = queryFactory.create(query).maxResults(chunkSize).list();
+            if (chunk.isEmpty()) {
+                break;
+            }
+            int removed = remove(chunk, pks);
+            deleted += removed;
+            progress.accept(removed);
+            log.debugf("Deleted [%s] entries in chunk, [%s] in total", removed, deleted);
+            /*
+                The deleted entries are no longer in the index, a chunk with nothing removed means the index is not
+                in sync with the cache and the query would return the same chunk again.
+             */
+            if (chunk.size() < chunkSize || removed == 0) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private int remove(List<Object[]> chunk, Function<Object[], List<String>> pks) {
+        int removed = 0;
+        try {
+            backend.startBatch();
+            for (Object[] result : chunk) {
+                List<String> keys = pks.apply(result);
+                if (backend.remove(keys.get(0)) != null) {
+                    removed++;
+                }
+                for (int i = 1; i < keys.size(); i++) {
+                    backend.remove(keys.get(i));
+                }
+            }
+            backend.endBatch(true);
+        } catch (Exception e) {
+            backend.endBatch(false);
+            throw e;
+        }
+        return removed;
+    }
+}
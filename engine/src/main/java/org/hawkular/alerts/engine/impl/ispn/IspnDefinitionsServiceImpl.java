@@ -81,6 +81,7 @@ import org.hawkular.alerts.engine.impl.ispn.model.IspnDampening;
 import org.hawkular.alerts.engine.impl.ispn.model.IspnTrigger;
 import org.hawkular.alerts.engine.impl.ispn.model.TagsBridge;
 import org.hawkular.alerts.engine.service.AlertsEngine;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
 import org.hawkular.alerts.log.AlertingLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.infinispan.Cache;
@@ -107,6 +108,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
     QueryFactory queryFactory;
 
     private List<DefinitionsEvent> deferredNotifications = new ArrayList<>();
+    private Map<String, Map<String, Operation>> deferredTriggers = new HashMap<>();
     private int deferNotificationsCount = 0;
 
     public void init() {
@@ -1178,9 +1180,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
                 .collect(Collectors.toList());
         updatedConditions.addAll(setConditions(tenantId, triggerId, Mode.AUTORESOLVE, autoResolveConditions, dataIds));
 
-        if (alertsEngine != null) {
-            alertsEngine.reloadTrigger(tenantId, triggerId);
-        }
+        notifyEngine(Operation.UPDATE, tenantId, triggerId);
 
         notifyListeners(new DefinitionsEvent(Type.TRIGGER_CONDITION_CHANGE, tenantId, triggerId, dataIds));
 
@@ -1787,6 +1787,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
     private void releaseNotifications() {
         if (deferNotificationsCount > 0) {
             if (--deferNotificationsCount == 0) {
+                notifyEngineDeferred();
                 notifyListenersDeferred();
             }
         }
@@ -1818,6 +1819,43 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
         alertsContext.notifyListeners(notifications);
     }
 
+    /*
+        Trigger changes are sent to the AlertsEngine together with the deferred notifications, so a bulk change of
+        definitions reaches the engine as a single batch. The last operation on a trigger prevails, except an add
+        after a previous operation, which becomes a reload so the engine ends with the stored definition.
+     */
+    private void notifyEngine(Operation operation, String tenantId, String triggerId) {
+        if (null == alertsEngine) {
+            return;
+        }
+        if (isDeferredNotifications()) {
+            deferredTriggers.computeIfAbsent(tenantId, t -> new HashMap<>()).merge(triggerId, operation,
+                    (previous, next) -> Operation.ADD.equals(next) ? Operation.UPDATE : next);
+            return;
+        }
+        switch (operation) {
+            case ADD:
+                alertsEngine.addTrigger(tenantId, triggerId);
+                break;
+            case UPDATE:
+                alertsEngine.reloadTrigger(tenantId, triggerId);
+                break;
+            case REMOVE:
+                alertsEngine.removeTrigger(tenantId, triggerId);
+                break;
+        }
+    }
+
+    private void notifyEngineDeferred() {
+        if (deferredTriggers.isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, Operation>> operations = deferredTriggers;
+        deferredTriggers = new HashMap<>();
+        alertsEngine.updateTriggers(operations);
+    }
+
     private void addTrigger(Trigger trigger) throws Exception {
         if (trigger.getActions() != null) {
             Collection<ActionDefinition> actionDefinitions = getActionDefinitions(trigger.getTenantId());
@@ -1841,9 +1879,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
         }
         backend.put(pk, new IspnTrigger(trigger));
 
-        if (null != alertsEngine) {
-            alertsEngine.addTrigger(trigger.getTenantId(), trigger.getId());
-        }
+        notifyEngine(Operation.ADD, trigger.getTenantId(), trigger.getId());
 
         notifyListeners(new DefinitionsEvent(DefinitionsEvent.Type.TRIGGER_CREATE, trigger));
     }
@@ -1873,9 +1909,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
         /*
             Trigger should be removed from the alerts engine.
          */
-        if (null != alertsEngine) {
-            alertsEngine.removeTrigger(tenantId, triggerId);
-        }
+        notifyEngine(Operation.REMOVE, tenantId, triggerId);
 
         notifyListeners(
                 new DefinitionsEvent(DefinitionsEvent.Type.TRIGGER_REMOVE, tenantId, triggerId, trigger.getTags()));
@@ -1885,9 +1919,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
         String pk = pk(trigger);
         backend.put(pk, new IspnTrigger(trigger));
 
-        if (null != alertsEngine) {
-            alertsEngine.reloadTrigger(trigger.getTenantId(), trigger.getId());
-        }
+        notifyEngine(Operation.UPDATE, trigger.getTenantId(), trigger.getId());
 
         notifyListeners(new DefinitionsEvent(DefinitionsEvent.Type.TRIGGER_UPDATE, trigger));
 
@@ -2011,9 +2043,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
             throw e;
         }
 
-        if (null != alertsEngine) {
-            alertsEngine.reloadTrigger(dampening.getTenantId(), dampening.getTriggerId());
-        }
+        notifyEngine(Operation.UPDATE, dampening.getTenantId(), dampening.getTriggerId());
 
         notifyListeners(new DefinitionsEvent(Type.DAMPENING_CHANGE, dampening));
 
@@ -2345,9 +2375,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
             throw e;
         }
 
-        if (null != alertsEngine) {
-            alertsEngine.reloadTrigger(dampening.getTenantId(), dampening.getTriggerId());
-        }
+        notifyEngine(Operation.UPDATE, dampening.getTenantId(), dampening.getTriggerId());
 
         notifyListeners(new DefinitionsEvent(Type.DAMPENING_CHANGE, dampening));
     }
@@ -2360,9 +2388,7 @@ public class IspnDefinitionsServiceImpl implements DefinitionsService {
             throw e;
         }
 
-        if (null != alertsEngine) {
-            alertsEngine.reloadTrigger(dampening.getTenantId(), dampening.getTriggerId());
-        }
+        notifyEngine(Operation.UPDATE, dampening.getTenantId(), dampening.getTriggerId());
 
         notifyListeners(new DefinitionsEvent(Type.DAMPENING_CHANGE, dampening));
 
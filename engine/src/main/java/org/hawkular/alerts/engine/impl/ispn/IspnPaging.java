@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hawkular.alerts.api.model.paging.Order;
+import org.hawkular.alerts.api.model.paging.Page;
+import org.hawkular.alerts.api.model.paging.Pager;
+import org.infinispan.query.dsl.Query;
+import org.infinispan.query.dsl.QueryFactory;
+
+/**
+ * Translates a {@link Pager} into the order by clause, offset and max results of an Ickle query, so only the
+ * requested page is fetched from the index.
+ */
+public class IspnPaging {
+
+    /**
+     * @param pager the pager requested by the client
+     * @param defaultField the field used when the first order has no field
+     * @return the pager with the default field in descending order if the first order is not specified
+     */
+    public static Pager normalize(Pager pager, String defaultField) {
+        if (pager.getOrder() != null
+                && !pager.getOrder().isEmpty()
+                && pager.getOrder().get(0).getField() == null) {
+            return Pager.builder()
+                    .withPageSize(pager.getPageSize())
+                    .withStartPage(pager.getPageNumber())
+                    .orderBy(defaultField, Order.Direction.DESCENDING).build();
+        }
+        return pager;
+    }
+
+    /**
+     * The in-memory comparators apply the orders as successive stable sorts, so the last order is the primary sort
+     * key and the previous ones break the ties. The alerts and events comparators compare the tenantId first.
+     *
+     * @param orders the orders of the pager
+     * @param sortFields maps a pager field to a sortable indexed field, or null if it is not sortable in the index
+     * @param tenantField the indexed tenantId field, or null if the results are not sorted by tenant first
+     * @return the order by clause, empty if there is no order, or null if some field must be sorted in memory
+     */
+    public static String orderBy(List<Order> orders, Function<String, String> sortFields, String tenantField) {
+        List<Order> specific = orders == null ? new ArrayList<>() : orders.stream()
+                .filter(o -> o.getField() != null && o.getDirection() != null)
+                .collect(Collectors.toList());
+        if (specific.isEmpty()) {
+            return "";
+        }
+        StringBuilder orderBy = new StringBuilder("order by ");
+        if (tenantField != null) {
+            orderBy.append(tenantField).append(" ")
+                    .append(direction(specific.get(specific.size() - 1))).append(", ");
+        }
+        for (int i = specific.size() - 1; i >= 0; i--) {
+            String sortField = sortFields.apply(specific.get(i).getField());
+            if (sortField == null) {
+                return null;
+            }
+            orderBy.append(sortField).append(" ").append(direction(specific.get(i)));
+            if (i > 0) {
+                orderBy.append(", ");
+            }
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Runs an ordered query fetching only the page of the pager. The total size is taken from the index.
+     *
+     * @param queryFactory the factory of the cache
+     * @param query the Ickle query, including the order by clause
+     * @param pager the normalized pager
+     * @param mapper converts the indexed entities into the model objects
+     * @return the requested page
+     */
+    public static <T, R> Page<R> page(QueryFactory queryFactory, String query, Pager pager, Function<T, R> mapper) {
+        Query q = queryFactory.create(query);
+        if (pager.isLimited()) {
+            q.startOffset(pager.getStart()).maxResults(pager.getPageSize());
+        }
+        List<T> results = q.list();
+        int total = q.getResultSize();
+        if (total == 0) {
+            return new Page<>(new ArrayList<>(), pager, 0);
+        }
+        /*
+            Same behaviour than the in-memory paging: a start beyond the results returns all of them
+         */
+        if (!pager.isLimited() || total < pager.getStart()) {
+            if (pager.isLimited()) {
+                results = queryFactory.create(query).list();
+            }
+            pager = new Pager(0, results.size(), pager.getOrder());
+        }
+        return new Page<>(results.stream().map(mapper).collect(Collectors.toList()), pager, total);
+    }
+
+    private static String direction(Order order) {
+        return order.isAscending() ? "ASC" : "DESC";
+    }
+}
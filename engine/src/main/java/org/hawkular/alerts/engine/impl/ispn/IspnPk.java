@@ -33,16 +33,22 @@ public class IspnPk {
         if (action == null) {
             return null;
         }
+        return pkFromAction(action.getTenantId(), action.getActionPlugin(), action.getActionId(),
+                action.getEventId(), action.getCtime());
+    }
+
+    public static String pkFromAction(String tenantId, String actionPlugin, String actionId, String eventId,
+                                      long ctime) {
         return new StringBuilder("Action-")
-                .append(action.getTenantId())
+                .append(tenantId)
                 .append("-")
-                .append(action.getActionPlugin())
+                .append(actionPlugin)
                 .append("-")
-                .append(action.getActionId())
+                .append(actionId)
                 .append("-")
-                .append(action.getEventId())
+                .append(eventId)
                 .append("-")
-                .append(action.getCtime())
+                .append(ctime)
                 .toString();
     }
 
@@ -143,4 +149,22 @@ public class IspnPk {
                 .append(eventId)
                 .toString();
     }
+
+    public static String pkEvals(String tenantId, String eventId) {
+        if (tenantId == null || eventId == null) {
+            return null;
+        }
+        return new StringBuilder("EventEvals-")
+                .append(tenantId)
+                .append("-")
+                .append(eventId)
+                .toString();
+    }
+
+    public static String pkTimePartitions(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        return new StringBuilder("TimePartitions-").append(prefix).toString();
+    }
 }
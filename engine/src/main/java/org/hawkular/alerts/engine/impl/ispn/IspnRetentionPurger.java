@@ -0,0 +1,383 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.hawkular.alerts.cache.IspnCacheManager;
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+import org.hawkular.commons.properties.HawkularProperties;
+import org.infinispan.Cache;
+import org.infinispan.query.Search;
+import org.infinispan.query.dsl.QueryFactory;
+
+/**
+ * Background purge of events, resolved alerts and actions history according to retention policies.
+ *
+ * A retention limits the age (in days) and the count (newest entries kept) of each kind of data, 0 means no limit.
+ * The default retentions are defined by properties and can be overridden per tenant with the tenantId as suffix:
+ * <pre>
+ *     hawkular-alerts.retention-events-days=30
+ *     hawkular-alerts.retention-events-days.my-tenant=7
+ *     hawkular-alerts.retention-alerts-count.my-tenant=10000
+ *     hawkular-alerts.retention-tenants=my-tenant
+ * </pre>
+ * Events and actions are aged by ctime, resolved alerts by the time they were resolved. Entries are deleted in
+ * chunks with {@link IspnBulkDelete}. With {@link IspnTimePartitions} the partitions of events and actions older
+ * than the longest retention are dropped as a whole before.
+ */
+public class IspnRetentionPurger {
+    private static final MsgLogger log = MsgLogging.getMsgLogger(IspnRetentionPurger.class);
+
+    /*
+        Minutes between two purges
+     */
+    private static final String RETENTION_INTERVAL = "hawkular-alerts.retention-interval";
+    private static final String RETENTION_INTERVAL_ENV = "HAWKULAR_RETENTION_INTERVAL";
+    private static final String RETENTION_INTERVAL_DEFAULT = "60";
+
+    /*
+        Comma separated list of tenants with their own retentions
+     */
+    private static final String RETENTION_TENANTS = "hawkular-alerts.retention-tenants";
+    private static final String RETENTION_TENANTS_ENV = "HAWKULAR_RETENTION_TENANTS";
+    private static final String RETENTION_TENANTS_DEFAULT = "";
+
+    private static final String RETENTION_PREFIX = "hawkular-alerts.retention-";
+    private static final String RETENTION_ENV_PREFIX = "HAWKULAR_RETENTION_";
+
+    private static final String EVENT_ENTITY = "org.hawkular.alerts.engine.impl.ispn.model.IspnEvent";
+    private static final String ACTION_ENTITY = "org.hawkular.alerts.engine.impl.ispn.model.IspnAction";
+
+    public enum Kind {
+        EVENTS("events", EVENT_ENTITY, "eventType = 'EVENT'", "ctime"),
+        ALERTS("alerts", EVENT_ENTITY, "eventType = 'ALERT' and status = 'RESOLVED'", "stime"),
+        ACTIONS("actions", ACTION_ENTITY, null, "ctime");
+
+        private final String key;
+        private final String entity;
+        private final String filter;
+        private final String timeField;
+
+        Kind(String key, String entity, String filter, String timeField) {
+            this.key = key;
+            this.entity = entity;
+            this.filter = filter;
+            this.timeField = timeField;
+        }
+
+        String countByTenant() {
+            return "select tenantId, count(tenantId) from " + entity + (filter != null ? " where " + filter : "")
+                    + " group by tenantId";
+        }
+
+        String from(String tenantId) {
+            return "from " + entity + " where " + (filter != null ? filter + " and " : "")
+                    + "tenantId = '" + tenantId + "'";
+        }
+    }
+
+    public static class Retention {
+        public static final Retention UNLIMITED = new Retention(0, 0);
+
+        private final int days;
+        private final int count;
+
+        public Retention(int days, int count) {
+            this.days = days;
+            this.count = count;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isLimited() {
+            return days > 0 || count > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Retention{" +
+                    "days=" + days +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+
+    IspnAlertsServiceImpl alertsService;
+
+    IspnActionsServiceImpl actionsService;
+
+    private final Map<String, Retention> retentions = new HashMap<>();
+
+    private ScheduledExecutorService purger;
+
+    public void setAlertsService(IspnAlertsServiceImpl alertsService) {
+        this.alertsService = alertsService;
+    }
+
+    public void setActionsService(IspnActionsServiceImpl actionsService) {
+        this.actionsService = actionsService;
+    }
+
+    public void init() {
+        String tenants = HawkularProperties.getProperty(RETENTION_TENANTS, RETENTION_TENANTS_ENV,
+                RETENTION_TENANTS_DEFAULT);
+        boolean limited = false;
+        for (Kind kind : Kind.values()) {
+            Retention retention = new Retention(
+                    getIntProperty(kind.key + "-days", RETENTION_ENV_PREFIX + kind.name() + "_DAYS"),
+                    getIntProperty(kind.key + "-count", RETENTION_ENV_PREFIX + kind.name() + "_COUNT"));
+            setRetention(kind, null, retention);
+            limited |= retention.isLimited();
+            for (String tenantId : tenants.split(",")) {
+                tenantId = tenantId.trim();
+                if (tenantId.isEmpty()) {
+                    continue;
+                }
+                Retention tenantRetention = new Retention(
+                        getIntProperty(kind.key + "-days." + tenantId, retention.getDays()),
+                        getIntProperty(kind.key + "-count." + tenantId, retention.getCount()));
+                setRetention(kind, tenantId, tenantRetention);
+                limited |= tenantRetention.isLimited();
+            }
+        }
+        if (!limited) {
+            log.debug("No retention defined, alerts and events are not purged");
+            return;
+        }
+        long interval = Long.parseLong(HawkularProperties.getProperty(RETENTION_INTERVAL, RETENTION_INTERVAL_ENV,
+                RETENTION_INTERVAL_DEFAULT));
+        log.infof("Hawkular Alerting purges alerts and events out of retention every [%s] minutes", interval);
+        purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HawkularAlerts-RetentionPurger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.MINUTES);
+    }
+
+    public void shutdown() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    /**
+     * @param kind of data
+     * @param tenantId the tenant overriding the default retention, or null for the default retention
+     * @param retention the retention, or null to remove the retention of the tenant
+     */
+    public void setRetention(Kind kind, String tenantId, Retention retention) {
+        String key = tenantId == null ? kind.key : kind.key + "." + tenantId;
+        if (retention == null) {
+            retentions.remove(key);
+        } else {
+            retentions.put(key, retention);
+        }
+    }
+
+    public Retention getRetention(Kind kind, String tenantId) {
+        Retention retention = retentions.get(kind.key + "." + tenantId);
+        if (retention == null) {
+            retention = retentions.get(kind.key);
+        }
+        return retention != null ? retention : Retention.UNLIMITED;
+    }
+
+    /*
+        In distributed mode all nodes share the backend, only the coordinator purges it
+     */
+    void purge() {
+        if (IspnCacheManager.isDistributed() && !IspnCacheManager.getCacheManager().isCoordinator()) {
+            return;
+        }
+        purge(System.currentTimeMillis());
+    }
+
+    int purge(long now) {
+        int deleted = 0;
+        for (Kind kind : Kind.values()) {
+            try {
+                long start = System.currentTimeMillis();
+                int kindDeleted = purge(kind, now);
+                if (kindDeleted > 0) {
+                    log.infof("Purged [%s] %s out of retention in [%s ms]", kindDeleted, kind.key,
+                            System.currentTimeMillis() - start);
+                }
+                deleted += kindDeleted;
+            } catch (Exception e) {
+                log.errorf(e, "Error purging %s", kind.key);
+            }
+        }
+        return deleted;
+    }
+
+    private int purge(Kind kind, long now) {
+        IspnTimePartitions partitions = partitions(kind);
+        if (partitions != null && partitions.isPartitioned() && maxDays(kind) > 0) {
+            int dropped = partitions.drop(now - TimeUnit.DAYS.toMillis(maxDays(kind)));
+            if (dropped > 0) {
+                log.infof("Dropped [%s] partitions of %s out of retention", dropped, kind.key);
+            }
+        }
+        int deleted = 0;
+        /*
+            The partitions are held while they are queried
+         */
+        if (partitions != null) {
+            partitions.acquire();
+        }
+        try {
+            List<QueryFactory> queryFactories = queryFactories(kind);
+            Map<String, Long> tenants = new HashMap<>();
+            for (QueryFactory queryFactory : queryFactories) {
+                List<Object[]> tenantCounts = queryFactory.create(kind.countByTenant()).list();
+                tenantCounts.forEach(tenantCount -> tenants.merge((String) tenantCount[0],
+                        ((Number) tenantCount[1]).longValue(), Long::sum));
+            }
+            for (Map.Entry<String, Long> tenantCount : tenants.entrySet()) {
+                String tenantId = tenantCount.getKey();
+                long count = tenantCount.getValue();
+                Retention retention = getRetention(kind, tenantId);
+                if (retention.getDays() > 0) {
+                    int aged = delete(kind, tenantId, now - TimeUnit.DAYS.toMillis(retention.getDays()));
+                    count -= aged;
+                    deleted += aged;
+                }
+                if (retention.getCount() > 0 && count > retention.getCount()) {
+                    Long oldestKept = oldestKept(queryFactories, kind, tenantId, retention.getCount());
+                    if (oldestKept != null) {
+                        deleted += delete(kind, tenantId, oldestKept);
+                    }
+                }
+            }
+            return deleted;
+        } finally {
+            if (partitions != null) {
+                partitions.release();
+            }
+        }
+    }
+
+    /*
+        The time of the oldest entry kept, entries with the same time are kept too. With partitions the newest entries
+        of each one are merged.
+     */
+    private Long oldestKept(List<QueryFactory> queryFactories, Kind kind, String tenantId, int count) {
+        String query = "select " + kind.timeField + " " + kind.from(tenantId) + " order by " + kind.timeField
+                + " DESC";
+        if (queryFactories.size() == 1) {
+            List<Object[]> oldestKept = queryFactories.get(0).create(query)
+                    .startOffset(count - 1)
+                    .maxResults(1)
+                    .list();
+            return oldestKept.isEmpty() ? null : (Long) oldestKept.get(0)[0];
+        }
+        List<Long> newest = new ArrayList<>();
+        for (QueryFactory queryFactory : queryFactories) {
+            List<Object[]> times = queryFactory.create(query).maxResults(count).list();
+            times.forEach(time -> newest.add((Long) time[0]));
+        }
+        if (newest.size() < count) {
+            return null;
+        }
+        newest.sort(Collections.reverseOrder());
+        return newest.get(count - 1);
+    }
+
+    private int delete(Kind kind, String tenantId, long before) {
+        log.debugf("Purging %s of tenant [%s] before [%s]", kind.key, tenantId, before);
+        String query = kind.from(tenantId) + " and " + kind.timeField + " < " + before;
+        switch (kind) {
+            case ACTIONS:
+                return actionsService.deleteActions(query);
+            case ALERTS:
+                return alertsService.deleteAlerts(query);
+            default:
+                return alertsService.deleteEvents(query);
+        }
+    }
+
+    /*
+        Resolved alerts are aged by stime, they are not partitioned
+     */
+    private IspnTimePartitions partitions(Kind kind) {
+        switch (kind) {
+            case EVENTS:
+                return alertsService.partitions;
+            case ACTIONS:
+                return actionsService.partitions;
+            default:
+                return null;
+        }
+    }
+
+    private List<QueryFactory> queryFactories(Kind kind) {
+        List<Cache<String, Object>> caches;
+        switch (kind) {
+            case EVENTS:
+                caches = alertsService.eventCaches(null);
+                break;
+            case ACTIONS:
+                caches = actionsService.actionCaches(null);
+                break;
+            default:
+                caches = Collections.singletonList(alertsService.backend);
+        }
+        return caches.stream().map(Search::getQueryFactory).collect(Collectors.toList());
+    }
+
+    /*
+        A partition can be dropped only when it is out of the retention of all tenants
+     */
+    private int maxDays(Kind kind) {
+        int maxDays = 0;
+        for (Map.Entry<String, Retention> retention : retentions.entrySet()) {
+            if (retention.getKey().equals(kind.key) || retention.getKey().startsWith(kind.key + ".")) {
+                if (retention.getValue().getDays() <= 0) {
+                    return 0;
+                }
+                maxDays = Math.max(maxDays, retention.getValue().getDays());
+            }
+        }
+        return maxDays;
+    }
+
+    private static int getIntProperty(String key, String envKey) {
+        return Integer.parseInt(HawkularProperties.getProperty(RETENTION_PREFIX + key, envKey, "0"));
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        return Integer.parseInt(HawkularProperties.getProperty(RETENTION_PREFIX + key,
+                String.valueOf(defaultValue)));
+    }
+}
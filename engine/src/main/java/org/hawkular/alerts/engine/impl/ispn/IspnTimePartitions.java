@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hawkular.commons.log.MsgLogger;
+import org.hawkular.commons.log.MsgLogging;
+import org.hawkular.commons.properties.HawkularProperties;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+
+/**
+ * Time partitioned storage of the history (events, actions) in a cache per period of time.
+ *
+ * Each partition is a cache defined from the configuration of the backend cache, with its own index. Entries are
+ * routed to the partition of their ctime, queries with a time range only visit the partitions overlapping it, and
+ * an expired partition is dropped as a whole instead of deleting its entries one by one.
+ *
+ * The partitions in use are registered in the backend, so they are restored on restart. Readers and writers of the
+ * partition caches hold them with {@link #acquire()} and {@link #release()}, a dropped partition is removed once
+ * they are released.
+ * Partitioning is disabled by default (the history is stored in the backend cache):
+ * <pre>
+ *     hawkular-alerts.backend-time-partition-days=1
+ * </pre>
+ */
+public class IspnTimePartitions {
+    private static final MsgLogger log = MsgLogging.getMsgLogger(IspnTimePartitions.class);
+
+    private static final String BACKEND_TIME_PARTITION_DAYS = "hawkular-alerts.backend-time-partition-days";
+    private static final String BACKEND_TIME_PARTITION_DAYS_ENV = "HAWKULAR_BACKEND_TIME_PARTITION_DAYS";
+    private static final String BACKEND_TIME_PARTITION_DAYS_DEFAULT = "0";
+
+    private static final String[] INDEX_CACHES = { "locking", "data", "metadata" };
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    public static class Partition {
+        private final String name;
+        private final long start;
+        private final long end;
+        private final Cache<String, Object> cache;
+
+        Partition(String name, long start, long end, Cache<String, Object> cache) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.cache = cache;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the first time of the partition, inclusive
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return the last time of the partition, exclusive
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        public Cache<String, Object> getCache() {
+            return cache;
+        }
+
+        @Override
+        public String toString() {
+            return "Partition{" +
+                    "name='" + name + '\'' +
+                    ", start=" + start +
+                    ", end=" + end +
+                    '}';
+        }
+    }
+
+    private final String prefix;
+    private final Cache<String, Object> backend;
+    private final long length;
+    private final NavigableMap<Long, Partition> partitions = new ConcurrentSkipListMap<>();
+
+    /*
+        Read lock held by the users of the partition caches, write lock taken to remove the dropped ones.
+     */
+    private final ReentrantReadWriteLock inUse = new ReentrantReadWriteLock();
+
+    /**
+     * @param prefix of the partition caches, it also identifies the partitions in the backend
+     * @param backend the backend cache, used as configuration template and registry of the partitions
+     */
+    public IspnTimePartitions(String prefix, Cache<String, Object> backend) {
+        this(prefix, backend, Integer.parseInt(HawkularProperties.getProperty(BACKEND_TIME_PARTITION_DAYS,
+                BACKEND_TIME_PARTITION_DAYS_ENV, BACKEND_TIME_PARTITION_DAYS_DEFAULT)));
+    }
+
+    /**
+     * @param prefix of the partition caches, it also identifies the partitions in the backend
+     * @param backend the backend cache, used as configuration template and registry of the partitions
+     * @param days length of a partition, 0 disables the partitioning
+     */
+    public IspnTimePartitions(String prefix, Cache<String, Object> backend, int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("days must be positive or 0");
+        }
+        this.prefix = prefix;
+        this.backend = backend;
+        this.length = TimeUnit.DAYS.toMillis(days);
+    }
+
+    /**
+     * Restores the partitions registered in the backend.
+     */
+    @SuppressWarnings("unchecked")
+    public void init() {
+        if (!isPartitioned()) {
+            return;
+        }
+        Set<Long> registered = (Set<Long>) backend.get(IspnPk.pkTimePartitions(prefix));
+        if (registered != null) {
+            registered.forEach(this::start);
+        }
+        log.infof("Hawkular Alerting stores %s in partitions of [%s] days, [%s] partitions restored", prefix,
+                TimeUnit.MILLISECONDS.toDays(length), partitions.size());
+    }
+
+    public boolean isPartitioned() {
+        return length > 0;
+    }
+
+    /**
+     * @param time of an entry
+     * @return the partition storing the entries of the time, it is created if needed
+     */
+    public Partition partition(long time) {
+        long start = Math.floorDiv(time, length) * length;
+        Partition partition = partitions.get(start);
+        return partition != null ? partition : create(start);
+    }
+
+    /**
+     * @param time of an entry
+     * @return the existing partition of the time, or null if there is no partition for it
+     */
+    public Partition find(long time) {
+        if (!isPartitioned()) {
+            return null;
+        }
+        return partitions.get(Math.floorDiv(time, length) * length);
+    }
+
+    /**
+     * @param startTime inclusive, null for no lower bound
+     * @param endTime inclusive, null for no upper bound
+     * @return the existing partitions overlapping the time range, the newest first
+     */
+    public List<Partition> partitions(Long startTime, Long endTime) {
+        NavigableMap<Long, Partition> overlapping = partitions;
+        if (startTime != null && isPartitioned()) {
+            overlapping = overlapping.tailMap(Math.floorDiv(startTime, length) * length, true);
+        }
+        if (endTime != null) {
+            overlapping = overlapping.headMap(endTime, true);
+        }
+        return new ArrayList<>(overlapping.descendingMap().values());
+    }
+
+    /**
+     * The partition caches obtained after this call are not removed by {@link #drop(long)} until
+     * {@link #release()}. Reentrant, it must not be held by the thread calling {@link #drop(long)}.
+     */
+    public void acquire() {
+        inUse.readLock().lock();
+    }
+
+    public void release() {
+        inUse.readLock().unlock();
+    }
+
+    /**
+     * @param before the partitions ending before this time are dropped
+     * @return the number of partitions dropped
+     */
+    public synchronized int drop(long before) {
+        List<Partition> expired = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            if (partition.getEnd() > before) {
+                break;
+            }
+            expired.add(partition);
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        expired.forEach(partition -> partitions.remove(partition.getStart()));
+        register();
+        /*
+            New users no longer find the expired partitions, wait for the current ones before removing the caches
+         */
+        inUse.writeLock().lock();
+        try {
+            remove(expired);
+        } finally {
+            inUse.writeLock().unlock();
+        }
+        return expired.size();
+    }
+
+    private void remove(List<Partition> expired) {
+        EmbeddedCacheManager cacheManager = backend.getCacheManager();
+        for (Partition partition : expired) {
+            log.infof("Dropping partition [%s]", partition.getName());
+            /*
+                The index is written into its own caches, they are removed after the partition cache
+             */
+            cacheManager.removeCache(partition.getName());
+            cacheManager.undefineConfiguration(partition.getName());
+            for (String indexCache : INDEX_CACHES) {
+                String indexCacheName = partition.getName() + "_" + indexCache;
+                if (cacheManager.getCacheConfiguration(indexCacheName) != null) {
+                    cacheManager.removeCache(indexCacheName);
+                    cacheManager.undefineConfiguration(indexCacheName);
+                }
+            }
+        }
+    }
+
+    private synchronized Partition create(long start) {
+        Partition partition = partitions.get(start);
+        if (partition == null) {
+            partition = start(start);
+            register();
+            log.debugf("Created partition [%s]", partition.getName());
+        }
+        return partition;
+    }
+
+    private Partition start(long start) {
+        String name = prefix + "_" + DAY.format(Instant.ofEpochMilli(start));
+        EmbeddedCacheManager cacheManager = backend.getCacheManager();
+        if (cacheManager.getCacheConfiguration(name) == null) {
+            cacheManager.defineConfiguration(name, configuration(cacheManager, name));
+        }
+        Partition partition = new Partition(name, start, start + length, cacheManager.getCache(name));
+        partitions.put(start, partition);
+        return partition;
+    }
+
+    /*
+        The partition is a copy of the backend configuration. With the infinispan directory provider the index of the
+        partition is stored in its own caches, copied from the index caches of the backend, so it is dropped with the
+        partition.
+     */
+    private Configuration configuration(EmbeddedCacheManager cacheManager, String name) {
+        Configuration backendConfiguration = backend.getCacheConfiguration();
+        ConfigurationBuilder builder = new ConfigurationBuilder().read(backendConfiguration);
+        /*
+            The query module adds its interceptor instance to the configuration of the started backend, the partition
+            gets its own one
+         */
+        builder.customInterceptors().read(new ConfigurationBuilder().build().customInterceptors());
+        Properties indexing = backendConfiguration.indexing().properties();
+        if ("infinispan".equals(indexing.getProperty("default.directory_provider"))) {
+            for (String indexCache : INDEX_CACHES) {
+                String property = "default." + indexCache + "_cachename";
+                Configuration indexConfiguration = indexing.getProperty(property) != null
+                        ? cacheManager.getCacheConfiguration(indexing.getProperty(property)) : null;
+                if (indexConfiguration != null) {
+                    String indexCacheName = name + "_" + indexCache;
+                    if (cacheManager.getCacheConfiguration(indexCacheName) == null) {
+                        cacheManager.defineConfiguration(indexCacheName, indexConfiguration);
+                    }
+                    builder.indexing().addProperty(property, indexCacheName);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private void register() {
+        backend.put(IspnPk.pkTimePartitions(prefix), new HashSet<>(partitions.keySet()));
+    }
+}
@@ -37,15 +37,19 @@ public class IspnAction implements Serializable {
     private String tenantId;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String actionPlugin;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String actionId;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String eventId;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String result;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
@@ -27,6 +27,7 @@ import org.hibernate.search.annotations.Analyzer;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.FieldBridge;
 import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.SortableField;
 import org.hibernate.search.annotations.Store;
 
 /**
@@ -40,9 +41,11 @@ public class IspnEvent implements Serializable {
     private String eventType;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String tenantId;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String id;
 
     @Field(store = Store.YES, analyze = Analyze.YES)
@@ -51,15 +54,18 @@ public class IspnEvent implements Serializable {
     private Map<String, String> tags;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private String triggerId;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private long ctime;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
     private String status;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
+    @SortableField
     private long stime;
 
     @Field(store = Store.YES, analyze = Analyze.NO)
@@ -89,6 +95,10 @@ public class IspnEvent implements Serializable {
         } else {
             this.event = new Event(event);
         }
+        /*
+            The evaluation data is stored apart in an IspnEventEvals
+         */
+        IspnEventEvals.removeEvals(this.event);
         this.id = event.getId();
         this.eventType = event.getEventType();
         this.tenantId = event.getTenantId();
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn.model;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+
+/**
+ * The evaluation data of an Event or Alert (dampening, evalSets and resolvedEvalSets).
+ *
+ * It is stored apart from its {@link IspnEvent} so thin queries do not load it.
+ */
+public class IspnEventEvals implements Serializable {
+
+    private Dampening dampening;
+
+    private List<Set<ConditionEval>> evalSets;
+
+    private List<Set<ConditionEval>> resolvedEvalSets;
+
+    public IspnEventEvals() {
+    }
+
+    public IspnEventEvals(Event event) {
+        if (event == null) {
+            throw new IllegalArgumentException("event must be not null");
+        }
+        this.dampening = event.getDampening() != null ? new Dampening(event.getDampening()) : null;
+        this.evalSets = event.getEvalSets();
+        if (event instanceof Alert) {
+            this.resolvedEvalSets = ((Alert) event).getResolvedEvalSets();
+        }
+    }
+
+    public static boolean hasEvals(Event event) {
+        if (event == null) {
+            return false;
+        }
+        return event.getDampening() != null
+                || event.getEvalSets() != null
+                || (event instanceof Alert && ((Alert) event).getResolvedEvalSets() != null);
+    }
+
+    public static void removeEvals(Event event) {
+        event.setDampening(null);
+        event.setEvalSets(null);
+        if (event instanceof Alert) {
+            ((Alert) event).setResolvedEvalSets(null);
+        }
+    }
+
+    public void addEvals(Event event) {
+        event.setDampening(dampening != null ? new Dampening(dampening) : null);
+        event.setEvalSets(evalSets);
+        if (event instanceof Alert) {
+            ((Alert) event).setResolvedEvalSets(resolvedEvalSets);
+        }
+    }
+
+    public Dampening getDampening() {
+        return dampening;
+    }
+
+    public void setDampening(Dampening dampening) {
+        this.dampening = dampening;
+    }
+
+    public List<Set<ConditionEval>> getEvalSets() {
+        return evalSets;
+    }
+
+    public void setEvalSets(List<Set<ConditionEval>> evalSets) {
+        this.evalSets = evalSets;
+    }
+
+    public List<Set<ConditionEval>> getResolvedEvalSets() {
+        return resolvedEvalSets;
+    }
+
+    public void setResolvedEvalSets(List<Set<ConditionEval>> resolvedEvalSets) {
+        this.resolvedEvalSets = resolvedEvalSets;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        IspnEventEvals that = (IspnEventEvals) o;
+
+        if (dampening != null ? !dampening.equals(that.dampening) : that.dampening != null) return false;
+        if (evalSets != null ? !evalSets.equals(that.evalSets) : that.evalSets != null) return false;
+        return resolvedEvalSets != null ? resolvedEvalSets.equals(that.resolvedEvalSets)
+                : that.resolvedEvalSets == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = dampening != null ? dampening.hashCode() : 0;
+        result = 31 * result + (evalSets != null ? evalSets.hashCode() : 0);
+        result = 31 * result + (resolvedEvalSets != null ? resolvedEvalSets.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IspnEventEvals{" +
+                "dampening=" + dampening +
+                ", evalSets=" + evalSets +
+                ", resolvedEvalSets=" + resolvedEvalSets +
+                '}';
+    }
+}
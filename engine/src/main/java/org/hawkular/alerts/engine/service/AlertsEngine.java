@@ -16,11 +16,13 @@
  */
 package org.hawkular.alerts.engine.service;
 
+import java.util.Map;
 import java.util.TreeSet;
 
 import org.hawkular.alerts.api.model.data.Data;
 import org.hawkular.alerts.api.model.event.Event;
 import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
 
 /**
  * Interface that allows to send data to the alerts engine and check resulting state. All methods are LockType.WRITE
@@ -89,4 +91,14 @@ public interface AlertsEngine {
      * @param triggerId Trigger id to be removed
      */
     void removeTrigger(String tenantId, String triggerId);
+
+    /**
+     * Add, reload or remove a set of Triggers in a single call, with the same effect of
+     * {@link #addTrigger(String, String)}, {@link #reloadTrigger(String, String)} and
+     * {@link #removeTrigger(String, String)} for each Trigger.
+     * In distributed scenarios each node is notified once with all its Triggers.
+     *
+     * @param operations a map of tenantId -> triggerId -> operation performed on the Trigger
+     */
+    void updateTriggers(Map<String, Map<String, Operation>> operations);
 }
@@ -18,6 +18,7 @@ package org.hawkular.alerts.engine.service;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 import org.hawkular.alerts.api.model.data.Data;
 import org.hawkular.alerts.api.model.event.Event;
@@ -94,6 +95,14 @@ public interface PartitionManager {
      */
     void notifyTrigger(Operation operation, String tenantId, String triggerId);
 
+    /**
+     * Notify partition manager when a collection of triggers have been added, updated or removed.
+     * Triggers are grouped by the node that holds them, each node receives a single notification with its triggers.
+     *
+     * @param operations a map of tenantId -> triggerId -> operation performed on the trigger
+     */
+    void notifyTriggers(Map<String, Map<String, Operation>> operations);
+
     /**
      * Register a listener to process partition events linked with triggers.
      *
@@ -115,6 +124,15 @@ public interface PartitionManager {
      */
     void notifyEvents(Collection<Event> events);
 
+    /**
+     * Publish the dataIds used by the triggers active on the current node.
+     * PartitionManager uses the dataIds published by each node as a routing table, so {@see #notifyData} and
+     * {@see #notifyEvents} deliver a data or event only to the nodes with triggers interested on it.
+     *
+     * @param dataIds a map of tenantId -> dataIds active on the current node
+     */
+    void notifyDataIds(Map<String, Set<String>> dataIds);
+
     /**
      * Register a listener to process partition events linked with data or events.
      *
@@ -47,6 +47,13 @@ public interface PartitionTriggerListener {
      */
     void onTriggerChange(Operation operation, String tenantId, String triggerId);
 
+    /**
+     * Invoked on the node that holds the triggers when a collection of triggers have been added, modified or removed.
+     *
+     * @param operations a map of tenantId -> triggerId -> operation performed on the Trigger
+     */
+    void onTriggersChange(Map<String, Map<String, Operation>> operations);
+
     /**
      * Invoked when the topology has changed in the partition.
      * It updates the local partition after re-calculate triggers distribution across the partition.
@@ -17,11 +17,13 @@
 package org.hawkular.alerts.engine.service;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.TreeSet;
 import java.util.function.Predicate;
 
 import org.hawkular.alerts.api.model.data.Data;
 import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
 
 /**
  * Interface that defines an abstract API with the rules engine implementation. This is for internal use by the
@@ -40,6 +42,30 @@ public interface RulesEngine {
     String MIN_REPORTING_INTERVAL_EVENTS_ENV = "HAWKULAR_MIN_REPORTING_INTERVAL_EVENTS";
     String MIN_REPORTING_INTERVAL_EVENTS_DEFAULT = "0";
 
+    /**
+     * Number of independent rules sessions used to partition the triggers. A value greater than 1 selects the
+     * sharded implementation, which fires the sessions in parallel.
+     */
+    String RULES_ENGINE_SHARDS = "hawkular-alerts.rules-engine-shards";
+    String RULES_ENGINE_SHARDS_ENV = "HAWKULAR_RULES_ENGINE_SHARDS";
+    String RULES_ENGINE_SHARDS_DEFAULT = "1";
+
+    /**
+     * RulesEngine implementation: "drools" evaluates all the triggers with the rules, "compiled" evaluates the common
+     * trigger shapes with plain Java and uses the rules only for the rest of triggers.
+     */
+    String RULES_ENGINE = "hawkular-alerts.rules-engine";
+    String RULES_ENGINE_ENV = "HAWKULAR_RULES_ENGINE";
+    String RULES_ENGINE_DEFAULT = "drools";
+
+    /**
+     * Opt-in profiling of the rules engine. When enabled the rule firings, the ConditionEvals created and the
+     * evaluation time are attributed to each trigger, at the cost of a small overhead on every rule firing.
+     */
+    String RULES_ENGINE_PROFILING = "hawkular-alerts.rules-engine-profiling";
+    String RULES_ENGINE_PROFILING_ENV = "HAWKULAR_RULES_ENGINE_PROFILING";
+    String RULES_ENGINE_PROFILING_DEFAULT = "false";
+
     void addGlobal(String name, Object global);
 
     void removeGlobal(String name);
@@ -92,6 +118,15 @@ public interface RulesEngine {
      */
     void removeFacts(Predicate<Object> factFilter);
 
+    /**
+     * Deletes all the facts of a trigger from the rules engine: the Trigger, its Conditions, Dampenings and
+     * MissingStates, and the state the rules keep for its Conditions.
+     * @param tenantId the tenantId of the trigger
+     * @param triggerId the triggerId of the trigger
+     * @return the removed facts
+     */
+    Collection<Object> removeTriggerFacts(String tenantId, String triggerId);
+
     /**
      * Add to the accumulated <code>Data</code> to be processed the next time {@link #fire()} is called. After the
      * rules are fired on the accumulated <code>Data</code> it will be cleared.
@@ -122,6 +157,14 @@ public interface RulesEngine {
      */
     void clear();
 
+    /**
+     * @param tenantId the tenant of the triggers
+     * @param top the max number of profiles to return
+     * @return the costliest triggers of the tenant evaluated by the rules engine since the last {@link #reset()},
+     *         costliest first. Empty if {@link #RULES_ENGINE_PROFILING} is not enabled.
+     */
+    List<TriggerProfile> getTriggerProfiles(String tenantId, int top);
+
     /**
      * Completely reset the rules engine session. Disposes of any existing session before creating a new session.
      */
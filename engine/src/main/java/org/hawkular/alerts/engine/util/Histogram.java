@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values with a bounded relative error, in the style of HdrHistogram.
+ *
+ * Values lower than 64 are recorded exactly. Greater values are recorded in 32 linear sub-buckets per power of two,
+ * so a reported percentile is at most ~3% greater than the real value. The memory used is fixed (~15KB), whatever
+ * the number and the range of the recorded values.
+ *
+ * Recording can be done concurrently from any thread. A snapshot taken while recording is not atomic but each
+ * recorded value is eventually reflected.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int NUM_BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * @param value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * @param percentile in the range [0.0, 100.0]
+     * @return the highest value equivalent to the bucket where the percentile falls, capped by the max value.
+     *         0 if no values are recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        return valuesAtPercentiles(new double[] { percentile })[0];
+    }
+
+    /**
+     * @param stat one of the names of {@link #getSnapshot()}
+     * @return the value of that stat, or null if the name is unknown
+     */
+    public Long getStat(String stat) {
+        switch (stat) {
+            case "count":
+                return getCount();
+            case "min":
+                return getMin();
+            case "max":
+                return getMax();
+            case "mean":
+                return getMean();
+            default:
+                for (int i = 0; i < PERCENTILE_NAMES.length; i++) {
+                    if (PERCENTILE_NAMES[i].equals(stat)) {
+                        return getValueAtPercentile(PERCENTILES[i]);
+                    }
+                }
+                return null;
+        }
+    }
+
+    /**
+     * @return count, min, max, mean and p50, p90, p99, p999 values, keyed by those names.
+     */
+    public Map<String, Long> getSnapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", getCount());
+        snapshot.put("min", getMin());
+        snapshot.put("max", getMax());
+        snapshot.put("mean", getMean());
+        long[] values = valuesAtPercentiles(PERCENTILES);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            snapshot.put(PERCENTILE_NAMES[i], values[i]);
+        }
+        return snapshot;
+    }
+
+    /*
+        percentiles must be in ascending order, all of them are resolved in a single pass over the buckets.
+     */
+    private long[] valuesAtPercentiles(double[] percentiles) {
+        long[] values = new long[percentiles.length];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return values;
+        }
+        long maxValue = getMax();
+        int p = 0;
+        long accumulated = 0;
+        for (int i = 0; i < NUM_BUCKETS && p < percentiles.length; i++) {
+            accumulated += counts.get(i);
+            while (p < percentiles.length && accumulated >= Math.ceil(total * percentiles[p] / 100.0)) {
+                values[p++] = Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        while (p < percentiles.length) {
+            values[p++] = maxValue;
+        }
+        return values;
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
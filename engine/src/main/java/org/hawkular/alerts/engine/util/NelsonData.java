@@ -57,9 +57,9 @@ public class NelsonData {
 
     private int rule2Count;
     private int rule3Count;
-    private Double rule3PreviousSample;
+    private double rule3PreviousSample = Double.NaN;
     private int rule4Count;
-    private Double rule4PreviousSample;
+    private double rule4PreviousSample = Double.NaN;
     private String rule4PreviousDirection;
     private LinkedList<String> rule5LastThree = new LinkedList<>();
     int rule5Above;
@@ -82,9 +82,9 @@ public class NelsonData {
 
         rule2Count = 0;
         rule3Count = 0;
-        rule3PreviousSample = null;
+        rule3PreviousSample = Double.NaN;
         rule4Count = 0;
-        rule4PreviousSample = null;
+        rule4PreviousSample = Double.NaN;
         rule4PreviousDirection = null;
         rule5LastThree.clear();
         rule5Above = 0;
@@ -107,9 +107,9 @@ public class NelsonData {
             return;
         }
 
-        Double sample;
+        double sample;
         try {
-            sample = Double.valueOf(data.getValue());
+            sample = data.getNumericValue();
         } catch (Exception e) {
             // not a valid numeric data
             return;
@@ -129,7 +129,7 @@ public class NelsonData {
         // violationsData.stream().forEach(d -> System.out.printf(" \n%d %s", d.getTimestamp(), d.getValue()));
         // System.out.println("");
 
-        addSample(sample.doubleValue());
+        addSample(sample);
     }
 
     private void addSample(double sample) {
@@ -210,7 +210,7 @@ public class NelsonData {
 
     // Six (or more) points in a row are continually increasing (or decreasing)
     private boolean rule3(double sample) {
-        if (null == rule3PreviousSample) {
+        if (Double.isNaN(rule3PreviousSample)) {
             rule3PreviousSample = sample;
             rule3Count = 0;
             return false;
@@ -238,8 +238,8 @@ public class NelsonData {
     }
 
     // Fourteen (or more) points in a row alternate in direction, increasing then decreasing
-    private boolean rule4(Double sample) {
-        if (null == rule4PreviousSample || sample.doubleValue() == rule4PreviousSample.doubleValue()) {
+    private boolean rule4(double sample) {
+        if (Double.isNaN(rule4PreviousSample) || sample == rule4PreviousSample) {
             rule4PreviousSample = sample;
             rule4PreviousDirection = "=";
             rule4Count = 0;
@@ -347,7 +347,7 @@ public class NelsonData {
 
     // Eight points in a row exist, but none within 1 standard deviation of the mean
     // and the points are in both directions from the mean
-    private boolean rule8(Double sample) {
+    private boolean rule8(double sample) {
         if (!hasMean()) {
             return false;
         }
@@ -361,8 +361,8 @@ public class NelsonData {
         return rule8Count >= 8;
     }
 
-    private boolean isValid(Double d) {
-        return null != d && !d.isNaN() && !d.isInfinite();
+    private boolean isValid(double d) {
+        return !Double.isNaN(d) && !Double.isInfinite(d);
     }
 
     public NelsonCondition getCondition() {
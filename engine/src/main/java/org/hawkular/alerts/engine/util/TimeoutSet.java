@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.util;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * A Set of items ordered by a deadline, used to track timeouts (i.e. STRICT_TIMEOUT Dampenings or MissingStates)
+ * without scanning all the registered items on every engine period.
+ *
+ * The deadline of an item is computed when it is added. Adding an item already present replaces it and reschedules
+ * it with its current deadline. When an item comes due its deadline is re-evaluated, so an item whose deadline has
+ * moved later is rescheduled instead of being returned as expired.
+ *
+ * This class is not thread safe.
+ */
+public class TimeoutSet<T> extends AbstractSet<T> {
+
+    private final ToLongFunction<T> deadlineFunction;
+    private final Map<T, Long> deadlines = new HashMap<>();
+    private final TreeMap<Long, Set<T>> buckets = new TreeMap<>();
+
+    /**
+     * @param deadlineFunction computes the deadline (in ms) of an item
+     */
+    public TimeoutSet(ToLongFunction<T> deadlineFunction) {
+        if (null == deadlineFunction) {
+            throw new IllegalArgumentException("DeadlineFunction must be not null");
+        }
+        this.deadlineFunction = deadlineFunction;
+    }
+
+    @Override
+    public boolean add(T item) {
+        /* Remove first to replace an equal item by the new instance */
+        Long previous = deadlines.remove(item);
+        if (null != previous) {
+            unschedule(item, previous);
+        }
+        long deadline = deadlineFunction.applyAsLong(item);
+        deadlines.put(item, deadline);
+        buckets.computeIfAbsent(deadline, k -> new LinkedHashSet<>()).add(item);
+        return null == previous;
+    }
+
+    @Override
+    public boolean remove(Object item) {
+        Long deadline = deadlines.remove(item);
+        if (null == deadline) {
+            return false;
+        }
+        unschedule(item, deadline);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object item) {
+        return deadlines.containsKey(item);
+    }
+
+    @Override
+    public int size() {
+        return deadlines.size();
+    }
+
+    @Override
+    public void clear() {
+        deadlines.clear();
+        buckets.clear();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final Iterator<Entry<T, Long>> it = deadlines.entrySet().iterator();
+        return new Iterator<T>() {
+            private Entry<T, Long> current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                current = it.next();
+                return current.getKey();
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                unschedule(current.getKey(), current.getValue());
+            }
+        };
+    }
+
+    /**
+     * The expired items are not removed from the set, the caller is expected to remove or to re-add them.
+     *
+     * @param now the current time (in ms)
+     * @return the items with a deadline less than or equal to now, in deadline order.
+     */
+    public List<T> expired(long now) {
+        if (buckets.isEmpty() || buckets.firstKey() > now) {
+            return Collections.emptyList();
+        }
+        List<T> expired = new ArrayList<>();
+        List<T> rescheduled = null;
+        for (Set<T> bucket : buckets.headMap(now, true).values()) {
+            for (T item : bucket) {
+                if (deadlineFunction.applyAsLong(item) > now) {
+                    if (null == rescheduled) {
+                        rescheduled = new ArrayList<>();
+                    }
+                    rescheduled.add(item);
+                } else {
+                    expired.add(item);
+                }
+            }
+        }
+        if (null != rescheduled) {
+            rescheduled.forEach(this::add);
+        }
+        return expired;
+    }
+
+    /**
+     * @return the earliest deadline of the set, or Long.MAX_VALUE if it is empty.
+     */
+    public long nextDeadline() {
+        return buckets.isEmpty() ? Long.MAX_VALUE : buckets.firstKey();
+    }
+
+    private void unschedule(Object item, long deadline) {
+        Set<T> bucket = buckets.get(deadline);
+        if (null != bucket) {
+            bucket.remove(item);
+            if (bucket.isEmpty()) {
+                buckets.remove(deadline);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.StoreConfiguration;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class IspnCacheManagerTest {
+
+    @BeforeClass
+    public static void init() {
+        System.setProperty("hawkular.data", "./target/ispn");
+    }
+
+    /*
+        A cache manager of its own, the caches are not started, so the shared one of the other tests is not affected
+     */
+    private static EmbeddedCacheManager localCacheManager() throws Exception {
+        try (InputStream is = IspnCacheManager.class.getResourceAsStream("/ispn-alerting-local.xml")) {
+            return new DefaultCacheManager(is);
+        }
+    }
+
+    private static void assertPreload(boolean preload, Configuration configuration) {
+        List<StoreConfiguration> stores = configuration.persistence().stores();
+        assertFalse(stores.isEmpty());
+        stores.forEach(store -> assertEquals(preload, store.preload()));
+    }
+
+    @Test
+    public void backendLoadedOnDemand() throws Exception {
+        EmbeddedCacheManager cacheManager = localCacheManager();
+        try {
+            Configuration backend = cacheManager.getCacheConfiguration("backend");
+            String indexData = backend.indexing().properties().getProperty("default.data_cachename");
+            assertNotNull(indexData);
+            assertPreload(true, backend);
+            assertPreload(true, cacheManager.getCacheConfiguration(indexData));
+
+            IspnCacheManager.withoutPreload(cacheManager, 50);
+
+            backend = cacheManager.getCacheConfiguration("backend");
+            assertPreload(false, backend);
+            assertEquals(EvictionType.COUNT, backend.memory().evictionType());
+            assertEquals(50, backend.memory().size());
+            assertTrue(backend.indexing().index().isEnabled());
+            assertEquals(indexData, backend.indexing().properties().getProperty("default.data_cachename"));
+            assertPreload(false, cacheManager.getCacheConfiguration(indexData));
+        } finally {
+            cacheManager.stop();
+        }
+    }
+
+    @Test
+    public void backendWithoutMaxEntries() throws Exception {
+        EmbeddedCacheManager cacheManager = localCacheManager();
+        try {
+            long size = cacheManager.getCacheConfiguration("backend").memory().size();
+
+            IspnCacheManager.withoutPreload(cacheManager, 0);
+
+            Configuration backend = cacheManager.getCacheConfiguration("backend");
+            assertPreload(false, backend);
+            assertEquals(size, backend.memory().size());
+        } finally {
+            cacheManager.stop();
+        }
+    }
+}
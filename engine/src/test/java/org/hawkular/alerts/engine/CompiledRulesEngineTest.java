@@ -0,0 +1,356 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.hawkular.alerts.api.model.condition.AvailabilityCondition;
+import org.hawkular.alerts.api.model.condition.CompareCondition;
+import org.hawkular.alerts.api.model.condition.ConditionEval;
+import org.hawkular.alerts.api.model.condition.EventCondition;
+import org.hawkular.alerts.api.model.condition.MissingCondition;
+import org.hawkular.alerts.api.model.condition.MissingConditionEval;
+import org.hawkular.alerts.api.model.condition.StringCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdRangeCondition;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.AvailabilityType;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.event.EventType;
+import org.hawkular.alerts.api.model.trigger.Mode;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.engine.impl.CompiledRulesEngineImpl;
+import org.hawkular.alerts.engine.impl.DroolsRulesEngineImpl;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.hawkular.alerts.engine.util.MissingState;
+import org.hawkular.commons.log.MsgLogging;
+import org.junit.Test;
+
+/**
+ * Run the RulesEngine tests evaluating the supported triggers without rules.
+ */
+public class CompiledRulesEngineTest extends RulesEngineTest {
+
+    @Override
+    protected RulesEngine createRulesEngine() {
+        return new CompiledRulesEngineImpl(new DroolsRulesEngineImpl());
+    }
+
+    @Test
+    public void compiledEventsChainedToFallback() {
+        // compiled, generates an event for each datum > 10
+        Trigger t1 = new Trigger("tenant", "trigger-1", "Threshold-GT");
+        t1.setEventType(EventType.EVENT);
+        ThresholdCondition t1c1 = new ThresholdCondition("tenant", "trigger-1", 1, 1,
+                "NumericData-01",
+                ThresholdCondition.Operator.GT, 10.0);
+
+        // fallback, alerts on trigger-1 events
+        Trigger t2 = new Trigger("tenant", "trigger-2", "Chained");
+        EventCondition t2c1 = new EventCondition("tenant", "trigger-2", Mode.FIRING, "trigger-1", null);
+
+        datums.add(Data.forNumeric("tenant", "NumericData-01", 1000, 15.0));
+        datums.add(Data.forNumeric("tenant", "NumericData-01", 2000, 5.0));
+        datums.add(Data.forNumeric("tenant", "NumericData-01", 3000, 20.0));
+
+        t1.setEnabled(true);
+        t2.setEnabled(true);
+
+        rulesEngine.addFact(t1);
+        rulesEngine.addFact(t1c1);
+        rulesEngine.addFact(t2);
+        rulesEngine.addFact(t2c1);
+
+        assertNotNull(rulesEngine.getFact(t1));
+        assertNotNull(rulesEngine.getFact(t2));
+
+        rulesEngine.addData(datums);
+
+        rulesEngine.fire();
+
+        assertEquals(outputEvents.toString(), 2, outputEvents.size());
+        outputEvents.stream().forEach(e -> assertEquals("trigger-1", e.getTrigger().getId()));
+        assertEquals(alerts.toString(), 2, alerts.size());
+        alerts.stream().forEach(a -> assertEquals("trigger-2", a.getTriggerId()));
+    }
+
+    /*
+        The scenarios below run the same facts and data on a DroolsRulesEngineImpl and on a CompiledRulesEngineImpl,
+        check that the triggers are evaluated without rules, and compare the alerts, autoresolved and disabled
+        triggers of both engines.
+     */
+
+    private static class Run {
+        final RulesEngine engine;
+        final String[] triggerIds;
+        boolean loaded;
+        final List<Alert> alerts = new ArrayList<>();
+        final List<Event> events = new ArrayList<>();
+        final Set<Dampening> pendingTimeouts = new HashSet<>();
+        final Map<Trigger, List<Set<ConditionEval>>> autoResolvedTriggers = new HashMap<>();
+        final Set<Trigger> disabledTriggers = new HashSet<>();
+
+        Run(RulesEngine engine, String... triggerIds) {
+            this.engine = engine;
+            this.triggerIds = triggerIds;
+            engine.addGlobal("log", MsgLogging.getMsgLogger(Run.class));
+            engine.addGlobal("alerts", alerts);
+            engine.addGlobal("events", events);
+            engine.addGlobal("pendingTimeouts", pendingTimeouts);
+            engine.addGlobal("autoResolvedTriggers", autoResolvedTriggers);
+            engine.addGlobal("disabledTriggers", disabledTriggers);
+        }
+
+        /*
+            Triggers can be retracted by autoresolve, so they are checked once all facts are loaded.
+         */
+        private void checkLoaded() {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+            if (engine instanceof CompiledRulesEngineImpl) {
+                for (String triggerId : triggerIds) {
+                    assertTrue(triggerId, ((CompiledRulesEngineImpl) engine).isCompiled("tenant", triggerId));
+                }
+            }
+        }
+
+        void addData(Data... data) {
+            checkLoaded();
+            TreeSet<Data> batch = new TreeSet<>();
+            for (Data d : data) {
+                batch.add(d);
+            }
+            engine.addData(batch);
+            engine.fire();
+        }
+
+        void fireNoData() {
+            checkLoaded();
+            engine.fireNoData();
+        }
+
+        List<String> outcome() {
+            List<String> outcome = new ArrayList<>();
+            for (Alert a : alerts) {
+                outcome.add("alert " + a.getTriggerId() + " " + evals(a.getEvalSets()));
+            }
+            for (Event e : events) {
+                outcome.add("event " + e.getDataId() + " " + evals(e.getEvalSets()));
+            }
+            autoResolvedTriggers.keySet().stream().map(t -> "autoresolved " + t.getId()).sorted()
+                    .forEach(outcome::add);
+            disabledTriggers.stream().map(t -> "disabled " + t.getId()).sorted().forEach(outcome::add);
+            return outcome;
+        }
+
+        private static String evals(List<Set<ConditionEval>> evalSets) {
+            return evalSets.stream()
+                    .map(evalSet -> evalSet.stream()
+                            .map(e -> e.getType() + ":" + e.getConditionSetIndex() + "@" + e.getDataTimestamp()
+                                    + "=" + e.isMatch())
+                            .sorted()
+                            .collect(Collectors.joining(",", "{", "}")))
+                    .collect(Collectors.joining());
+        }
+    }
+
+    private static void assertSameAsDrools(Consumer<Run> scenario, String... triggerIds) {
+        Run drools = new Run(new DroolsRulesEngineImpl(), triggerIds);
+        Run compiled = new Run(new CompiledRulesEngineImpl(new DroolsRulesEngineImpl()), triggerIds);
+        try {
+            scenario.accept(drools);
+            scenario.accept(compiled);
+
+            assertTrue(compiled.loaded);
+            assertFalse(drools.outcome().isEmpty());
+            assertEquals(drools.outcome(), compiled.outcome());
+        } finally {
+            drools.engine.reset();
+            compiled.engine.reset();
+        }
+    }
+
+    private static Trigger trigger(String triggerId) {
+        Trigger t = new Trigger("tenant", triggerId, triggerId);
+        t.setEnabled(true);
+        return t;
+    }
+
+    @Test
+    public void compiledThresholdSameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new ThresholdCondition("tenant", "trigger-1", 1, 1, "NumericData-01",
+                    ThresholdCondition.Operator.GT, 10.0));
+            run.addData(Data.forNumeric("tenant", "NumericData-01", 1000, 5.0),
+                    Data.forNumeric("tenant", "NumericData-01", 2000, 15.0),
+                    Data.forNumeric("tenant", "NumericData-01", 3000, 10.0));
+            run.addData(Data.forNumeric("tenant", "NumericData-01", 4000, 20.0));
+        }, "trigger-1");
+    }
+
+    @Test
+    public void compiledRangeSameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new ThresholdRangeCondition("tenant", "trigger-1", 1, 1, "NumericData-01",
+                    ThresholdRangeCondition.Operator.INCLUSIVE, ThresholdRangeCondition.Operator.EXCLUSIVE,
+                    10.0, 20.0, true));
+            run.addData(Data.forNumeric("tenant", "NumericData-01", 1000, 10.0),
+                    Data.forNumeric("tenant", "NumericData-01", 2000, 20.0),
+                    Data.forNumeric("tenant", "NumericData-01", 3000, 15.0),
+                    Data.forNumeric("tenant", "NumericData-01", 4000, 5.0));
+        }, "trigger-1");
+    }
+
+    @Test
+    public void compiledCompareSameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new CompareCondition("tenant", "trigger-1", "NumericData-01",
+                    CompareCondition.Operator.GT, 1.5, "NumericData-02"));
+            run.addData(Data.forNumeric("tenant", "NumericData-01", 1000, 10.0),
+                    Data.forNumeric("tenant", "NumericData-02", 1000, 10.0));
+            run.addData(Data.forNumeric("tenant", "NumericData-01", 2000, 16.0));
+            run.addData(Data.forNumeric("tenant", "NumericData-02", 3000, 5.0),
+                    Data.forNumeric("tenant", "NumericData-01", 3000, 7.0));
+        }, "trigger-1");
+    }
+
+    @Test
+    public void compiledStringSameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new StringCondition("tenant", "trigger-1", 1, 1, "StringData-01",
+                    StringCondition.Operator.STARTS_WITH, "Fo", true));
+            run.engine.addFact(trigger("trigger-2"));
+            run.engine.addFact(new StringCondition("tenant", "trigger-2", 1, 1, "StringData-01",
+                    StringCondition.Operator.MATCH, "b.*r", false));
+            run.addData(Data.forString("tenant", "StringData-01", 1000, "foo"),
+                    Data.forString("tenant", "StringData-01", 2000, "bar"),
+                    Data.forString("tenant", "StringData-01", 3000, "Bar"));
+        }, "trigger-1", "trigger-2");
+    }
+
+    @Test
+    public void compiledAvailabilitySameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new AvailabilityCondition("tenant", "trigger-1", 1, 1, "AvailData-01",
+                    AvailabilityCondition.Operator.NOT_UP));
+            run.addData(Data.forAvailability("tenant", "AvailData-01", 1000, AvailabilityType.UP),
+                    Data.forAvailability("tenant", "AvailData-01", 2000, AvailabilityType.DOWN),
+                    Data.forAvailability("tenant", "AvailData-01", 3000, AvailabilityType.UNAVAILABLE));
+        }, "trigger-1");
+    }
+
+    @Test
+    public void compiledDampeningSameAsDrools() {
+        assertSameAsDrools(run -> {
+            run.engine.addFact(trigger("trigger-1"));
+            run.engine.addFact(new AvailabilityCondition("tenant", "trigger-1", 1, 1, "AvailData-01",
+                    AvailabilityCondition.Operator.DOWN));
+            run.engine.addFact(Dampening.forStrict("tenant", "trigger-1", Mode.FIRING, 2));
+            run.engine.addFact(trigger("trigger-2"));
+            run.engine.addFact(new AvailabilityCondition("tenant", "trigger-2", 1, 1, "AvailData-01",
+                    AvailabilityCondition.Operator.DOWN));
+            run.engine.addFact(Dampening.forRelaxedCount("tenant", "trigger-2", Mode.FIRING, 2, 3));
+            long timestamp = 1000;
+            for (AvailabilityType avail : new AvailabilityType[] { AvailabilityType.DOWN, AvailabilityType.UP,
+                    AvailabilityType.DOWN, AvailabilityType.DOWN, AvailabilityType.UP, AvailabilityType.DOWN,
+                    AvailabilityType.UP, AvailabilityType.UP, AvailabilityType.DOWN }) {
+                run.addData(Data.forAvailability("tenant", "AvailData-01", timestamp, avail));
+                timestamp += 1000;
+            }
+        }, "trigger-1", "trigger-2");
+    }
+
+    @Test
+    public void compiledAutoResolveSameAsDrools() {
+        assertSameAsDrools(run -> {
+            Trigger t1 = trigger("trigger-1");
+            t1.setAutoResolve(true);
+            t1.setAutoResolveAlerts(true);
+            run.engine.addFact(t1);
+            run.engine.addFact(new AvailabilityCondition("tenant", "trigger-1", Mode.FIRING, 1, 1, "AvailData-01",
+                    AvailabilityCondition.Operator.DOWN));
+            run.engine.addFact(Dampening.forStrict("tenant", "trigger-1", Mode.FIRING, 2));
+            run.engine.addFact(new AvailabilityCondition("tenant", "trigger-1", Mode.AUTORESOLVE, 1, 1, "AvailData-01",
+                    AvailabilityCondition.Operator.UP));
+            run.engine.addFact(Dampening.forStrict("tenant", "trigger-1", Mode.AUTORESOLVE, 2));
+            long timestamp = 1000;
+            for (AvailabilityType avail : new AvailabilityType[] { AvailabilityType.DOWN, AvailabilityType.DOWN,
+                    AvailabilityType.DOWN, AvailabilityType.UP, AvailabilityType.DOWN, AvailabilityType.UP,
+                    AvailabilityType.UP }) {
+                run.addData(Data.forAvailability("tenant", "AvailData-01", timestamp, avail));
+                timestamp += 1000;
+            }
+        }, "trigger-1");
+    }
+
+    @Test
+    public void compiledMissingDataSameAsDrools() {
+        long base = 1000000L;
+        assertSameAsDrools(run -> {
+            Trigger t1 = trigger("trigger-1");
+            MissingCondition c1 = new MissingCondition("tenant", "trigger-1", "AvailData-01", 3000L);
+            MissingState missingState = new MissingState(t1, c1);
+            missingState.setPreviousTime(base);
+            missingState.setTime(base);
+            run.engine.addFact(t1);
+            run.engine.addFact(c1);
+            run.engine.addFact(missingState);
+
+            checkMissingState(run.engine, missingState, base + 4000);
+            run.fireNoData();
+            run.addData(Data.forAvailability("tenant", "AvailData-01", base + 5000, AvailabilityType.UP));
+            checkMissingState(run.engine, missingState, base + 6000);
+            run.fireNoData();
+            checkMissingState(run.engine, missingState, base + 9000);
+            run.fireNoData();
+        }, "trigger-1");
+    }
+
+    private static void checkMissingState(RulesEngine engine, MissingState missingState, long evalTime) {
+        MissingConditionEval eval = new MissingConditionEval(missingState.getCondition(),
+                missingState.getPreviousTime(), evalTime);
+        if (eval.isMatch()) {
+            engine.removeFact(missingState);
+            missingState.setPreviousTime(evalTime);
+            missingState.setTime(evalTime);
+            engine.addFact(missingState);
+            engine.addFact(eval);
+        }
+    }
+}
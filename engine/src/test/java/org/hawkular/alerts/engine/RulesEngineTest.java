@@ -17,11 +17,14 @@
 package org.hawkular.alerts.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -40,6 +43,7 @@ import org.hawkular.alerts.api.model.condition.AvailabilityCondition;
 import org.hawkular.alerts.api.model.condition.AvailabilityConditionEval;
 import org.hawkular.alerts.api.model.condition.CompareCondition;
 import org.hawkular.alerts.api.model.condition.CompareConditionEval;
+import org.hawkular.alerts.api.model.condition.Condition;
 import org.hawkular.alerts.api.model.condition.ConditionEval;
 import org.hawkular.alerts.api.model.condition.EventCondition;
 import org.hawkular.alerts.api.model.condition.ExternalCondition;
@@ -67,6 +71,7 @@ import org.hawkular.alerts.api.model.event.EventType;
 import org.hawkular.alerts.api.model.trigger.Match;
 import org.hawkular.alerts.api.model.trigger.Mode;
 import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
 import org.hawkular.alerts.engine.impl.DroolsRulesEngineImpl;
 import org.hawkular.alerts.engine.service.RulesEngine;
 import org.hawkular.alerts.engine.util.MissingState;
@@ -85,7 +90,7 @@ import org.junit.Test;
 public class RulesEngineTest {
     private static final MsgLogger log = MsgLogging.getMsgLogger(RulesEngineTest.class);
 
-    RulesEngine rulesEngine = new DroolsRulesEngineImpl();
+    RulesEngine rulesEngine = createRulesEngine();
     List<Alert> alerts = new ArrayList<>();
     Set<Dampening> pendingTimeouts = new HashSet<>();
     Map<Trigger, List<Set<ConditionEval>>> autoResolvedTriggers = new HashMap<>();
@@ -95,6 +100,10 @@ public class RulesEngineTest {
     List<Event> outputEvents = new ArrayList<>();
     Set<MissingState> missingStates = new HashSet<>();
 
+    protected RulesEngine createRulesEngine() {
+        return new DroolsRulesEngineImpl();
+    }
+
     @Before
     public void before() {
         rulesEngine.addGlobal("log", log);
@@ -1948,6 +1957,114 @@ public class RulesEngineTest {
         assertTrue(rulesEngine.getFact(jsonfmt1c2eval) != null);
     }
 
+    @Test
+    public void removeTriggerFactsTest() throws Exception {
+        Trigger t1 = new Trigger("tenant", "trigger-1", "Threshold");
+        ThresholdCondition t1c1 = new ThresholdCondition("tenant", "trigger-1", Mode.FIRING,
+                "NumericData-01", ThresholdCondition.Operator.GT, 10d);
+        Dampening t1d = Dampening.forStrict("tenant", "trigger-1", Mode.FIRING, 2);
+        Trigger t2 = new Trigger("tenant", "trigger-2", "Threshold");
+        ThresholdCondition t2c1 = new ThresholdCondition("tenant", "trigger-2", Mode.FIRING,
+                "NumericData-01", ThresholdCondition.Operator.GT, 10d);
+
+        t1.setEnabled(true);
+        t2.setEnabled(true);
+        rulesEngine.addFact(t1);
+        rulesEngine.addFact(t1c1);
+        rulesEngine.addFact(t1d);
+        rulesEngine.addFact(t2);
+        rulesEngine.addFact(t2c1);
+
+        Collection<Object> removed = rulesEngine.removeTriggerFacts("tenant", "trigger-1");
+        assertTrue(removed.toString(), removed.containsAll(Arrays.asList(t1, t1c1, t1d)));
+        assertNull(rulesEngine.getFact(t1));
+        assertNull(rulesEngine.getFact(t1c1));
+        assertNull(rulesEngine.getFact(t1d));
+        assertNotNull(rulesEngine.getFact(t2));
+        assertNotNull(rulesEngine.getFact(t2c1));
+        assertTrue(rulesEngine.removeTriggerFacts("tenant", "trigger-1").isEmpty());
+
+        datums.add(Data.forNumeric("tenant", "NumericData-01", 1, 15d));
+        rulesEngine.addData(datums);
+        rulesEngine.fire();
+
+        assertEquals(1, alerts.size());
+        assertEquals("trigger-2", alerts.get(0).getTriggerId());
+
+        rulesEngine.removeFacts(f -> f instanceof Condition && ((Condition) f).getTriggerId().equals("trigger-2"));
+        assertNull(rulesEngine.getFact(t2c1));
+        assertNotNull(rulesEngine.getFact(t2));
+    }
+
+    @Test
+    public void triggerProfilesTest() throws Exception {
+        assertTrue(rulesEngine.getTriggerProfiles("tenant", 10).isEmpty());
+
+        RulesEngine profiledEngine;
+        System.setProperty(RulesEngine.RULES_ENGINE_PROFILING, "true");
+        try {
+            profiledEngine = createRulesEngine();
+        } finally {
+            System.clearProperty(RulesEngine.RULES_ENGINE_PROFILING);
+        }
+        profiledEngine.addGlobal("log", log);
+        profiledEngine.addGlobal("alerts", alerts);
+        profiledEngine.addGlobal("events", outputEvents);
+        profiledEngine.addGlobal("pendingTimeouts", pendingTimeouts);
+        profiledEngine.addGlobal("autoResolvedTriggers", autoResolvedTriggers);
+        profiledEngine.addGlobal("disabledTriggers", disabledTriggers);
+
+        try {
+            Trigger t1 = new Trigger("tenant", "trigger-1", "String");
+            StringCondition t1c1 = new StringCondition("tenant", "trigger-1", "StringData-01",
+                    StringCondition.Operator.STARTS_WITH, "ERROR", false);
+            Trigger t2 = new Trigger("tenant", "trigger-2", "Threshold");
+            ThresholdCondition t2c1 = new ThresholdCondition("tenant", "trigger-2", "NumericData-01",
+                    ThresholdCondition.Operator.GT, 10d);
+
+            t1.setEnabled(true);
+            t2.setEnabled(true);
+            profiledEngine.addFact(t1);
+            profiledEngine.addFact(t1c1);
+            profiledEngine.addFact(t2);
+            profiledEngine.addFact(t2c1);
+
+            datums.add(Data.forString("tenant", "StringData-01", 1000, "ERROR: one"));
+            datums.add(Data.forString("tenant", "StringData-01", 2000, "INFO: two"));
+            datums.add(Data.forString("tenant", "StringData-01", 3000, "ERROR: three"));
+            datums.add(Data.forNumeric("tenant", "NumericData-01", 1000, 5d));
+            profiledEngine.addData(datums);
+            profiledEngine.fire();
+
+            List<TriggerProfile> profiles = profiledEngine.getTriggerProfiles("tenant", 10);
+            Map<String, TriggerProfile> byTrigger = new HashMap<>();
+            for (int i = 0; i < profiles.size(); i++) {
+                byTrigger.put(profiles.get(i).getTriggerId(), profiles.get(i));
+                if (i > 0) {
+                    assertTrue(profiles.toString(),
+                            profiles.get(i - 1).getEvalTime() >= profiles.get(i).getEvalTime());
+                }
+            }
+            TriggerProfile p1 = byTrigger.get("trigger-1");
+            TriggerProfile p2 = byTrigger.get("trigger-2");
+            assertNotNull(profiles.toString(), p1);
+            assertNotNull(profiles.toString(), p2);
+            assertEquals("tenant", p1.getTenantId());
+            assertEquals(3, p1.getConditionEvals());
+            assertEquals(1, p2.getConditionEvals());
+            assertTrue(p1.toString(), p1.getFirings() >= 3);
+            assertTrue(p2.toString(), p2.getFirings() >= 1);
+
+            assertEquals(1, profiledEngine.getTriggerProfiles("tenant", 1).size());
+            assertTrue(profiledEngine.getTriggerProfiles("other-tenant", 10).isEmpty());
+
+            profiledEngine.reset();
+            assertTrue(profiledEngine.getTriggerProfiles("tenant", 10).isEmpty());
+        } finally {
+            profiledEngine.reset();
+        }
+    }
+
     public void checkMissingStates(long evalTime) {
         missingStates.stream().forEach(missingState -> {
             MissingConditionEval eval = new MissingConditionEval(missingState.getCondition(),
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hawkular.alerts.engine.impl.ShardedRulesEngineImpl;
+import org.hawkular.alerts.engine.service.RulesEngine;
+import org.junit.Test;
+
+/**
+ * Run the RulesEngine tests partitioning the triggers across several sessions.
+ */
+public class ShardedRulesEngineTest extends RulesEngineTest {
+
+    @Override
+    protected RulesEngine createRulesEngine() {
+        return new ShardedRulesEngineImpl(4);
+    }
+
+    @Test
+    public void shardThreadsEndOnReset() throws Exception {
+        Set<Thread> previous = new HashSet<>(Thread.getAllStackTraces().keySet());
+        RulesEngine sharded = createRulesEngine();
+        sharded.fireNoData();
+        Set<Thread> shardThreads = new HashSet<>(Thread.getAllStackTraces().keySet());
+        shardThreads.removeAll(previous);
+        shardThreads.removeIf(t -> !t.getName().startsWith("RulesEngine-Shard-"));
+        assertEquals(4, shardThreads.size());
+
+        sharded.reset();
+        for (Thread shardThread : shardThreads) {
+            shardThread.join(5000);
+            assertFalse(shardThread.getName(), shardThread.isAlive());
+        }
+
+        /*
+            The pool is created again on demand
+         */
+        sharded.fireNoData();
+        sharded.clear();
+    }
+}
@@ -16,9 +16,13 @@
  */
 package org.hawkular.alerts.engine.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Map;
+import java.util.Set;
+
 import org.hawkular.alerts.engine.impl.AlertsEngineCache.DataEntry;
 import org.junit.Test;
 
@@ -55,4 +59,64 @@ public class AlertsEngineCacheTest {
         assertFalse(cache.isDataIdActive("o1", "d3"));
     }
 
+    @Test
+    public void sharedDataIdTest() {
+        AlertsEngineCache cache = new AlertsEngineCache();
+
+        /* i.e. a compare condition or several conditions of the same trigger on the same dataId */
+        cache.add(new DataEntry("o1", "t1", "d1"));
+        cache.add(new DataEntry("o1", "t1", "d1"));
+        cache.add(new DataEntry("o1", "t1", "d2"));
+        cache.add(new DataEntry("o1", "t2", "d1"));
+        cache.add(new DataEntry("o2", "t1", "d1"));
+        assertEquals(3, cache.getNumTriggers());
+        assertEquals(3, cache.getNumDataIds());
+
+        cache.remove("o1", "t1");
+        assertTrue(cache.isDataIdActive("o1", "d1"));
+        assertFalse(cache.isDataIdActive("o1", "d2"));
+        assertTrue(cache.isDataIdActive("o2", "d1"));
+
+        /* removing an unknown or already removed trigger is a no-op */
+        cache.remove("o1", "t1");
+        cache.remove("o1", "t3");
+        assertTrue(cache.isDataIdActive("o1", "d1"));
+
+        cache.remove("o1", "t2");
+        assertFalse(cache.isDataIdActive("o1", "d1"));
+        assertTrue(cache.isDataIdActive("o2", "d1"));
+        assertFalse(cache.isDataIdActive(null, "d1"));
+
+        cache.clear();
+        assertFalse(cache.isDataIdActive("o2", "d1"));
+        assertEquals(0, cache.getNumTriggers());
+        assertEquals(0, cache.getNumDataIds());
+    }
+
+    @Test
+    public void versionTest() {
+        AlertsEngineCache cache = new AlertsEngineCache();
+        long version = cache.getVersion();
+
+        cache.add(new DataEntry("o1", "t1", "d1"));
+        assertTrue(cache.getVersion() != version);
+        version = cache.getVersion();
+
+        /* a new reference to an active dataId does not change the active dataIds */
+        cache.add(new DataEntry("o1", "t2", "d1"));
+        cache.remove("o1", "t1");
+        assertEquals(version, cache.getVersion());
+
+        cache.add(new DataEntry("o2", "t1", "d2"));
+        Map<String, Set<String>> dataIds = cache.getActiveDataIds();
+        assertEquals(2, dataIds.size());
+        assertTrue(dataIds.get("o1").contains("d1"));
+        assertTrue(dataIds.get("o2").contains("d2"));
+        version = cache.getVersion();
+
+        cache.remove("o1", "t2");
+        assertTrue(cache.getVersion() != version);
+        assertFalse(cache.getActiveDataIds().containsKey("o1"));
+    }
+
 }
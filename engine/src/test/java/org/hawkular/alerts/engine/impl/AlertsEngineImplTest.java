@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.alerts.api.model.data.Data;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing the lifecycle of the evaluation loop of the AlertsEngineImpl.
+ */
+public class AlertsEngineImplTest {
+
+    /*
+        Rules engine recording the concurrent evaluations on the session
+     */
+    static class SlowRulesEngine extends DroolsRulesEngineImpl {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final CountDownLatch firing = new CountDownLatch(1);
+        volatile long fireMillis = 0;
+        final List<Data> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void addData(TreeSet<Data> data) {
+            received.addAll(data);
+            super.addData(data);
+        }
+
+        @Override
+        public void fire() {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            firing.countDown();
+            try {
+                Thread.sleep(fireMillis);
+                super.fire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    AlertsEngineImpl engine;
+    SlowRulesEngine rules;
+
+    @Before
+    public void before() {
+        System.setProperty("hawkular-alerts.engine-delay", "0");
+        System.setProperty("hawkular-alerts.engine-batch-delay", "0");
+        engine = new AlertsEngineImpl();
+        rules = new SlowRulesEngine();
+        engine.setRules(rules);
+        ExtensionsServiceImpl extensions = new ExtensionsServiceImpl();
+        extensions.init();
+        engine.setExtensionsService(extensions);
+        engine.reload();
+    }
+
+    @After
+    public void after() {
+        engine.shutdown();
+        System.clearProperty("hawkular-alerts.engine-delay");
+        System.clearProperty("hawkular-alerts.engine-batch-delay");
+    }
+
+    private static TreeSet<Data> data(int i) {
+        TreeSet<Data> data = new TreeSet<>();
+        data.add(Data.forNumeric("tenant", "dataId", i + 1, (double) i));
+        return data;
+    }
+
+    @Test
+    public void clearWaitsForRunningEvaluation() throws Exception {
+        rules.fireMillis = 500;
+        engine.sendData(data(1));
+        assertTrue(rules.firing.await(5, TimeUnit.SECONDS));
+
+        /*
+            The previous RulesInvoker must be stopped before a new one uses the session
+         */
+        engine.clear();
+        assertEquals(0, rules.active.get());
+
+        rules.fireMillis = 0;
+        engine.sendData(data(2));
+        engine.reload();
+        engine.sendData(data(3));
+        Thread.sleep(200);
+        assertEquals(1, rules.maxActive.get());
+    }
+
+    @Test
+    public void sendDataCopiesCallerSet() throws Exception {
+        rules.fireMillis = 300;
+        engine.sendData(data(1));
+        assertTrue(rules.firing.await(5, TimeUnit.SECONDS));
+
+        /*
+            The set is modified by the caller while it is pending evaluation
+         */
+        TreeSet<Data> data = data(2);
+        engine.sendData(data);
+        data.clear();
+        data.addAll(data(3));
+
+        Thread.sleep(1000);
+        assertEquals(2, rules.received.size());
+        assertEquals(data(2).first(), rules.received.get(1));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Event;
+import org.junit.Test;
+
+/**
+ * Testing the routing of data and events to the nodes holding triggers on their dataIds.
+ */
+public class DataRoutingTest {
+
+    private static Map<String, Set<String>> dataIds(String tenantId, String... dataIds) {
+        Map<String, Set<String>> nodeDataIds = new HashMap<>();
+        nodeDataIds.put(tenantId, new HashSet<>(Arrays.asList(dataIds)));
+        return nodeDataIds;
+    }
+
+    @Test
+    public void routeData() {
+        Map<Integer, Map<String, Set<String>>> nodesDataIds = new HashMap<>();
+        nodesDataIds.put(1, dataIds("tenant1", "d1", "d2"));
+        nodesDataIds.put(2, dataIds("tenant1", "d2", "d3"));
+        nodesDataIds.put(3, dataIds("tenant2", "d1"));
+        Map<String, Map<String, Set<Integer>>> routes = PartitionManagerImpl.buildRoutes(nodesDataIds);
+
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), routes.get("tenant1").get("d2"));
+        assertEquals(new HashSet<>(Arrays.asList(3)), routes.get("tenant2").get("d1"));
+
+        List<Data> data = new ArrayList<>();
+        for (String dataId : Arrays.asList("d1", "d2", "d3", "d4")) {
+            data.add(Data.forNumeric("tenant1", dataId, 1L, 1.0));
+        }
+        data.add(Data.forNumeric("tenant2", "d1", 1L, 1.0));
+        data.add(Data.forNumeric("tenant3", "d1", 1L, 1.0));
+
+        /* node 1 is the sender, it processes the data locally */
+        Map<Integer, List<Data>> routed = PartitionManagerImpl.route(data, Data::getTenantId, Data::getId, routes, 1);
+        assertFalse(routed.containsKey(1));
+        assertEquals(2, routed.get(2).size());
+        assertTrue(routed.get(2).stream().allMatch(d -> d.getTenantId().equals("tenant1")));
+        assertEquals(1, routed.get(3).size());
+        assertEquals("tenant2", routed.get(3).get(0).getTenantId());
+
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("tenant1", "e1", "d3", "category", "text"));
+        events.add(new Event("tenant1", "e2", "d5", "category", "text"));
+        Map<Integer, List<Event>> routedEvents = PartitionManagerImpl.route(events, Event::getTenantId,
+                Event::getDataId, routes, 3);
+        assertEquals(1, routedEvents.size());
+        assertEquals("e1", routedEvents.get(2).get(0).getId());
+
+        assertTrue(PartitionManagerImpl.route(data, Data::getTenantId, Data::getId,
+                PartitionManagerImpl.buildRoutes(null), 1).isEmpty());
+    }
+
+    @Test
+    public void dropUnroutedData() {
+        Map<Integer, Map<String, Set<String>>> nodesDataIds = new HashMap<>();
+        nodesDataIds.put(1, dataIds("tenant1", "d1"));
+        nodesDataIds.put(2, dataIds("tenant1", "d2"));
+        Map<String, Map<String, Set<Integer>>> routes = PartitionManagerImpl.buildRoutes(nodesDataIds);
+        Map<Integer, String> members = new HashMap<>();
+        members.put(1, "node1");
+        members.put(2, "node2");
+
+        List<Data> data = new ArrayList<>();
+        for (String dataId : Arrays.asList("d1", "d2", "d3")) {
+            data.add(Data.forNumeric("tenant1", dataId, 1L, 1.0));
+        }
+        data.add(Data.forNumeric("tenant2", "d1", 1L, 1.0));
+
+        /* routing complete: d1 is processed locally by the sender, d3 and tenant2 have no routes and are dropped */
+        Map<String, List<Data>> delivered = new HashMap<>();
+        List<Collection<Data>> broadcasted = new ArrayList<>();
+        PartitionManagerImpl.dispatch(data, Data::getTenantId, Data::getId, routes, 1, members,
+                delivered::put, broadcasted::add);
+        assertEquals(1, delivered.size());
+        assertEquals(1, delivered.get("node2").size());
+        assertEquals("d2", delivered.get("node2").get(0).getId());
+        assertTrue(broadcasted.isEmpty());
+
+        /* routing outdated: all data is broadcasted */
+        delivered.clear();
+        PartitionManagerImpl.dispatch(data, Data::getTenantId, Data::getId, routes, 1, null,
+                delivered::put, broadcasted::add);
+        assertTrue(delivered.isEmpty());
+        assertEquals(1, broadcasted.size());
+        assertEquals(data, broadcasted.get(0));
+    }
+}
@@ -16,12 +16,20 @@
  */
 package org.hawkular.alerts.engine.impl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.hawkular.alerts.engine.impl.PartitionManagerImpl.PartitionEntry;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -155,36 +163,96 @@ public class DistributionTest {
     }
 
     @Test
-    public void bucketsServers() {
-
-        PartitionManagerImpl pm = new PartitionManagerImpl();
-
+    public void ringServers() {
         List<PartitionEntry> entries = generateTriggers(3, 1000);
-
-        Map<Integer, Integer> buckets = new HashMap<>();
-        buckets.put(0, 1000);
-        buckets.put(1, 1001);
-
-
-        print("initial - test 2 servers " + buckets.toString());
-
-        Map<PartitionEntry, Integer> newPartition;
-        Map<PartitionEntry, Integer> oldPartition;
-
-        newPartition = pm.calculatePartition(entries, buckets);
-
-        for (int newbucket = 3; newbucket < 10; newbucket++) {
-            buckets.put(newbucket - 1, newbucket + 1000);
-            oldPartition = newPartition;
-            newPartition = pm.calculatePartition(entries, buckets);
-            int changes = comparePartitions(oldPartition, newPartition);
-            print("Changes from " + (newbucket - 1) + "  to " + newbucket + " servers: " + changes + " of " +
-                    oldPartition.size());
-            print("" + (((float)changes / (float)oldPartition.size()) * 100) + " % moved");
-            print("K(" + oldPartition.size() +")/n(" + buckets + "): "
-                    + ((float)oldPartition.size() / (float)newbucket));
+        List<Integer> nodes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            nodes.add(1000 + i);
         }
+        double loadFactor = 1.25;
+        int capacity = ConsistentHashRing.capacity(entries.size(), nodes.size(), loadFactor);
+
+        Map<PartitionEntry, Integer> oldPartition = new ConsistentHashRing(nodes, 100).partition(entries, loadFactor);
+        Map<Integer, Integer> loads = new HashMap<>();
+        oldPartition.values().forEach(node -> loads.merge(node, 1, Integer::sum));
+        print("Loads on 8 servers: " + loads + " capacity: " + capacity);
+        assertTrue(loads.values().stream().allMatch(load -> load <= capacity));
+
+        /* the order of the entries does not change the partition */
+        List<PartitionEntry> shuffled = new ArrayList<>(entries);
+        Collections.shuffle(shuffled);
+        assertTrue(oldPartition.equals(new ConsistentHashRing(nodes, 100).partition(shuffled, loadFactor)));
+
+        /* dropping a server moves its entries and a small cascade, instead of reshuffling the partition */
+        nodes.remove(3);
+        Map<PartitionEntry, Integer> newPartition = new ConsistentHashRing(nodes, 100).partition(entries, loadFactor);
+        int changes = comparePartitions(oldPartition, newPartition);
+        print("Changes from 8 to 7 servers: " + changes + " of " + entries.size());
+        assertTrue(changes < 2 * entries.size() / 8);
+
+        /* a new server takes around 1/N of the entries */
+        nodes.add(2000);
+        oldPartition = newPartition;
+        newPartition = new ConsistentHashRing(nodes, 100).partition(entries, loadFactor);
+        changes = comparePartitions(oldPartition, newPartition);
+        print("Changes from 7 to 8 servers: " + changes + " of " + entries.size());
+        assertTrue(changes < 2 * entries.size() / 8);
     }
 
+    @Test
+    public void ringOperations() {
+        List<PartitionEntry> entries = generateTriggers(3, 100);
+        List<Integer> nodes = Arrays.asList(1000, 1001, 1002);
+        double loadFactor = 1.0;
+        ConsistentHashRing ring = new ConsistentHashRing(nodes, 100);
+        Map<PartitionEntry, Integer> partition = ring.partition(entries, loadFactor);
+
+        /* triggers moved from its position on the ring by the load bounds */
+        List<PartitionEntry> overflowed = entries.stream()
+                .filter(e -> !ring.locate(e).equals(partition.get(e)))
+                .collect(Collectors.toList());
+        print("Overflowed triggers: " + overflowed.size() + " of " + entries.size());
+        assertTrue(overflowed.size() >= 2);
+
+        /* operations on existing triggers are sent to their owner, the partition is not needed */
+        PartitionEntry updated = overflowed.get(0);
+        PartitionEntry removed = overflowed.get(1);
+        Map<String, Map<String, Operation>> operations = new HashMap<>();
+        operations.computeIfAbsent(updated.getTenantId(), t -> new HashMap<>())
+                .put(updated.getTriggerId(), Operation.UPDATE);
+        operations.computeIfAbsent(removed.getTenantId(), t -> new HashMap<>())
+                .put(removed.getTriggerId(), Operation.REMOVE);
+        Map<Integer, Map<String, Map<String, Operation>>> nodesOperations = PartitionManagerImpl
+                .locateOperations(operations, partition::get, () -> {
+                    throw new IllegalStateException("partition not needed");
+                }, ring, loadFactor);
+        assertEquals(Operation.UPDATE, nodesOperations.get(partition.get(updated)).get(updated.getTenantId())
+                .get(updated.getTriggerId()));
+        assertEquals(Operation.REMOVE, nodesOperations.get(partition.get(removed)).get(removed.getTenantId())
+                .get(removed.getTriggerId()));
+
+        /* a new trigger skips its node on the ring if it is full */
+        PartitionEntry added = new PartitionEntry("tenant_new", "trigger_new");
+        Integer position = ring.locate(added);
+        Map<PartitionEntry, Integer> unbalanced = new HashMap<>();
+        entries.forEach(e -> unbalanced.put(e, position));
+        nodesOperations = PartitionManagerImpl.locateOperations(
+                Collections.singletonMap(added.getTenantId(),
+                        Collections.singletonMap(added.getTriggerId(), Operation.ADD)),
+                unbalanced::get, () -> unbalanced, ring, loadFactor);
+        assertEquals(1, nodesOperations.size());
+        Integer node = nodesOperations.keySet().iterator().next();
+        assertNotEquals(position, node);
+        assertTrue(nodes.contains(node));
+
+        /* triggers of a node that left the cluster are placed again */
+        Map<PartitionEntry, Integer> left = new HashMap<>(partition);
+        left.put(updated, 999);
+        nodesOperations = PartitionManagerImpl.locateOperations(
+                Collections.singletonMap(updated.getTenantId(),
+                        Collections.singletonMap(updated.getTriggerId(), Operation.UPDATE)),
+                left::get, () -> left, ring, loadFactor);
+        assertTrue(nodes.contains(nodesOperations.keySet().iterator().next()));
+    }
 
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class EngineMetricsTest {
+
+    @Test
+    public void attributesMatchSnapshot() throws Exception {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.add(EngineMetrics.DATA_RECEIVED, 5);
+        metrics.registerGauge(EngineMetrics.ENGINE_PENDING, () -> 7);
+        for (int i = 1; i <= 10; i++) {
+            metrics.record(EngineMetrics.ENGINE_FIRE_TIME, i);
+        }
+
+        Map<String, Long> snapshot = metrics.getSnapshot();
+        for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), metrics.getAttribute(entry.getKey()));
+        }
+        assertEquals(5L, metrics.getAttribute(EngineMetrics.DATA_RECEIVED));
+        assertEquals(7L, metrics.getAttribute(EngineMetrics.ENGINE_PENDING));
+        assertEquals(10L, metrics.getAttribute(EngineMetrics.ENGINE_FIRE_TIME + ".count"));
+        assertEquals(10L, metrics.getAttribute(EngineMetrics.ENGINE_FIRE_TIME + ".max"));
+
+        assertNull(metrics.getValue(EngineMetrics.ENGINE_FIRE_TIME + ".p75"));
+        assertNull(metrics.getValue("unknown"));
+        try {
+            metrics.getAttribute("unknown");
+            fail("Expected AttributeNotFoundException");
+        } catch (AttributeNotFoundException e) {
+            // expected
+        }
+
+        AttributeList list = metrics.getAttributes(new String[] { EngineMetrics.DATA_RECEIVED, "unknown" });
+        assertEquals(1, list.size());
+        assertEquals(5L, ((Attribute) list.get(0)).getValue());
+    }
+
+    @Test
+    public void invokeHasNoOperations() {
+        EngineMetrics metrics = new EngineMetrics();
+        try {
+            metrics.invoke("reset", new Object[0], new String[0]);
+            fail("Expected ReflectionException");
+        } catch (ReflectionException e) {
+            assertTrue(e.getTargetException() instanceof NoSuchMethodException);
+            assertEquals("reset", e.getTargetException().getMessage());
+        }
+    }
+}
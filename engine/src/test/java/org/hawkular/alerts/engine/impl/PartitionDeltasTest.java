@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.PartitionEntry;
+import org.junit.Test;
+
+/**
+ * Testing the deltas of triggers added and removed on each node on topology changes.
+ *
+ * @author Jay Shaughnessy
+ * @author Lucas Ponce
+ */
+public class PartitionDeltasTest {
+
+    @Test
+    public void distributeLocalPartitions() {
+        PartitionManagerImpl pm = new PartitionManagerImpl();
+
+        PartitionEntry[] entries = new PartitionEntry[10];
+        Map<PartitionEntry, Integer> previous = new HashMap<>();
+        Map<PartitionEntry, Integer> current = new HashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new PartitionEntry("tenant", "t" + i);
+            previous.put(entries[i], 1);
+            if (i < 4) {
+                current.put(entries[i], 1);
+            } else {
+                current.put(entries[i], 2);
+            }
+        }
+        Map<Integer, Map<String, Map<String, List<String>>>> deltas = pm.getPartitionDeltas(previous, current);
+        Map<String, Map<String, List<String>>> node1 = deltas.get(1);
+        Map<String, Map<String, List<String>>> node2 = deltas.get(2);
+        assertEquals(node1.get("added").size(), 0);
+        assertEquals(node1.get("removed").get("tenant").size(), 6);
+        assertEquals(node2.get("removed").size(), 0);
+        assertEquals(node2.get("added").get("tenant").size(), 6);
+    }
+
+    @Test
+    public void partitionDeltas() {
+        PartitionManagerImpl pm = new PartitionManagerImpl();
+
+        Map<PartitionEntry, Integer> current = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            current.put(new PartitionEntry("tenant", "t" + i), i < 5 ? 1 : 2);
+        }
+
+        /* initial partition, each node adds only its own entries */
+        Map<Integer, Map<String, Map<String, List<String>>>> deltas = pm.getPartitionDeltas(null, current);
+        assertEquals(5, deltas.get(1).get("added").get("tenant").size());
+        assertEquals(5, deltas.get(2).get("added").get("tenant").size());
+        assertEquals(0, deltas.get(1).get("removed").size());
+
+        /* node 3 joins and takes t0 and t9, t4 is removed */
+        Map<PartitionEntry, Integer> previous = current;
+        current = new HashMap<>(previous);
+        current.put(new PartitionEntry("tenant", "t0"), 3);
+        current.put(new PartitionEntry("tenant", "t9"), 3);
+        current.remove(new PartitionEntry("tenant", "t4"));
+        deltas = pm.getPartitionDeltas(previous, current);
+        assertEquals(Arrays.asList("t0", "t4"), sorted(deltas.get(1).get("removed").get("tenant")));
+        assertEquals(0, deltas.get(1).get("added").size());
+        assertEquals(Arrays.asList("t9"), deltas.get(2).get("removed").get("tenant"));
+        assertEquals(Arrays.asList("t0", "t9"), sorted(deltas.get(3).get("added").get("tenant")));
+
+        /* nodes without changes do not receive a delta */
+        assertEquals(0, pm.getPartitionDeltas(current, current).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void partitionUpdates() {
+        PartitionManagerImpl pm = new PartitionManagerImpl();
+        List<Integer> members = Arrays.asList(1, 2, 3);
+
+        Map<PartitionEntry, Integer> current = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            current.put(new PartitionEntry("tenant", "t" + i), i < 5 ? 1 : 2);
+        }
+
+        /* initial partition, all entries are written and node 3 receives an empty delta */
+        Map<Object, Object> updates = pm.getPartitionUpdates(null, current,
+                pm.getPartitionDeltas(null, current), members);
+        assertEquals(10 + 1 + 3, updates.size());
+        assertEquals(Boolean.TRUE, updates.get(PartitionManagerImpl.PARTITION_INITIALIZED));
+        current.entrySet().stream().forEach(e -> assertEquals(e.getValue(), updates.get(e.getKey())));
+        Map<String, Map<String, List<String>>> delta1 =
+                (Map<String, Map<String, List<String>>>) updates.get(PartitionManagerImpl.PARTITION_DELTA + 1);
+        assertEquals(5, delta1.get("added").get("tenant").size());
+        Map<String, Map<String, List<String>>> delta3 =
+                (Map<String, Map<String, List<String>>>) updates.get(PartitionManagerImpl.PARTITION_DELTA + 3);
+        assertTrue(delta3.get("added").isEmpty());
+        assertTrue(delta3.get("removed").isEmpty());
+
+        /* node 2 leaves, only its moved entries are written and node 3 receives them */
+        Map<PartitionEntry, Integer> previous = current;
+        Map<PartitionEntry, Integer> moved = new HashMap<>(previous);
+        moved.entrySet().stream().filter(e -> e.getValue() == 2).forEach(e -> e.setValue(3));
+        members = Arrays.asList(1, 3);
+        Map<Object, Object> movedUpdates = pm.getPartitionUpdates(previous, moved,
+                pm.getPartitionDeltas(previous, moved), members);
+        assertEquals(5 + 1 + 2, movedUpdates.size());
+        assertFalse(movedUpdates.containsKey(new PartitionEntry("tenant", "t0")));
+        assertEquals(3, movedUpdates.get(new PartitionEntry("tenant", "t9")));
+        assertFalse(movedUpdates.containsKey(PartitionManagerImpl.PARTITION_DELTA + 2));
+        Map<String, Map<String, List<String>>> moved3 =
+                (Map<String, Map<String, List<String>>>) movedUpdates.get(PartitionManagerImpl.PARTITION_DELTA + 3);
+        assertEquals(5, moved3.get("added").get("tenant").size());
+        Map<String, Map<String, List<String>>> moved1 =
+                (Map<String, Map<String, List<String>>>) movedUpdates.get(PartitionManagerImpl.PARTITION_DELTA + 1);
+        assertTrue(moved1.get("added").isEmpty());
+        assertTrue(moved1.get("removed").isEmpty());
+
+        /* the delta of the node that left is cleaned */
+        List<Object> keys = new ArrayList<>(updates.keySet());
+        assertEquals(Arrays.asList(PartitionManagerImpl.PARTITION_DELTA + 2), pm.getStaleDeltas(keys, members));
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> sorted = new ArrayList<>(list);
+        sorted.sort(null);
+        return sorted;
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.DeliverNotifyData;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyData;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyTrigger;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.NotifyTriggers;
+import org.hawkular.alerts.engine.impl.PartitionManagerImpl.PartitionEntry;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
+import org.infinispan.commons.marshall.AdvancedExternalizer;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.junit.Test;
+
+/**
+ * Testing the externalizers of the messages exchanged between nodes.
+ */
+public class PartitionExternalizersTest {
+
+    private static <T> byte[] write(AdvancedExternalizer<T> externalizer, T object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            externalizer.writeObject(output, object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T read(AdvancedExternalizer<T> externalizer, byte[] bytes) throws Exception {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return externalizer.readObject(input);
+        }
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void notifyDataCollection() throws Exception {
+        List<Data> data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, String> context = new HashMap<>();
+            context.put("host", "host" + (i % 2));
+            data.add(Data.forNumeric(new String("tenant1"), new String("dataId" + (i % 5)), i + 1, (double) i,
+                    context));
+        }
+        NotifyData notifyData = new NotifyData(1, data, Data.class);
+
+        PartitionExternalizers.NotifyDataExternalizer externalizer =
+                new PartitionExternalizers.NotifyDataExternalizer();
+        byte[] compact = write(externalizer, notifyData);
+        NotifyData read = read(externalizer, compact);
+
+        assertEquals(notifyData, read);
+        for (int i = 0; i < 100; i++) {
+            Data d = read.getDataCollection().stream().skip(i).findFirst().get();
+            assertEquals(data.get(i).getValue(), d.getValue());
+            assertEquals(data.get(i).getContext(), d.getContext());
+        }
+
+        /*
+            Repeated tenantIds and dataIds are held by a single instance on the receiver
+         */
+        @SuppressWarnings("unchecked")
+        List<Data> readData = (List<Data>) read.getDataCollection();
+        assertSame(readData.get(0).getTenantId(), readData.get(1).getTenantId());
+        assertSame(readData.get(0).getId(), readData.get(5).getId());
+
+        assertTrue(compact.length * 2 < serialize(notifyData).length);
+    }
+
+    @Test
+    public void notifyEventCollection() throws Exception {
+        List<Event> events = new ArrayList<>();
+        Event event = new Event("tenant1", "event1", 1L, "source1", "dataId1", "category1", "text1",
+                Collections.singletonMap("k1", "v1"), Collections.singletonMap("tag1", "value1"));
+        events.add(event);
+        events.add(new Event("tenant1", "event2", 2L, "dataId1", "category1", "text2", null));
+        Trigger trigger = new Trigger("tenant1", "trigger1", "trigger1");
+        events.add(new Event("tenant1", trigger, null, null));
+        Alert alert = new Alert("tenant1", trigger, null, null);
+        events.add(alert);
+        NotifyData notifyData = new NotifyData(2, events, Event.class);
+
+        PartitionExternalizers.NotifyDataExternalizer externalizer =
+                new PartitionExternalizers.NotifyDataExternalizer();
+        NotifyData read = read(externalizer, write(externalizer, notifyData));
+
+        assertEquals(notifyData, read);
+        @SuppressWarnings("unchecked")
+        List<Event> readEvents = (List<Event>) read.getEventCollection();
+        assertEquals("source1", readEvents.get(0).getDataSource());
+        assertEquals("text1", readEvents.get(0).getText());
+        assertEquals(event.getContext(), readEvents.get(0).getContext());
+        assertEquals(event.getTags(), readEvents.get(0).getTags());
+        assertEquals(trigger, readEvents.get(2).getTrigger());
+        assertEquals(Alert.class, readEvents.get(3).getClass());
+        assertEquals(alert.getStatus(), ((Alert) readEvents.get(3)).getStatus());
+    }
+
+    @Test
+    public void singleDataAndEvent() throws Exception {
+        Data data = Data.forString("tenant1", "dataId1", 1L, "value1");
+        PartitionExternalizers.DataExternalizer dataExternalizer = new PartitionExternalizers.DataExternalizer();
+        Data readData = read(dataExternalizer, write(dataExternalizer, data));
+        assertEquals(data, readData);
+        assertEquals("value1", readData.getValue());
+        assertNull(readData.getContext());
+
+        Event event = new Event("tenant1", "event1", "dataId1", "category1", "text1");
+        PartitionExternalizers.EventExternalizer eventExternalizer = new PartitionExternalizers.EventExternalizer();
+        Event readEvent = read(eventExternalizer, write(eventExternalizer, event));
+        assertEquals(event, readEvent);
+        assertEquals(event.getCtime(), readEvent.getCtime());
+        assertEquals(event.getEventType(), readEvent.getEventType());
+    }
+
+    @Test
+    public void notifyTriggers() throws Exception {
+        NotifyTrigger notifyTrigger = new NotifyTrigger(1, 2, Operation.UPDATE, "tenant1", "trigger1");
+        PartitionExternalizers.NotifyTriggerExternalizer triggerExternalizer =
+                new PartitionExternalizers.NotifyTriggerExternalizer();
+        assertEquals(notifyTrigger, read(triggerExternalizer, write(triggerExternalizer, notifyTrigger)));
+
+        Map<String, Map<String, Operation>> operations = new HashMap<>();
+        operations.computeIfAbsent("tenant1", t -> new HashMap<>()).put("trigger1", Operation.ADD);
+        operations.computeIfAbsent("tenant1", t -> new HashMap<>()).put("trigger2", Operation.REMOVE);
+        operations.computeIfAbsent("tenant2", t -> new HashMap<>()).put("trigger1", Operation.UPDATE);
+        NotifyTriggers notifyTriggers = new NotifyTriggers(1, null, operations);
+        PartitionExternalizers.NotifyTriggersExternalizer triggersExternalizer =
+                new PartitionExternalizers.NotifyTriggersExternalizer();
+        assertEquals(notifyTriggers, read(triggersExternalizer, write(triggersExternalizer, notifyTriggers)));
+
+        PartitionEntry entry = new PartitionEntry("tenant1", "trigger1");
+        PartitionExternalizers.PartitionEntryExternalizer entryExternalizer =
+                new PartitionExternalizers.PartitionEntryExternalizer();
+        assertEquals(entry, read(entryExternalizer, write(entryExternalizer, entry)));
+    }
+
+    /*
+        Objects marshalled by a registered externalizer are written with its id instead of its class name
+     */
+    private static Object marshall(StreamingMarshaller marshaller, Object object) throws Exception {
+        byte[] bytes = marshaller.objectToByteBuffer(object);
+        assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains(object.getClass().getName()));
+        return marshaller.objectFromByteBuffer(bytes);
+    }
+
+    @Test
+    public void distributedConfiguration() throws Exception {
+        Map<Integer, Class<?>> ids = new HashMap<>();
+        ids.put(3100, PartitionExternalizers.DataExternalizer.class);
+        ids.put(3101, PartitionExternalizers.EventExternalizer.class);
+        ids.put(3102, PartitionExternalizers.NotifyDataExternalizer.class);
+        ids.put(3103, PartitionExternalizers.NotifyTriggerExternalizer.class);
+        ids.put(3104, PartitionExternalizers.NotifyTriggersExternalizer.class);
+        ids.put(3105, PartitionExternalizers.PartitionEntryExternalizer.class);
+        ids.put(3106, PartitionExternalizers.DeliverNotifyDataExternalizer.class);
+
+        EmbeddedCacheManager cacheManager;
+        try (InputStream is = PartitionExternalizersTest.class.getResourceAsStream("/ispn-alerting-distributed.xml")) {
+            cacheManager = new DefaultCacheManager(is);
+        }
+        try {
+            Map<Integer, AdvancedExternalizer<?>> externalizers = cacheManager.getCacheManagerConfiguration()
+                    .serialization().advancedExternalizers();
+            ids.entrySet().stream().forEach(e -> {
+                assertTrue(externalizers.containsKey(e.getKey()));
+                assertEquals(e.getValue(), externalizers.get(e.getKey()).getClass());
+            });
+
+            StreamingMarshaller marshaller = cacheManager.getCache("data").getAdvancedCache().getComponentRegistry()
+                    .getCacheMarshaller();
+
+            Data data = Data.forNumeric("tenant1", "dataId1", 1L, 1.0);
+            assertEquals(data, marshall(marshaller, data));
+            Event event = new Event("tenant1", "event1", "dataId1", "category1", "text1");
+            assertEquals(event, marshall(marshaller, event));
+            NotifyData notifyData = new NotifyData(1, Collections.singletonList(data), Data.class);
+            assertEquals(notifyData, marshall(marshaller, notifyData));
+            NotifyData notifyEvents = new NotifyData(1, Collections.singletonList(event), Event.class);
+            assertEquals(notifyEvents, marshall(marshaller, notifyEvents));
+            NotifyTrigger notifyTrigger = new NotifyTrigger(1, 2, Operation.ADD, "tenant1", "trigger1");
+            assertEquals(notifyTrigger, marshall(marshaller, notifyTrigger));
+            NotifyTriggers notifyTriggers = new NotifyTriggers(1, 2, Collections.singletonMap("tenant1",
+                    Collections.singletonMap("trigger1", Operation.REMOVE)));
+            assertEquals(notifyTriggers, marshall(marshaller, notifyTriggers));
+            PartitionEntry entry = new PartitionEntry("tenant1", "trigger1");
+            assertEquals(entry, marshall(marshaller, entry));
+            DeliverNotifyData deliver = new DeliverNotifyData(notifyData);
+            assertEquals(notifyData, ((DeliverNotifyData) marshall(marshaller, deliver)).getNotifyData());
+        } finally {
+            cacheManager.stop();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.hawkular.alerts.api.model.condition.Condition;
+import org.hawkular.alerts.api.model.condition.MissingCondition;
+import org.hawkular.alerts.api.model.condition.ThresholdCondition;
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.trigger.Mode;
+import org.hawkular.alerts.api.model.trigger.Trigger;
+import org.hawkular.alerts.api.services.DefinitionsService;
+import org.hawkular.alerts.engine.util.MissingState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing that a trigger reload only replaces the changed conditions and dampenings, keeping the state of the rest.
+ */
+public class TriggerReloadTest {
+
+    private static final String TENANT = "tenant";
+    private static final String TRIGGER = "trigger";
+
+    AlertsEngineImpl engine;
+    DroolsRulesEngineImpl rules;
+    Trigger trigger;
+    List<Condition> conditions;
+    List<Dampening> dampenings;
+
+    /*
+        Only the trigger definitions are read by the engine, each read returns new instances as the backend does
+     */
+    private DefinitionsService definitions() {
+        return (DefinitionsService) Proxy.newProxyInstance(DefinitionsService.class.getClassLoader(),
+                new Class[] { DefinitionsService.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAllTriggers":
+                            return Collections.singletonList(new Trigger(trigger));
+                        case "getTrigger":
+                            return new Trigger(trigger);
+                        case "getTriggerConditions":
+                            List<Condition> copies = new ArrayList<>();
+                            for (Condition c : conditions) {
+                                copies.add(c instanceof MissingCondition ? new MissingCondition((MissingCondition) c)
+                                        : new ThresholdCondition((ThresholdCondition) c));
+                            }
+                            return copies;
+                        case "getTriggerDampenings":
+                            List<Dampening> dCopies = new ArrayList<>();
+                            dampenings.forEach(d -> dCopies.add(new Dampening(d)));
+                            return dCopies;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static ThresholdCondition threshold(double value) {
+        return new ThresholdCondition(TENANT, TRIGGER, Mode.FIRING, "d1", ThresholdCondition.Operator.GT, value);
+    }
+
+    private static MissingCondition missing(long interval) {
+        return new MissingCondition(TENANT, TRIGGER, Mode.AUTORESOLVE, "d2", interval);
+    }
+
+    @Before
+    public void before() {
+        System.setProperty("hawkular-alerts.engine-delay", "0");
+        System.setProperty("hawkular-alerts.engine-batch-delay", "0");
+        trigger = new Trigger(TENANT, TRIGGER, "Reloaded trigger");
+        trigger.setEnabled(true);
+        conditions = new ArrayList<>();
+        conditions.add(threshold(10.0));
+        conditions.add(missing(60000L));
+        dampenings = new ArrayList<>();
+        dampenings.add(Dampening.forStrict(TENANT, TRIGGER, Mode.FIRING, 3));
+        dampenings.add(Dampening.forStrict(TENANT, TRIGGER, Mode.AUTORESOLVE, 2));
+
+        engine = new AlertsEngineImpl();
+        rules = new DroolsRulesEngineImpl();
+        engine.setRules(rules);
+        engine.setDefinitions(definitions());
+        ExtensionsServiceImpl extensions = new ExtensionsServiceImpl();
+        extensions.init();
+        engine.setExtensionsService(extensions);
+        engine.reload();
+    }
+
+    @After
+    public void after() {
+        engine.shutdown();
+        System.clearProperty("hawkular-alerts.engine-delay");
+        System.clearProperty("hawkular-alerts.engine-batch-delay");
+    }
+
+    private Dampening loaded(Mode mode) {
+        return (Dampening) rules.getFact(Dampening.forStrict(TENANT, TRIGGER, mode, 1));
+    }
+
+    private Condition loaded(Condition condition) {
+        return (Condition) rules.getFact(condition);
+    }
+
+    private MissingState loadedMissingState() {
+        return (MissingState) rules.getFact(new MissingState(trigger, missing(1L)));
+    }
+
+    /*
+        Send true evaluations of the firing condition one by one, waiting until the firing dampening has counted each
+     */
+    private void sendTrueEvals(int numTrueEvals) throws Exception {
+        int initial = loaded(Mode.FIRING).getNumTrueEvals();
+        for (int i = 1; i <= numTrueEvals; i++) {
+            TreeSet<Data> data = new TreeSet<>();
+            data.add(Data.forNumeric(TENANT, "d1", System.currentTimeMillis(), 20.0));
+            engine.sendData(data);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (isPending(initial + i) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(initial + i, loaded(Mode.FIRING).getNumTrueEvals());
+        }
+    }
+
+    private boolean isPending(int expected) {
+        Dampening d = loaded(Mode.FIRING);
+        return null == d || d.getNumTrueEvals() < expected;
+    }
+
+    @Test
+    public void unchangedReloadKeepsState() throws Exception {
+        sendTrueEvals(2);
+        Dampening firing = loaded(Mode.FIRING);
+        Dampening autoResolve = loaded(Mode.AUTORESOLVE);
+        Condition condition = loaded(conditions.get(0));
+        MissingState missingState = loadedMissingState();
+
+        engine.reloadTrigger(TENANT, TRIGGER);
+
+        assertSame(firing, loaded(Mode.FIRING));
+        assertEquals(2, loaded(Mode.FIRING).getNumTrueEvals());
+        assertSame(autoResolve, loaded(Mode.AUTORESOLVE));
+        assertSame(condition, loaded(conditions.get(0)));
+        assertSame(missingState, loadedMissingState());
+    }
+
+    @Test
+    public void changedDampeningResetsOnlyItsState() throws Exception {
+        sendTrueEvals(2);
+        Dampening firing = loaded(Mode.FIRING);
+        Dampening autoResolve = loaded(Mode.AUTORESOLVE);
+        Condition condition = loaded(conditions.get(0));
+
+        /* only the autoresolve dampening changes, the partial firing state survives */
+        dampenings.set(1, Dampening.forStrict(TENANT, TRIGGER, Mode.AUTORESOLVE, 4));
+        engine.reloadTrigger(TENANT, TRIGGER);
+
+        assertSame(firing, loaded(Mode.FIRING));
+        assertEquals(2, loaded(Mode.FIRING).getNumTrueEvals());
+        assertNotSame(autoResolve, loaded(Mode.AUTORESOLVE));
+        assertEquals(4, loaded(Mode.AUTORESOLVE).getEvalTrueSetting());
+        assertSame(condition, loaded(conditions.get(0)));
+
+        /* the firing dampening changes, its state is reset */
+        autoResolve = loaded(Mode.AUTORESOLVE);
+        dampenings.set(0, Dampening.forStrict(TENANT, TRIGGER, Mode.FIRING, 5));
+        engine.reloadTrigger(TENANT, TRIGGER);
+
+        assertNotSame(firing, loaded(Mode.FIRING));
+        assertEquals(0, loaded(Mode.FIRING).getNumTrueEvals());
+        assertEquals(5, loaded(Mode.FIRING).getEvalTrueSetting());
+        assertSame(autoResolve, loaded(Mode.AUTORESOLVE));
+        assertSame(condition, loaded(conditions.get(0)));
+
+        /* the new dampening is evaluated */
+        sendTrueEvals(1);
+    }
+
+    @Test
+    public void changedConditionResetsDampenings() throws Exception {
+        sendTrueEvals(2);
+        Dampening firing = loaded(Mode.FIRING);
+        Dampening autoResolve = loaded(Mode.AUTORESOLVE);
+        MissingState missingState = loadedMissingState();
+
+        conditions.set(0, threshold(15.0));
+        engine.reloadTrigger(TENANT, TRIGGER);
+
+        assertEquals(15.0, ((ThresholdCondition) loaded(conditions.get(0))).getThreshold(), 0.0);
+        assertNotSame(firing, loaded(Mode.FIRING));
+        assertEquals(0, loaded(Mode.FIRING).getNumTrueEvals());
+        assertNotSame(autoResolve, loaded(Mode.AUTORESOLVE));
+        /* the MissingState of the unchanged MissingCondition is kept */
+        assertSame(missingState, loadedMissingState());
+    }
+
+    @Test
+    public void changedMissingConditionSwapsMissingState() throws Exception {
+        MissingState missingState = loadedMissingState();
+        assertEquals(60000L, missingState.getCondition().getInterval());
+
+        conditions.set(1, missing(30000L));
+        engine.reloadTrigger(TENANT, TRIGGER);
+
+        MissingState reloaded = loadedMissingState();
+        assertNotSame(missingState, reloaded);
+        assertEquals(30000L, reloaded.getCondition().getInterval());
+        assertTrue(reloaded.getTrigger() == engine.getLoadedTrigger(trigger));
+    }
+}
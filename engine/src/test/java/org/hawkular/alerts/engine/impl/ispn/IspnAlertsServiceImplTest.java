@@ -17,19 +17,27 @@
 package org.hawkular.alerts.engine.impl.ispn;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import org.hawkular.alerts.api.model.Severity;
 import org.hawkular.alerts.api.model.event.Alert;
 import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.paging.Order;
+import org.hawkular.alerts.api.model.paging.Page;
+import org.hawkular.alerts.api.model.paging.Pager;
+import org.hawkular.alerts.api.model.trigger.Trigger;
 import org.hawkular.alerts.api.services.AlertsCriteria;
 import org.hawkular.alerts.api.services.EventsCriteria;
 import org.hawkular.commons.log.MsgLogger;
@@ -489,6 +497,166 @@ public class IspnAlertsServiceImplTest extends IspnBaseServiceImplTest {
         deleteTestAlerts(numTenants);
     }
 
+    @Test
+    public void pageAlerts() throws Exception {
+        int numTenants = 2;
+        int numTriggers = 1;
+        int numAlerts = 50;
+        createTestAlerts(numTenants, numTriggers, numAlerts);
+
+        Set<String> tenantIds = new HashSet<>();
+        tenantIds.add("tenant0");
+        tenantIds.add("tenant1");
+
+        Pager pager = Pager.builder().withPageSize(10).withStartPage(1)
+                .orderBy("ctime", Order.Direction.DESCENDING).build();
+        Page<Alert> page = alerts.getAlerts(tenantIds, null, pager);
+        assertEquals(100, page.getTotalSize());
+        assertEquals(10, page.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("tenant1", page.get(i).getTenantId());
+            assertEquals(40 - i, page.get(i).getCtime());
+        }
+
+        pager = Pager.builder().withPageSize(10).withStartPage(5)
+                .orderBy("ctime", Order.Direction.ASCENDING).build();
+        page = alerts.getAlerts(tenantIds, null, pager);
+        assertEquals(100, page.getTotalSize());
+        assertEquals(10, page.size());
+        assertEquals("tenant1", page.get(0).getTenantId());
+        assertEquals(1, page.get(0).getCtime());
+
+        /*
+            Severity is sorted in memory, the page must be the same
+         */
+        pager = Pager.builder().withPageSize(20).withStartPage(0)
+                .orderBy("severity", Order.Direction.ASCENDING).build();
+        page = alerts.getAlerts("tenant0", null, pager);
+        assertEquals(50, page.getTotalSize());
+        assertEquals(20, page.size());
+        assertEquals(Severity.MEDIUM, page.get(19).getSeverity());
+
+        pager = Pager.builder().withPageSize(10).withStartPage(10)
+                .orderBy("ctime", Order.Direction.ASCENDING).build();
+        page = alerts.getAlerts("tenant0", null, pager);
+        assertEquals(50, page.size());
+
+        deleteTestAlerts(numTenants);
+    }
+
+    @Test
+    public void timePartitionedEvents() throws Exception {
+        IspnTimePartitions partitions = alerts.partitions;
+        alerts.partitions = new IspnTimePartitions("eventsTest", alerts.backend, 1);
+        alerts.partitions.init();
+        try {
+            /*
+                Events 0, 3, 6, ... are stored in the partition of day 1, events 1, 4, 7, ... in day 2, and so on
+             */
+            long day = TimeUnit.DAYS.toMillis(1);
+            List<Event> newEvents = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                newEvents.add(new Event("tenant0", "event" + i, day * (1 + i % 3) + i, "testDataSource",
+                        "testDataId", "category0", "text"));
+            }
+            alerts.addEvents(newEvents);
+            assertEquals(3, alerts.partitions.partitions(null, null).size());
+            assertEquals(1, alerts.partitions.partitions(2 * day, 3 * day - 1).size());
+            assertNull(alerts.backend.get(IspnPk.pkFromEventId("tenant0", "event0")));
+
+            assertEquals(30, alerts.getEvents("tenant0", null, null).size());
+            assertEquals(day * 2 + 4, alerts.getEvent("tenant0", "event4", false).getCtime());
+
+            EventsCriteria criteria = new EventsCriteria();
+            criteria.setStartTime(2 * day);
+            criteria.setEndTime(3 * day - 1);
+            List<Event> events = alerts.getEvents("tenant0", criteria, null);
+            assertEquals(10, events.size());
+            events.forEach(e -> assertEquals(1, e.getCtime() / day - 1));
+
+            /*
+                A page merged from the three partitions
+             */
+            Pager pager = Pager.builder().withPageSize(7).withStartPage(1)
+                    .orderBy("ctime", Order.Direction.ASCENDING).build();
+            Page<Event> page = alerts.getEvents("tenant0", null, pager);
+            assertEquals(30, page.getTotalSize());
+            assertEquals(7, page.size());
+            assertEquals(day + 21, page.get(0).getCtime());
+            assertEquals(day * 2 + 1, page.get(3).getCtime());
+
+            Map<String, String> tags = new HashMap<>();
+            tags.put("tag1", "value1");
+            alerts.addEventTags("tenant0", Arrays.asList("event5"), tags);
+            assertEquals("value1", alerts.getEvent("tenant0", "event5", true).getTags().get("tag1"));
+            assertEquals(30, alerts.getEvents("tenant0", null, null).size());
+
+            assertEquals(1, alerts.partitions.drop(2 * day));
+            assertEquals(20, alerts.getEvents("tenant0", null, null).size());
+            assertNull(alerts.getEvent("tenant0", "event0", true));
+
+            assertEquals(10, alerts.deleteEvents("tenant0", criteria));
+            assertEquals(10, alerts.getEvents("tenant0", null, null).size());
+        } finally {
+            deleteTestEvents(1);
+            alerts.partitions.drop(Long.MAX_VALUE);
+            alerts.partitions = partitions;
+        }
+    }
+
+    @Test
+    public void thinAlerts() throws Exception {
+        int numTenants = 1;
+        int numTriggers = 1;
+        int numAlerts = 5;
+        createTestAlerts(numTenants, numTriggers, numAlerts);
+
+        AlertsCriteria criteria = new AlertsCriteria();
+        criteria.setThin(true);
+        List<Alert> thinAlerts = alerts.getAlerts("tenant0", criteria, null);
+        assertEquals(5, thinAlerts.size());
+        for (Alert alert : thinAlerts) {
+            assertNull(alert.getEvalSets());
+            assertNotNull(alert.getTrigger());
+            assertNotNull(alert.getCurrentLifecycle());
+        }
+
+        List<Alert> fullAlerts = alerts.getAlerts("tenant0", null, null);
+        assertEquals(5, fullAlerts.size());
+        for (Alert alert : fullAlerts) {
+            assertEquals(1, alert.getEvalSets().size());
+        }
+
+        String alertId = fullAlerts.get(0).getAlertId();
+        assertNull(alerts.getAlert("tenant0", alertId, true).getEvalSets());
+        assertEquals(1, alerts.getAlert("tenant0", alertId, false).getEvalSets().size());
+
+        deleteTestAlerts(numTenants);
+        assertNull(alerts.backend.get(IspnPk.pkEvals("tenant0", alertId)));
+    }
+
+    @Test
+    public void deleteAlertsInChunks() throws Exception {
+        int numTenants = 1;
+        int numTriggers = 2;
+        int numAlerts = 50;
+        createTestAlerts(numTenants, numTriggers, numAlerts);
+
+        IspnBulkDelete bulkDelete = alerts.bulkDelete;
+        alerts.bulkDelete = new IspnBulkDelete(alerts.backend, alerts.queryFactory, 7);
+        try {
+            AlertsCriteria criteria = new AlertsCriteria();
+            criteria.setTriggerId("trigger0");
+            assertEquals(50, alerts.deleteAlerts("tenant0", criteria));
+            assertEquals(0, alerts.getAlerts("tenant0", criteria, null).size());
+            assertEquals(50, alerts.getAlerts("tenant0", null, null).size());
+        } finally {
+            alerts.bulkDelete = bulkDelete;
+        }
+
+        deleteTestAlerts(numTenants);
+    }
+
     @Test
     public void ackAlert() throws Exception {
         int numTenants = 1;
@@ -514,6 +682,84 @@ public class IspnAlertsServiceImplTest extends IspnBaseServiceImplTest {
         deleteTestAlerts(numTenants);
     }
 
+    @Test
+    public void ackAlertWithAsyncPersistence() throws Exception {
+        IspnAlertsServiceImpl syncAlerts = alerts;
+        System.setProperty("hawkular-alerts.backend-async-persistence", "true");
+        alerts = new IspnAlertsServiceImpl();
+        try {
+            alerts.init();
+
+            int numTenants = 1;
+            int numTriggers = 1;
+            int numAlerts = 5;
+            createTestAlerts(numTenants, numTriggers, numAlerts);
+            alerts.awaitPendingWrites();
+
+            AlertsCriteria criteria = new AlertsCriteria();
+            criteria.setStatus(Alert.Status.OPEN);
+
+            List<Alert> openAlerts = alerts.getAlerts("tenant0", criteria, null);
+            assertEquals(1, openAlerts.size());
+
+            String alertId = openAlerts.iterator().next().getAlertId();
+            alerts.ackAlerts("tenant0", Arrays.asList(alertId), "test", "ACK from async test");
+            alerts.shutdown();
+
+            Alert ackAlert = syncAlerts.getAlert("tenant0", alertId, false);
+            assertEquals(Alert.Status.ACKNOWLEDGED, ackAlert.getStatus());
+            assertEquals(numAlerts, syncAlerts.getAlerts("tenant0", null, null).size());
+        } finally {
+            System.clearProperty("hawkular-alerts.backend-async-persistence");
+            alerts.shutdown();
+            alerts = syncAlerts;
+            deleteTestAlerts(1);
+        }
+    }
+
+    @Test
+    public void persistAlertsAndEventsWithAsyncPersistence() throws Exception {
+        IspnAlertsServiceImpl syncAlerts = alerts;
+        System.setProperty("hawkular-alerts.backend-async-persistence", "true");
+        System.setProperty("hawkular-alerts.backend-async-persistence-queue", "1");
+        alerts = new IspnAlertsServiceImpl();
+        try {
+            alerts.init();
+
+            Trigger trigger = new Trigger("tenant0", "trigger0", "Trigger trigger0");
+            int numBatches = 20;
+            List<String> persisted = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < numBatches; i++) {
+                Alert alert = new Alert("tenant0", trigger, new ArrayList<>());
+                Event event = new Event("tenant0", "event-" + i, "data-" + i, "category", "text-" + i);
+                // the writer must have stored the alert and the event before the callback is invoked
+                alerts.persistAlertsAndEvents(Arrays.asList(alert), Arrays.asList(event), () -> {
+                    try {
+                        if (syncAlerts.getAlert("tenant0", alert.getAlertId(), true) != null
+                                && syncAlerts.getEvent("tenant0", event.getId(), true) != null) {
+                            persisted.add(alert.getAlertId());
+                        }
+                    } catch (Exception e) {
+                        log.error(e.getMessage());
+                    }
+                });
+            }
+            alerts.shutdown();
+
+            assertEquals(numBatches, persisted.size());
+            assertEquals(numBatches, syncAlerts.getAlerts("tenant0", null, null).size());
+        } finally {
+            System.clearProperty("hawkular-alerts.backend-async-persistence");
+            System.clearProperty("hawkular-alerts.backend-async-persistence-queue");
+            alerts.shutdown();
+            alerts = syncAlerts;
+            deleteTestAlerts(1);
+            EventsCriteria criteria = new EventsCriteria();
+            criteria.setCategory("category");
+            alerts.deleteEvents("tenant0", criteria);
+        }
+    }
+
     @Test
     public void addNote() throws Exception {
         int numTenants = 1;
@@ -21,13 +21,16 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.hawkular.alerts.api.exception.FoundException;
 import org.hawkular.alerts.api.exception.NotFoundException;
@@ -36,10 +39,17 @@ import org.hawkular.alerts.api.model.condition.AvailabilityCondition;
 import org.hawkular.alerts.api.model.condition.AvailabilityCondition.Operator;
 import org.hawkular.alerts.api.model.condition.Condition;
 import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.data.Data;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.model.export.Definitions;
+import org.hawkular.alerts.api.model.export.ImportType;
+import org.hawkular.alerts.api.model.trigger.FullTrigger;
 import org.hawkular.alerts.api.model.trigger.Mode;
 import org.hawkular.alerts.api.model.trigger.Trigger;
 import org.hawkular.alerts.api.model.trigger.TriggerType;
 import org.hawkular.alerts.api.services.TriggersCriteria;
+import org.hawkular.alerts.engine.service.AlertsEngine;
+import org.hawkular.alerts.engine.service.PartitionManager.Operation;
 import org.hawkular.commons.log.MsgLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.junit.BeforeClass;
@@ -363,4 +373,86 @@ public class IspnDefinitionsServiceImplTest extends IspnBaseServiceImplTest {
         definitions.removeGroupTrigger("tenant0", "groupTrigger0", false, false);
     }
 
+    @Test
+    public void batchNotificationsTest() throws Exception {
+        RecordingAlertsEngine engine = new RecordingAlertsEngine();
+        definitions.setAlertsEngine(engine);
+        try {
+            Trigger t1 = new Trigger(TENANT, "batch-trigger1", "batch-trigger1");
+            t1.setEnabled(true);
+            Trigger t2 = new Trigger(TENANT, "batch-trigger2", "batch-trigger2");
+            t2.setEnabled(true);
+            Condition c1 = new AvailabilityCondition(TENANT, "batch-trigger1", Mode.FIRING, "avail1", Operator.DOWN);
+            Condition c2 = new AvailabilityCondition(TENANT, "batch-trigger2", Mode.FIRING, "avail2", Operator.DOWN);
+            Definitions imported = new Definitions(Arrays.asList(
+                    new FullTrigger(t1, null, Collections.singletonList(c1)),
+                    new FullTrigger(t2, null, Collections.singletonList(c2))), null);
+            definitions.importDefinitions(TENANT, imported, ImportType.ALL);
+
+            /*
+                Trigger and conditions changes of the import are sent to the engine in a single notification
+             */
+            assertEquals(0, engine.single);
+            assertEquals(1, engine.batches.size());
+            Map<String, Operation> operations = engine.batches.get(0).get(TENANT);
+            assertNotNull(operations);
+            assertEquals(2, operations.size());
+            assertEquals(Operation.UPDATE, operations.get("batch-trigger1"));
+            assertEquals(Operation.UPDATE, operations.get("batch-trigger2"));
+
+            definitions.removeTrigger(TENANT, "batch-trigger1");
+            definitions.removeTrigger(TENANT, "batch-trigger2");
+            assertEquals(2, engine.single);
+            assertEquals(1, engine.batches.size());
+        } finally {
+            definitions.setAlertsEngine(null);
+        }
+    }
+
+    static class RecordingAlertsEngine implements AlertsEngine {
+        int single = 0;
+        List<Map<String, Map<String, Operation>>> batches = new ArrayList<>();
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public Trigger getLoadedTrigger(Trigger trigger) {
+            return null;
+        }
+
+        @Override
+        public void sendData(TreeSet<Data> data) throws Exception {
+        }
+
+        @Override
+        public void sendEvents(TreeSet<Event> events) throws Exception {
+        }
+
+        @Override
+        public void reload() {
+        }
+
+        @Override
+        public void addTrigger(String tenantId, String triggerId) {
+            single++;
+        }
+
+        @Override
+        public void reloadTrigger(String tenantId, String triggerId) {
+            single++;
+        }
+
+        @Override
+        public void removeTrigger(String tenantId, String triggerId) {
+            single++;
+        }
+
+        @Override
+        public void updateTriggers(Map<String, Map<String, Operation>> operations) {
+            batches.add(operations);
+        }
+    }
+
 }
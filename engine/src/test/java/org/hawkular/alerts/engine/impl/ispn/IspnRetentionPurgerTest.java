@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.impl.ispn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.alerts.api.model.event.Alert;
+import org.hawkular.alerts.api.model.event.Event;
+import org.hawkular.alerts.api.services.AlertsCriteria;
+import org.hawkular.alerts.engine.impl.ispn.IspnRetentionPurger.Kind;
+import org.hawkular.alerts.engine.impl.ispn.IspnRetentionPurger.Retention;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class IspnRetentionPurgerTest extends IspnBaseServiceImplTest {
+
+    static IspnRetentionPurger purger;
+
+    @BeforeClass
+    public static void init() {
+        System.setProperty("hawkular.data", "./target/ispn");
+        alerts = new IspnAlertsServiceImpl();
+        alerts.init();
+        actions = new IspnActionsServiceImpl();
+        actions.init();
+        purger = new IspnRetentionPurger();
+        purger.setAlertsService(alerts);
+        purger.setActionsService(actions);
+        purger.init();
+    }
+
+    @Test
+    public void purgeEventsByAgeAndCount() throws Exception {
+        createTestEvents(2, 1, 50);
+
+        purger.setRetention(Kind.EVENTS, null, new Retention(1, 0));
+        purger.setRetention(Kind.EVENTS, "tenant1", new Retention(1, 5));
+        try {
+            /*
+                Events have ctime 1..49 (the first one gets the current time), the ones before 30 are out of a 1 day
+                retention
+             */
+            purger.purge(TimeUnit.DAYS.toMillis(1) + 30);
+
+            List<Event> events = alerts.getEvents("tenant0", null, null);
+            assertEquals(21, events.size());
+            events.forEach(e -> assertEquals(true, e.getCtime() >= 30));
+
+            events = alerts.getEvents("tenant1", null, null);
+            assertEquals(5, events.size());
+            events.forEach(e -> assertEquals(true, e.getCtime() >= 46));
+        } finally {
+            purger.setRetention(Kind.EVENTS, null, Retention.UNLIMITED);
+            purger.setRetention(Kind.EVENTS, "tenant1", null);
+            deleteTestEvents(2);
+        }
+    }
+
+    @Test
+    public void dropPartitionsOutOfRetention() throws Exception {
+        IspnTimePartitions partitions = alerts.partitions;
+        alerts.partitions = new IspnTimePartitions("eventsPurgeTest", alerts.backend, 1);
+        alerts.partitions.init();
+        purger.setRetention(Kind.EVENTS, null, new Retention(1, 0));
+        try {
+            long day = TimeUnit.DAYS.toMillis(1);
+            List<Event> newEvents = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                newEvents.add(new Event("tenant0", "event" + i, day * (1 + i % 3) + i, "testDataSource",
+                        "testDataId", "category0", "text"));
+            }
+            alerts.addEvents(newEvents);
+            assertEquals(3, alerts.partitions.partitions(null, null).size());
+
+            /*
+                The partition of day 1 is dropped, no event of day 2 is out of retention
+             */
+            purger.purge(3 * day + 1);
+            assertEquals(2, alerts.partitions.partitions(null, null).size());
+            assertEquals(20, alerts.getEvents("tenant0", null, null).size());
+        } finally {
+            purger.setRetention(Kind.EVENTS, null, Retention.UNLIMITED);
+            deleteTestEvents(1);
+            alerts.partitions.drop(Long.MAX_VALUE);
+            alerts.partitions = partitions;
+        }
+    }
+
+    @Test
+    public void dropWaitsForPartitionReaders() throws Exception {
+        IspnTimePartitions partitions = new IspnTimePartitions("eventsDropTest", alerts.backend, 1);
+        partitions.init();
+        long day = TimeUnit.DAYS.toMillis(1);
+        IspnTimePartitions.Partition partition = partitions.partition(day);
+        partition.getCache().put("key", "value");
+
+        AtomicInteger dropped = new AtomicInteger(-1);
+        Thread dropper = new Thread(() -> dropped.set(partitions.drop(3 * day)));
+        partitions.acquire();
+        try {
+            dropper.start();
+            /*
+                The dropped partition is no longer found, but its cache is kept while it is held
+             */
+            dropper.join(500);
+            assertTrue(dropper.isAlive());
+            assertEquals(0, partitions.partitions(null, null).size());
+            assertEquals("value", partition.getCache().get("key"));
+        } finally {
+            partitions.release();
+        }
+        dropper.join(10000);
+        assertEquals(1, dropped.get());
+        assertFalse(alerts.backend.getCacheManager().cacheExists(partition.getName()));
+    }
+
+    @Test
+    public void purgeResolvedAlertsByCount() throws Exception {
+        /*
+            Alerts 0, 3, 6, ... 27 are resolved, with stime alert + 1
+         */
+        createTestAlerts(1, 1, 30);
+
+        purger.setRetention(Kind.ALERTS, null, new Retention(0, 4));
+        try {
+            purger.purge(System.currentTimeMillis());
+
+            assertEquals(24, alerts.getAlerts("tenant0", null, null).size());
+
+            AlertsCriteria criteria = new AlertsCriteria();
+            criteria.setStatus(Alert.Status.RESOLVED);
+            List<Alert> resolved = alerts.getAlerts("tenant0", criteria, null);
+            assertEquals(4, resolved.size());
+            resolved.forEach(a -> assertEquals(true, a.getCurrentLifecycle().getStime() >= 19));
+        } finally {
+            purger.setRetention(Kind.ALERTS, null, Retention.UNLIMITED);
+            deleteTestAlerts(1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void emptyTest() {
+        Histogram h = new Histogram();
+        Map<String, Long> snapshot = h.getSnapshot();
+        assertEquals(0L, (long) snapshot.get("count"));
+        assertEquals(0L, (long) snapshot.get("min"));
+        assertEquals(0L, (long) snapshot.get("max"));
+        assertEquals(0L, (long) snapshot.get("p99"));
+    }
+
+    @Test
+    public void exactLowValuesTest() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 50; i++) {
+            h.record(i);
+        }
+        assertEquals(50, h.getCount());
+        assertEquals(1, h.getMin());
+        assertEquals(50, h.getMax());
+        assertEquals(25, h.getMean());
+        assertEquals(25, h.getValueAtPercentile(50.0));
+        assertEquals(45, h.getValueAtPercentile(90.0));
+        assertEquals(50, h.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void relativeErrorTest() {
+        Histogram h = new Histogram();
+        for (long i = 1; i <= 1000000; i++) {
+            h.record(i);
+        }
+        assertEquals(1000000, h.getMax());
+        checkError(500000, h.getValueAtPercentile(50.0));
+        checkError(990000, h.getValueAtPercentile(99.0));
+        checkError(999000, h.getValueAtPercentile(99.9));
+    }
+
+    @Test
+    public void bucketsTest() {
+        long[] values = { 0, 63, 64, 65, 127, 128, 1000, 123456789L, Long.MAX_VALUE };
+        for (long value : values) {
+            long highest = Histogram.highestEquivalentValue(Histogram.bucket(value));
+            assertTrue(value + " -> " + highest, highest >= value);
+            assertTrue(value + " -> " + highest, highest - value <= value / 32);
+        }
+        Histogram h = new Histogram();
+        h.record(Long.MAX_VALUE);
+        h.record(-1);
+        assertEquals(0, h.getMin());
+        assertEquals(Long.MAX_VALUE, h.getValueAtPercentile(100.0));
+    }
+
+    private void checkError(long expected, long actual) {
+        assertTrue(expected + " vs " + actual, actual >= expected);
+        assertTrue(expected + " vs " + actual, (actual - expected) <= expected / 32);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015-2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.alerts.engine.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.hawkular.alerts.api.model.dampening.Dampening;
+import org.hawkular.alerts.api.model.trigger.Mode;
+import org.junit.Test;
+
+public class TimeoutSetTest {
+
+    private TimeoutSet<Dampening> newTimeouts() {
+        return new TimeoutSet<>(d -> d.getTrueEvalsStartTime() + d.getEvalTimeSetting());
+    }
+
+    private Dampening timeout(String triggerId, long start, long evalTime) {
+        Dampening d = Dampening.forStrictTimeout("tenant", triggerId, Mode.FIRING, evalTime);
+        d.setTrueEvalsStartTime(start);
+        return d;
+    }
+
+    @Test
+    public void expiredInDeadlineOrder() {
+        TimeoutSet<Dampening> timeouts = newTimeouts();
+        Dampening d1 = timeout("t1", 1000, 500);
+        Dampening d2 = timeout("t2", 1000, 100);
+        Dampening d3 = timeout("t3", 2000, 1000);
+        timeouts.addAll(Arrays.asList(d1, d2, d3));
+
+        assertEquals(3, timeouts.size());
+        assertEquals(1100, timeouts.nextDeadline());
+        assertTrue(timeouts.expired(1099).isEmpty());
+        assertEquals(Arrays.asList(d2), timeouts.expired(1100));
+        assertEquals(Arrays.asList(d2, d1), timeouts.expired(2999));
+        assertEquals(Arrays.asList(d2, d1, d3), timeouts.expired(3000));
+
+        // expired items are kept until removed
+        assertTrue(timeouts.remove(d2));
+        assertFalse(timeouts.remove(d2));
+        assertEquals(Arrays.asList(d1, d3), timeouts.expired(3000));
+        assertEquals(1500, timeouts.nextDeadline());
+
+        timeouts.clear();
+        assertTrue(timeouts.isEmpty());
+        assertEquals(Long.MAX_VALUE, timeouts.nextDeadline());
+    }
+
+    @Test
+    public void addReschedulesAndReplaces() {
+        TimeoutSet<Dampening> timeouts = newTimeouts();
+        Dampening d1 = timeout("t1", 1000, 500);
+        assertTrue(timeouts.add(d1));
+
+        Dampening d1Reloaded = timeout("t1", 3000, 500);
+        assertFalse(timeouts.add(d1Reloaded));
+        assertEquals(1, timeouts.size());
+        assertTrue(timeouts.expired(1500).isEmpty());
+        assertSame(d1Reloaded, timeouts.expired(3500).get(0));
+    }
+
+    @Test
+    public void deadlineMovedLaterIsRescheduled() {
+        TimeoutSet<Dampening> timeouts = newTimeouts();
+        Dampening d1 = timeout("t1", 1000, 500);
+        timeouts.add(d1);
+
+        d1.setTrueEvalsStartTime(2000);
+        assertTrue(timeouts.expired(1500).isEmpty());
+        assertEquals(2500, timeouts.nextDeadline());
+        assertEquals(Arrays.asList(d1), timeouts.expired(2500));
+    }
+
+    @Test
+    public void iteratorRemove() {
+        TimeoutSet<Dampening> timeouts = newTimeouts();
+        timeouts.add(timeout("t1", 1000, 500));
+        timeouts.add(timeout("t2", 1000, 500));
+
+        Iterator<Dampening> it = timeouts.iterator();
+        while (it.hasNext()) {
+            if (it.next().getTriggerId().equals("t1")) {
+                it.remove();
+            }
+        }
+        assertEquals(1, timeouts.size());
+        assertEquals("t2", timeouts.expired(1500).get(0).getTriggerId());
+    }
+}
@@ -22,14 +22,18 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.hawkular.alerts.api.doc.DocEndpoint;
+import org.hawkular.alerts.api.doc.DocParameter;
+import org.hawkular.alerts.api.doc.DocParameters;
 import org.hawkular.alerts.api.doc.DocPath;
 import org.hawkular.alerts.api.doc.DocResponse;
 import org.hawkular.alerts.api.doc.DocResponses;
+import org.hawkular.alerts.api.model.trigger.TriggerProfile;
 import org.hawkular.alerts.api.services.StatusService;
 import org.hawkular.alerts.engine.StandaloneAlerts;
 import org.hawkular.alerts.handlers.util.ManifestUtil;
 import org.hawkular.alerts.handlers.util.ResponseUtil;
 import org.hawkular.alerts.handlers.util.ResponseUtil.ApiError;
+import org.hawkular.alerts.handlers.util.ResponseUtil.BadRequestException;
 import org.hawkular.commons.log.MsgLogger;
 import org.hawkular.commons.log.MsgLogging;
 import org.hawkular.handlers.RestEndpoint;
@@ -50,6 +54,8 @@ public class StatusHandler implements RestHandler {
     static final String STARTED = "STARTED";
     static final String FAILED = "FAILED";
     static final String DISTRIBUTED = "distributed";
+    static final String PARAM_TOP = "top";
+    static final int DEFAULT_TOP = 10;
 
     StatusService statusService;
     ManifestUtil manifestUtil;
@@ -63,6 +69,8 @@ public class StatusHandler implements RestHandler {
     public void initRoutes(String baseUrl, Router router) {
         String path = baseUrl + "/status";
         router.get(path).handler(this::status);
+        router.get(path + "/metrics").handler(this::metrics);
+        router.get(path + "/profiles").handler(this::profiles);
     }
 
     @DocPath(method = GET,
@@ -99,4 +107,59 @@ public class StatusHandler implements RestHandler {
                     future.complete(status);
                 }, res -> ResponseUtil.result(routing, res));
     }
+
+    @DocPath(method = GET,
+            path = "/metrics",
+            name = "Get metrics of the engine pipeline on this node.",
+            notes = "Counters, gauges and histograms of incoming data filtering, pending queue, rules evaluations, " +
+                    "persistence and actions dispatch. + \n" +
+                    "Histograms are flattened as <name>.count, <name>.min, <name>.max, <name>.mean, <name>.p50, " +
+                    "<name>.p90, <name>.p99 and <name>.p999. + \n" +
+                    "Durations are in microseconds unless the name states another unit.")
+    @DocResponses(value = {
+            @DocResponse(code = 200, message = "Success.", response = Long.class, responseContainer = "Map"),
+            @DocResponse(code = 500, message = "Internal server error.", response = ApiError.class)
+    })
+    public void metrics(RoutingContext routing) {
+        routing.vertx()
+                .executeBlocking(future -> future.complete(statusService.getMetrics()),
+                        res -> ResponseUtil.result(routing, res));
+    }
+
+    @DocPath(method = GET,
+            path = "/profiles",
+            name = "Get the costliest triggers of the tenant evaluated by the rules engine on this node.",
+            notes = "Profiling is opt-in, enabled with hawkular-alerts.rules-engine-profiling=true. + \n" +
+                    "Only the triggers of the tenant in the Hawkular-Tenant header are returned. + \n" +
+                    "Triggers are sorted by cumulative evaluation time, costliest first. + \n" +
+                    "An empty list is returned if profiling is not enabled.")
+    @DocParameters(value = {
+            @DocParameter(name = "top", type = Integer.class,
+                    description = "Max number of triggers to return.",
+                    allowableValues = "A positive integer, 10 by default.")
+    })
+    @DocResponses(value = {
+            @DocResponse(code = 200, message = "Success.", response = TriggerProfile.class, responseContainer = "List"),
+            @DocResponse(code = 400, message = "Bad Request/Invalid Parameters.", response = ApiError.class),
+            @DocResponse(code = 500, message = "Internal server error.", response = ApiError.class)
+    })
+    public void profiles(RoutingContext routing) {
+        routing.vertx()
+                .executeBlocking(future -> {
+                    String tenantId = ResponseUtil.checkTenant(routing);
+                    int top = DEFAULT_TOP;
+                    String param = routing.request().params().get(PARAM_TOP);
+                    if (param != null) {
+                        try {
+                            top = Integer.parseInt(param);
+                        } catch (NumberFormatException e) {
+                            throw new BadRequestException("top must be a positive integer: " + param);
+                        }
+                        if (top <= 0) {
+                            throw new BadRequestException("top must be a positive integer: " + param);
+                        }
+                    }
+                    future.complete(statusService.getTriggerProfiles(tenantId, top));
+                }, res -> ResponseUtil.result(routing, res));
+    }
 }